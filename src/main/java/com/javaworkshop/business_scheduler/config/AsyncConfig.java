@@ -0,0 +1,52 @@
+package com.javaworkshop.business_scheduler.config;
+
+import com.javaworkshop.business_scheduler.dto.ExecutorStats;
+import com.javaworkshop.business_scheduler.util.InstrumentedThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// This class configures the pool the outbox sends the emails on. It has named threads and a bounded queue, so a slow or unreachable mail server cannot pile up tasks
+// without limit. Its counters are checked periodically and reported only if the pool rejected tasks or its queue
+// is filling up, the owner can read them at any time. On shutdown the queued emails are let finish.
+// Being an Executor bean, it would keep Spring Boot from creating the pool the streamed responses run on,
+// so that one is forced in application.properties.
+@Configuration
+public class AsyncConfig {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+
+    private final double QUEUE_WARNING_RATIO = 0.8; // the share of the queue that is reported as filling up
+    private final InstrumentedThreadPoolExecutor mailExecutor;
+    private long reportedRejectedCount; // the rejections that were reported already
+
+    public AsyncConfig(@Value("${mail.executor.threads:4}") int threads,
+                       @Value("${mail.executor.queue-capacity:100}") int queueCapacity,
+                       @Value("${mail.executor.rejection-policy:CALLER_RUNS}")
+                       InstrumentedThreadPoolExecutor.RejectionPolicy rejectionPolicy,
+                       @Value("${mail.executor.shutdown-seconds:30}") long shutdownSeconds) {
+        this.mailExecutor = new InstrumentedThreadPoolExecutor("mail-sender", threads, queueCapacity,
+                rejectionPolicy, Duration.ofSeconds(shutdownSeconds));
+    }
+
+    @Bean(name = MAIL_EXECUTOR, destroyMethod = "shutdownGracefully")
+    public InstrumentedThreadPoolExecutor mailExecutor() {
+        return mailExecutor;
+    }
+
+    // reports the counters of the mail pool if it rejected tasks since the last check or its queue is filling up,
+    // e.g. while the mail server is down
+    @Scheduled(fixedRateString = "${mail.executor.stats-minutes:5}", timeUnit = TimeUnit.MINUTES)
+    public void reportTrouble() {
+        ExecutorStats stats = mailExecutor.getStats();
+        boolean rejected = stats.getRejectedCount() > reportedRejectedCount;
+        if (rejected || stats.getQueueDepth() >= stats.getQueueCapacity() * QUEUE_WARNING_RATIO) {
+            System.err.println("The mail executor is overloaded: " + stats);
+            reportedRejectedCount = stats.getRejectedCount();
+        }
+    }
+}
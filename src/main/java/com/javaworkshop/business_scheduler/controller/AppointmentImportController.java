@@ -0,0 +1,68 @@
+package com.javaworkshop.business_scheduler.controller;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportResult;
+import com.javaworkshop.business_scheduler.imports.AppointmentImportReader;
+import com.javaworkshop.business_scheduler.service.AppointmentImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// This class handles the bulk import of appointments, such as the history of a business moving from another scheduler.
+// The file is sent as the request body so it is read as it arrives instead of being buffered as an upload.
+@RestController
+@RequestMapping("/owner-dashboard/appointments/import")
+public class AppointmentImportController {
+
+    private final AppointmentImportService appointmentImportService;
+
+    @Autowired
+    public AppointmentImportController(AppointmentImportService appointmentImportService) {
+        this.appointmentImportService = appointmentImportService;
+    }
+
+    // imports the appointments of a file in one of the export formats, optionally gzipped,
+    // returns how many rows were imported, how many of the chunks they were inserted in failed
+    // and why the other rows were rejected
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> importAppointments(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream requestBody) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        AppointmentImportReader importReader = appointmentImportService.findImportReader(format);
+        if (importReader == null) {
+            body.put("error", "Unsupported import format: " + format);
+            return ResponseEntity.badRequest().body(body);
+        }
+
+        AppointmentImportResult result;
+        try {
+            InputStream inputStream = "gzip".equalsIgnoreCase(contentEncoding)
+                ? new GZIPInputStream(requestBody) : requestBody;
+            result = appointmentImportService.importAppointments(inputStream, importReader);
+        } catch (IOException e) {
+            body.put("error", "The file could not be read: " + e.getMessage());
+            return ResponseEntity.badRequest().body(body);
+        }
+
+        body.put("rows", result.getRowCount());
+        body.put("imported", result.getImportedCount());
+        body.put("createdCustomers", result.getCreatedCustomerCount());
+        body.put("chunks", result.getChunkCount());
+        body.put("failedChunks", result.getFailedChunkCount());
+        body.put("rejected", result.getErrorCount());
+        body.put("errors", result.getErrors());
+        return ResponseEntity.ok(body);
+    }
+}
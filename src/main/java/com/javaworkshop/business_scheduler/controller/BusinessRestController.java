@@ -1,21 +1,39 @@
 package com.javaworkshop.business_scheduler.controller;
 
+import com.javaworkshop.business_scheduler.config.AsyncConfig;
+import com.javaworkshop.business_scheduler.dto.ExecutorStats;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.SlotHold;
 import com.javaworkshop.business_scheduler.service.AppointmentService;
+import com.javaworkshop.business_scheduler.service.BookingService;
 import com.javaworkshop.business_scheduler.service.BusinessHourService;
 import com.javaworkshop.business_scheduler.service.ServiceService;
+import com.javaworkshop.business_scheduler.service.SlotHoldLimitException;
+import com.javaworkshop.business_scheduler.service.SlotHoldService;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
+import com.javaworkshop.business_scheduler.util.InstrumentedThreadPoolExecutor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 // This class handles REST API requests related to business operations.
@@ -23,17 +41,30 @@ import java.util.UUID;
 @RequestMapping("/api")
 public class BusinessRestController {
 
+    private final String SLOT_HOLDER_ATTRIBUTE = "slotHolderId"; // the session attribute identifying its holds
     private final ServiceService serviceService;
     private final AppointmentService appointmentService;
     private final BusinessHourService businessHourService;
+    private final BookingService bookingService;
+    private final SlotHoldService slotHoldService;
+    private final AvailabilityCache availabilityCache;
+    private final InstrumentedThreadPoolExecutor mailExecutor;
 
     @Autowired
     public BusinessRestController(ServiceService serviceService,
                                   AppointmentService appointmentService,
-                                  BusinessHourService businessHourService) {
+                                  BusinessHourService businessHourService,
+                                  BookingService bookingService,
+                                  SlotHoldService slotHoldService,
+                                  AvailabilityCache availabilityCache,
+                                  @Qualifier(AsyncConfig.MAIL_EXECUTOR) InstrumentedThreadPoolExecutor mailExecutor) {
         this.serviceService = serviceService;
         this.appointmentService = appointmentService;
         this.businessHourService = businessHourService;
+        this.bookingService = bookingService;
+        this.slotHoldService = slotHoldService;
+        this.availabilityCache = availabilityCache;
+        this.mailExecutor = mailExecutor;
     }
 
     // returns a list of available time slots for a given service on a specific date
@@ -50,4 +81,65 @@ public class BusinessRestController {
         return appointmentService.getAvailableSlots(service, date, businessHours);
     }
 
+    // returns the available time slots for a given service on every date of the booking window
+    @GetMapping("general/available-slots-by-date")
+    public Map<LocalDate, List<LocalTime>> getAvailableSlotsInBookingWindow(@RequestParam("sid") UUID serviceId) {
+        Service service = serviceService.findById(serviceId);
+        if (service == null) {
+            return new LinkedHashMap<>(); // return empty map if service not found
+        }
+        List<BusinessHour> businessHours = businessHourService.findAll();
+        return appointmentService.getAvailableSlotsInBookingWindow(service, businessHours);
+    }
+
+    // holds the slot of a given service that starts at a given time while the booking form is being completed,
+    // a session holds a single slot at a time, so holding another one releases the previous hold
+    @PostMapping("general/slot-holds")
+    public ResponseEntity<Map<String, Object>> holdSlot(
+            @RequestParam("sid") UUID serviceId,
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            HttpSession session,
+            HttpServletRequest request) {
+        Service service = serviceService.findById(serviceId);
+        if (service == null) {
+            return ResponseEntity.notFound().build();
+        }
+        UUID holderId = (UUID) session.getAttribute(SLOT_HOLDER_ATTRIBUTE);
+        if (holderId == null) {
+            holderId = UUID.randomUUID();
+            session.setAttribute(SLOT_HOLDER_ATTRIBUTE, holderId);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        try {
+            SlotHold hold = bookingService.holdSlot(service, startTime, holderId, request.getRemoteAddr());
+            body.put("holdId", hold.getId());
+            body.put("expiresAt", hold.getExpiresAt());
+            return ResponseEntity.ok(body);
+        } catch (SlotHoldLimitException e) {
+            body.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body); // the client holds too many slots
+        } catch (RuntimeException e) {
+            body.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body); // the slot is taken or held by someone else
+        }
+    }
+
+    // releases a given slot hold of the session before it expires
+    @DeleteMapping("general/slot-holds")
+    public ResponseEntity<Void> releaseSlotHold(@RequestParam("hid") UUID holdId, HttpSession session) {
+        slotHoldService.release(holdId, (UUID) session.getAttribute(SLOT_HOLDER_ATTRIBUTE));
+        return ResponseEntity.noContent().build();
+    }
+
+    // returns the hit and miss statistics of the available slots cache
+    @GetMapping("owner/availability-cache/stats")
+    public Map<String, Object> getAvailabilityCacheStats() {
+        return availabilityCache.getStats();
+    }
+
+    @GetMapping("owner/mail-executor/stats")
+    public ExecutorStats getMailExecutorStats() {
+        return mailExecutor.getStats();
+    }
+
 }
@@ -2,7 +2,6 @@ package com.javaworkshop.business_scheduler.controller;
 
 import com.javaworkshop.business_scheduler.dto.CustomerDetailsForm;
 import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
-import com.javaworkshop.business_scheduler.model.Appointment;
 import com.javaworkshop.business_scheduler.model.Customer;
 import com.javaworkshop.business_scheduler.service.AppointmentService;
 import com.javaworkshop.business_scheduler.service.CustomerService;
@@ -31,33 +30,24 @@ public class CustomerController {
         this.appointmentService = appointmentService;
     }
 
-    // shows the customer appointments
+    // shows the customer appointments, read by a single query keyed by the username
     @GetMapping("/appointments")
     public String showAppointments(Model model, Authentication authentication) {
-        UUID customerId = customerService.findIdByUsername(authentication.getName());
-        List<Appointment> customerAppointments = appointmentService.findActiveAppointmentsByCustomerId(customerId);
         List<DashboardAppointment> dashboardAppointments =
-                DashboardAppointment.fromAppointmentList(customerAppointments);
+                appointmentService.findActiveDashboardAppointmentsByUsername(authentication.getName());
 
         model.addAttribute("appointments", dashboardAppointments);
 
         return "customer/appointments";
     }
 
-    // cancels an appointment
+    // cancels an appointment only if it belongs to the customer
     @GetMapping("/appointments/cancel")
     public String cancelAppointment(@RequestParam("aid") UUID appointmentId,
                                     Authentication authentication) {
 
-        UUID customerId = customerService.findIdByUsername(authentication.getName());
-        Appointment appointment = appointmentService.findById(appointmentId);
-        if (appointment == null) {
-            return "error/404"; // if the appointment does not exist return 404 error page
-        }
-
-        // cancel the appointment only if it belongs to the customer
-        if (appointment.getCustomer().getId().equals(customerId)) {
-            appointmentService.deleteById(appointmentId);
+        if (!appointmentService.cancelCustomerAppointment(appointmentId, authentication.getName())) {
+            return "error/404"; // the appointment does not exist or belongs to another customer
         }
 
         return "redirect:/customer-dashboard/appointments";
@@ -0,0 +1,132 @@
+package com.javaworkshop.business_scheduler.controller;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.ExportJob;
+import com.javaworkshop.business_scheduler.service.AppointmentService;
+import com.javaworkshop.business_scheduler.service.ExportJobService;
+import com.javaworkshop.business_scheduler.service.ExportJobsBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// This class handles appointment exports that run in the background:
+// submitting an export, polling its progress and downloading the finished file.
+@RestController
+@RequestMapping("/owner-dashboard/appointments/exports")
+public class ExportJobController {
+
+    private final String JOBS_PATH = "/owner-dashboard/appointments/exports/";
+    private final AppointmentService appointmentService;
+    private final ExportJobService exportJobService;
+    private final MessageSource messageSource;
+
+    @Autowired
+    public ExportJobController(AppointmentService appointmentService,
+                               ExportJobService exportJobService,
+                               MessageSource messageSource) {
+        this.appointmentService = appointmentService;
+        this.exportJobService = exportJobService;
+        this.messageSource = messageSource;
+    }
+
+    // submits an export with the same parameters as the direct export, returns the job to poll
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitExport(
+            @RequestParam(value = "active", defaultValue = "false") boolean activeAppointmentsOnly,
+            @RequestParam(value = "format", defaultValue = "xml") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "incremental", defaultValue = "false") boolean incremental,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            Locale locale) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        AppointmentExportWriter exportWriter = appointmentService.findExportWriter(format);
+        if (exportWriter == null) {
+            body.put("error", "Unsupported export format: " + format);
+            return ResponseEntity.badRequest().body(body);
+        }
+        AppointmentExportFilter filter;
+        try {
+            filter = AppointmentExportFilter.of(activeAppointmentsOnly, from, to, incremental, cursor);
+        } catch (IllegalArgumentException e) {
+            body.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(body);
+        }
+
+        ExportJob job;
+        try {
+            job = exportJobService.submit(exportWriter, filter, gzip);
+        } catch (ExportJobsBusyException e) {
+            body.put("error", messageSource.getMessage(e.getMessage(), null, locale));
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create(JOBS_PATH + job.getId()))
+                .body(toBody(job));
+    }
+
+    // returns the status and progress of an export
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getExport(@PathVariable("jobId") UUID jobId) {
+        ExportJob job = exportJobService.findById(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build(); // the job does not exist or was already cleaned up
+        }
+        return ResponseEntity.ok(toBody(job));
+    }
+
+    // downloads the file of a completed export
+    @GetMapping("/{jobId}/file")
+    public ResponseEntity<Resource> downloadExport(@PathVariable("jobId") UUID jobId) {
+        ExportJob job = exportJobService.findById(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // the file is not ready
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName())
+                .contentType(MediaType.parseMediaType(job.getContentType()))
+                .contentLength(job.getFileSize())
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    private Map<String, Object> toBody(ExportJob job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", job.getId());
+        body.put("status", job.getStatus());
+        body.put("rowsWritten", job.getRowsWritten().get());
+        body.put("createdAt", job.getCreatedAt());
+        body.put("finishedAt", job.getFinishedAt());
+        if (job.getCursor() != null) {
+            body.put("cursor", job.getCursor().toString());
+        }
+        if (job.getStatus() == ExportJob.Status.COMPLETED) {
+            body.put("fileSize", job.getFileSize());
+            body.put("downloadUrl", JOBS_PATH + job.getId() + "/file");
+        }
+        return body;
+    }
+}
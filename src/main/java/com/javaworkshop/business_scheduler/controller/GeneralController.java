@@ -94,6 +94,7 @@ public class GeneralController {
                             appointment.getStartTime().toLocalTime()
                     )
             );
+            form.setAppointmentVersion(appointment.getVersion()); // sent back so a concurrent change is detected
         }
 
         model.addAttribute("form", form);
@@ -106,6 +107,7 @@ public class GeneralController {
     @PostMapping("book/processBooking")
     public String processBooking(@RequestParam("sid") UUID serviceId,
                                  @RequestParam(value = "aid", required = false) UUID appointmentId,
+                                 @RequestParam(value = "hid", required = false) UUID holdId,
                                  @ModelAttribute("form") @Valid BookAppointmentForm form,
                                  BindingResult result,
                                  Model model,
@@ -118,6 +120,10 @@ public class GeneralController {
         model.addAttribute("selectedService", service);
         String username = authentication != null ? authentication.getName() : null;
 
+        if (appointmentId != null && form.getAppointmentVersion() == null) {
+            result.reject("error.appointment.changed"); // a rescheduling must tell which version it changes
+        }
+
         if (!result.hasErrors()) { // if there are no validation errors
             String customerEmail = null, customerPhone = null, customerFirstName = null, customerLastName = null;
             if (form.getCustomerDetailsForm() != null) { // if it's a guest booking
@@ -134,7 +140,8 @@ public class GeneralController {
             try {
                 Appointment bookedAppointment = bookingService.bookAppointment(
                         customerFirstName, customerLastName, customerEmail, customerPhone,
-                        username, service, appointmentId, startTime, endTime
+                        username, service, appointmentId, startTime, endTime, holdId,
+                        form.getAppointmentVersion()
                 );
                 boolean isRescheduling = appointmentId != null;
                 model.addAttribute("bookedAppointment", bookedAppointment);
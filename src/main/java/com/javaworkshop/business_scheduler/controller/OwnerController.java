@@ -1,14 +1,14 @@
 package com.javaworkshop.business_scheduler.controller;
 
 import com.javaworkshop.business_scheduler.dto.*;
-import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.model.BusinessInfo;
 import com.javaworkshop.business_scheduler.model.Service;
 import com.javaworkshop.business_scheduler.service.*;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,19 +17,28 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 // This class handles the owner dashboard functionalities.
 @Controller
 @RequestMapping("/owner-dashboard")
 public class OwnerController {
 
+    private final int GZIP_BUFFER_SIZE = 8192; // bytes compressed at a time while streaming an export
+    private final String EXPORT_CURSOR_HEADER = "X-Export-Cursor"; // the cursor to continue an incremental export
     private final BusinessHourService businessHourService;
     private final AppointmentService appointmentService;
     private final ServiceService serviceService;
@@ -49,14 +58,43 @@ public class OwnerController {
         this.userService = userService;
     }
 
-    // shows all appointments for the owner
+    // shows a page of the owner's appointments that match the filters, by default the ones from today on
+    // and only the active ones, they can be filtered by status, a range of dates, a service and the start of the
+    // customer's name, email or phone, which the database does along with the paging, the previous and next pages
+    // are reached through the cursors of their first and last appointments and keep the filters
     @GetMapping("/appointments")
-    public String showAppointments(Model model) {
-        List<Appointment> customerAppointments = appointmentService.findAll();
-        List<DashboardAppointment> dashboardAppointments =
-                DashboardAppointment.fromAppointmentList(customerAppointments);
+    public String showAppointments(@RequestParam(value = "status", required = false) String status,
+                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                   @RequestParam(value = "service", required = false) UUID serviceId,
+                                   @RequestParam(value = "customer", required = false) String customer,
+                                   @RequestParam(value = "after", required = false) String after,
+                                   @RequestParam(value = "before", required = false) String before,
+                                   Model model) {
+        AppointmentSearchFilter filter;
+        try {
+            filter = AppointmentSearchFilter.of(status, from, to, serviceId, customer);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/owner-dashboard/appointments"; // the status is unknown or the range is empty
+        }
+        AppointmentPage page;
+        try {
+            page = appointmentService.findAppointmentPage(filter,
+                    after == null ? null : AppointmentCursor.parse(after),
+                    before == null ? null : AppointmentCursor.parse(before));
+        } catch (IllegalArgumentException e) {
+            return "redirect:" + appointmentsUrl(filter, null, null); // the cursor is malformed
+        }
 
-        model.addAttribute("appointments", dashboardAppointments);
+        model.addAttribute("appointments", page.getAppointments());
+        model.addAttribute("previousCursor", page.getPreviousCursor());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("previousPageUrl", page.getPreviousCursor() == null ? null :
+                appointmentsUrl(filter, "before", page.getPreviousCursor()));
+        model.addAttribute("nextPageUrl", page.getNextCursor() == null ? null :
+                appointmentsUrl(filter, "after", page.getNextCursor()));
+        model.addAttribute("filter", filter);
+        model.addAttribute("services", serviceService.findAll());
 
         return "owner/appointments";
     }
@@ -68,24 +106,87 @@ public class OwnerController {
         return "redirect:/owner-dashboard/appointments";
     }
 
-    // handles exporting appointments to XML
-    @GetMapping("/appointments/export-to-xml")
-    public ResponseEntity<ByteArrayResource> exportAppointmentsToXml(@RequestParam("active") boolean activeAppointmentsOnly) {
+    // handles exporting appointments in the requested format (XML by default),
+    // optionally only the ones that start in a range of dates, and in incremental mode only the ones
+    // created or changed since the given cursor, the cursor to continue from is returned in a header,
+    // the export is written straight to the response while the appointments are read from the database,
+    // it is compressed with gzip when the gzip parameter is set or, if it is missing, when the client accepts it
+    @GetMapping({"/appointments/export", "/appointments/export-to-xml"})
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(value = "active", defaultValue = "false") boolean activeAppointmentsOnly,
+            @RequestParam(value = "format", defaultValue = "xml") String format,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "incremental", defaultValue = "false") boolean incremental,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "gzip", required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AppointmentExportWriter exportWriter = appointmentService.findExportWriter(format);
+        if (exportWriter == null) {
+            return ResponseEntity.badRequest().build(); // the format is not supported
+        }
+        AppointmentExportFilter filter;
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            appointmentService.exportAppointmentsToXML(outputStream, activeAppointmentsOnly);
-            byte[] data = outputStream.toByteArray();
-            ByteArrayResource resource = new ByteArrayResource(data);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=appointments.xml")
-                    .contentType(MediaType.APPLICATION_XML)
-                    .contentLength(data.length)
-                    .body(resource);
-
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            filter = AppointmentExportFilter.of(activeAppointmentsOnly, from, to, incremental, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // the cursor is malformed or the range is empty
+        }
+        ExportCursor nextCursor = filter.isIncremental() ? appointmentService.findLastExportCursor(filter) : null;
+
+        boolean compress = gzip != null ? gzip : acceptsGzip(acceptEncoding);
+        // a negotiated encoding is undone by the client, a requested gzip file is downloaded as is
+        boolean asContentEncoding = compress && gzip == null;
+        String fileName = "appointments." + exportWriter.getFormat() + (compress && !asContentEncoding ? ".gz" : "");
+
+        StreamingResponseBody body = outputStream -> {
+            if (!compress) {
+                appointmentService.exportAppointments(outputStream, exportWriter, filter);
+                return;
+            }
+            GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+            appointmentService.exportAppointments(gzipStream, exportWriter, filter);
+            gzipStream.finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (nextCursor != null) {
+            response.header(EXPORT_CURSOR_HEADER, nextCursor.toString());
+        }
+        if (asContentEncoding) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentType(MediaType.parseMediaType(exportWriter.getContentType()));
+        } else if (compress) {
+            response.contentType(MediaType.parseMediaType("application/gzip"));
+        } else {
+            response.contentType(MediaType.parseMediaType(exportWriter.getContentType()));
         }
+        return response.body(body);
+    }
+
+    // returns the ids of the appointments deleted since the given cursor, which a client syncing through the
+    // incremental export has to remove, along with the cursor to continue from. it is a feed of its own,
+    // so its cursor is kept apart from the export's, and it is read until it returns no more ids
+    @GetMapping("/appointments/export/deleted")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> exportDeletedAppointments(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        AppointmentExportFilter filter;
+        try {
+            filter = AppointmentExportFilter.of(false, from, to, true, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // the cursor is malformed or the range is empty
+        }
+        List<ExportCursor> deleted = appointmentService.findDeletedAppointments(filter);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ids", deleted.stream().map(ExportCursor::getId).toList());
+        ExportCursor nextCursor = deleted.isEmpty() ? filter.getAfter() : deleted.get(deleted.size() - 1);
+        body.put("cursor", nextCursor == null ? null : nextCursor.toString());
+        return ResponseEntity.ok(body);
     }
 
     // shows the service manager page
@@ -332,4 +433,54 @@ public class OwnerController {
 
         return "redirect:/owner-dashboard/add-owner?success";
     }
+
+    // builds the url of the appointments page with the given filters and an optional cursor parameter,
+    // the values are expanded as variables so that they are fully encoded, e.g. a '+' of a phone prefix
+    private String appointmentsUrl(AppointmentSearchFilter filter, String cursorParam, AppointmentCursor cursor) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("status", filter.getStatus().name().toLowerCase(Locale.ROOT));
+        params.put("from", filter.getFrom());
+        params.put("to", filter.getTo());
+        params.put("service", filter.getServiceId());
+        params.put("customer", filter.getCustomer());
+        if (cursorParam != null) {
+            params.put(cursorParam, cursor);
+        }
+        params.values().removeIf(Objects::isNull);
+
+        UriComponentsBuilder url = UriComponentsBuilder.fromPath("/owner-dashboard/appointments");
+        params.keySet().forEach(name -> url.queryParam(name, "{" + name + "}"));
+        return url.encode().buildAndExpand(params).toUriString();
+    }
+
+    // checks if the given Accept-Encoding header accepts gzip, that is if it lists gzip (or its x-gzip alias)
+    // with a non-zero weight, or does not list it but accepts any encoding ("*") with a non-zero weight
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null, anyWeight = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        weight = 0; // a malformed weight accepts nothing
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipWeight = weight;
+            } else if (coding.equals("*")) {
+                anyWeight = weight;
+            }
+        }
+        double weight = gzipWeight != null ? gzipWeight : anyWeight != null ? anyWeight : 0;
+        return weight > 0;
+    }
 }
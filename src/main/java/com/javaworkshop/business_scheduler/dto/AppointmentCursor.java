@@ -0,0 +1,60 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.UUID;
+
+// This class is a position in the appointments ordered by start time and id: the start time and id of the
+// appointment a page starts after or ends before. A cursor without an id stands for the start time itself,
+// e.g. the start of today. Its string form is what the appointments page links carry.
+public class AppointmentCursor {
+
+    private final LocalDateTime startTime;
+
+    private final UUID id;
+
+    public AppointmentCursor(LocalDateTime startTime, UUID id) {
+        this.startTime = startTime;
+        this.id = id;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    // parses a cursor from its string form, throws IllegalArgumentException if it is malformed
+    public static AppointmentCursor parse(String value) {
+        int separator = value.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed appointment cursor: " + value);
+        }
+        try {
+            return new AppointmentCursor(LocalDateTime.parse(value.substring(0, separator)),
+                UUID.fromString(value.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed appointment cursor: " + value, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AppointmentCursor other = (AppointmentCursor) o;
+        return Objects.equals(startTime, other.startTime) && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startTime, id);
+    }
+
+    @Override
+    public String toString() {
+        return startTime + "_" + id;
+    }
+}
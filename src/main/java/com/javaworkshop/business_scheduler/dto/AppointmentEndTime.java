@@ -0,0 +1,12 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This interface is a projection of an appointment to its id and end time.
+public interface AppointmentEndTime {
+
+    UUID getId();
+
+    LocalDateTime getEndTime();
+}
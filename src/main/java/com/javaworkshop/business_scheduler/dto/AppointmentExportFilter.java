@@ -0,0 +1,92 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// This class holds the filters of an appointment export: active appointments only, an optional range of
+// start dates and, for an incremental export, the cursor to continue after.
+public class AppointmentExportFilter {
+
+    // changes this recent are left to the next incremental export, so a transaction that took its
+    // modification time before a sync but committed after it is not skipped
+    private static final int CHANGE_SETTLE_SECONDS = 5;
+
+    private final boolean activeOnly;
+
+    private final LocalDate from; // the first start date to export, null for no lower bound
+
+    private final LocalDate to; // the last start date to export, null for no upper bound
+
+    private final ExportCursor after; // the cursor to continue after, null to start from the beginning
+
+    private final LocalDateTime changedBefore; // the end of the changes to export, null for a full export
+
+    private AppointmentExportFilter(boolean activeOnly, LocalDate from, LocalDate to,
+                                    ExportCursor after, LocalDateTime changedBefore) {
+        this.activeOnly = activeOnly;
+        this.from = from;
+        this.to = to;
+        this.after = after;
+        this.changedBefore = changedBefore;
+    }
+
+    // a filter of all the appointments in the date range, ordered by their start time
+    public static AppointmentExportFilter full(boolean activeOnly, LocalDate from, LocalDate to) {
+        return new AppointmentExportFilter(activeOnly, from, to, null, null);
+    }
+
+    // a filter of the appointments in the date range created or changed after the given cursor,
+    // ordered by their modification time
+    public static AppointmentExportFilter changedAfter(boolean activeOnly, LocalDate from, LocalDate to,
+                                                       ExportCursor after) {
+        return new AppointmentExportFilter(activeOnly, from, to, after,
+            LocalDateTime.now().minusSeconds(CHANGE_SETTLE_SECONDS));
+    }
+
+    // a filter built from the request parameters of an export, incremental if asked to or if a cursor is given,
+    // throws IllegalArgumentException if the cursor is malformed or the date range is empty
+    public static AppointmentExportFilter of(boolean activeOnly, LocalDate from, LocalDate to,
+                                             boolean incremental, String cursor) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("The export range ends before it starts");
+        }
+        if (incremental || cursor != null) {
+            return changedAfter(activeOnly, from, to, cursor == null ? null : ExportCursor.parse(cursor));
+        }
+        return full(activeOnly, from, to);
+    }
+
+    public boolean isActiveOnly() {
+        return activeOnly;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public ExportCursor getAfter() {
+        return after;
+    }
+
+    public LocalDateTime getChangedBefore() {
+        return changedBefore;
+    }
+
+    public boolean isIncremental() {
+        return changedBefore != null;
+    }
+
+    // the lower bound of the start times to export, null if there is none
+    public LocalDateTime getStartFrom() {
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    // the exclusive upper bound of the start times to export, null if there is none
+    public LocalDateTime getStartBefore() {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,59 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class holds the fields of an appointment that are written to an export,
+// it is filled directly by a joined query so no entity is loaded.
+public class AppointmentExportRow {
+
+    private final UUID id;
+
+    private final String customerName;
+
+    private final String serviceName;
+
+    private final LocalDateTime startTime;
+
+    private final LocalDateTime endTime;
+
+    public AppointmentExportRow(UUID id, String customerFirstName, String customerLastName,
+                                String serviceName, LocalDateTime startTime, LocalDateTime endTime) {
+        this.id = id;
+        this.customerName = customerFirstName + " " + customerLastName;
+        this.serviceName = serviceName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentExportRow{" +
+            "id=" + id +
+            ", customerName='" + customerName + '\'' +
+            ", serviceName='" + serviceName + '\'' +
+            ", startTime=" + startTime +
+            ", endTime=" + endTime +
+            '}';
+    }
+}
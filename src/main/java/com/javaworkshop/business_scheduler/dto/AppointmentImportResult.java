@@ -0,0 +1,100 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.util.List;
+
+// This class holds the outcome of an appointment import: how many rows were read and imported,
+// how many customers were created, in how many chunks the rows were inserted and how many of them failed,
+// and why each of the rejected rows was rejected.
+public class AppointmentImportResult {
+
+    private final int rowCount;
+
+    private final int importedCount;
+
+    private final int createdCustomerCount;
+
+    private final int chunkCount;
+
+    private final int failedChunkCount; // the chunks that were rolled back, their rows are among the errors
+
+    private final int errorCount;
+
+    private final List<RowError> errors; // ordered by row, may be capped below errorCount
+
+    public AppointmentImportResult(int rowCount, int importedCount, int createdCustomerCount,
+                                   int chunkCount, int failedChunkCount, int errorCount, List<RowError> errors) {
+        this.rowCount = rowCount;
+        this.importedCount = importedCount;
+        this.createdCustomerCount = createdCustomerCount;
+        this.chunkCount = chunkCount;
+        this.failedChunkCount = failedChunkCount;
+        this.errorCount = errorCount;
+        this.errors = errors;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public int getCreatedCustomerCount() {
+        return createdCustomerCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public int getFailedChunkCount() {
+        return failedChunkCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentImportResult{" +
+            "rowCount=" + rowCount +
+            ", importedCount=" + importedCount +
+            ", createdCustomerCount=" + createdCustomerCount +
+            ", chunkCount=" + chunkCount +
+            ", failedChunkCount=" + failedChunkCount +
+            ", errorCount=" + errorCount +
+            '}';
+    }
+
+    // This class is the reason a single row was not imported.
+    public static class RowError {
+
+        private final int row;
+
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "row " + row + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.util.Map;
+
+// This class holds the fields of an appointment as they were read from an import file, before they are validated.
+// The customer is the full name as it is exported, the email and phone are only needed to create a new customer.
+public class AppointmentImportRow {
+
+    private final int rowNumber; // the position of the appointment in the file, starting at 1
+
+    private final String customer;
+
+    private final String email;
+
+    private final String phone;
+
+    private final String service;
+
+    private final String start;
+
+    private final String end;
+
+    private final String error; // set if the row could not be read at all
+
+    public AppointmentImportRow(int rowNumber, String customer, String email, String phone,
+                                String service, String start, String end) {
+        this(rowNumber, customer, email, phone, service, start, end, null);
+    }
+
+    private AppointmentImportRow(int rowNumber, String customer, String email, String phone,
+                                 String service, String start, String end, String error) {
+        this.rowNumber = rowNumber;
+        this.customer = customer;
+        this.email = email;
+        this.phone = phone;
+        this.service = service;
+        this.start = start;
+        this.end = end;
+        this.error = error;
+    }
+
+    // creates a row from the fields read by name, the names are the ones used by the exports
+    public static AppointmentImportRow of(int rowNumber, Map<String, String> fields) {
+        return new AppointmentImportRow(rowNumber, fields.get("customer"), fields.get("email"),
+            fields.get("phone"), fields.get("service"), fields.get("start"), fields.get("end"));
+    }
+
+    // creates a row that could not be read, with the reason why
+    public static AppointmentImportRow invalid(int rowNumber, String error) {
+        return new AppointmentImportRow(rowNumber, null, null, null, null, null, null, error);
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentImportRow{" +
+            "rowNumber=" + rowNumber +
+            ", customer='" + customer + '\'' +
+            ", email='" + email + '\'' +
+            ", phone='" + phone + '\'' +
+            ", service='" + service + '\'' +
+            ", start='" + start + '\'' +
+            ", end='" + end + '\'' +
+            ", error='" + error + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+
+// This interface is a projection of an appointment to the time range it occupies.
+public interface AppointmentInterval {
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+}
@@ -0,0 +1,57 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+// This class holds a page of the owner's appointments ordered by start time and id,
+// with the cursors of the previous and next pages, which are null when there is no such page.
+public class AppointmentPage {
+
+    private final List<DashboardAppointment> appointments;
+
+    private final AppointmentCursor previousCursor;
+
+    private final AppointmentCursor nextCursor;
+
+    public AppointmentPage(List<DashboardAppointment> appointments, AppointmentCursor previousCursor,
+                           AppointmentCursor nextCursor) {
+        this.appointments = appointments;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DashboardAppointment> getAppointments() {
+        return appointments;
+    }
+
+    public AppointmentCursor getPreviousCursor() {
+        return previousCursor;
+    }
+
+    public AppointmentCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AppointmentPage other = (AppointmentPage) o;
+        return Objects.equals(appointments, other.appointments) &&
+                Objects.equals(previousCursor, other.previousCursor) &&
+                Objects.equals(nextCursor, other.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(appointments, previousCursor, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentPage{" +
+            "appointments=" + appointments +
+            ", previousCursor=" + previousCursor +
+            ", nextCursor=" + nextCursor +
+            '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class holds the fields of an appointment a reminder is written from,
+// it is filled directly by a joined query so neither the customer nor the service is loaded lazily.
+public class AppointmentReminder {
+
+    private final UUID id;
+
+    private final String customerFirstName;
+
+    private final String customerEmail;
+
+    private final String serviceName;
+
+    private final LocalDateTime startTime;
+
+    public AppointmentReminder(UUID id, String customerFirstName, String customerEmail,
+                               String serviceName, LocalDateTime startTime) {
+        this.id = id;
+        this.customerFirstName = customerFirstName;
+        this.customerEmail = customerEmail;
+        this.serviceName = serviceName;
+        this.startTime = startTime;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getCustomerFirstName() {
+        return customerFirstName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentReminder{" +
+            "id=" + id +
+            ", customerFirstName='" + customerFirstName + '\'' +
+            ", customerEmail='" + customerEmail + '\'' +
+            ", serviceName='" + serviceName + '\'' +
+            ", startTime=" + startTime +
+            '}';
+    }
+}
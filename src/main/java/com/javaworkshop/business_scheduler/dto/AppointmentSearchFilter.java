@@ -0,0 +1,132 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+// This class holds the filters of the owner's appointments page: the status, an optional range of start dates,
+// an optional service and an optional prefix of the customer's first name, last name, email or phone.
+public class AppointmentSearchFilter {
+
+    private static final char LIKE_ESCAPE = '!'; // the escape character of the LIKE patterns in the queries
+
+    public enum Status {
+        ACTIVE, COMPLETED, ALL
+    }
+
+    private final Status status;
+
+    private final LocalDate from; // the first start date to show, null for no lower bound
+
+    private final LocalDate to; // the last start date to show, null for no upper bound
+
+    private final UUID serviceId; // the service to show, null for all of them
+
+    private final String customer; // the prefix the customer's details start with, null for all customers
+
+    private AppointmentSearchFilter(Status status, LocalDate from, LocalDate to, UUID serviceId, String customer) {
+        this.status = status;
+        this.from = from;
+        this.to = to;
+        this.serviceId = serviceId;
+        this.customer = customer;
+    }
+
+    // a filter of the active appointments only, what the page shows by default
+    public static AppointmentSearchFilter activeOnly() {
+        return new AppointmentSearchFilter(Status.ACTIVE, null, null, null, null);
+    }
+
+    // a filter built from the request parameters of the appointments page, a missing status stands for the active
+    // appointments and a blank customer for all of them, throws IllegalArgumentException if the status is unknown
+    // or the date range is empty
+    public static AppointmentSearchFilter of(String status, LocalDate from, LocalDate to,
+                                             UUID serviceId, String customer) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("The date range ends before it starts");
+        }
+        Status parsedStatus = status == null || status.isBlank() ? Status.ACTIVE :
+            Status.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        String customerPrefix = customer == null || customer.isBlank() ? null : customer.trim();
+        return new AppointmentSearchFilter(parsedStatus, from, to, serviceId, customerPrefix);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public UUID getServiceId() {
+        return serviceId;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    // the completion status of the appointments to show, null for both
+    public Boolean getCompleted() {
+        return status == Status.ALL ? null : status == Status.COMPLETED;
+    }
+
+    // the lower bound of the start times to show, null if there is none
+    public LocalDateTime getStartFrom() {
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    // the exclusive upper bound of the start times to show, null if there is none
+    public LocalDateTime getStartBefore() {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
+    }
+
+    // the LIKE pattern of the customer prefix with its wildcards escaped, null if there is none
+    public String getCustomerPattern() {
+        if (customer == null) {
+            return null;
+        }
+        StringBuilder pattern = new StringBuilder(customer.length() + 1);
+        for (char c : customer.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AppointmentSearchFilter other = (AppointmentSearchFilter) o;
+        return status == other.status &&
+            Objects.equals(from, other.from) &&
+            Objects.equals(to, other.to) &&
+            Objects.equals(serviceId, other.serviceId) &&
+            Objects.equals(customer, other.customer);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, from, to, serviceId, customer);
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentSearchFilter{" +
+            "status=" + status +
+            ", from=" + from +
+            ", to=" + to +
+            ", serviceId=" + serviceId +
+            ", customer='" + customer + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,16 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This interface is a projection of an appointment to what its reminders are scheduled from.
+public interface AppointmentStartTime {
+
+    UUID getId();
+
+    LocalDateTime getStartTime();
+
+    Integer getRemindedMinutesBefore();
+
+    LocalDateTime getLastModifiedAt();
+}
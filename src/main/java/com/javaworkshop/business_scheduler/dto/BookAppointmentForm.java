@@ -13,6 +13,8 @@ public class BookAppointmentForm {
     @Valid
     private AppointmentTimeForm appointmentTimeForm;
 
+    private Long appointmentVersion; // the version of the rescheduled appointment when the form was opened
+
     public BookAppointmentForm() {
     }
 
@@ -37,17 +39,26 @@ public class BookAppointmentForm {
         this.appointmentTimeForm = appointmentTimeForm;
     }
 
+    public Long getAppointmentVersion() {
+        return appointmentVersion;
+    }
+
+    public void setAppointmentVersion(Long appointmentVersion) {
+        this.appointmentVersion = appointmentVersion;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         BookAppointmentForm other = (BookAppointmentForm) o;
         return Objects.equals(customerDetailsForm, other.customerDetailsForm) &&
-            Objects.equals(appointmentTimeForm, other.appointmentTimeForm);
+            Objects.equals(appointmentTimeForm, other.appointmentTimeForm) &&
+            Objects.equals(appointmentVersion, other.appointmentVersion);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(customerDetailsForm, appointmentTimeForm);
+        return Objects.hash(customerDetailsForm, appointmentTimeForm, appointmentVersion);
     }
 
     @Override
@@ -55,6 +66,7 @@ public class BookAppointmentForm {
         return "BookAppointmentForm{" +
             "customerDetailsForm=" + customerDetailsForm +
             ", appointmentTimeForm=" + appointmentTimeForm +
+            ", appointmentVersion=" + appointmentVersion +
             '}';
     }
 }
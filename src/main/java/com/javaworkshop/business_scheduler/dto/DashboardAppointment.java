@@ -12,78 +12,94 @@ import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
-// This class is used to represent an appointment in the dashboard view.
+// This class is used to represent an appointment in the dashboard views. It holds only the columns the views show,
+// so it is read by a single joined query instead of loading the appointment, customer and service entities.
 public class DashboardAppointment {
 
-    private UUID appointmentId;
+    private final UUID appointmentId;
 
-    private Customer customer;
+    private final UUID serviceId;
 
-    private Service service;
+    private final String serviceName;
 
-    private LocalDate date;
+    private final String customerFirstName;
 
-    private LocalTime time;
+    private final String customerLastName;
 
-    private boolean isActive;
+    private final String customerEmail;
 
-    public DashboardAppointment() {
-    }
+    private final String customerPhone;
+
+    private final LocalDateTime startTime;
 
-    public DashboardAppointment(Service service, Customer customer, LocalDate date, LocalTime time, boolean isActive) {
-        this.service = service;
-        this.customer = customer;
-        this.date = date;
-        this.time = time;
-        this.isActive = isActive;
+    private final boolean isActive;
+
+    public DashboardAppointment(UUID appointmentId, UUID serviceId, String serviceName,
+                                String customerFirstName, String customerLastName,
+                                String customerEmail, String customerPhone,
+                                LocalDateTime startTime, boolean isCompleted) {
+        this.appointmentId = appointmentId;
+        this.serviceId = serviceId;
+        this.serviceName = serviceName;
+        this.customerFirstName = customerFirstName;
+        this.customerLastName = customerLastName;
+        this.customerEmail = customerEmail;
+        this.customerPhone = customerPhone;
+        this.startTime = startTime;
+        this.isActive = !isCompleted;
     }
 
-    public Service getService() {
-        return service;
+    public UUID getAppointmentId() {
+        return appointmentId;
     }
 
-    public void setService(Service service) {
-        this.service = service;
+    public UUID getServiceId() {
+        return serviceId;
     }
 
-    public Customer getCustomer() {
-        return customer;
+    public String getServiceName() {
+        return serviceName;
     }
 
-    public void setCustomer(Customer customer) {
-        this.customer = customer;
+    public String getCustomerFirstName() {
+        return customerFirstName;
     }
 
-    public LocalDate getDate() {
-        return date;
+    public String getCustomerLastName() {
+        return customerLastName;
     }
 
-    public void setDate(LocalDate date) {
-        this.date = date;
+    public String getCustomerEmail() {
+        return customerEmail;
     }
 
-    public LocalTime getTime() {
-        return time;
+    public String getCustomerPhone() {
+        return customerPhone;
     }
 
-    public void setTime(LocalTime time) {
-        this.time = time;
+    public LocalDateTime getStartTime() {
+        return startTime;
     }
 
-    public UUID getAppointmentId() {
-        return appointmentId;
+    public LocalDate getDate() {
+        return startTime.toLocalDate();
     }
 
-    public void setAppointmentId(UUID appointmentId) {
-        this.appointmentId = appointmentId;
+    public LocalTime getTime() {
+        return startTime.toLocalTime();
     }
 
     public boolean getIsActive() {
         return isActive;
     }
 
-    public void setIsActive(boolean active) {
-        isActive = active;
+    // converts an Appointment object with its customer and service to a DashboardAppointment object
+    public static DashboardAppointment fromAppointment(Appointment appointment) {
+        Customer customer = appointment.getCustomer();
+        Service service = appointment.getService();
+        return new DashboardAppointment(appointment.getId(), service.getId(), service.getServiceName(),
+            customer.getFirstName(), customer.getLastName(), customer.getEmail(), customer.getPhone(),
+            appointment.getStartTime(), appointment.getIsCompleted());
     }
 
     // converts a list of Appointment objects to a list of DashboardAppointment objects.
@@ -92,15 +108,7 @@ public class DashboardAppointment {
         List<DashboardAppointment> dashboardAppointments = new ArrayList<>();
 
         for (Appointment appointment : customerAppointments) {
-            DashboardAppointment dashboardAppointment = new DashboardAppointment();
-            dashboardAppointment.setAppointmentId(appointment.getId());
-            dashboardAppointment.setCustomer(appointment.getCustomer());
-            dashboardAppointment.setService(appointment.getService());
-            LocalDateTime appointmentDateTime = appointment.getStartTime();
-            dashboardAppointment.setDate(appointmentDateTime.toLocalDate());
-            dashboardAppointment.setTime(appointmentDateTime.toLocalTime());
-            dashboardAppointment.setIsActive(!appointment.getIsCompleted());
-            dashboardAppointments.add(dashboardAppointment);
+            dashboardAppointments.add(fromAppointment(appointment));
         }
 
         return dashboardAppointments;
@@ -113,25 +121,32 @@ public class DashboardAppointment {
         DashboardAppointment other = (DashboardAppointment) o;
         return isActive == other.isActive &&
                 Objects.equals(appointmentId, other.appointmentId) &&
-                Objects.equals(customer, other.customer) &&
-                Objects.equals(service, other.service) &&
-                Objects.equals(date, other.date) &&
-                Objects.equals(time, other.time);
+                Objects.equals(serviceId, other.serviceId) &&
+                Objects.equals(serviceName, other.serviceName) &&
+                Objects.equals(customerFirstName, other.customerFirstName) &&
+                Objects.equals(customerLastName, other.customerLastName) &&
+                Objects.equals(customerEmail, other.customerEmail) &&
+                Objects.equals(customerPhone, other.customerPhone) &&
+                Objects.equals(startTime, other.startTime);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(appointmentId, customer, service, date, time, isActive);
+        return Objects.hash(appointmentId, serviceId, serviceName, customerFirstName, customerLastName,
+            customerEmail, customerPhone, startTime, isActive);
     }
 
     @Override
     public String toString() {
         return "DashboardAppointment{" +
             "appointmentId=" + appointmentId +
-            ", customer=" + customer +
-            ", service=" + service +
-            ", date=" + date +
-            ", time=" + time +
+            ", serviceId=" + serviceId +
+            ", serviceName='" + serviceName + '\'' +
+            ", customerFirstName='" + customerFirstName + '\'' +
+            ", customerLastName='" + customerLastName + '\'' +
+            ", customerEmail='" + customerEmail + '\'' +
+            ", customerPhone='" + customerPhone + '\'' +
+            ", startTime=" + startTime +
             ", isActive=" + isActive +
             '}';
     }
@@ -0,0 +1,53 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.util.Objects;
+
+// This class holds a plain text email to be sent by a batch send.
+public class EmailMessage {
+
+    private final String toEmail;
+
+    private final String subject;
+
+    private final String body;
+
+    public EmailMessage(String toEmail, String subject, String body) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        EmailMessage other = (EmailMessage) o;
+        return Objects.equals(toEmail, other.toEmail) &&
+            Objects.equals(subject, other.subject) &&
+            Objects.equals(body, other.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(toEmail, subject, body);
+    }
+
+    @Override
+    public String toString() {
+        return "EmailMessage{" +
+            "toEmail='" + toEmail + '\'' +
+            ", subject='" + subject + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.javaworkshop.business_scheduler.dto;
+
+// This class holds a snapshot of a thread pool: how busy it is, how full its queue is,
+// how many tasks it ran and rejected, and how long the tasks waited in the queue and ran on average.
+public class ExecutorStats {
+
+    private final String name;
+
+    private final int activeThreads;
+
+    private final int poolSize;
+
+    private final int queueDepth;
+
+    private final int queueCapacity;
+
+    private final long completedCount;
+
+    private final long rejectedCount;
+
+    private final long averageWaitMillis;
+
+    private final long maxWaitMillis;
+
+    private final long averageRunMillis;
+
+    public ExecutorStats(String name, int activeThreads, int poolSize, int queueDepth, int queueCapacity,
+                         long completedCount, long rejectedCount, long averageWaitMillis, long maxWaitMillis,
+                         long averageRunMillis) {
+        this.name = name;
+        this.activeThreads = activeThreads;
+        this.poolSize = poolSize;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.completedCount = completedCount;
+        this.rejectedCount = rejectedCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.averageRunMillis = averageRunMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getAverageRunMillis() {
+        return averageRunMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorStats{" +
+            "name='" + name + '\'' +
+            ", activeThreads=" + activeThreads +
+            ", poolSize=" + poolSize +
+            ", queueDepth=" + queueDepth +
+            ", queueCapacity=" + queueCapacity +
+            ", completed=" + completedCount +
+            ", rejected=" + rejectedCount +
+            ", averageWaitMillis=" + averageWaitMillis +
+            ", maxWaitMillis=" + maxWaitMillis +
+            ", averageRunMillis=" + averageRunMillis +
+            '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.UUID;
+
+// This class is the position an incremental export stopped at: the last modification time and id of the last row.
+// Its string form is what clients keep between syncs and send back to continue from where they stopped.
+public class ExportCursor {
+
+    private final LocalDateTime lastModifiedAt;
+
+    private final UUID id;
+
+    public ExportCursor(LocalDateTime lastModifiedAt, UUID id) {
+        this.lastModifiedAt = lastModifiedAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    // parses a cursor from its string form, throws IllegalArgumentException if it is malformed
+    public static ExportCursor parse(String value) {
+        int separator = value.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed export cursor: " + value);
+        }
+        try {
+            return new ExportCursor(LocalDateTime.parse(value.substring(0, separator)),
+                UUID.fromString(value.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed export cursor: " + value, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ExportCursor other = (ExportCursor) o;
+        return Objects.equals(lastModifiedAt, other.lastModifiedAt) && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastModifiedAt, id);
+    }
+
+    @Override
+    public String toString() {
+        return lastModifiedAt + "_" + id;
+    }
+}
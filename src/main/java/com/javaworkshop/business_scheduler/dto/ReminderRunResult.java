@@ -0,0 +1,40 @@
+package com.javaworkshop.business_scheduler.dto;
+
+// This class holds the outcome of a reminder run: how many reminders were queued to be sent,
+// how many could not be queued and how many were skipped, e.g. because they were queued already
+// or their appointment had no one to remind.
+public class ReminderRunResult {
+
+    private final int queuedCount;
+
+    private final int failedCount;
+
+    private final int skippedCount;
+
+    public ReminderRunResult(int queuedCount, int failedCount, int skippedCount) {
+        this.queuedCount = queuedCount;
+        this.failedCount = failedCount;
+        this.skippedCount = skippedCount;
+    }
+
+    public int getQueuedCount() {
+        return queuedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderRunResult{" +
+            "queued=" + queuedCount +
+            ", failed=" + failedCount +
+            ", skipped=" + skippedCount +
+            '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.javaworkshop.business_scheduler.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class holds a reminder that is due a number of minutes before an appointment starts.
+// The start time is kept so a reminder of an appointment that was rescheduled in the meantime is not sent.
+public class ScheduledReminder {
+
+    private final UUID appointmentId;
+
+    private final LocalDateTime startTime;
+
+    private final int minutesBefore;
+
+    public ScheduledReminder(UUID appointmentId, LocalDateTime startTime, int minutesBefore) {
+        this.appointmentId = appointmentId;
+        this.startTime = startTime;
+        this.minutesBefore = minutesBefore;
+    }
+
+    public UUID getAppointmentId() {
+        return appointmentId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public int getMinutesBefore() {
+        return minutesBefore;
+    }
+
+    public LocalDateTime getDueTime() {
+        return startTime.minusMinutes(minutesBefore);
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledReminder{" +
+            "appointmentId=" + appointmentId +
+            ", startTime=" + startTime +
+            ", minutesBefore=" + minutesBefore +
+            '}';
+    }
+}
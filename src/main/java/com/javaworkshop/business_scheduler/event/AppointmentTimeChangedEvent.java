@@ -0,0 +1,41 @@
+package com.javaworkshop.business_scheduler.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class represents a change of the time of an appointment, which is booked, rescheduled or cancelled.
+public class AppointmentTimeChangedEvent {
+
+    private final UUID appointmentId;
+
+    private final LocalDateTime startTime; // null if the appointment was cancelled
+
+    private final LocalDateTime endTime; // null if the appointment was cancelled
+
+    public AppointmentTimeChangedEvent(UUID appointmentId, LocalDateTime startTime, LocalDateTime endTime) {
+        this.appointmentId = appointmentId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public UUID getAppointmentId() {
+        return appointmentId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentTimeChangedEvent{" +
+                "appointmentId=" + appointmentId +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                '}';
+    }
+}
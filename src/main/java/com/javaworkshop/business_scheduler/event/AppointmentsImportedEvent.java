@@ -0,0 +1,41 @@
+package com.javaworkshop.business_scheduler.event;
+
+import java.time.LocalDateTime;
+
+// This class represents a bulk import of appointments that have not ended yet, which is announced once
+// for the whole import instead of one AppointmentTimeChangedEvent per appointment.
+public class AppointmentsImportedEvent {
+
+    private final int appointmentCount;
+
+    private final LocalDateTime startTime; // the start of the earliest imported appointment
+
+    private final LocalDateTime endTime; // the end of the latest imported appointment
+
+    public AppointmentsImportedEvent(int appointmentCount, LocalDateTime startTime, LocalDateTime endTime) {
+        this.appointmentCount = appointmentCount;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public int getAppointmentCount() {
+        return appointmentCount;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentsImportedEvent{" +
+                "appointmentCount=" + appointmentCount +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                '}';
+    }
+}
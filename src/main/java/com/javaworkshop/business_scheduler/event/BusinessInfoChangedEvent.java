@@ -0,0 +1,22 @@
+package com.javaworkshop.business_scheduler.event;
+
+// This class represents a change of the business information, such as its name.
+public class BusinessInfoChangedEvent {
+
+    private final String businessName;
+
+    public BusinessInfoChangedEvent(String businessName) {
+        this.businessName = businessName;
+    }
+
+    public String getBusinessName() {
+        return businessName;
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessInfoChangedEvent{" +
+                "businessName='" + businessName + '\'' +
+                '}';
+    }
+}
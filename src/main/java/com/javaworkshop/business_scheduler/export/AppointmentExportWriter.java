@@ -0,0 +1,21 @@
+package com.javaworkshop.business_scheduler.export;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+// This interface defines a format the appointments can be exported to.
+// Implementations write each row as soon as it is read, so an export never has to fit in memory.
+public interface AppointmentExportWriter {
+
+    // the name of the format as it is requested, also used as the file extension
+    String getFormat();
+
+    // the content type of the exported file
+    String getContentType();
+
+    // writes all the given rows to the output stream, the stream is flushed but not closed
+    void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.javaworkshop.business_scheduler.export;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+// This class exports appointments as CSV (RFC 4180) with a header line and one line per row.
+@Component
+public class CsvAppointmentExportWriter implements AppointmentExportWriter {
+
+    private final String HEADER = "id,customer,service,start,end";
+    private final String LINE_SEPARATOR = "\r\n";
+
+    @Override
+    public String getFormat() {
+        return "csv";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/csv;charset=UTF-8";
+    }
+
+    @Override
+    public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        writer.write(HEADER);
+        writer.write(LINE_SEPARATOR);
+
+        while (rows.hasNext()) {
+            AppointmentExportRow row = rows.next();
+            writer.write(row.getId().toString());
+            writer.write(',');
+            writeField(writer, row.getCustomerName());
+            writer.write(',');
+            writeField(writer, row.getServiceName());
+            writer.write(',');
+            writer.write(row.getStartTime().toString());
+            writer.write(',');
+            writer.write(row.getEndTime().toString());
+            writer.write(LINE_SEPARATOR);
+        }
+
+        writer.flush();
+    }
+
+    // writes a text field, quoted if it contains a separator, a quote or a line break
+    private void writeField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,118 @@
+package com.javaworkshop.business_scheduler.export;
+
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// This class tracks an export that runs in the background and is written to a spool file.
+// Its state is updated by the export thread and read by the requests polling it.
+public class ExportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final UUID id;
+
+    private final String fileName; // the name the finished file is downloaded as
+
+    private final String contentType; // the content type of the finished file
+
+    private final Path file; // the spool file the export is written to
+
+    private final LocalDateTime createdAt;
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private volatile Status status = Status.QUEUED;
+
+    private volatile ExportCursor cursor; // the cursor to continue an incremental export from
+
+    private volatile LocalDateTime finishedAt;
+
+    private volatile long fileSize;
+
+    public ExportJob(UUID id, String fileName, String contentType, Path file) {
+        this.id = id;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.file = file;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public AtomicLong getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public ExportCursor getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(ExportCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    public void markCompleted(long fileSize) {
+        this.fileSize = fileSize;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.COMPLETED; // set last so a completed job is always seen with its size
+    }
+
+    public void markFailed() {
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportJob{" +
+            "id=" + id +
+            ", fileName='" + fileName + '\'' +
+            ", status=" + status +
+            ", rowsWritten=" + rowsWritten +
+            ", createdAt=" + createdAt +
+            ", finishedAt=" + finishedAt +
+            '}';
+    }
+}
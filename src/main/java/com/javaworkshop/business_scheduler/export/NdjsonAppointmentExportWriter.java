@@ -0,0 +1,51 @@
+package com.javaworkshop.business_scheduler.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+// This class exports appointments as newline-delimited JSON, one object per line.
+@Component
+public class NdjsonAppointmentExportWriter implements AppointmentExportWriter {
+
+    private final JsonFactory factory = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    @Override
+    public String getFormat() {
+        return "ndjson";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null); // the lines are separated explicitly below
+
+            while (rows.hasNext()) {
+                AppointmentExportRow row = rows.next();
+                generator.writeStartObject();
+                generator.writeStringField("id", row.getId().toString());
+                generator.writeStringField("customer", row.getCustomerName());
+                generator.writeStringField("service", row.getServiceName());
+                generator.writeStringField("start", row.getStartTime().toString());
+                generator.writeStringField("end", row.getEndTime().toString());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            generator.flush();
+        }
+    }
+}
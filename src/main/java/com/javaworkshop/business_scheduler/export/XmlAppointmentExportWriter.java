@@ -0,0 +1,77 @@
+package com.javaworkshop.business_scheduler.export;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+// This class exports appointments as an XML document with one appointment element per row.
+@Component
+public class XmlAppointmentExportWriter implements AppointmentExportWriter {
+
+    private final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+
+    @Override
+    public String getFormat() {
+        return "xml";
+    }
+
+    @Override
+    public String getContentType() {
+        return MediaType.APPLICATION_XML_VALUE;
+    }
+
+    @Override
+    public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+        try {
+            XMLStreamWriter writer = factory.createXMLStreamWriter(outputStream, "UTF-8");
+
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("appointments");
+
+            while (rows.hasNext()) {
+                writeAppointment(writer, rows.next());
+            }
+
+            writer.writeEndElement(); // </appointments>
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close(); // does not close the underlying stream
+        } catch (XMLStreamException e) {
+            throw new IOException("Error writing appointments as XML", e);
+        }
+    }
+
+    // writes a single appointment element
+    private void writeAppointment(XMLStreamWriter writer, AppointmentExportRow row) throws XMLStreamException {
+        writer.writeStartElement("appointment");
+
+        writer.writeStartElement("id");
+        writer.writeCharacters(row.getId().toString());
+        writer.writeEndElement(); // </id>
+
+        writer.writeStartElement("customer");
+        writer.writeCharacters(row.getCustomerName());
+        writer.writeEndElement(); // </customer>
+
+        writer.writeStartElement("service");
+        writer.writeCharacters(row.getServiceName());
+        writer.writeEndElement(); // </service>
+
+        writer.writeStartElement("start");
+        writer.writeCharacters(row.getStartTime().toString());
+        writer.writeEndElement();  // </start>
+
+        writer.writeStartElement("end");
+        writer.writeCharacters(row.getEndTime().toString());
+        writer.writeEndElement(); // </end>
+
+        writer.writeEndElement(); // </appointment>
+    }
+}
@@ -0,0 +1,19 @@
+package com.javaworkshop.business_scheduler.imports;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportRow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+// This interface defines a format the appointments can be imported from, the same formats they are exported to.
+// Implementations hand over each row as soon as it is read, so the file never has to fit in memory.
+public interface AppointmentImportReader {
+
+    // the name of the format as it is requested
+    String getFormat();
+
+    // reads all the rows of the input stream, a row that cannot be read is handed over with an error,
+    // an IOException is only thrown if the file as a whole cannot be read
+    void read(InputStream inputStream, Consumer<AppointmentImportRow> rowConsumer) throws IOException;
+}
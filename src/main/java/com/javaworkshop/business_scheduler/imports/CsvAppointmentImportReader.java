@@ -0,0 +1,100 @@
+package com.javaworkshop.business_scheduler.imports;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// This class imports appointments from CSV (RFC 4180), the columns are found by the names in the header line.
+@Component
+public class CsvAppointmentImportReader implements AppointmentImportReader {
+
+    private final List<String> REQUIRED_COLUMNS = List.of("customer", "service", "start", "end");
+
+    @Override
+    public String getFormat() {
+        return "csv";
+    }
+
+    @Override
+    public void read(InputStream inputStream, Consumer<AppointmentImportRow> rowConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        List<String> header = readRecord(reader);
+        if (header == null || !header.stream().map(String::trim).toList().containsAll(REQUIRED_COLUMNS)) {
+            throw new IOException("The CSV header must name the columns " + String.join(", ", REQUIRED_COLUMNS));
+        }
+
+        int rowNumber = 0;
+        List<String> record;
+        while ((record = readRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue; // an empty line
+            }
+            rowNumber++;
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                fields.put(header.get(i).trim(), record.get(i));
+            }
+            rowConsumer.accept(AppointmentImportRow.of(rowNumber, fields));
+        }
+    }
+
+    // reads the fields of the next record, a quoted field may contain separators, quotes and line breaks,
+    // returns null at the end of the stream
+    private List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("The CSV file ends inside a quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') { // the closing quote, the next character is read as unquoted
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            }
+            else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            }
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.javaworkshop.business_scheduler.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaworkshop.business_scheduler.dto.AppointmentImportRow;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// This class imports appointments from newline-delimited JSON, one object per line.
+@Component
+public class NdjsonAppointmentImportReader implements AppointmentImportReader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String getFormat() {
+        return "ndjson";
+    }
+
+    @Override
+    public void read(InputStream inputStream, Consumer<AppointmentImportRow> rowConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        int rowNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            rowConsumer.accept(readRow(rowNumber, line));
+        }
+    }
+
+    // reads a single line, a line that is not a JSON object is handed over with an error
+    private AppointmentImportRow readRow(int rowNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return AppointmentImportRow.invalid(rowNumber, "The line is not valid JSON");
+        }
+        if (!node.isObject()) {
+            return AppointmentImportRow.invalid(rowNumber, "The line is not a JSON object");
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                fields.put(field.getKey(), field.getValue().asText());
+            }
+        });
+        return AppointmentImportRow.of(rowNumber, fields);
+    }
+}
@@ -0,0 +1,61 @@
+package com.javaworkshop.business_scheduler.imports;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportRow;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// This class imports appointments from an XML document with one appointment element per row.
+@Component
+public class XmlAppointmentImportReader implements AppointmentImportReader {
+
+    private final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    public XmlAppointmentImportReader() {
+        // the uploaded documents are not trusted, so they may not refer to any other document
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public String getFormat() {
+        return "xml";
+    }
+
+    @Override
+    public void read(InputStream inputStream, Consumer<AppointmentImportRow> rowConsumer) throws IOException {
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+
+            int rowNumber = 0;
+            Map<String, String> fields = null; // the fields of the appointment element being read
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (reader.getLocalName().equals("appointment")) {
+                        fields = new HashMap<>();
+                    }
+                    else if (fields != null) {
+                        fields.put(reader.getLocalName(), reader.getElementText());
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("appointment")) {
+                    rowConsumer.accept(AppointmentImportRow.of(++rowNumber, fields));
+                    fields = null;
+                }
+            }
+
+            reader.close(); // does not close the underlying stream
+        } catch (XMLStreamException e) {
+            throw new IOException("Error reading appointments from XML", e);
+        }
+    }
+}
@@ -3,15 +3,25 @@ package com.javaworkshop.business_scheduler.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 // This class represents an appointment entity in the business scheduler application.
+// An update writes only the changed columns, so saving an edit keeps the completion and the reminders
+// the system recorded meanwhile without a version change.
 @Entity
-@Table(name = "appointments")
+@DynamicUpdate
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appointments_last_modified", columnList = "last_modified_at, id"),
+    @Index(name = "idx_appointments_start_time", columnList = "start_time, id"),
+    @Index(name = "idx_appointments_completed_start_time", columnList = "is_completed, start_time, id"),
+    @Index(name = "idx_appointments_service_start_time", columnList = "service_id, start_time, id")
+})
 public class Appointment {
 
     @Id
@@ -43,6 +53,19 @@ public class Appointment {
     @Column(name = "is_completed")
     private boolean isCompleted = false; // default value for isCompleted
 
+    @Column(name = "reminded_minutes_before")
+    private Integer remindedMinutesBefore; // the offset of the last reminder sent, null if none was sent yet
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version; // incremented on every update of an editor, so concurrent edits are detected
+
+    @UpdateTimestamp
+    @ColumnDefault("CURRENT_TIMESTAMP(6)")
+    @Column(name = "last_modified_at", nullable = false)
+    private LocalDateTime lastModifiedAt; // set on every insert and update, used by the incremental export
+
     public Appointment() {
     }
 
@@ -105,6 +128,22 @@ public class Appointment {
         this.endTime = endTime;
     }
 
+    public Integer getRemindedMinutesBefore() {
+        return remindedMinutesBefore;
+    }
+
+    public void setRemindedMinutesBefore(Integer remindedMinutesBefore) {
+        this.remindedMinutesBefore = remindedMinutesBefore;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+
     public boolean getIsCompleted() {
         return isCompleted;
     }
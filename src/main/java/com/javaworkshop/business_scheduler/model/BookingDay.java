@@ -0,0 +1,40 @@
+package com.javaworkshop.business_scheduler.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+// This class represents a calendar day that bookings lock in the database before claiming one of its slots,
+// so bookings of the same day are serialized even when they are handled by different application instances.
+@Entity
+@Table(name = "booking_days")
+public class BookingDay {
+
+    @Id
+    @NotNull
+    @Column(name = "booking_date", nullable = false)
+    private LocalDate date;
+
+    public BookingDay() {
+    }
+
+    public BookingDay(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingDay{" +
+                "date=" + date +
+                '}';
+    }
+}
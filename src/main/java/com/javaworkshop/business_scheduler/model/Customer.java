@@ -9,8 +9,15 @@ import org.hibernate.annotations.OnDeleteAction;
 import java.util.UUID;
 
 // This class represents a customer entity in the business scheduler application.
+// Its email and phone are unique, so concurrent bookings cannot create the same customer twice.
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+    @Index(name = "idx_customers_first_name", columnList = "first_name"),
+    @Index(name = "idx_customers_last_name", columnList = "last_name")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_customers_email", columnNames = "email"),
+    @UniqueConstraint(name = "uk_customers_phone", columnNames = "phone")
+})
 public class Customer {
 
     @Id
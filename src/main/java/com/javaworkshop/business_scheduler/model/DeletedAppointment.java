@@ -0,0 +1,66 @@
+package com.javaworkshop.business_scheduler.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class represents the tombstone of a deleted appointment, kept so an incremental export can tell
+// the clients that sync from it which appointments they have to remove.
+@Entity
+@Table(name = "deleted_appointments", indexes = {
+    @Index(name = "idx_deleted_appointments_deleted_at", columnList = "deleted_at, id")
+})
+public class DeletedAppointment implements Persistable<UUID> {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id; // the id the appointment had
+
+    @NotNull
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime; // the start time the appointment had, to filter the tombstones by date
+
+    @NotNull
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public DeletedAppointment() {
+    }
+
+    public DeletedAppointment(UUID id, LocalDateTime startTime, LocalDateTime deletedAt) {
+        this.id = id;
+        this.startTime = startTime;
+        this.deletedAt = deletedAt;
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    // a tombstone is written once and never updated, so saving it inserts it without looking it up first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeletedAppointment{" +
+                "id=" + id +
+                ", startTime=" + startTime +
+                ", deletedAt=" + deletedAt +
+                '}';
+    }
+}
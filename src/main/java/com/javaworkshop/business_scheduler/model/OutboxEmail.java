@@ -0,0 +1,154 @@
+package com.javaworkshop.business_scheduler.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class represents an email waiting in the outbox. It is written in the same transaction as the change
+// it is about, so the email is sent if and only if the change is committed, even if the application restarts.
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at")
+})
+public class OutboxEmail {
+
+    public enum Status { PENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Size(max = 150)
+    @NotNull
+    @Column(name = "to_email", nullable = false, length = 150)
+    private String toEmail;
+
+    @Size(max = 255)
+    @NotNull
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Lob
+    @NotNull
+    @Column(name = "body", nullable = false)
+    private String body;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts; // the failed attempts so far
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt; // also pushed forward while a dispatcher holds the claim
+
+    @Column(name = "claim_token")
+    private UUID claimToken; // set by the dispatcher that claimed the email
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Size(max = 500)
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public OutboxEmail() {
+    }
+
+    public OutboxEmail(String toEmail, String subject, String body, LocalDateTime createdAt) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.body = body;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public UUID getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(UUID claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEmail{" +
+            "id=" + id +
+            ", toEmail='" + toEmail + '\'' +
+            ", subject='" + subject + '\'' +
+            ", status=" + status +
+            ", attempts=" + attempts +
+            ", nextAttemptAt=" + nextAttemptAt +
+            ", createdAt=" + createdAt +
+            ", sentAt=" + sentAt +
+            '}';
+    }
+}
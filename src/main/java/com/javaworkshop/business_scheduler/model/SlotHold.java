@@ -0,0 +1,115 @@
+package com.javaworkshop.business_scheduler.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// This class represents a temporary hold of a time slot while a customer completes the booking form.
+@Entity
+@Table(name = "slot_holds", indexes = {
+    @Index(name = "idx_slot_holds_holder", columnList = "holder_id"),
+    @Index(name = "idx_slot_holds_holder_address", columnList = "holder_address, expires_at")
+})
+public class SlotHold {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @NotNull
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "holder_id")
+    private UUID holderId; // the browser session that placed the hold, which may hold a single slot at a time
+
+    @Column(name = "holder_address", length = 45)
+    private String holderAddress; // the client address the hold was placed from, to cap the holds per client
+
+    public SlotHold() {
+    }
+
+    public SlotHold(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime expiresAt) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.expiresAt = expiresAt;
+    }
+
+    public SlotHold(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime expiresAt,
+                    UUID holderId, String holderAddress) {
+        this(startTime, endTime, expiresAt);
+        this.holderId = holderId;
+        this.holderAddress = holderAddress;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getHolderId() {
+        return holderId;
+    }
+
+    public void setHolderId(UUID holderId) {
+        this.holderId = holderId;
+    }
+
+    public String getHolderAddress() {
+        return holderAddress;
+    }
+
+    public void setHolderAddress(String holderAddress) {
+        this.holderAddress = holderAddress;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotHold{" +
+                "id=" + id +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", expiresAt=" + expiresAt +
+                ", holderId=" + holderId +
+                ", holderAddress='" + holderAddress + '\'' +
+                '}';
+    }
+}
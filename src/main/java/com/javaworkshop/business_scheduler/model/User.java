@@ -11,7 +11,9 @@ import java.util.UUID;
 
 // This class represents a User entity in the business scheduler application.
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_username", columnList = "username")
+})
 public class User {
 
     @Id
@@ -1,35 +1,284 @@
 package com.javaworkshop.business_scheduler.repository;
 
+import com.javaworkshop.business_scheduler.dto.AppointmentEndTime;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import com.javaworkshop.business_scheduler.dto.AppointmentInterval;
+import com.javaworkshop.business_scheduler.dto.AppointmentReminder;
+import com.javaworkshop.business_scheduler.dto.AppointmentStartTime;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
 import com.javaworkshop.business_scheduler.model.Appointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 // This interface defines the repository for managing Appointment entities.
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, UUID> {
 
-    // retrieves all appointments ordered by their start time
-    List<Appointment> findByOrderByStartTime();
+    // rows fetched from the database per round trip while streaming, MySQL honours it only with useCursorFetch
+    // set on the connection, which the datasource properties do, otherwise it reads the whole result at once
+    String EXPORT_FETCH_SIZE = "500";
 
     // retrieves all appointments that are not completed, ordered by their start time
     List<Appointment> findAppointmentsByIsCompletedFalseOrderByStartTime();
 
-    // retrieves all appointments for a specific customer that are not completed, ordered by their start time
-    Optional<List<Appointment>> findAppointmentsByCustomerIdAndIsCompletedFalseOrderByStartTime(UUID customerId);
+    // retrieves a page of the appointments that match the owner's filters and come after a start time and id
+    // (or from the start time on if the id is null, or from the first one if both are null), ordered by their
+    // start time and id, a null filter matches all appointments, the customer pattern is a LIKE pattern escaped
+    // with '!' matched against the customer's first name, last name, email and phone,
+    // only the columns the dashboard shows are read by a single joined query
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.DashboardAppointment(
+            a.id, s.id, s.serviceName, c.firstName, c.lastName, c.email, c.phone, a.startTime, a.isCompleted)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN a.service s
+        WHERE (:completed IS NULL OR a.isCompleted = :completed)
+        AND (:startFrom IS NULL OR a.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR a.startTime < :startBefore)
+        AND (:serviceId IS NULL OR s.id = :serviceId)
+        AND (:customerPattern IS NULL
+             OR c.firstName LIKE :customerPattern ESCAPE '!'
+             OR c.lastName LIKE :customerPattern ESCAPE '!'
+             OR c.email LIKE :customerPattern ESCAPE '!'
+             OR c.phone LIKE :customerPattern ESCAPE '!')
+        AND (:afterTime IS NULL OR a.startTime > :afterTime
+             OR (a.startTime = :afterTime AND (:afterId IS NULL OR a.id > :afterId)))
+        ORDER BY a.startTime, a.id
+    """)
+    List<DashboardAppointment> findPageAfter(@Param("completed") Boolean completed,
+                                             @Param("startFrom") LocalDateTime startFrom,
+                                             @Param("startBefore") LocalDateTime startBefore,
+                                             @Param("serviceId") UUID serviceId,
+                                             @Param("customerPattern") String customerPattern,
+                                             @Param("afterTime") LocalDateTime afterTime,
+                                             @Param("afterId") UUID afterId,
+                                             Limit limit);
+
+    // retrieves a page of the same appointments as findPageAfter that come before a start time and id
+    // (or before the start time if the id is null, or from the last one if both are null),
+    // in reverse order of their start time and id
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.DashboardAppointment(
+            a.id, s.id, s.serviceName, c.firstName, c.lastName, c.email, c.phone, a.startTime, a.isCompleted)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN a.service s
+        WHERE (:completed IS NULL OR a.isCompleted = :completed)
+        AND (:startFrom IS NULL OR a.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR a.startTime < :startBefore)
+        AND (:serviceId IS NULL OR s.id = :serviceId)
+        AND (:customerPattern IS NULL
+             OR c.firstName LIKE :customerPattern ESCAPE '!'
+             OR c.lastName LIKE :customerPattern ESCAPE '!'
+             OR c.email LIKE :customerPattern ESCAPE '!'
+             OR c.phone LIKE :customerPattern ESCAPE '!')
+        AND (:beforeTime IS NULL OR a.startTime < :beforeTime
+             OR (a.startTime = :beforeTime AND a.id < :beforeId))
+        ORDER BY a.startTime DESC, a.id DESC
+    """)
+    List<DashboardAppointment> findPageBefore(@Param("completed") Boolean completed,
+                                              @Param("startFrom") LocalDateTime startFrom,
+                                              @Param("startBefore") LocalDateTime startBefore,
+                                              @Param("serviceId") UUID serviceId,
+                                              @Param("customerPattern") String customerPattern,
+                                              @Param("beforeTime") LocalDateTime beforeTime,
+                                              @Param("beforeId") UUID beforeId,
+                                              Limit limit);
+
+    // streams the export rows of all appointments (or only the ones that are not completed) that start within
+    // an optional range, ordered by their start time, the customer and service names are joined in so no lazy
+    // association is loaded, the caller must consume it within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.AppointmentExportRow(
+            a.id, c.firstName, c.lastName, s.serviceName, a.startTime, a.endTime)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN a.service s
+        WHERE (:activeOnly = false OR a.isCompleted = false)
+        AND (:startFrom IS NULL OR a.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR a.startTime < :startBefore)
+        ORDER BY a.startTime
+    """)
+    Stream<AppointmentExportRow> streamExportRows(@Param("activeOnly") boolean activeOnly,
+                                                  @Param("startFrom") LocalDateTime startFrom,
+                                                  @Param("startBefore") LocalDateTime startBefore);
+
+    // streams the export rows of the same appointments as streamExportRows that were created or changed
+    // after a cursor (or from the beginning if it is null) and before a specific time,
+    // ordered by their modification time and id, the caller must consume it within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.AppointmentExportRow(
+            a.id, c.firstName, c.lastName, s.serviceName, a.startTime, a.endTime)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN a.service s
+        WHERE (:activeOnly = false OR a.isCompleted = false)
+        AND (:startFrom IS NULL OR a.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR a.startTime < :startBefore)
+        AND a.lastModifiedAt < :changedBefore
+        AND (:afterTime IS NULL OR a.lastModifiedAt > :afterTime
+             OR (a.lastModifiedAt = :afterTime AND a.id > :afterId))
+        ORDER BY a.lastModifiedAt, a.id
+    """)
+    Stream<AppointmentExportRow> streamChangedExportRows(@Param("activeOnly") boolean activeOnly,
+                                                         @Param("startFrom") LocalDateTime startFrom,
+                                                         @Param("startBefore") LocalDateTime startBefore,
+                                                         @Param("afterTime") LocalDateTime afterTime,
+                                                         @Param("afterId") UUID afterId,
+                                                         @Param("changedBefore") LocalDateTime changedBefore);
 
-    // retrieves all appointments that are not completed and end before a specific time
-    List<Appointment> findByEndTimeBeforeAndIsCompletedFalse(LocalDateTime time);
+    // retrieves the cursor of the last row streamChangedExportRows returns for the same arguments,
+    // an empty list if it returns no row
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.ExportCursor(a.lastModifiedAt, a.id)
+        FROM Appointment a
+        WHERE (:activeOnly = false OR a.isCompleted = false)
+        AND (:startFrom IS NULL OR a.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR a.startTime < :startBefore)
+        AND a.lastModifiedAt < :changedBefore
+        AND (:afterTime IS NULL OR a.lastModifiedAt > :afterTime
+             OR (a.lastModifiedAt = :afterTime AND a.id > :afterId))
+        ORDER BY a.lastModifiedAt DESC, a.id DESC
+    """)
+    List<ExportCursor> findLastChangedCursor(@Param("activeOnly") boolean activeOnly,
+                                             @Param("startFrom") LocalDateTime startFrom,
+                                             @Param("startBefore") LocalDateTime startBefore,
+                                             @Param("afterTime") LocalDateTime afterTime,
+                                             @Param("afterId") UUID afterId,
+                                             @Param("changedBefore") LocalDateTime changedBefore,
+                                             Limit limit);
+
+    // retrieves the dashboard rows of the appointments of the customer with the given username that are not
+    // completed, ordered by their start time, by a single joined query keyed by the username
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.DashboardAppointment(
+            a.id, s.id, s.serviceName, c.firstName, c.lastName, c.email, c.phone, a.startTime, a.isCompleted)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN c.user u
+        JOIN a.service s
+        WHERE u.username = :username
+        AND a.isCompleted = false
+        ORDER BY a.startTime
+    """)
+    List<DashboardAppointment> findDashboardAppointmentsByUsername(@Param("username") String username);
+
+    // retrieves the time range of an appointment if it belongs to the customer with the given username
+    @Query("""
+        SELECT a.startTime AS startTime, a.endTime AS endTime
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN c.user u
+        WHERE a.id = :id
+        AND u.username = :username
+    """)
+    Optional<AppointmentInterval> findIntervalByIdAndUsername(@Param("id") UUID id,
+                                                             @Param("username") String username);
+
+    // deletes an appointment only if it belongs to the customer with the given username, returns 1 if it was deleted
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        DELETE FROM Appointment a
+        WHERE a.id = :id
+        AND a.customer.id IN (
+            SELECT c.id
+            FROM Customer c
+            JOIN c.user u
+            WHERE u.username = :username
+        )
+    """)
+    int deleteByIdAndUsername(@Param("id") UUID id,
+                              @Param("username") String username);
+
+    // retrieves the ids and end times of all appointments that are not completed
+    List<AppointmentEndTime> findByIsCompletedFalse();
+
+    // retrieves the ids of the next chunk of appointments that are not completed and end before a specific time,
+    // ordered by id and starting after a given id (or from the first one if it is null)
+    @Query("""
+        SELECT a.id
+        FROM Appointment a
+        WHERE a.isCompleted = false
+        AND a.endTime < :time
+        AND (:afterId IS NULL OR a.id > :afterId)
+        ORDER BY a.id
+    """)
+    List<UUID> findExpiredIdsAfter(@Param("time") LocalDateTime time,
+                                   @Param("afterId") UUID afterId,
+                                   Limit limit);
+
+    // marks as completed the appointments that are not completed, end before a specific time
+    // and have an id after a given id (if it is not null) up to a last id, stamping them as modified
+    // at the given time, returns their count
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE Appointment a
+        SET a.isCompleted = true, a.lastModifiedAt = :modifiedAt
+        WHERE a.isCompleted = false
+        AND a.endTime < :time
+        AND (:afterId IS NULL OR a.id > :afterId)
+        AND a.id <= :lastId
+    """)
+    int markCompletedByEndTimeBefore(@Param("time") LocalDateTime time,
+                                     @Param("afterId") UUID afterId,
+                                     @Param("lastId") UUID lastId,
+                                     @Param("modifiedAt") LocalDateTime modifiedAt);
 
     // retrieves all appointments that start within a specific time range and are not completed
     List<Appointment> findAppointmentsByStartTimeBetweenAndIsCompletedFalse(LocalDateTime start, LocalDateTime end);
 
+    // retrieves the reminders of the given appointments ordered by start time and id
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.AppointmentReminder(
+            a.id, c.firstName, c.email, s.serviceName, a.startTime)
+        FROM Appointment a
+        JOIN a.customer c
+        JOIN a.service s
+        WHERE a.id IN :ids
+        ORDER BY a.startTime, a.id
+    """)
+    List<AppointmentReminder> findRemindersByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // retrieves the start times and sent reminders of the appointments that are not completed
+    // and start after a specific time
+    List<AppointmentStartTime> findByIsCompletedFalseAndStartTimeAfter(LocalDateTime time);
+
+    // claims the reminder sent the given number of minutes before an appointment that still starts at the given time
+    // and is not completed, unless this reminder or a later one was claimed already, returns 1 if it was claimed
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE Appointment a
+        SET a.remindedMinutesBefore = :minutesBefore
+        WHERE a.id = :id
+        AND a.startTime = :startTime
+        AND a.isCompleted = false
+        AND (a.remindedMinutesBefore IS NULL OR a.remindedMinutesBefore > :minutesBefore)
+    """)
+    int claimReminder(@Param("id") UUID id,
+                      @Param("startTime") LocalDateTime startTime,
+                      @Param("minutesBefore") int minutesBefore);
+
     // checks if there is an overlapping appointment within a given time range
     @Query("""
         SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END
@@ -39,4 +288,15 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     """)
     boolean isOverlapping(@Param("start") LocalDateTime start,
                           @Param("end") LocalDateTime end);
+
+    // retrieves the time ranges of all appointments that overlap a given time range, ordered by their start time
+    @Query("""
+        SELECT a.startTime AS startTime, a.endTime AS endTime
+        FROM Appointment a
+        WHERE a.startTime < :end
+        AND a.endTime > :start
+        ORDER BY a.startTime
+    """)
+    List<AppointmentInterval> findOverlappingIntervals(@Param("start") LocalDateTime start,
+                                                       @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,26 @@
+package com.javaworkshop.business_scheduler.repository;
+
+import com.javaworkshop.business_scheduler.model.BookingDay;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+// This interface defines the repository for managing BookingDay entities.
+@Repository
+public interface BookingDayRepository extends JpaRepository<BookingDay, LocalDate> {
+
+    // locks the row of a specific day until the end of the current transaction (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT bd
+        FROM BookingDay bd
+        WHERE bd.date = :date
+    """)
+    BookingDay lockByDate(@Param("date") LocalDate date);
+
+}
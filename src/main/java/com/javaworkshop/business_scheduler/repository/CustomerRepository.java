@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,6 +21,20 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     // retrieves a customer by their username
     Optional<Customer> findByUserUsername(String username);
 
+    // retrieves the customers that have one of the given emails
+    List<Customer> findByEmailIn(Collection<String> emails);
+
+    // retrieves the customers that have one of the given phone numbers
+    List<Customer> findByPhoneIn(Collection<String> phones);
+
+    // retrieves the customers whose full name (first and last name separated by a space) is one of the given names
+    @Query("""
+            SELECT c
+            FROM Customer c
+            WHERE CONCAT(c.firstName, ' ', c.lastName) IN :names
+            """)
+    List<Customer> findByFullNameIn(@Param("names") Collection<String> names);
+
     // checks if a customer exists by their email excluding a specified customer
     @Query("""
             SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END
@@ -0,0 +1,63 @@
+package com.javaworkshop.business_scheduler.repository;
+
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
+import com.javaworkshop.business_scheduler.model.DeletedAppointment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// This interface defines the repository for managing the tombstones of deleted appointments.
+// The bulk tombstones are copied from the appointments about to be deleted, so they must be recorded
+// before the delete and within its transaction.
+@Repository
+public interface DeletedAppointmentRepository extends JpaRepository<DeletedAppointment, UUID> {
+
+    // records the tombstones of all appointments of a service and returns their count
+    @Modifying
+    @Query("""
+        INSERT INTO DeletedAppointment (id, startTime, deletedAt)
+        SELECT a.id, a.startTime, :time
+        FROM Appointment a
+        WHERE a.service.id = :serviceId
+    """)
+    int recordDeletionByServiceId(@Param("serviceId") UUID serviceId,
+                                  @Param("time") LocalDateTime time);
+
+    // records the tombstones of all appointments of a customer and returns their count
+    @Modifying
+    @Query("""
+        INSERT INTO DeletedAppointment (id, startTime, deletedAt)
+        SELECT a.id, a.startTime, :time
+        FROM Appointment a
+        WHERE a.customer.id = :customerId
+    """)
+    int recordDeletionByCustomerId(@Param("customerId") UUID customerId,
+                                   @Param("time") LocalDateTime time);
+
+    // retrieves the cursors of the appointments deleted after a cursor (or from the beginning if it is null)
+    // and before a specific time that started within an optional range, ordered by their deletion time and id
+    @Query("""
+        SELECT new com.javaworkshop.business_scheduler.dto.ExportCursor(d.deletedAt, d.id)
+        FROM DeletedAppointment d
+        WHERE (:startFrom IS NULL OR d.startTime >= :startFrom)
+        AND (:startBefore IS NULL OR d.startTime < :startBefore)
+        AND d.deletedAt < :deletedBefore
+        AND (:afterTime IS NULL OR d.deletedAt > :afterTime
+             OR (d.deletedAt = :afterTime AND d.id > :afterId))
+        ORDER BY d.deletedAt, d.id
+    """)
+    List<ExportCursor> findDeletedAfter(@Param("startFrom") LocalDateTime startFrom,
+                                        @Param("startBefore") LocalDateTime startBefore,
+                                        @Param("afterTime") LocalDateTime afterTime,
+                                        @Param("afterId") UUID afterId,
+                                        @Param("deletedBefore") LocalDateTime deletedBefore,
+                                        Limit limit);
+
+}
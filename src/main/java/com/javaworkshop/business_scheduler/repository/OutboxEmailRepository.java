@@ -0,0 +1,73 @@
+package com.javaworkshop.business_scheduler.repository;
+
+import com.javaworkshop.business_scheduler.model.OutboxEmail;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// This interface defines the repository for managing the emails of the outbox.
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, UUID> {
+
+    // retrieves the ids of the pending emails that are due at a specific time, the longest waiting first
+    @Query("""
+        SELECT e.id
+        FROM OutboxEmail e
+        WHERE e.status = com.javaworkshop.business_scheduler.model.OutboxEmail.Status.PENDING
+        AND e.nextAttemptAt <= :now
+        ORDER BY e.nextAttemptAt, e.id
+    """)
+    List<UUID> findDueIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // claims the given emails that are still pending and due for a dispatcher until the lease ends,
+    // an email claimed by another dispatcher in the meantime is skipped, returns the number of claimed emails
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE OutboxEmail e
+        SET e.claimToken = :claimToken, e.nextAttemptAt = :leaseEnd
+        WHERE e.id IN :ids
+        AND e.status = com.javaworkshop.business_scheduler.model.OutboxEmail.Status.PENDING
+        AND e.nextAttemptAt <= :now
+    """)
+    int claim(@Param("ids") Collection<UUID> ids,
+              @Param("claimToken") UUID claimToken,
+              @Param("now") LocalDateTime now,
+              @Param("leaseEnd") LocalDateTime leaseEnd);
+
+    // retrieves the emails claimed with the given token
+    List<OutboxEmail> findByClaimToken(UUID claimToken);
+
+    // marks the given emails as sent at a specific time
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE OutboxEmail e
+        SET e.status = com.javaworkshop.business_scheduler.model.OutboxEmail.Status.SENT,
+            e.sentAt = :time, e.claimToken = NULL
+        WHERE e.id IN :ids
+    """)
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("time") LocalDateTime time);
+
+    // deletes the emails sent before a specific time and returns their count
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM OutboxEmail e
+        WHERE e.status = com.javaworkshop.business_scheduler.model.OutboxEmail.Status.SENT
+        AND e.sentAt < :time
+    """)
+    int deleteSentBefore(@Param("time") LocalDateTime time);
+
+    // counts the emails with a specific status
+    long countByStatus(OutboxEmail.Status status);
+}
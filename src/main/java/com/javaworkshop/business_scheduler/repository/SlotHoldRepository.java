@@ -0,0 +1,81 @@
+package com.javaworkshop.business_scheduler.repository;
+
+import com.javaworkshop.business_scheduler.model.SlotHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// This interface defines the repository for managing SlotHold entities.
+@Repository
+public interface SlotHoldRepository extends JpaRepository<SlotHold, UUID> {
+
+    // retrieves all holds that expire after a specific time
+    List<SlotHold> findByExpiresAtAfter(LocalDateTime time);
+
+    // checks if there is an unexpired hold other than the given one within a given time range
+    @Query("""
+        SELECT CASE WHEN COUNT(sh) > 0 THEN true ELSE false END
+        FROM SlotHold sh
+        WHERE (:excludedId IS NULL OR sh.id <> :excludedId)
+        AND sh.expiresAt > :now
+        AND sh.startTime < :end
+        AND sh.endTime > :start
+    """)
+    boolean isOverlapping(@Param("start") LocalDateTime start,
+                          @Param("end") LocalDateTime end,
+                          @Param("now") LocalDateTime now,
+                          @Param("excludedId") UUID excludedId);
+
+    // retrieves the ids of all holds placed by a specific holder
+    @Query("""
+        SELECT sh.id
+        FROM SlotHold sh
+        WHERE sh.holderId = :holderId
+    """)
+    List<UUID> findIdsByHolderId(@Param("holderId") UUID holderId);
+
+    // counts the unexpired holds placed from a specific address
+    @Query("""
+        SELECT COUNT(sh)
+        FROM SlotHold sh
+        WHERE sh.holderAddress = :holderAddress
+        AND sh.expiresAt > :now
+    """)
+    long countActiveByHolderAddress(@Param("holderAddress") String holderAddress,
+                                    @Param("now") LocalDateTime now);
+
+    // deletes a hold only if it was placed by the given holder, returns 1 if it was deleted
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM SlotHold sh
+        WHERE sh.id = :id
+        AND sh.holderId = :holderId
+    """)
+    int deleteByIdAndHolderId(@Param("id") UUID id,
+                              @Param("holderId") UUID holderId);
+
+    // deletes all holds placed by a specific holder and returns their count
+    @Modifying
+    @Query("""
+        DELETE FROM SlotHold sh
+        WHERE sh.holderId = :holderId
+    """)
+    int deleteByHolderId(@Param("holderId") UUID holderId);
+
+    // deletes all holds that expired until a specific time and returns their count
+    @Modifying
+    @Query("""
+        DELETE FROM SlotHold sh
+        WHERE sh.expiresAt <= :time
+    """)
+    int deleteExpired(@Param("time") LocalDateTime time);
+
+}
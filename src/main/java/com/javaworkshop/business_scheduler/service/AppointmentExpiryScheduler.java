@@ -0,0 +1,154 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentEndTime;
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.event.AppointmentsImportedEvent;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// This class marks appointments as completed when they end instead of polling for them every minute.
+// It keeps the end times of the not completed appointments in a queue and arms a single timer for the earliest one,
+// which is re-armed whenever an appointment is booked, rescheduled or cancelled.
+// A coarse periodic scan reloads the queue from the database as a safety net, e.g. for other instances' changes.
+// Nothing is armed when scheduling is disabled, since there is no task scheduler then.
+@Component
+public class AppointmentExpiryScheduler {
+
+    private final AppointmentService appointmentService;
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectProvider<TaskScheduler> taskScheduler;
+
+    private final TreeSet<Expiry> queue = new TreeSet<>(
+            Comparator.comparing((Expiry expiry) -> expiry.endTime).thenComparing(expiry -> expiry.appointmentId));
+    private final Map<UUID, Expiry> expiryByAppointmentId = new HashMap<>();
+    private ScheduledFuture<?> timer;
+    private LocalDateTime armedFor; // the end time the timer is armed for
+
+    @Autowired
+    public AppointmentExpiryScheduler(AppointmentService appointmentService,
+                                      AppointmentRepository appointmentRepository,
+                                      ObjectProvider<TaskScheduler> taskScheduler) {
+        this.appointmentService = appointmentService;
+        this.appointmentRepository = appointmentRepository;
+        this.taskScheduler = taskScheduler;
+    }
+
+    // tracks the new end time of a booked or rescheduled appointment, or stops tracking a cancelled one
+    @TransactionalEventListener(fallbackExecution = true) // once the change is committed
+    public synchronized void onAppointmentTimeChanged(AppointmentTimeChangedEvent event) {
+        if (event.getAppointmentId() == null) {
+            return;
+        }
+        untrack(event.getAppointmentId());
+        if (event.getEndTime() != null) {
+            track(new Expiry(event.getAppointmentId(), event.getEndTime(), System.nanoTime()));
+        }
+        arm();
+    }
+
+    // reloads the queue after a bulk import, a single scan instead of an update per imported appointment
+    @TransactionalEventListener(fallbackExecution = true) // once the import is committed
+    public void onAppointmentsImported(AppointmentsImportedEvent event) {
+        rescan();
+    }
+
+    // completes the expired appointments and reloads the queue from the database, this also runs on startup
+    @Scheduled(fixedDelayString = "${appointments.expiry.fallback-scan-minutes:15}", timeUnit = TimeUnit.MINUTES)
+    public void rescan() {
+        long scanStartedAt = System.nanoTime();
+        appointmentService.markExpiredAppointmentsAsCompleted();
+        List<AppointmentEndTime> pendingAppointments = appointmentRepository.findByIsCompletedFalse();
+
+        synchronized (this) {
+            // the changes tracked while the database was read are newer than what was read
+            List<Expiry> newerExpiries = queue.stream().filter(expiry -> expiry.trackedAt - scanStartedAt > 0).toList();
+            queue.clear();
+            expiryByAppointmentId.clear();
+            for (AppointmentEndTime appointment : pendingAppointments) {
+                track(new Expiry(appointment.getId(), appointment.getEndTime(), scanStartedAt));
+            }
+            for (Expiry expiry : newerExpiries) {
+                untrack(expiry.appointmentId);
+                track(expiry);
+            }
+            arm();
+        }
+    }
+
+    public synchronized LocalDateTime getArmedFor() {
+        return armedFor;
+    }
+
+    // completes the appointments that ended and re-arms the timer for the next one
+    private void expire() {
+        LocalDateTime firedAt = LocalDateTime.now();
+        appointmentService.markExpiredAppointmentsAsCompleted(); // completes everything that ended until now
+
+        synchronized (this) {
+            timer = null;
+            armedFor = null;
+            while (!queue.isEmpty() && queue.first().endTime.isBefore(firedAt)) {
+                expiryByAppointmentId.remove(queue.pollFirst().appointmentId);
+            }
+            arm();
+        }
+    }
+
+    // arms the timer for the earliest end time unless it is already armed for it
+    private void arm() {
+        TaskScheduler scheduler = taskScheduler.getIfAvailable();
+        LocalDateTime next = queue.isEmpty() ? null : queue.first().endTime;
+        if (scheduler == null || (next != null && next.equals(armedFor))) {
+            return;
+        }
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        armedFor = next;
+        if (next != null) {
+            timer = scheduler.schedule(this::expire, next.atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    private void track(Expiry expiry) {
+        queue.add(expiry);
+        expiryByAppointmentId.put(expiry.appointmentId, expiry);
+    }
+
+    private void untrack(UUID appointmentId) {
+        Expiry expiry = expiryByAppointmentId.remove(appointmentId);
+        if (expiry != null) {
+            queue.remove(expiry);
+        }
+    }
+
+    private static final class Expiry {
+
+        private final UUID appointmentId;
+        private final LocalDateTime endTime;
+        private final long trackedAt; // System.nanoTime() when the end time became known
+
+        private Expiry(UUID appointmentId, LocalDateTime endTime, long trackedAt) {
+            this.appointmentId = appointmentId;
+            this.endTime = endTime;
+            this.trackedAt = trackedAt;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportResult;
+import com.javaworkshop.business_scheduler.imports.AppointmentImportReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// This interface defines the contract for importing appointments in bulk, such as when migrating from another scheduler.
+public interface AppointmentImportService {
+
+    AppointmentImportReader findImportReader(String format);
+
+    AppointmentImportResult importAppointments(InputStream inputStream, AppointmentImportReader importReader)
+        throws IOException;
+}
@@ -0,0 +1,477 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportResult;
+import com.javaworkshop.business_scheduler.dto.AppointmentImportRow;
+import com.javaworkshop.business_scheduler.event.AppointmentsImportedEvent;
+import com.javaworkshop.business_scheduler.imports.AppointmentImportReader;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.util.SlotOccupancy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// This class imports appointments in bulk. The rows are validated in memory: the customers are looked up
+// a chunk of rows at a time, the overlaps are found with a single sweep over the rows sorted by start time,
+// and the accepted rows are inserted in JDBC batches instead of being booked one at a time.
+// The rows are inserted in chunks that commit on their own: a chunk of past rows takes no lock, and a chunk of
+// upcoming rows locks only the days it touches and only while it is inserted, so a large migration holds up
+// the bookings of a day for one short transaction, and a failed chunk does not undo the others.
+@org.springframework.stereotype.Service
+public class AppointmentImportServiceImpl implements AppointmentImportService {
+
+    private final int LOOKUP_CHUNK_SIZE = 1000; // the max number of values in a single IN list
+    private final int FLUSH_SIZE = 500; // entities persisted before they are flushed and detached, a multiple of the jdbc batch size
+    private final int MAX_REPORTED_ERRORS = 1000; // the errors beyond this are only counted
+
+    private final Map<String, AppointmentImportReader> importReaders;
+    private final AppointmentRepository appointmentRepository;
+    private final CustomerRepository customerRepository;
+    private final ServiceRepository serviceRepository;
+    private final AppointmentService appointmentService;
+    private final BookingService bookingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize; // the rows inserted by a single transaction
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public AppointmentImportServiceImpl(List<AppointmentImportReader> importReaders,
+                                        AppointmentRepository appointmentRepository,
+                                        CustomerRepository customerRepository,
+                                        ServiceRepository serviceRepository,
+                                        AppointmentService appointmentService,
+                                        BookingService bookingService,
+                                        ApplicationEventPublisher eventPublisher,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${appointments.import.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The import chunk size must be at least 1");
+        }
+        this.importReaders = importReaders.stream()
+            .collect(Collectors.toMap(AppointmentImportReader::getFormat, Function.identity()));
+        this.appointmentRepository = appointmentRepository;
+        this.customerRepository = customerRepository;
+        this.serviceRepository = serviceRepository;
+        this.appointmentService = appointmentService;
+        this.bookingService = bookingService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // returns the reader of the given format, or null if the format is not supported
+    @Override
+    public AppointmentImportReader findImportReader(String format) {
+        return format == null ? null : importReaders.get(format.toLowerCase(Locale.ROOT));
+    }
+
+    // imports the rows of the given file, the valid rows are imported even if others are rejected
+    @Override
+    public AppointmentImportResult importAppointments(InputStream inputStream, AppointmentImportReader importReader)
+            throws IOException {
+
+        Map<String, Service> servicesByName = serviceRepository.findAll().stream()
+            .collect(Collectors.toMap(Service::getServiceName, Function.identity()));
+        List<ImportCandidate> candidates = new ArrayList<>();
+        List<AppointmentImportResult.RowError> errors = new ArrayList<>();
+        int[] rowCount = {0};
+
+        importReader.read(inputStream, row -> {
+            rowCount[0]++;
+            try {
+                candidates.add(parse(row, servicesByName));
+            } catch (IllegalArgumentException e) {
+                errors.add(new AppointmentImportResult.RowError(row.getRowNumber(), e.getMessage()));
+            }
+        });
+
+        ImportOutcome outcome = new ImportOutcome();
+        Map<ImportCandidate, Customer> customers = resolveCustomers(candidates, outcome);
+        List<ImportCandidate> accepted = rejectOverlapsWithinFile(
+            candidates.stream().filter(customers::containsKey).toList(), outcome);
+        LocalDateTime now = LocalDateTime.now();
+        for (List<ImportCandidate> chunk : chunksOf(accepted, now)) {
+            importChunk(chunk, customers, now, outcome);
+        }
+        if (outcome.bookableCount > 0) {
+            // once for the whole import, the schedulers rescan the database instead of tracking every row
+            eventPublisher.publishEvent(new AppointmentsImportedEvent(outcome.bookableCount,
+                outcome.bookableStart, outcome.bookableEnd));
+        }
+
+        errors.addAll(outcome.errors);
+        errors.sort(Comparator.comparingInt(AppointmentImportResult.RowError::getRow));
+        return new AppointmentImportResult(rowCount[0], outcome.importedCount, outcome.createdCustomerCount,
+            outcome.chunkCount, outcome.failedChunkCount, errors.size(),
+            List.copyOf(errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS))));
+    }
+
+    // validates the fields of a row, throws IllegalArgumentException with the reason if it is invalid
+    private ImportCandidate parse(AppointmentImportRow row, Map<String, Service> servicesByName) {
+        if (row.getError() != null) {
+            throw new IllegalArgumentException(row.getError());
+        }
+        if (isBlank(row.getCustomer()) || isBlank(row.getService()) || isBlank(row.getStart()) || isBlank(row.getEnd())) {
+            throw new IllegalArgumentException("The customer, service, start and end are required");
+        }
+
+        LocalDateTime startTime, endTime;
+        try {
+            startTime = LocalDateTime.parse(row.getStart().trim());
+            endTime = LocalDateTime.parse(row.getEnd().trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("The start and end must be ISO date-times");
+        }
+        if (!endTime.isAfter(startTime)) {
+            throw new IllegalArgumentException("The end must be after the start");
+        }
+
+        Service service = servicesByName.get(row.getService().trim());
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown service: " + row.getService().trim());
+        }
+
+        String fullName = row.getCustomer().trim();
+        int separator = fullName.indexOf(' ');
+        String firstName = separator < 0 ? fullName : fullName.substring(0, separator);
+        String lastName = separator < 0 ? "" : fullName.substring(separator + 1).trim();
+        String email = isBlank(row.getEmail()) ? null : row.getEmail().trim();
+        String phone = isBlank(row.getPhone()) ? null : row.getPhone().trim();
+        if (firstName.length() > 100 || lastName.length() > 100 ||
+            (email != null && email.length() > 150) || (phone != null && phone.length() > 20)) {
+            throw new IllegalArgumentException("The customer details are too long");
+        }
+
+        return new ImportCandidate(row.getRowNumber(), fullName, firstName, lastName, email, phone,
+            service, startTime, endTime);
+    }
+
+    // imports a chunk of rows in its own transaction, which holds the locks of the chunk's days if its rows have not
+    // ended yet. if the chunk fails even after its retries, each of its rows is reported and the other chunks are kept
+    private void importChunk(List<ImportCandidate> chunk, Map<ImportCandidate, Customer> customers,
+                             LocalDateTime now, ImportOutcome outcome) {
+        boolean bookable = chunk.get(0).endTime.isAfter(now); // the chunks do not mix past and upcoming rows
+        List<Customer> createdCustomers = new ArrayList<>();
+        Supplier<ImportOutcome> insert = () -> {
+            forgetCreatedCustomers(createdCustomers); // a retried chunk creates its customers again
+            return insertChunk(chunk, customers, now, createdCustomers);
+        };
+
+        ImportOutcome chunkOutcome;
+        outcome.chunkCount++;
+        try {
+            chunkOutcome = bookable ? bookingService.executeOnLockedDays(getDaysOf(chunk), insert)
+                : transactionTemplate.execute(status -> insert.get());
+        } catch (RuntimeException e) {
+            forgetCreatedCustomers(createdCustomers); // they were rolled back, a later chunk may create them
+            outcome.failedChunkCount++;
+            for (ImportCandidate candidate : chunk) {
+                outcome.errors.add(new AppointmentImportResult.RowError(candidate.rowNumber,
+                    "Not imported, the chunk of rows it was in failed: " + e.getMessage()));
+            }
+            return;
+        }
+
+        outcome.add(chunkOutcome);
+        if (chunkOutcome.bookableCount > 0) { // the chunk is committed, so the freshly computed slots see it
+            appointmentService.invalidateAvailability(chunkOutcome.bookableStart, chunkOutcome.bookableEnd);
+        }
+    }
+
+    // inserts the rows of a chunk that do not overlap an existing appointment, creating their new customers,
+    // this runs in the chunk's transaction and must not keep any state between its runs but the created customers
+    private ImportOutcome insertChunk(List<ImportCandidate> chunk, Map<ImportCandidate, Customer> customers,
+                                      LocalDateTime now, List<Customer> createdCustomers) {
+        ImportOutcome outcome = new ImportOutcome();
+        LocalDateTime rangeStart = chunk.get(0).startTime;
+        LocalDateTime rangeEnd = chunk.stream().map(candidate -> candidate.endTime)
+            .max(Comparator.naturalOrder()).orElseThrow();
+        SlotOccupancy existing = new SlotOccupancy(appointmentRepository.findOverlappingIntervals(rangeStart, rangeEnd));
+
+        int pending = 0;
+        for (ImportCandidate candidate : chunk) {
+            if (!existing.isFree(candidate.startTime, candidate.endTime)) {
+                outcome.errors.add(new AppointmentImportResult.RowError(candidate.rowNumber,
+                    "Overlaps an existing appointment"));
+                continue;
+            }
+            Customer customer = customers.get(candidate);
+            if (customer.getId() == null) { // a new customer, only created if one of its rows is accepted
+                entityManager.persist(customer);
+                createdCustomers.add(customer);
+                outcome.createdCustomerCount++;
+                pending++;
+            }
+            Appointment appointment = new Appointment(customer, candidate.service, candidate.startTime,
+                candidate.endTime, candidate.endTime.isBefore(now)); // past appointments are imported as completed
+            entityManager.persist(appointment);
+            outcome.importedCount++;
+            pending++;
+
+            if (!appointment.getIsCompleted()) {
+                outcome.addBookable(1, candidate.startTime, candidate.endTime);
+            }
+            if (pending >= FLUSH_SIZE) { // keeps the persistence context small
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return outcome;
+    }
+
+    // makes the customers created by a chunk that was rolled back new again
+    private void forgetCreatedCustomers(List<Customer> createdCustomers) {
+        createdCustomers.forEach(customer -> customer.setId(null));
+        createdCustomers.clear();
+    }
+
+    // finds the customer of every row, a chunk of rows at a time: by email if one is given, else by full name.
+    // A customer that does not exist is created if both the email and phone are given and are not used by another one
+    private Map<ImportCandidate, Customer> resolveCustomers(List<ImportCandidate> candidates, ImportOutcome outcome) {
+        Set<String> emails = new LinkedHashSet<>(), phones = new LinkedHashSet<>(), names = new LinkedHashSet<>();
+        for (ImportCandidate candidate : candidates) {
+            if (candidate.email != null) {
+                emails.add(candidate.email);
+                if (candidate.phone != null) {
+                    phones.add(candidate.phone);
+                }
+            } else {
+                names.add(candidate.fullName);
+            }
+        }
+
+        Map<String, Customer> customersByEmail = new HashMap<>(), customersByPhone = new HashMap<>();
+        for (Customer customer : findByEmailsOrPhones(emails, phones)) {
+            customersByEmail.put(customer.getEmail(), customer);
+            customersByPhone.put(customer.getPhone(), customer);
+        }
+        Map<String, List<Customer>> customersByName = new HashMap<>();
+        for (List<String> chunk : chunksOf(names)) {
+            for (Customer customer : customerRepository.findByFullNameIn(chunk)) {
+                customersByName.computeIfAbsent(customer.getFirstName() + " " + customer.getLastName(),
+                    name -> new ArrayList<>()).add(customer);
+            }
+        }
+
+        Map<ImportCandidate, Customer> customers = new IdentityHashMap<>();
+        for (ImportCandidate candidate : candidates) {
+            try {
+                customers.put(candidate, candidate.email != null
+                    ? findOrCreateByEmail(candidate, customersByEmail, customersByPhone)
+                    : findByName(candidate, customersByName));
+            } catch (IllegalArgumentException e) {
+                outcome.errors.add(new AppointmentImportResult.RowError(candidate.rowNumber, e.getMessage()));
+            }
+        }
+        return customers;
+    }
+
+    // returns the customer with the email of the row, or a new one that later rows with the same email share
+    private Customer findOrCreateByEmail(ImportCandidate candidate, Map<String, Customer> customersByEmail,
+                                         Map<String, Customer> customersByPhone) {
+        Customer customer = customersByEmail.get(candidate.email);
+        if (customer != null) {
+            if (candidate.phone != null && !candidate.phone.equals(customer.getPhone())) {
+                throw new IllegalArgumentException("The email " + candidate.email + " belongs to a customer with another phone");
+            }
+            return customer;
+        }
+        if (candidate.phone == null) {
+            throw new IllegalArgumentException("A phone is required to create the customer " + candidate.email);
+        }
+        if (customersByPhone.containsKey(candidate.phone)) {
+            throw new IllegalArgumentException("The phone " + candidate.phone + " belongs to another customer");
+        }
+
+        customer = new Customer(null, candidate.firstName, candidate.lastName, candidate.email, candidate.phone);
+        customersByEmail.put(candidate.email, customer);
+        customersByPhone.put(candidate.phone, customer);
+        return customer;
+    }
+
+    // returns the only customer with the full name of the row
+    private Customer findByName(ImportCandidate candidate, Map<String, List<Customer>> customersByName) {
+        List<Customer> namesakes = customersByName.getOrDefault(candidate.fullName, List.of());
+        if (namesakes.isEmpty()) {
+            throw new IllegalArgumentException("The customer " + candidate.fullName +
+                " does not exist, an email and phone are required to create it");
+        }
+        if (namesakes.size() > 1) {
+            throw new IllegalArgumentException("More than one customer is named " + candidate.fullName +
+                ", an email is required to tell them apart");
+        }
+        return namesakes.get(0);
+    }
+
+    // keeps the rows that do not overlap an earlier accepted row of the file, sweeping the rows in start time order
+    // while tracking the accepted row that ends last, the overlaps with existing appointments are found per chunk
+    private List<ImportCandidate> rejectOverlapsWithinFile(List<ImportCandidate> candidates, ImportOutcome outcome) {
+        List<ImportCandidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparing((ImportCandidate candidate) -> candidate.startTime)
+            .thenComparingInt(candidate -> candidate.rowNumber)); // the first of two rows that start together wins
+
+        List<ImportCandidate> accepted = new ArrayList<>();
+        ImportCandidate lastEnding = null; // the accepted row that ends last
+        for (ImportCandidate candidate : sorted) {
+            if (lastEnding != null && candidate.startTime.isBefore(lastEnding.endTime)) {
+                outcome.errors.add(new AppointmentImportResult.RowError(candidate.rowNumber,
+                    "Overlaps the appointment on row " + lastEnding.rowNumber));
+            }
+            else {
+                accepted.add(candidate);
+                if (lastEnding == null || candidate.endTime.isAfter(lastEnding.endTime)) {
+                    lastEnding = candidate;
+                }
+            }
+        }
+        return accepted;
+    }
+
+    // splits the rows sorted by start time into chunks of the chunk size, the rows that ended before now
+    // and the ones that have not are never in the same chunk, since only the latter lock their days
+    private List<List<ImportCandidate>> chunksOf(List<ImportCandidate> sorted, LocalDateTime now) {
+        List<List<ImportCandidate>> chunks = new ArrayList<>();
+        List<ImportCandidate> past = new ArrayList<>(), upcoming = new ArrayList<>();
+        for (ImportCandidate candidate : sorted) {
+            (candidate.endTime.isAfter(now) ? upcoming : past).add(candidate);
+        }
+        for (List<ImportCandidate> rows : List.of(past, upcoming)) {
+            for (int i = 0; i < rows.size(); i += chunkSize) {
+                chunks.add(rows.subList(i, Math.min(i + chunkSize, rows.size())));
+            }
+        }
+        return chunks;
+    }
+
+    // returns the days the rows of a chunk span in ascending order, these are the days its transaction locks
+    private List<LocalDate> getDaysOf(List<ImportCandidate> chunk) {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (ImportCandidate candidate : chunk) {
+            for (LocalDate day = candidate.startTime.toLocalDate();
+                 !day.isAfter(candidate.endTime.toLocalDate()); day = day.plusDays(1)) {
+                days.add(day);
+            }
+        }
+        return new ArrayList<>(days);
+    }
+
+    // retrieves the customers with the given emails or phones a chunk at a time
+    private List<Customer> findByEmailsOrPhones(Collection<String> emails, Collection<String> phones) {
+        List<Customer> customers = new ArrayList<>();
+        for (List<String> chunk : chunksOf(emails)) {
+            customers.addAll(customerRepository.findByEmailIn(chunk));
+        }
+        for (List<String> chunk : chunksOf(phones)) {
+            customers.addAll(customerRepository.findByPhoneIn(chunk));
+        }
+        return customers;
+    }
+
+    private List<List<String>> chunksOf(Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += LOOKUP_CHUNK_SIZE) {
+            chunks.add(list.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // a row that passed the field validation
+    private static class ImportCandidate {
+
+        private final int rowNumber;
+        private final String fullName;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final String phone;
+        private final Service service;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        ImportCandidate(int rowNumber, String fullName, String firstName, String lastName, String email,
+                        String phone, Service service, LocalDateTime startTime, LocalDateTime endTime) {
+            this.rowNumber = rowNumber;
+            this.fullName = fullName;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.phone = phone;
+            this.service = service;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+    }
+
+    // the rows imported by the whole import or by a single chunk of it
+    private static class ImportOutcome {
+
+        private final List<AppointmentImportResult.RowError> errors = new ArrayList<>();
+        private int importedCount;
+        private int createdCustomerCount;
+        private int chunkCount;
+        private int failedChunkCount;
+        private int bookableCount; // the imported appointments that have not ended yet
+        private LocalDateTime bookableStart; // the start of the earliest of them
+        private LocalDateTime bookableEnd; // the end of the latest of them
+
+        private void addBookable(int count, LocalDateTime startTime, LocalDateTime endTime) {
+            bookableCount += count;
+            if (bookableStart == null || startTime.isBefore(bookableStart)) {
+                bookableStart = startTime;
+            }
+            if (bookableEnd == null || endTime.isAfter(bookableEnd)) {
+                bookableEnd = endTime;
+            }
+        }
+
+        // adds the outcome of a committed chunk
+        private void add(ImportOutcome chunkOutcome) {
+            errors.addAll(chunkOutcome.errors);
+            importedCount += chunkOutcome.importedCount;
+            createdCustomerCount += chunkOutcome.createdCustomerCount;
+            if (chunkOutcome.bookableCount > 0) {
+                addBookable(chunkOutcome.bookableCount, chunkOutcome.bookableStart, chunkOutcome.bookableEnd);
+            }
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package com.javaworkshop.business_scheduler.service;
 
+import com.javaworkshop.business_scheduler.dto.AppointmentCursor;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.dto.AppointmentPage;
+import com.javaworkshop.business_scheduler.dto.AppointmentSearchFilter;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
 import com.javaworkshop.business_scheduler.model.Appointment;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.model.Service;
 
-import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 // This interface defines the contract for appointment-related operations in the business scheduler application.
 public interface AppointmentService {
 
-    List<Appointment> findAll();
+    AppointmentPage findAppointmentPage(AppointmentSearchFilter filter, AppointmentCursor after, AppointmentCursor before);
 
     Appointment findById(UUID id);
 
@@ -23,19 +32,34 @@ public interface AppointmentService {
 
     void deleteById(UUID id);
 
-    List<Appointment> findActiveAppointmentsByCustomerId(UUID customerId);
+    List<DashboardAppointment> findActiveDashboardAppointmentsByUsername(String username);
+
+    boolean cancelCustomerAppointment(UUID appointmentId, String username);
 
     boolean isSlotAvailable(LocalDateTime start, LocalDateTime end);
 
     List<LocalTime> getAvailableSlots(Service service, LocalDate selectedDate, List<BusinessHour> businessHours);
 
-    List<Appointment> findAllNotMarkedAsCompletedExpiredAppointments();
+    List<LocalTime> getAvailableSlots(Service service, LocalDate selectedDate, List<BusinessHour> businessHours,
+                                      UUID ignoredHoldId);
+
+    Map<LocalDate, List<LocalTime>> getAvailableSlotsInBookingWindow(Service service, List<BusinessHour> businessHours);
+
+    void invalidateAvailability(LocalDateTime start, LocalDateTime end);
+
+    AppointmentExportWriter findExportWriter(String format);
+
+    void exportAppointments(OutputStream outputStream, AppointmentExportWriter exportWriter,
+                            AppointmentExportFilter filter) throws IOException;
+
+    void exportAppointments(OutputStream outputStream, AppointmentExportWriter exportWriter,
+                            AppointmentExportFilter filter, AtomicLong rowsWritten) throws IOException;
 
-    void exportAppointmentsToXML(OutputStream outputStream, boolean activeAppointmentsOnly) throws XMLStreamException;
+    ExportCursor findLastExportCursor(AppointmentExportFilter filter);
 
-    void sendAppointmentConfirmationEmail(Appointment appointment, boolean isRescheduled);
+    List<ExportCursor> findDeletedAppointments(AppointmentExportFilter filter);
 
-    void markExpiredAppointmentsAsCompleted();
+    void queueAppointmentConfirmationEmail(Appointment appointment, boolean isRescheduled);
 
-    void sendDailyReminders();
+    int markExpiredAppointmentsAsCompleted();
 }
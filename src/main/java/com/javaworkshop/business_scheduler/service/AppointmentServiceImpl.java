@@ -1,45 +1,118 @@
 package com.javaworkshop.business_scheduler.service;
 
+import com.javaworkshop.business_scheduler.dto.AppointmentCursor;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import com.javaworkshop.business_scheduler.dto.AppointmentInterval;
+import com.javaworkshop.business_scheduler.dto.AppointmentPage;
+import com.javaworkshop.business_scheduler.dto.AppointmentSearchFilter;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
 import com.javaworkshop.business_scheduler.model.Appointment;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
+import com.javaworkshop.business_scheduler.model.DeletedAppointment;
 import com.javaworkshop.business_scheduler.model.Service;
 import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
-import com.javaworkshop.business_scheduler.util.EmailUtil;
+import com.javaworkshop.business_scheduler.repository.DeletedAppointmentRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
+import com.javaworkshop.business_scheduler.util.EmailTemplateRenderer;
+import com.javaworkshop.business_scheduler.util.SlotOccupancy;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
-
-import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
 import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 // This class implements the AppointmentService interface providing methods
 // for managing appointments in the business scheduler application.
 @org.springframework.stereotype.Service
 public class AppointmentServiceImpl implements AppointmentService{
 
-    private final int MINUTE = 60000; // 1 minute in milliseconds
+    private final int COMPLETION_CHUNK_SIZE = 1000; // max appointments marked as completed by a single update
+    private final int DELETED_PAGE_SIZE = 1000; // max deleted appointments returned at a time to a sync
     private final AppointmentRepository appointmentRepository;
-    private final EmailUtil emailUtil; // utility for sending emails
+    private final DeletedAppointmentRepository deletedAppointmentRepository; // tombstones for the incremental export
+    private final EmailOutboxService emailOutboxService; // queues the emails to send
+    private final EmailTemplateRenderer emailTemplateRenderer;
+    private final AvailabilityCache availabilityCache; // cache of computed available slots
+    private final SlotHoldService slotHoldService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, AppointmentExportWriter> exportWriters; // export writers by their format
+    private final int pageSize; // appointments shown on a page of the owner's appointments
 
     @Autowired
     public AppointmentServiceImpl(AppointmentRepository appointmentRepository,
-                                  EmailUtil emailUtil) {
+                                  DeletedAppointmentRepository deletedAppointmentRepository,
+                                  EmailOutboxService emailOutboxService,
+                                  EmailTemplateRenderer emailTemplateRenderer,
+                                  AvailabilityCache availabilityCache,
+                                  SlotHoldService slotHoldService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  List<AppointmentExportWriter> exportWriters,
+                                  @Value("${appointments.page-size:50}") int pageSize) {
         this.appointmentRepository = appointmentRepository;
-        this.emailUtil = emailUtil;
+        this.deletedAppointmentRepository = deletedAppointmentRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.emailTemplateRenderer = emailTemplateRenderer;
+        this.availabilityCache = availabilityCache;
+        this.slotHoldService = slotHoldService;
+        this.eventPublisher = eventPublisher;
+        this.exportWriters = new HashMap<>();
+        for (AppointmentExportWriter exportWriter : exportWriters) {
+            this.exportWriters.put(exportWriter.getFormat(), exportWriter);
+        }
+        this.pageSize = pageSize;
     }
 
+    // this method retrieves a page of the owner's appointments that match the filter by their start time and id,
+    // after the given cursor, or before the given one when going back, each page is a single indexed query
+    // however deep it is and the filtering is done by the database. without a cursor it starts with the first day
+    // of the filter's date range, or with today's appointments if it has none, so the upcoming ones come first
+    // and the past ones are a previous page away
     @Override
-    public List<Appointment> findAll() {
-        return appointmentRepository.findByOrderByStartTime();
+    public AppointmentPage findAppointmentPage(AppointmentSearchFilter filter, AppointmentCursor after,
+                                               AppointmentCursor before) {
+        if (before != null) {
+            List<DashboardAppointment> page = findPageBefore(filter, before.getStartTime(), before.getId(),
+                pageSize + 1);
+            if (!page.isEmpty()) {
+                return toPage(page, true, true);
+            }
+            // nothing is left before the cursor, e.g. its appointments were cancelled, so the first page is shown
+            after = new AppointmentCursor(null, null);
+        }
+        if (after == null) {
+            after = new AppointmentCursor(filter.getFrom() == null ? LocalDate.now().atStartOfDay() : null, null);
+        }
+
+        List<DashboardAppointment> page = findPageAfter(filter, after.getStartTime(), after.getId(), pageSize + 1);
+        if (page.isEmpty() && after.getStartTime() != null) {
+            // nothing is left after the cursor, e.g. there are no upcoming appointments, so the last page is shown
+            return toPage(findPageBefore(filter, null, null, pageSize + 1), true, false);
+        }
+        boolean hasPrevious = after.getStartTime() != null && (after.getId() != null ||
+            !findPageBefore(filter, after.getStartTime(), null, 1).isEmpty());
+        return toPage(page, false, hasPrevious);
     }
 
     @Override
@@ -53,52 +126,43 @@ public class AppointmentServiceImpl implements AppointmentService{
         return appointmentRepository.save(appointment);
     }
 
-    // this method is scheduled to run every day at 7:00 AM to send reminders for appointments scheduled for today
-    @Scheduled(cron = "0 0 7 * * *") // every day at 7:00 AM
-    @Override
-    public void sendDailyReminders() {
-        try {
-            LocalDate today = LocalDate.now();
-            LocalDateTime startOfDay = today.atStartOfDay();
-            LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
-
-            List<Appointment> todayAppointments =
-                    appointmentRepository.findAppointmentsByStartTimeBetweenAndIsCompletedFalse(startOfDay, endOfDay);
-
-            for (Appointment appointment : todayAppointments) {
-                if (appointment.getCustomer() != null && appointment.getCustomer().getEmail() != null) {
-                    String toEmail = appointment.getCustomer().getEmail();
-                    String subject = "Reminder – Your Appointment is Today";
-                    String body = "Hello " + appointment.getCustomer().getFirstName() + ",\n\n" +
-                            "This is a friendly reminder that you have an appointment today:\n" +
-                            "Time: " + appointment.getStartTime().toLocalTime() + "\n" +
-                            "Service: " + appointment.getService().getServiceName() + "\n\n" +
-                            "We look forward to seeing you!";
-
-                    emailUtil.sendMail(toEmail, subject, body);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to send daily reminders: " + e.getMessage() +
-                "\nFail cause: " + e.getCause().getMessage());
-        }
-    }
-
+    // this method deletes an appointment and leaves its tombstone for the incremental export in the same transaction
     @Override
+    @Transactional
     public void deleteById(UUID id) {
+        Optional<Appointment> appointment = appointmentRepository.findById(id);
         appointmentRepository.deleteById(id);
+        appointment.ifPresent(deleted -> {
+            deletedAppointmentRepository.save(new DeletedAppointment(id, deleted.getStartTime(), LocalDateTime.now()));
+            invalidateAvailability(deleted.getStartTime(), deleted.getEndTime());
+        });
+        eventPublisher.publishEvent(new AppointmentTimeChangedEvent(id, null, null)); // no longer expires nor is reminded of
     }
 
+    // this method retrieves what the customer dashboard shows of the active appointments of the customer
+    // with the given username by a single joined query, without loading the customer or any appointment
     @Override
-    public List<Appointment> findActiveAppointmentsByCustomerId(UUID customerId) {
-        Optional<List<Appointment>> appointments =
-                appointmentRepository.findAppointmentsByCustomerIdAndIsCompletedFalseOrderByStartTime(customerId);
+    public List<DashboardAppointment> findActiveDashboardAppointmentsByUsername(String username) {
+        return appointmentRepository.findDashboardAppointmentsByUsername(username);
+    }
 
-        if (appointments.isPresent()) {
-            return appointments.get();
+    // this method cancels an appointment of the customer with the given username, the ownership is checked by the
+    // delete itself, so it never removes another customer's appointment. the time range is read beforehand only to
+    // invalidate the cached slots it frees and to leave the tombstone the incremental export reports,
+    // returns false if there is no such appointment of the customer
+    @Override
+    @Transactional
+    public boolean cancelCustomerAppointment(UUID appointmentId, String username) {
+        Optional<AppointmentInterval> interval =
+                appointmentRepository.findIntervalByIdAndUsername(appointmentId, username);
+        if (interval.isEmpty() || appointmentRepository.deleteByIdAndUsername(appointmentId, username) == 0) {
+            return false;
         }
-
-        return new ArrayList<>();
+        deletedAppointmentRepository.save(
+            new DeletedAppointment(appointmentId, interval.get().getStartTime(), LocalDateTime.now()));
+        invalidateAvailability(interval.get().getStartTime(), interval.get().getEndTime());
+        eventPublisher.publishEvent(new AppointmentTimeChangedEvent(appointmentId, null, null)); // no longer expires nor is reminded of
+        return true;
     }
 
     // this method retrieves available time slots for a given service on a selected date
@@ -106,6 +170,16 @@ public class AppointmentServiceImpl implements AppointmentService{
     public List<LocalTime> getAvailableSlots(Service service,
                                              LocalDate selectedDate,
                                              List<BusinessHour> selectedBusinessHours) {
+        return getAvailableSlots(service, selectedDate, selectedBusinessHours, null);
+    }
+
+    // this method retrieves available time slots for a given service on a selected date
+    // except the held ones, the slots of the given hold are kept since it belongs to the caller
+    @Override
+    public List<LocalTime> getAvailableSlots(Service service,
+                                             LocalDate selectedDate,
+                                             List<BusinessHour> selectedBusinessHours,
+                                             UUID ignoredHoldId) {
 
         List<LocalTime> availableSlots = new ArrayList<>();
 
@@ -117,92 +191,157 @@ public class AppointmentServiceImpl implements AppointmentService{
         // appointment duration for the given service
         int slotDuration = service.getDuration();
 
-        for (BusinessHour selectedBusinessHour : selectedBusinessHours) {
-            // skips business hours that are not open
-            if (!selectedBusinessHour.getIsOpen()) {
-                continue;
-            }
-            for (LocalTime time = selectedBusinessHour.getStartTime();
-                 time.plusMinutes(slotDuration-1).isBefore(selectedBusinessHour.getEndTime());
-                 time = time.plusMinutes(slotDuration)) {
-                if (selectedDate.equals(LocalDate.now()) && time.isBefore(LocalTime.now())) {
-                    // skips past times if the selected date is today
-                    continue;
-                }
-                LocalDateTime start = LocalDateTime.of(selectedDate, time);
-                LocalDateTime end = start.plusMinutes(slotDuration);
-                if (isSlotAvailable(start, end)) {
-                    availableSlots.add(time);
-                }
-            }
+        List<LocalTime> cachedSlots = availabilityCache.get(slotDuration, selectedDate);
+        if (cachedSlots != null) {
+            return slotHoldService.withoutHeldSlots(selectedDate, slotDuration,
+                    withoutPastSlots(selectedDate, cachedSlots), ignoredHoldId);
         }
 
-        return availableSlots;
-    }
+        long stamp = availabilityCache.currentStamp();
+        Map<LocalDate, List<LocalTime>> candidateSlotsByDate = Map.of(selectedDate,
+                getCandidateSlots(slotDuration, selectedDate, selectedBusinessHours));
 
-    // this method retrieves all appointments that are not marked as completed and have already expired
-    @Override
-    public List<Appointment> findAllNotMarkedAsCompletedExpiredAppointments() {
-        return appointmentRepository.findByEndTimeBeforeAndIsCompletedFalse(LocalDateTime.now());
+        availableSlots = filterAvailableSlots(slotDuration, candidateSlotsByDate).get(selectedDate);
+        availabilityCache.put(slotDuration, selectedDate, availableSlots, stamp); // holds expire, so they are not cached
+
+        return slotHoldService.withoutHeldSlots(selectedDate, slotDuration, availableSlots, ignoredHoldId);
     }
 
-    // this method exports all appointments to an XML file
+    // this method retrieves available time slots for a given service on every date of the booking window
     @Override
-    public void exportAppointmentsToXML(OutputStream outputStream, boolean activeAppointmentsOnly) throws XMLStreamException {
-        List<Appointment> appointments = activeAppointmentsOnly ? findAllActiveAppointments() : findAll();
+    public Map<LocalDate, List<LocalTime>> getAvailableSlotsInBookingWindow(Service service,
+                                                                         List<BusinessHour> businessHours) {
 
-        XMLOutputFactory factory = XMLOutputFactory.newInstance();
-        XMLStreamWriter writer = factory.createXMLStreamWriter(outputStream, "UTF-8");
+        int slotDuration = service.getDuration();
 
-        writer.writeStartDocument("UTF-8", "1.0");
-        writer.writeStartElement("appointments");
+        // groups the business hours by day of the week (0-6 range for Sunday-Saturday)
+        Map<Byte, List<BusinessHour>> businessHoursByDayOfWeek = new HashMap<>();
+        for (BusinessHour businessHour : businessHours) {
+            businessHoursByDayOfWeek
+                    .computeIfAbsent(businessHour.getDayOfWeek(), dayOfWeek -> new ArrayList<>())
+                    .add(businessHour);
+        }
+
+        // takes the cached dates as is and computes only the rest
+        long stamp = availabilityCache.currentStamp();
+        Map<LocalDate, List<LocalTime>> availableSlotsByDate = new LinkedHashMap<>();
+        Map<LocalDate, List<LocalTime>> candidateSlotsByDate = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (LocalDate date = today; !date.isAfter(today.plusMonths(1)); date = date.plusDays(1)) {
+            List<LocalTime> cachedSlots = availabilityCache.get(slotDuration, date);
+            if (cachedSlots != null) {
+                availableSlotsByDate.put(date, withoutPastSlots(date, cachedSlots));
+                continue;
+            }
+            byte dayOfWeek = (byte) (date.getDayOfWeek().getValue() % 7);
+            candidateSlotsByDate.put(date, getCandidateSlots(slotDuration, date,
+                    businessHoursByDayOfWeek.getOrDefault(dayOfWeek, List.of())));
+            availableSlotsByDate.put(date, null); // keeps the date order
+        }
 
-        for (Appointment appointment : appointments) {
-            writer.writeStartElement("appointment");
+        if (!candidateSlotsByDate.isEmpty()) {
+            filterAvailableSlots(slotDuration, candidateSlotsByDate).forEach((date, availableSlots) -> {
+                availabilityCache.put(slotDuration, date, availableSlots, stamp);
+                availableSlotsByDate.put(date, availableSlots);
+            });
+        }
 
-            writer.writeStartElement("id");
-            writer.writeCharacters(appointment.getId().toString());
-            writer.writeEndElement(); // </id>
+        availableSlotsByDate.replaceAll((date, availableSlots) ->
+                slotHoldService.withoutHeldSlots(date, slotDuration, availableSlots, null));
 
-            writer.writeStartElement("customer");
-            writer.writeCharacters(appointment.getCustomer().getFirstName() + " " + appointment.getCustomer().getLastName());
-            writer.writeEndElement(); // </customer>
+        return availableSlotsByDate;
+    }
 
-            writer.writeStartElement("service");
-            writer.writeCharacters(appointment.getService().getServiceName());
-            writer.writeEndElement(); // </service>
+    // invalidates the cached available slots of the dates affected by the given time range
+    @Override
+    public void invalidateAvailability(LocalDateTime start, LocalDateTime end) {
+        // inside a transaction the cache is invalidated once the change is visible to other readers
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    availabilityCache.invalidate(start, end);
+                }
+            });
+        } else {
+            availabilityCache.invalidate(start, end);
+        }
+    }
 
-            writer.writeStartElement("start");
-            writer.writeCharacters(appointment.getStartTime().toString());
-            writer.writeEndElement();  // </start>
+    // this method returns the export writer of the given format, or null if the format is not supported
+    @Override
+    public AppointmentExportWriter findExportWriter(String format) {
+        return format == null ? null : exportWriters.get(format.toLowerCase());
+    }
 
-            writer.writeStartElement("end");
-            writer.writeCharacters(appointment.getEndTime().toString());
-            writer.writeEndElement(); // </end>
+    // this method exports the appointments that match the filter with the given writer,
+    // the rows are streamed from a single joined query and written one by one so the heap use stays flat
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAppointments(OutputStream outputStream, AppointmentExportWriter exportWriter,
+                                   AppointmentExportFilter filter) throws IOException {
+        exportAppointments(outputStream, exportWriter, filter, new AtomicLong());
+    }
 
-            writer.writeEndElement(); // </appointment>
+    // this method exports the appointments like the method above and counts the rows written so far,
+    // so the progress of a long export can be followed from another thread
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAppointments(OutputStream outputStream, AppointmentExportWriter exportWriter,
+                                   AppointmentExportFilter filter, AtomicLong rowsWritten) throws IOException {
+        try (Stream<AppointmentExportRow> rows = streamExportRows(filter)) {
+            exportWriter.write(rows.peek(row -> rowsWritten.incrementAndGet()).iterator(), outputStream);
         }
+    }
 
-        writer.writeEndElement(); // </appointments>
-        writer.writeEndDocument();
-        writer.flush();
-        writer.close();
+    // this method returns the cursor an incremental export with the given filter stops at,
+    // which is the cursor it continues after if nothing changed since
+    @Override
+    public ExportCursor findLastExportCursor(AppointmentExportFilter filter) {
+        ExportCursor after = filter.getAfter();
+        List<ExportCursor> last = appointmentRepository.findLastChangedCursor(filter.isActiveOnly(),
+            filter.getStartFrom(), filter.getStartBefore(),
+            after == null ? null : after.getLastModifiedAt(), after == null ? null : after.getId(),
+            filter.getChangedBefore(), Limit.of(1));
+        return last.isEmpty() ? after : last.get(0);
     }
 
+    // this method returns the appointments deleted after the filter's cursor in the order they were deleted,
+    // a page at a time, the cursor of the last one is where the next page continues
+    @Override
+    public List<ExportCursor> findDeletedAppointments(AppointmentExportFilter filter) {
+        ExportCursor after = filter.getAfter();
+        return deletedAppointmentRepository.findDeletedAfter(filter.getStartFrom(), filter.getStartBefore(),
+            after == null ? null : after.getLastModifiedAt(), after == null ? null : after.getId(),
+            filter.getChangedBefore(), Limit.of(DELETED_PAGE_SIZE));
+    }
 
-    // this method is scheduled to run every minute to mark expired appointments as completed
-    @Scheduled(fixedDelay = MINUTE) // runs every minute
+    // this method marks expired appointments as completed when AppointmentExpiryScheduler finds one ended,
+    // one set-based update per chunk of ids so a large backlog is never loaded into memory, each chunk is
+    // committed on its own and stamped with the time it ran, so no chunk is stamped older than the settle window
+    // of the incremental export by the time it commits, it returns the number of appointments marked as completed
     @Override
-    public void markExpiredAppointmentsAsCompleted() {
+    public int markExpiredAppointmentsAsCompleted() {
+        int completedCount = 0;
         try {
-            List<Appointment> expiredAppointments = findAllNotMarkedAsCompletedExpiredAppointments();
-            for (Appointment appointment : expiredAppointments) {
-                appointment.setIsCompleted(true);
-            }
-            appointmentRepository.saveAll(expiredAppointments);
+            // completed appointments still occupy their time, so the availability does not change
+            LocalDateTime now = LocalDateTime.now();
+            UUID afterId = null;
+            List<UUID> chunkIds;
+            do {
+                chunkIds = appointmentRepository.findExpiredIdsAfter(now, afterId, Limit.of(COMPLETION_CHUNK_SIZE));
+                if (chunkIds.isEmpty()) {
+                    break;
+                }
+                UUID lastId = chunkIds.get(chunkIds.size() - 1);
+                completedCount += appointmentRepository.markCompletedByEndTimeBefore(now, afterId, lastId,
+                    LocalDateTime.now());
+                afterId = lastId;
+            } while (chunkIds.size() == COMPLETION_CHUNK_SIZE);
         } catch (Exception e) {
             System.err.println("Error marking expired appointments as completed: " + e.getMessage());
         }
+        return completedCount;
     }
 
     @Override
@@ -210,30 +349,132 @@ public class AppointmentServiceImpl implements AppointmentService{
         return !appointmentRepository.isOverlapping(startTime, endTime);
     }
 
-    // this method sends an appointment confirmation email to the customer
-    @Async // to send emails asynchronously
-    public void sendAppointmentConfirmationEmail(Appointment appointment, boolean isRescheduled) {
-        try {
-            String toEmail = appointment.getCustomer().getEmail();
-            String subject = "Appointment " + (isRescheduled ? "Updated" : "Confirmation") + " – "
-                    + appointment.getService().getServiceName();
-            String body = "Hello " + appointment.getCustomer().getFirstName() + ",\n\n" +
-                    "Your appointment has been scheduled for:\n" +
-                    "Date: " + appointment.getStartTime().toLocalDate() + "\n" +
-                    "Time: " + appointment.getStartTime().toLocalTime() + "\n" +
-                    "Service: " + appointment.getService().getServiceName() + "\n\n" +
-                    "Thank you for choosing our business!";
-
-            emailUtil.sendMail(toEmail, subject, body);
+    // this method queues an appointment confirmation email to the customer in the outbox,
+    // as part of the booking transaction so it is sent only if the booking is committed
+    @Override
+    public void queueAppointmentConfirmationEmail(Appointment appointment, boolean isRescheduled) {
+        String toEmail = appointment.getCustomer().getEmail();
+        String subject = "Appointment " + (isRescheduled ? "Updated" : "Confirmation") + " – "
+                + appointment.getService().getServiceName();
+        String body = emailTemplateRenderer.renderConfirmation(appointment.getCustomer().getFirstName(),
+                appointment.getStartTime(), appointment.getService().getServiceName());
+
+        emailOutboxService.queue(toEmail, subject, body);
+    }
 
-        } catch (Exception e) {
-            System.err.println("Failed to send confirmation email: " + e.getMessage() +
-                "\nFail cause: " + e.getCause().getMessage());
+    // keeps only the candidate slots that do not overlap an existing appointment,
+    // loading the time ranges of every appointment that may collide with one of the candidates in a single query
+    private Map<LocalDate, List<LocalTime>> filterAvailableSlots(int slotDuration,
+                                                                 Map<LocalDate, List<LocalTime>> candidateSlotsByDate) {
+
+        LocalDateTime rangeStart = null, rangeEnd = null;
+        for (Map.Entry<LocalDate, List<LocalTime>> entry : candidateSlotsByDate.entrySet()) {
+            for (LocalTime time : entry.getValue()) {
+                LocalDateTime start = LocalDateTime.of(entry.getKey(), time);
+                LocalDateTime end = start.plusMinutes(slotDuration);
+                rangeStart = rangeStart == null || start.isBefore(rangeStart) ? start : rangeStart;
+                rangeEnd = rangeEnd == null || end.isAfter(rangeEnd) ? end : rangeEnd;
+            }
+        }
+
+        SlotOccupancy occupancy = new SlotOccupancy(rangeStart == null ? List.of() :
+                appointmentRepository.findOverlappingIntervals(rangeStart, rangeEnd));
+
+        Map<LocalDate, List<LocalTime>> availableSlotsByDate = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, List<LocalTime>> entry : candidateSlotsByDate.entrySet()) {
+            List<LocalTime> availableSlots = new ArrayList<>();
+            for (LocalTime time : entry.getValue()) {
+                LocalDateTime start = LocalDateTime.of(entry.getKey(), time);
+                if (occupancy.isFree(start, start.plusMinutes(slotDuration))) {
+                    availableSlots.add(time);
+                }
+            }
+            availableSlotsByDate.put(entry.getKey(), availableSlots);
+        }
+
+        return availableSlotsByDate;
+    }
+
+    // returns the slot start times that fit in the open business hours of the selected date
+    private List<LocalTime> getCandidateSlots(int slotDuration,
+                                              LocalDate selectedDate,
+                                              List<BusinessHour> selectedBusinessHours) {
+
+        List<LocalTime> candidateSlots = new ArrayList<>();
+
+        for (BusinessHour selectedBusinessHour : selectedBusinessHours) {
+            // skips business hours that are not open
+            if (!selectedBusinessHour.getIsOpen()) {
+                continue;
+            }
+            for (LocalTime time = selectedBusinessHour.getStartTime();
+                 time.plusMinutes(slotDuration-1).isBefore(selectedBusinessHour.getEndTime());
+                 time = time.plusMinutes(slotDuration)) {
+                if (selectedDate.equals(LocalDate.now()) && time.isBefore(LocalTime.now())) {
+                    // skips past times if the selected date is today
+                    continue;
+                }
+                candidateSlots.add(time);
+            }
+        }
+
+        return candidateSlots;
+    }
+
+    // returns a copy of the given slots without the ones that already passed if the date is today
+    private List<LocalTime> withoutPastSlots(LocalDate date, List<LocalTime> slots) {
+        List<LocalTime> currentSlots = new ArrayList<>(slots);
+        if (date.equals(LocalDate.now())) {
+            LocalTime now = LocalTime.now();
+            currentSlots.removeIf(time -> time.isBefore(now));
+        }
+        return currentSlots;
+    }
+
+    // streams the export rows of a full export by start time or of an incremental export by modification time
+    private Stream<AppointmentExportRow> streamExportRows(AppointmentExportFilter filter) {
+        if (!filter.isIncremental()) {
+            return appointmentRepository.streamExportRows(filter.isActiveOnly(),
+                filter.getStartFrom(), filter.getStartBefore());
+        }
+        ExportCursor after = filter.getAfter();
+        return appointmentRepository.streamChangedExportRows(filter.isActiveOnly(),
+            filter.getStartFrom(), filter.getStartBefore(),
+            after == null ? null : after.getLastModifiedAt(), after == null ? null : after.getId(),
+            filter.getChangedBefore());
+    }
+
+    // builds a page from up to one appointment more than fits on it, which tells if there is a page beyond it,
+    // the appointments of a page read backwards are put back in order
+    private AppointmentPage toPage(List<DashboardAppointment> appointments, boolean backwards, boolean hasOtherSide) {
+        boolean hasMore = appointments.size() > pageSize;
+        List<DashboardAppointment> page =
+            new ArrayList<>(appointments.subList(0, Math.min(pageSize, appointments.size())));
+        if (backwards) {
+            Collections.reverse(page);
         }
+        boolean hasPrevious = backwards ? hasMore : hasOtherSide;
+        boolean hasNext = backwards ? hasOtherSide : hasMore;
+        return new AppointmentPage(page,
+            hasPrevious && !page.isEmpty() ? cursorOf(page.get(0)) : null,
+            hasNext && !page.isEmpty() ? cursorOf(page.get(page.size() - 1)) : null);
     }
 
-    private List<Appointment> findAllActiveAppointments() {
-        return appointmentRepository.findAppointmentsByIsCompletedFalseOrderByStartTime();
+    private List<DashboardAppointment> findPageAfter(AppointmentSearchFilter filter, LocalDateTime afterTime,
+                                                     UUID afterId, int limit) {
+        return appointmentRepository.findPageAfter(filter.getCompleted(), filter.getStartFrom(),
+            filter.getStartBefore(), filter.getServiceId(), filter.getCustomerPattern(),
+            afterTime, afterId, Limit.of(limit));
     }
 
+    private List<DashboardAppointment> findPageBefore(AppointmentSearchFilter filter, LocalDateTime beforeTime,
+                                                      UUID beforeId, int limit) {
+        return appointmentRepository.findPageBefore(filter.getCompleted(), filter.getStartFrom(),
+            filter.getStartBefore(), filter.getServiceId(), filter.getCustomerPattern(),
+            beforeTime, beforeId, Limit.of(limit));
+    }
+
+    private AppointmentCursor cursorOf(DashboardAppointment appointment) {
+        return new AppointmentCursor(appointment.getStartTime(), appointment.getAppointmentId());
+    }
 }
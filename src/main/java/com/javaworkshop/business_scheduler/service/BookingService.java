@@ -1,50 +1,147 @@
 package com.javaworkshop.business_scheduler.service;
 
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
 import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.BookingDay;
 import com.javaworkshop.business_scheduler.model.Customer;
 import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.SlotHold;
+import com.javaworkshop.business_scheduler.repository.BookingDayRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 // This class handles the booking of appointments for customers.
 @org.springframework.stereotype.Service
 public class BookingService {
 
+    private static final int MAX_ATTEMPTS = 3; // attempts of a booking that fails due to a concurrent change
+    private static final long BACKOFF_MILLIS = 50; // delay before the first retry, doubled on every retry
+    private static final Set<String> CUSTOMER_CONFLICTS = Set.of( // a concurrent booking may have created the customer
+            "error.customer.email.conflict", "error.customer.phone.conflict");
+
+    private final Set<LocalDate> existingBookingDays = ConcurrentHashMap.newKeySet(); // the rows are never deleted
     private final CustomerService customerService;
     private final AppointmentService appointmentService;
     private final BusinessHourService businessHourService;
+    private final SlotHoldService slotHoldService;
+    private final BookingDayRepository bookingDayRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public BookingService(CustomerService customerService,
                           AppointmentService appointmentService,
-                          BusinessHourService businessHourService) {
+                          BusinessHourService businessHourService,
+                          SlotHoldService slotHoldService,
+                          BookingDayRepository bookingDayRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher) {
         this.customerService = customerService;
         this.appointmentService = appointmentService;
         this.businessHourService = businessHourService;
+        this.slotHoldService = slotHoldService;
+        this.bookingDayRepository = bookingDayRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
     }
 
-    public synchronized Appointment bookAppointment(String firstName, String lastName, String email, String phone,
+    public Appointment bookAppointment(String firstName, String lastName, String email, String phone,
                                        String username, Service service, UUID appointmentId,
                                        LocalDateTime startTime, LocalDateTime endTime) {
+        return bookAppointment(firstName, lastName, email, phone, username, service, appointmentId,
+                startTime, endTime, null);
+    }
 
-        // checks if the given start time is valid
-        List<LocalTime> expectedAvailableHours =
-            appointmentService.getAvailableSlots(
-                service,
-                startTime.toLocalDate(),
-                businessHourService.findAllRangesByDayOfWeek(
-                    (byte) (startTime.getDayOfWeek().getValue() % 7)
-                )
-            );
-        if (startTime.isBefore(LocalDateTime.now()) || // cannot book in the past
-            startTime.isAfter(LocalDateTime.now().plusMonths(1)) || // cannot book more than 1 month in advance
-            !expectedAvailableHours.contains(startTime.toLocalTime())) { // the hour must be in the available hours list
-            throw new RuntimeException("error.appointmentTime.invalid.or.taken");
+    // books the appointment, converting the given hold (if any) of the requested slot into it
+    public Appointment bookAppointment(String firstName, String lastName, String email, String phone,
+                                       String username, Service service, UUID appointmentId,
+                                       LocalDateTime startTime, LocalDateTime endTime, UUID holdId) {
+        return bookAppointment(firstName, lastName, email, phone, username, service, appointmentId,
+                startTime, endTime, holdId, null);
+    }
+
+    // books the appointment, converting the given hold (if any) of the requested slot into it.
+    // an edited appointment is updated only if it still has the given version (if any), the one the editor loaded,
+    // so an editor never overwrites a change it has not seen
+    public Appointment bookAppointment(String firstName, String lastName, String email, String phone,
+                                       String username, Service service, UUID appointmentId,
+                                       LocalDateTime startTime, LocalDateTime endTime, UUID holdId,
+                                       Long appointmentVersion) {
+
+        List<LocalDate> days = getDaysOf(startTime, endTime);
+        Supplier<Appointment> booking = () -> executeOnLockedDays(days, () ->
+                bookAppointmentOnLockedDays(firstName, lastName, email, phone,
+                        username, service, appointmentId, startTime, endTime, holdId, appointmentVersion));
+
+        try {
+            return booking.get();
+        } catch (RuntimeException e) {
+            boolean customerConflict = e instanceof DataIntegrityViolationException ||
+                    CUSTOMER_CONFLICTS.contains(e.getMessage());
+            if (username != null || !customerConflict) {
+                throw e;
+            }
         }
+        // guests with the same email or phone may book on different days or instances at the same time,
+        // the unique email and phone let only one of them create the customer, and the others either fail to
+        // create it too or find its email or phone taken while looking it up, so they book again and find it
+        try {
+            return booking.get();
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("error.appointment.concurrent.update", e);
+        }
+    }
+
+    // holds the slot of the given service that starts at the given time for a short while,
+    // so other customers cannot book it while the booking form is being completed. a holder holds a single slot,
+    // so the new hold replaces its previous one, which is kept if the new slot cannot be held
+    public SlotHold holdSlot(Service service, LocalDateTime startTime, UUID holderId, String holderAddress) {
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+        List<LocalDate> days = getDaysOf(startTime, endTime);
+
+        return executeOnLockedDays(days, () -> {
+            slotHoldService.releaseHoldsOf(holderId);
+            validateSlot(service, startTime, endTime, null);
+            return slotHoldService.createHold(startTime, endTime, holderId, holderAddress);
+        });
+    }
+
+    // runs the given work in a transaction that holds the database locks of the given days (in ascending order),
+    // so no booking can take a slot on those days until it commits, the work is run again if the transaction
+    // fails due to a concurrent change, so it must not keep any state between runs
+    public <T> T executeOnLockedDays(List<LocalDate> days, Supplier<T> work) {
+        return executeWithRetry(() -> {
+            createMissingBookingDays(days);
+            return transactionTemplate.execute(status -> {
+                lockDays(days);
+                return work.get();
+            });
+        });
+    }
+
+    // books the appointment, the caller must hold the database locks of all the days it spans
+    private Appointment bookAppointmentOnLockedDays(String firstName, String lastName, String email, String phone,
+                                                    String username, Service service, UUID appointmentId,
+                                                    LocalDateTime startTime, LocalDateTime endTime, UUID holdId,
+                                                    Long appointmentVersion) {
+
+        validateSlot(service, startTime, endTime, holdId);
 
         Customer bookingCustomer;
         if (username != null) { // if the username is provided we are booking for an existing and valid customer
@@ -62,11 +159,22 @@ public class BookingService {
         Appointment appointmentToBook;
         if (appointmentId != null) { // if the appointmentId is provided, we are editing an existing appointment
             appointmentToBook = appointmentService.findById(appointmentId);
+            if (appointmentVersion != null && appointmentToBook.getVersion() != appointmentVersion) {
+                // changed since the editor loaded it, also when a retry follows a conflicting update
+                throw new RuntimeException("error.appointment.changed");
+            }
+            LocalDateTime previousStartTime = appointmentToBook.getStartTime();
+            LocalDateTime previousEndTime = appointmentToBook.getEndTime();
             appointmentToBook.setService(service);
+            if (!startTime.equals(previousStartTime)) {
+                appointmentToBook.setRemindedMinutesBefore(null); // the reminders of the new time are still to be sent
+            }
             appointmentToBook.setStartTime(startTime);
             appointmentToBook.setEndTime(endTime);
             appointmentService.save(appointmentToBook);
-            appointmentService.sendAppointmentConfirmationEmail(appointmentToBook, true);
+            appointmentService.invalidateAvailability(previousStartTime, previousEndTime); // the previous time is free again
+            appointmentService.invalidateAvailability(startTime, endTime);
+            eventPublisher.publishEvent(new AppointmentTimeChangedEvent(appointmentId, startTime, endTime));
         }
         else { // if the appointmentId is not provided, we are creating a new appointment
             if (bookingCustomer == null) { // if the customer is null, probably it's an owner trying to book a new appointment
@@ -75,10 +183,98 @@ public class BookingService {
             appointmentToBook = new Appointment(bookingCustomer, service, startTime, endTime, false);
             customerService.save(bookingCustomer); // ensure the customer is saved before saving the appointment
             appointmentService.save(appointmentToBook);
-            appointmentService.sendAppointmentConfirmationEmail(appointmentToBook, false);
+            appointmentService.invalidateAvailability(startTime, endTime);
+            eventPublisher.publishEvent(new AppointmentTimeChangedEvent(appointmentToBook.getId(), startTime, endTime));
         }
+        slotHoldService.release(holdId); // the hold is no longer needed once the slot is booked
+        appointmentService.queueAppointmentConfirmationEmail(appointmentToBook, appointmentId != null);
 
         return appointmentToBook;
     }
 
+    // checks if the given time range is a valid slot that is neither taken nor held by someone else,
+    // the caller must hold the database locks of all the days it spans
+    private void validateSlot(Service service, LocalDateTime startTime, LocalDateTime endTime, UUID holdId) {
+        List<LocalTime> expectedAvailableHours =
+            appointmentService.getAvailableSlots(
+                service,
+                startTime.toLocalDate(),
+                businessHourService.findAllRangesByDayOfWeek(
+                    (byte) (startTime.getDayOfWeek().getValue() % 7)
+                ),
+                holdId
+            );
+        if (startTime.isBefore(LocalDateTime.now()) || // cannot book in the past
+            startTime.isAfter(LocalDateTime.now().plusMonths(1)) || // cannot book more than 1 month in advance
+            !expectedAvailableHours.contains(startTime.toLocalTime()) || // the hour must be in the available hours list
+            !appointmentService.isSlotAvailable(startTime, endTime) || // the cached slots may miss other instances' bookings
+            slotHoldService.isHeld(startTime, endTime, holdId)) { // and so may the held slots
+            throw new RuntimeException("error.appointmentTime.invalid.or.taken");
+        }
+    }
+
+    // locks the rows of the given days, this must be the first statement of the transaction
+    // so every following read sees the bookings committed before the locks were acquired,
+    // a row that no longer exists is forgotten and the booking is retried so it is created again
+    private void lockDays(List<LocalDate> days) {
+        for (LocalDate day : days) {
+            if (bookingDayRepository.lockByDate(day) == null) {
+                existingBookingDays.remove(day);
+                throw new CannotAcquireLockException("The lock row of " + day + " does not exist");
+            }
+        }
+    }
+
+    // runs the given booking and runs it again with a growing delay if it failed due to a concurrent change,
+    // such as another update of the rescheduled appointment (optimistic locking) or a lock wait timeout
+    private <T> T executeWithRetry(Supplier<T> booking) {
+        long backoffMillis = BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return booking.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new RuntimeException("error.appointment.concurrent.update", e);
+                }
+            }
+            try {
+                // the jitter keeps the failed bookings from colliding again
+                Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("error.appointment.concurrent.update", e);
+            }
+            backoffMillis *= 2;
+        }
+    }
+
+    // creates the lock rows of the given days that do not exist yet,
+    // this runs before the booking transaction so a duplicate insert by another instance cannot abort it
+    private void createMissingBookingDays(List<LocalDate> days) {
+        for (LocalDate day : days) {
+            if (existingBookingDays.contains(day)) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!bookingDayRepository.existsById(day)) {
+                        bookingDayRepository.saveAndFlush(new BookingDay(day));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // another booking created the row in the meantime
+            }
+            existingBookingDays.add(day);
+        }
+    }
+
+    // returns all the days the given time range touches in ascending order
+    private List<LocalDate> getDaysOf(LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            days.add(day);
+        }
+        return days;
+    }
+
 }
@@ -2,6 +2,7 @@ package com.javaworkshop.business_scheduler.service;
 
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.repository.BusinessHourRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,10 +17,13 @@ import java.util.UUID;
 public class BusinessHourServiceImpl implements BusinessHourService{
 
     private final BusinessHourRepository businessHourRepository;
+    private final AvailabilityCache availabilityCache; // cache of computed available slots
 
     @Autowired
-    public BusinessHourServiceImpl(BusinessHourRepository businessHourRepository) {
+    public BusinessHourServiceImpl(BusinessHourRepository businessHourRepository,
+                                   AvailabilityCache availabilityCache) {
         this.businessHourRepository = businessHourRepository;
+        this.availabilityCache = availabilityCache;
     }
 
     @Override
@@ -40,7 +44,11 @@ public class BusinessHourServiceImpl implements BusinessHourService{
 
     @Override
     public void deleteById(UUID id) {
+        Byte dayOfWeek = findDayOfWeekById(id);
         businessHourRepository.deleteById(id);
+        if (dayOfWeek != null) {
+            availabilityCache.invalidateDayOfWeek(dayOfWeek);
+        }
     }
 
     @Override
@@ -65,12 +73,19 @@ public class BusinessHourServiceImpl implements BusinessHourService{
 
         BusinessHour businessHour = businessHourId != null ?
                 findById(businessHourId) : new BusinessHour();
+        byte previousDayOfWeek = businessHour.getDayOfWeek();
 
         businessHour.setDayOfWeek(dayOfWeek);
         businessHour.setStartTime(startTime);
         businessHour.setEndTime(endTime);
         businessHour.setIsOpen(isOpen);
         save(businessHour);
+
+        // the available slots change on the previous and the new day of the week
+        if (businessHourId != null) {
+            availabilityCache.invalidateDayOfWeek(previousDayOfWeek);
+        }
+        availabilityCache.invalidateDayOfWeek(dayOfWeek);
     }
 
     @Override
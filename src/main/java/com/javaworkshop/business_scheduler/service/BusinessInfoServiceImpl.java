@@ -1,9 +1,11 @@
 package com.javaworkshop.business_scheduler.service;
 
+import com.javaworkshop.business_scheduler.event.BusinessInfoChangedEvent;
 import com.javaworkshop.business_scheduler.model.BusinessInfo;
 import com.javaworkshop.business_scheduler.repository.BusinessInfoRepository;
 import com.javaworkshop.business_scheduler.util.ImageStorageUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,11 +23,15 @@ public class BusinessInfoServiceImpl implements BusinessInfoService {
 
     private final ImageStorageUtils imageStorageUtils;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Autowired
     public BusinessInfoServiceImpl(BusinessInfoRepository businessInfoRepository,
-                                   ImageStorageUtils imageStorageUtils) {
+                                   ImageStorageUtils imageStorageUtils,
+                                   ApplicationEventPublisher eventPublisher) {
         this.businessInfoRepository = businessInfoRepository;
         this.imageStorageUtils = imageStorageUtils;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -34,9 +40,12 @@ public class BusinessInfoServiceImpl implements BusinessInfoService {
         return businessInfo.orElse(null);
     }
 
+    // saves the business information and lets the ones that cache it know it changed
     @Override
     public BusinessInfo save(BusinessInfo businessInfo) {
-        return businessInfoRepository.save(businessInfo);
+        BusinessInfo savedBusinessInfo = businessInfoRepository.save(businessInfo);
+        eventPublisher.publishEvent(new BusinessInfoChangedEvent(businessInfo.getName()));
+        return savedBusinessInfo;
     }
 
     // updates the business information including name, description, and background image
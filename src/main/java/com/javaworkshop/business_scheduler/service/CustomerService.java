@@ -16,8 +16,6 @@ public interface CustomerService {
 
     Customer findByUsername(String username);
 
-    UUID findIdByUsername(String username);
-
     Customer save(Customer customer);
 
     void deleteById(UUID id);
@@ -2,9 +2,12 @@ package com.javaworkshop.business_scheduler.service;
 
 import com.javaworkshop.business_scheduler.model.Customer;
 import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.DeletedAppointmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,9 +19,13 @@ public class CustomerServiceImpl implements CustomerService{
 
     private final CustomerRepository customerRepository;
 
+    private final DeletedAppointmentRepository deletedAppointmentRepository;
+
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    public CustomerServiceImpl(CustomerRepository customerRepository,
+                               DeletedAppointmentRepository deletedAppointmentRepository) {
         this.customerRepository = customerRepository;
+        this.deletedAppointmentRepository = deletedAppointmentRepository;
     }
 
     @Override
@@ -44,26 +51,17 @@ public class CustomerServiceImpl implements CustomerService{
         return customerOptional.orElse(null);
     }
 
-    @Override
-    public UUID findIdByUsername(String username) {
-        Optional<Customer> customerIdOptional = customerRepository.findByUserUsername(username);
-
-        UUID customerId = null;
-
-        if (customerIdOptional.isPresent()) {
-            customerId = customerIdOptional.get().getId();
-        }
-
-        return customerId;
-    }
-
     @Override
     public Customer save(Customer customer) {
         return customerRepository.save(customer);
     }
 
+    // this method deletes a customer along with the appointments the database cascades the delete to,
+    // recording their tombstones beforehand
     @Override
+    @Transactional
     public void deleteById(UUID id) {
+        deletedAppointmentRepository.recordDeletionByCustomerId(id, LocalDateTime.now());
         customerRepository.deleteById(id);
     }
 
@@ -0,0 +1,13 @@
+package com.javaworkshop.business_scheduler.service;
+
+// This interface defines the contract for queueing emails in the outbox and dispatching them.
+public interface EmailOutboxService {
+
+    void queue(String toEmail, String subject, String body);
+
+    void poll();
+
+    int dispatch();
+
+    int deleteSentEmails();
+}
@@ -0,0 +1,195 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.config.AsyncConfig;
+import com.javaworkshop.business_scheduler.dto.EmailMessage;
+import com.javaworkshop.business_scheduler.model.OutboxEmail;
+import com.javaworkshop.business_scheduler.repository.OutboxEmailRepository;
+import com.javaworkshop.business_scheduler.util.EmailUtil;
+import com.javaworkshop.business_scheduler.util.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// This class implements the EmailOutboxService interface. The emails are queued in the outbox table by the
+// transaction that caused them and sent later by a dispatcher, which claims the due emails in batches with a
+// lease so several instances never send the same email at the same time, and retries the failed ones with a
+// growing delay. An instance that stops while sending leaves its claimed emails to be claimed again once the
+// lease ends, so an email is sent at least once. The sending is rate limited, so a burst of queued emails,
+// such as the reminders of a busy morning, does not flood the mail server. The sending runs on the mail pool,
+// so a slow mail server holds up its threads only and not the scheduler thread the reminders and expiries run on.
+@org.springframework.stereotype.Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private final Duration MAX_BACKOFF = Duration.ofHours(1); // the longest delay between two attempts
+    private final int MAX_ERROR_LENGTH = 500;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailUtil emailUtil;
+    private final int batchSize; // emails claimed at a time
+    private final int maxAttempts; // attempts before an email is given up on
+    private final Duration backoff; // the delay after the first failed attempt, doubled on every further one
+    private final Duration lease; // how long a claim lasts, must be longer than sending a batch takes
+    private final Duration retention; // how long sent emails are kept
+    private final RateLimiter rateLimiter; // spaces out the emails sent by this instance
+    private final Executor mailExecutor;
+    private final Semaphore senders; // the mail threads free to send, so the polls never queue up in the pool
+
+    @Autowired
+    public EmailOutboxServiceImpl(OutboxEmailRepository outboxEmailRepository,
+                                  EmailUtil emailUtil,
+                                  @Qualifier(AsyncConfig.MAIL_EXECUTOR) Executor mailExecutor,
+                                  @Value("${mail.executor.threads:4}") int senders,
+                                  @Value("${email-outbox.batch-size:50}") int batchSize,
+                                  @Value("${email-outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${email-outbox.backoff-seconds:30}") long backoffSeconds,
+                                  @Value("${email-outbox.lease-seconds:300}") long leaseSeconds,
+                                  @Value("${email-outbox.retention-days:7}") long retentionDays,
+                                  @Value("${email-outbox.rate-per-second:10}") double ratePerSecond) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailUtil = emailUtil;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = Duration.ofSeconds(backoffSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.mailExecutor = mailExecutor;
+        this.senders = new Semaphore(senders);
+    }
+
+    // queues an email, this joins the transaction of the caller so it is only sent if the caller commits
+    @Transactional
+    @Override
+    public void queue(String toEmail, String subject, String body) {
+        outboxEmailRepository.save(new OutboxEmail(toEmail, subject, body, LocalDateTime.now()));
+    }
+
+    // hands the dispatching to the mail pool unless every sender is busy already, a busy outbox is
+    // dispatched by up to as many senders as the pool has threads
+    @Scheduled(fixedDelayString = "${email-outbox.poll-millis:1000}")
+    @Override
+    public void poll() {
+        if (!senders.tryAcquire()) {
+            return;
+        }
+        try {
+            mailExecutor.execute(() -> {
+                try {
+                    dispatch();
+                } catch (RuntimeException e) {
+                    System.err.println("Dispatching the outbox failed: " + e.getMessage());
+                } finally {
+                    senders.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            senders.release(); // the pool is shutting down
+        }
+    }
+
+    // sends the next batch of due emails, returns the number of sent emails. the rest of a backlog is left to the
+    // next polls, so a sender holds a mail thread no longer than a batch takes
+    @Override
+    public int dispatch() {
+        return send(claimBatch());
+    }
+
+    // deletes the emails sent longer ago than the retention, returns their count
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    @Override
+    public int deleteSentEmails() {
+        return outboxEmailRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+    }
+
+    // claims the next batch of due emails, the emails claimed by another dispatcher in the meantime are left out
+    private List<OutboxEmail> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> dueIds = outboxEmailRepository.findDueIds(now, Limit.of(batchSize));
+        if (dueIds.isEmpty()) {
+            return List.of();
+        }
+        UUID claimToken = UUID.randomUUID();
+        if (outboxEmailRepository.claim(dueIds, claimToken, now, now.plus(lease)) == 0) {
+            return List.of();
+        }
+        return outboxEmailRepository.findByClaimToken(claimToken);
+    }
+
+    // sends the claimed emails over a single connection once the rate limit allows all of them, marks the sent
+    // ones with a single update and reschedules the failed ones, returns the number of sent emails.
+    // the emails of an interrupted wait are claimed again once their lease ends
+    private int send(List<OutboxEmail> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            rateLimiter.acquire(batch.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        List<EmailMessage> messages = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            messages.add(new EmailMessage(email.getToEmail(), email.getSubject(), email.getBody()));
+        }
+        Map<EmailMessage, Exception> failures = emailUtil.sendMails(messages);
+
+        List<UUID> sentIds = new ArrayList<>();
+        List<OutboxEmail> failedEmails = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            Exception failure = failures.get(messages.get(i));
+            if (failure == null) {
+                sentIds.add(email.getId());
+            } else {
+                registerFailure(email, failure);
+                failedEmails.add(email);
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxEmailRepository.markSent(sentIds, LocalDateTime.now());
+        }
+        if (!failedEmails.isEmpty()) {
+            outboxEmailRepository.saveAll(failedEmails);
+        }
+        return sentIds.size();
+    }
+
+    // schedules the next attempt of a failed email, or gives up on it once it ran out of attempts
+    private void registerFailure(OutboxEmail email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        email.setAttempts(attempts);
+        email.setClaimToken(null);
+        email.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(OutboxEmail.Status.FAILED);
+            System.err.println("Giving up on sending the email " + email.getId() + " to " + email.getToEmail() +
+                " after " + attempts + " attempts: " + error);
+            return;
+        }
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.compareTo(MAX_BACKOFF) > 0) {
+            delay = MAX_BACKOFF;
+        }
+        // the jitter keeps the emails that failed together from being retried together
+        long jitterMillis = ThreadLocalRandom.current().nextLong(delay.toMillis() / 10 + 1);
+        email.setNextAttemptAt(LocalDateTime.now().plus(delay).plusNanos(TimeUnit.MILLISECONDS.toNanos(jitterMillis)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.ExportJob;
+
+import java.util.UUID;
+
+// This interface defines the contract for appointment exports that run in the background.
+public interface ExportJobService {
+
+    ExportJob submit(AppointmentExportWriter exportWriter, AppointmentExportFilter filter, boolean gzip);
+
+    ExportJob findById(UUID jobId);
+
+    int deleteExpiredJobs();
+}
@@ -0,0 +1,177 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.ExportJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// This class implements the ExportJobService interface, running exports on a small bounded pool so a long
+// export neither ties up a request thread nor outlives a proxy timeout. Each export is written to a file in
+// the spool directory, which is kept for a while to be downloaded and then deleted.
+@org.springframework.stereotype.Service
+public class ExportJobServiceImpl implements ExportJobService {
+
+    private final String PART_SUFFIX = ".part"; // the suffix of the spool files still being written
+    private final AppointmentService appointmentService;
+    private final Path spoolDirectory;
+    private final Duration retention; // how long a finished job and its file are kept
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportJobServiceImpl(AppointmentService appointmentService,
+                                @Value("${export-jobs.threads:2}") int threads,
+                                @Value("${export-jobs.queue-capacity:10}") int queueCapacity,
+                                @Value("${export-jobs.spool-dir:${java.io.tmpdir}/business-scheduler-exports}") Path spoolDirectory,
+                                @Value("${export-jobs.retention-minutes:60}") long retentionMinutes) {
+        this.appointmentService = appointmentService;
+        this.spoolDirectory = spoolDirectory;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        // a full queue rejects new jobs instead of letting them pile up
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("export-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    public void createSpoolDirectory() throws IOException {
+        Files.createDirectories(spoolDirectory);
+    }
+
+    // interrupts the running exports, their partial files are deleted by the next cleanup
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // queues an export of the appointments that match the filter with the given writer,
+    // throws an ExportJobsBusyException if too many exports are already queued
+    @Override
+    public ExportJob submit(AppointmentExportWriter exportWriter, AppointmentExportFilter filter, boolean gzip) {
+        UUID jobId = UUID.randomUUID();
+        String extension = exportWriter.getFormat() + (gzip ? ".gz" : "");
+        ExportJob job = new ExportJob(jobId, "appointments." + extension,
+                gzip ? "application/gzip" : exportWriter.getContentType(),
+                spoolDirectory.resolve(jobId + "." + extension));
+
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> runJob(job, exportWriter, filter, gzip));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw new ExportJobsBusyException(e);
+        }
+        return job;
+    }
+
+    @Override
+    public ExportJob findById(UUID jobId) {
+        return jobs.get(jobId);
+    }
+
+    // deletes the jobs that finished before the retention period along with their files,
+    // and any file left in the spool directory for longer than that (e.g. by a previous run),
+    // returns the number of jobs deleted
+    @Override
+    @Scheduled(fixedDelayString = "${export-jobs.cleanup-minutes:5}", timeUnit = TimeUnit.MINUTES)
+    public int deleteExpiredJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        int deletedCount = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.isFinished() && job.getFinishedAt().isBefore(expiredBefore)) {
+                jobs.remove(job.getId());
+                deleteQuietly(job.getFile());
+                deletedCount++;
+            }
+        }
+
+        Instant staleBefore = Instant.now().minus(retention);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory)) {
+            for (Path file : files) {
+                FileTime lastModified = Files.getLastModifiedTime(file);
+                if (lastModified.toInstant().isBefore(staleBefore) && !isTracked(file)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error cleaning up the export spool directory: " + e.getMessage());
+        }
+        return deletedCount;
+    }
+
+    // writes the export to a partial file that is renamed once it is complete,
+    // so a file with the final name is always a complete export
+    private void runJob(ExportJob job, AppointmentExportWriter exportWriter, AppointmentExportFilter filter,
+                        boolean gzip) {
+        job.markRunning();
+        Path partFile = partFileOf(job.getFile());
+        try {
+            if (filter.isIncremental()) {
+                job.setCursor(appointmentService.findLastExportCursor(filter));
+            }
+            try (OutputStream fileStream = new BufferedOutputStream(Files.newOutputStream(partFile));
+                 OutputStream outputStream = gzip ? new GZIPOutputStream(fileStream) : fileStream) {
+                appointmentService.exportAppointments(outputStream, exportWriter, filter, job.getRowsWritten());
+            }
+            Files.move(partFile, job.getFile(), StandardCopyOption.ATOMIC_MOVE);
+            job.markCompleted(Files.size(job.getFile()));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error running export job " + job.getId() + ": " + e.getMessage());
+            deleteQuietly(partFile);
+            job.markFailed();
+        } catch (Error e) { // e.g. out of memory, the job still fails instead of staying running
+            deleteQuietly(partFile);
+            job.markFailed();
+            throw e;
+        }
+    }
+
+    // checks if the given spool file belongs to a job that is still kept
+    private boolean isTracked(Path file) {
+        String fileName = file.getFileName().toString();
+        for (ExportJob job : jobs.values()) {
+            Path jobFile = job.getFile().getFileName();
+            if (fileName.equals(jobFile.toString()) || fileName.equals(partFileOf(jobFile).toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path partFileOf(Path file) {
+        return file.resolveSibling(file.getFileName() + PART_SUFFIX);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting export file " + file + ": " + e.getMessage());
+        }
+    }
+}
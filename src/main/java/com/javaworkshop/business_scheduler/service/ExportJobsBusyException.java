@@ -0,0 +1,10 @@
+package com.javaworkshop.business_scheduler.service;
+
+// This exception is thrown when an export cannot be queued because too many exports are already queued,
+// its message is the key of the error shown to the owner.
+public class ExportJobsBusyException extends RuntimeException {
+
+    public ExportJobsBusyException(Throwable cause) {
+        super("error.export.jobs.busy", cause);
+    }
+}
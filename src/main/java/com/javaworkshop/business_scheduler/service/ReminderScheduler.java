@@ -0,0 +1,213 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentStartTime;
+import com.javaworkshop.business_scheduler.dto.ReminderRunResult;
+import com.javaworkshop.business_scheduler.dto.ScheduledReminder;
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.event.AppointmentsImportedEvent;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.util.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// This class sends the reminders of every appointment the configured times before it starts, such as 24 hours
+// and 2 hours before, so the reminders follow the appointments across the day instead of all going out at once.
+// The reminders that are still to be sent are kept in a hashed timing wheel that is advanced every tick,
+// which is updated whenever an appointment is booked, rescheduled or cancelled.
+// The wheel is rebuilt from the database on startup, and by a coarse periodic scan as a safety net,
+// e.g. for other instances' changes. Nothing ticks when scheduling is disabled.
+@Component
+public class ReminderScheduler {
+
+    private final ReminderService reminderService;
+    private final AppointmentRepository appointmentRepository;
+    private final List<Integer> offsetMinutes; // the reminders sent before each appointment, the earliest first
+    private final Duration catchUp; // how late a reminder that was missed while stopped is still sent
+    private final HashedTimingWheel<ScheduledReminder> wheel;
+    private final Map<UUID, TrackedAppointment> trackedByAppointmentId = new HashMap<>();
+    private final ExecutorService dispatcher; // sends the due reminders so the ticks are not held up
+
+    @Autowired
+    public ReminderScheduler(ReminderService reminderService,
+                             AppointmentRepository appointmentRepository,
+                             @Value("${reminders.offset-minutes:1440,120}") int[] offsetMinutes,
+                             @Value("${reminders.catch-up-minutes:30}") long catchUpMinutes,
+                             @Value("${reminders.tick-seconds:1}") long tickSeconds,
+                             @Value("${reminders.wheel-size:512}") int wheelSize) {
+        this.reminderService = reminderService;
+        this.appointmentRepository = appointmentRepository;
+        this.offsetMinutes = Arrays.stream(offsetMinutes).boxed().sorted(Comparator.reverseOrder()).toList();
+        this.catchUp = Duration.ofMinutes(catchUpMinutes);
+        this.wheel = new HashedTimingWheel<>(Duration.ofSeconds(tickSeconds), wheelSize, System.currentTimeMillis());
+        this.dispatcher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reminder-dispatcher-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // schedules the reminders of a booked or rescheduled appointment, or drops the ones of a cancelled one.
+    // a booking made after one of its reminders was due does not get that reminder, its confirmation is enough
+    @TransactionalEventListener(fallbackExecution = true) // once the change is committed
+    public synchronized void onAppointmentTimeChanged(AppointmentTimeChangedEvent event) {
+        if (event.getAppointmentId() == null) {
+            return;
+        }
+        untrack(event.getAppointmentId());
+        if (event.getStartTime() != null) {
+            LocalDateTime now = LocalDateTime.now();
+            track(event.getAppointmentId(), event.getStartTime(), null, now, now, System.nanoTime());
+        }
+    }
+
+    // reloads the wheel once after a bulk import, which is cheaper than scheduling the imported rows one by one
+    @TransactionalEventListener(fallbackExecution = true) // once the import is committed
+    public void onAppointmentsImported(AppointmentsImportedEvent event) {
+        rescan();
+    }
+
+    // reloads the wheel from the database, this also runs on startup. a reminder that came due less than
+    // the catch-up time ago without being sent, e.g. while the application was stopped, is sent right away
+    // unless the appointment was booked or changed after it came due
+    @Scheduled(fixedDelayString = "${reminders.rescan-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void rescan() {
+        if (offsetMinutes.isEmpty()) {
+            return;
+        }
+        long scanStartedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<AppointmentStartTime> upcomingAppointments =
+                appointmentRepository.findByIsCompletedFalseAndStartTimeAfter(now);
+
+        synchronized (this) {
+            // the changes tracked while the database was read are newer than what was read
+            trackedByAppointmentId.values().removeIf(tracked -> {
+                if (tracked.trackedAt - scanStartedAt > 0) {
+                    return false;
+                }
+                tracked.timeouts.forEach(wheel::cancel);
+                return true;
+            });
+            for (AppointmentStartTime appointment : upcomingAppointments) {
+                if (!trackedByAppointmentId.containsKey(appointment.getId())) {
+                    LocalDateTime missedSince = now.minus(catchUp);
+                    LocalDateTime lastModifiedAt = appointment.getLastModifiedAt();
+                    if (lastModifiedAt != null && lastModifiedAt.isAfter(missedSince)) {
+                        missedSince = lastModifiedAt;
+                    }
+                    track(appointment.getId(), appointment.getStartTime(), appointment.getRemindedMinutesBefore(),
+                            now, missedSince, scanStartedAt);
+                }
+            }
+        }
+    }
+
+    // advances the wheel and hands the reminders that came due to the dispatcher
+    @Scheduled(fixedRateString = "${reminders.tick-seconds:1}", timeUnit = TimeUnit.SECONDS)
+    public void tick() {
+        List<ScheduledReminder> dueReminders;
+        synchronized (this) {
+            dueReminders = wheel.advance(System.currentTimeMillis());
+            dueReminders.forEach(this::forget);
+        }
+        if (!dueReminders.isEmpty()) {
+            dispatcher.execute(() -> send(dueReminders));
+        }
+    }
+
+    // returns the number of reminders that are still to be sent
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+
+    // queues the due reminders to be sent, only the runs that went wrong are reported
+    private void send(List<ScheduledReminder> dueReminders) {
+        try {
+            ReminderRunResult result = reminderService.queueReminders(dueReminders);
+            if (result.getFailedCount() > 0) {
+                System.err.println("Failed to queue some of the due reminders: " + result);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to queue " + dueReminders.size() + " reminders: " + e.getMessage());
+        }
+    }
+
+    // schedules the reminders of an appointment that are due after now and were not sent yet,
+    // and the nearest one that was due since the given time but was not sent, if any
+    private void track(UUID appointmentId, LocalDateTime startTime, Integer remindedMinutesBefore,
+                       LocalDateTime now, LocalDateTime missedSince, long trackedAt) {
+        List<HashedTimingWheel.Timeout<ScheduledReminder>> timeouts = new ArrayList<>();
+        ScheduledReminder missedReminder = null;
+        for (int minutesBefore : offsetMinutes) {
+            if (remindedMinutesBefore != null && minutesBefore >= remindedMinutesBefore) {
+                continue; // this reminder or a later one was sent already
+            }
+            ScheduledReminder reminder = new ScheduledReminder(appointmentId, startTime, minutesBefore);
+            LocalDateTime dueTime = reminder.getDueTime();
+            if (dueTime.isAfter(now)) {
+                timeouts.add(wheel.schedule(reminder, toMillis(dueTime)));
+            } else if (dueTime.isAfter(missedSince)) {
+                missedReminder = reminder; // the offsets go from the earliest to the latest reminder
+            }
+        }
+        if (missedReminder != null) {
+            timeouts.add(wheel.schedule(missedReminder, toMillis(now)));
+        }
+        if (!timeouts.isEmpty()) {
+            trackedByAppointmentId.put(appointmentId, new TrackedAppointment(timeouts, trackedAt));
+        }
+    }
+
+    private void untrack(UUID appointmentId) {
+        TrackedAppointment tracked = trackedByAppointmentId.remove(appointmentId);
+        if (tracked != null) {
+            tracked.timeouts.forEach(wheel::cancel);
+        }
+    }
+
+    // drops a reminder that came due from its appointment, and the appointment once none of its reminders is left
+    private void forget(ScheduledReminder reminder) {
+        TrackedAppointment tracked = trackedByAppointmentId.get(reminder.getAppointmentId());
+        if (tracked != null) {
+            tracked.timeouts.removeIf(timeout -> timeout.getItem() == reminder);
+            if (tracked.timeouts.isEmpty()) {
+                trackedByAppointmentId.remove(reminder.getAppointmentId());
+            }
+        }
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class TrackedAppointment {
+
+        private final List<HashedTimingWheel.Timeout<ScheduledReminder>> timeouts; // the reminders still to send
+        private final long trackedAt; // System.nanoTime() when the start time became known
+
+        private TrackedAppointment(List<HashedTimingWheel.Timeout<ScheduledReminder>> timeouts, long trackedAt) {
+            this.timeouts = timeouts;
+            this.trackedAt = trackedAt;
+        }
+    }
+}
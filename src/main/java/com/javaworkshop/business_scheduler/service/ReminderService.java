@@ -0,0 +1,88 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentReminder;
+import com.javaworkshop.business_scheduler.dto.ReminderRunResult;
+import com.javaworkshop.business_scheduler.dto.ScheduledReminder;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.util.EmailTemplateRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// This class queues the appointment reminders that came due in the email outbox. Each reminder is claimed in the
+// database and queued by the same transaction, so it is queued once even if it comes due on several instances
+// or again after a restart, and it is never claimed without being queued. The outbox sends it later and retries
+// it if the mail server fails, so a reminder is not lost to a single failed attempt. The reminders are claimed,
+// read by a joined query and queued a page at a time, one short transaction per page.
+@org.springframework.stereotype.Service
+public class ReminderService {
+
+    private final String SUBJECT = "Reminder – Your Upcoming Appointment";
+    private final AppointmentRepository appointmentRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateRenderer emailTemplateRenderer;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize; // reminders claimed and queued by a single transaction
+
+    @Autowired
+    public ReminderService(AppointmentRepository appointmentRepository,
+                           EmailOutboxService emailOutboxService,
+                           EmailTemplateRenderer emailTemplateRenderer,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${reminders.page-size:200}") int pageSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.emailTemplateRenderer = emailTemplateRenderer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+    }
+
+    // claims the given reminders and queues their emails in the outbox.
+    // a reminder is skipped if it was claimed already, or its appointment was rescheduled, completed or cancelled
+    // in the meantime, or has no one to remind. the reminders of a page that fails are left unclaimed and counted
+    // as failed, so the next scan of the scheduler finds them again
+    public ReminderRunResult queueReminders(List<ScheduledReminder> reminders) {
+        int queuedCount = 0;
+        int failedCount = 0;
+        for (int from = 0; from < reminders.size(); from += pageSize) {
+            List<ScheduledReminder> page = reminders.subList(from, Math.min(from + pageSize, reminders.size()));
+            try {
+                queuedCount += transactionTemplate.execute(status -> queuePage(page));
+            } catch (RuntimeException e) {
+                System.err.println("Failed to queue " + page.size() + " reminders: " + e.getMessage());
+                failedCount += page.size();
+            }
+        }
+        return new ReminderRunResult(queuedCount, failedCount, reminders.size() - queuedCount - failedCount);
+    }
+
+    // claims the reminders of a page, then reads the claimed ones with a single query and queues their emails,
+    // returns the number of queued reminders
+    private int queuePage(List<ScheduledReminder> page) {
+        List<UUID> claimedIds = new ArrayList<>();
+        for (ScheduledReminder reminder : page) {
+            if (appointmentRepository.claimReminder(reminder.getAppointmentId(), reminder.getStartTime(),
+                    reminder.getMinutesBefore()) == 1) {
+                claimedIds.add(reminder.getAppointmentId());
+            }
+        }
+        if (claimedIds.isEmpty()) {
+            return 0;
+        }
+        int queuedCount = 0;
+        for (AppointmentReminder reminder : appointmentRepository.findRemindersByIdIn(claimedIds)) {
+            if (reminder.getCustomerEmail() == null || reminder.getCustomerEmail().isBlank()) {
+                continue; // no one to remind
+            }
+            emailOutboxService.queue(reminder.getCustomerEmail(), SUBJECT, emailTemplateRenderer.renderReminder(
+                    reminder.getCustomerFirstName(), reminder.getStartTime(), reminder.getServiceName()));
+            queuedCount++;
+        }
+        return queuedCount;
+    }
+}
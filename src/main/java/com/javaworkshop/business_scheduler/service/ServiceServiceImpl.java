@@ -1,18 +1,24 @@
 package com.javaworkshop.business_scheduler.service;
 
 
+import com.javaworkshop.business_scheduler.repository.DeletedAppointmentRepository;
 import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
 import com.javaworkshop.business_scheduler.util.ImageStorageUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.javaworkshop.business_scheduler.model.Service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @org.springframework.stereotype.Service
@@ -23,11 +29,19 @@ public class ServiceServiceImpl implements ServiceService{
 
     private final ImageStorageUtils imageStorageUtils;
 
+    private final AvailabilityCache availabilityCache;
+
+    private final DeletedAppointmentRepository deletedAppointmentRepository;
+
     @Autowired
     public ServiceServiceImpl(ServiceRepository serviceRepository,
-                              ImageStorageUtils imageStorageUtils) {
+                              ImageStorageUtils imageStorageUtils,
+                              AvailabilityCache availabilityCache,
+                              DeletedAppointmentRepository deletedAppointmentRepository) {
         this.serviceRepository = serviceRepository;
         this.imageStorageUtils = imageStorageUtils;
+        this.availabilityCache = availabilityCache;
+        this.deletedAppointmentRepository = deletedAppointmentRepository;
     }
 
     @Override
@@ -47,9 +61,14 @@ public class ServiceServiceImpl implements ServiceService{
         return serviceRepository.save(service);
     }
 
+    // this method deletes a service, its appointments are deleted with it by the database,
+    // so their tombstones are copied first for the incremental export
     @Override
+    @Transactional
     public void deleteById(UUID id) {
+        deletedAppointmentRepository.recordDeletionByServiceId(id, LocalDateTime.now());
         serviceRepository.deleteById(id);
+        clearAvailability(); // the appointments of the service are deleted with it on any date
     }
 
     @Override
@@ -104,4 +123,19 @@ public class ServiceServiceImpl implements ServiceService{
         save(service);
     }
 
+    // clears the cached available slots, inside a transaction once the change is visible to other readers,
+    // so the slots they cache in the meantime are not left stale
+    private void clearAvailability() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    availabilityCache.clear();
+                }
+            });
+        } else {
+            availabilityCache.clear();
+        }
+    }
+
 }
\ No newline at end of file
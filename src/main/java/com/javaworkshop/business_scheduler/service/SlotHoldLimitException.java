@@ -0,0 +1,10 @@
+package com.javaworkshop.business_scheduler.service;
+
+// This exception is thrown when a client already holds as many slots as it may,
+// its message is the key of the error shown to the client.
+public class SlotHoldLimitException extends RuntimeException {
+
+    public SlotHoldLimitException() {
+        super("error.slot-hold.limit");
+    }
+}
@@ -0,0 +1,27 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.model.SlotHold;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+// This interface defines the contract for temporary slot hold operations in the business scheduler application.
+public interface SlotHoldService {
+
+    SlotHold createHold(LocalDateTime startTime, LocalDateTime endTime, UUID holderId, String holderAddress);
+
+    void releaseHoldsOf(UUID holderId);
+
+    SlotHold findActiveById(UUID holdId);
+
+    boolean isHeld(LocalDateTime startTime, LocalDateTime endTime, UUID excludedHoldId);
+
+    List<LocalTime> withoutHeldSlots(LocalDate date, int duration, List<LocalTime> slots, UUID excludedHoldId);
+
+    void release(UUID holdId);
+
+    void release(UUID holdId, UUID holderId);
+}
@@ -0,0 +1,197 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.model.SlotHold;
+import com.javaworkshop.business_scheduler.repository.SlotHoldRepository;
+import com.javaworkshop.business_scheduler.util.SlotHoldRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// This class implements the SlotHoldService interface providing methods
+// for managing temporary slot holds in the business scheduler application.
+// The holds table is the source of truth shared by all the instances, while the registry
+// is an in-memory view of it that is used to hide held slots from the available slots.
+// A released hold leaves the registry once its transaction commits, until then it is hidden from that
+// transaction only, so a holder may hold the slot of its own released hold again.
+@org.springframework.stereotype.Service
+public class SlotHoldServiceImpl implements SlotHoldService {
+
+    private final SlotHoldRepository slotHoldRepository;
+    private final SlotHoldRegistry slotHoldRegistry = new SlotHoldRegistry();
+    private final long ttlMinutes; // how long a hold lasts
+    private final long refreshMillis; // how often the holds of other instances are reloaded into the registry
+    private final long maxHoldsPerAddress; // how many holds may be active at once from a single client address
+    private final Object releasedHoldsKey = new Object(); // binds the holds released by a transaction to it
+    private volatile long lastRefreshMillis = 0;
+
+    @Autowired
+    public SlotHoldServiceImpl(SlotHoldRepository slotHoldRepository,
+                               @Value("${slot-hold.ttl-minutes:5}") long ttlMinutes,
+                               @Value("${slot-hold.refresh-seconds:5}") long refreshSeconds,
+                               @Value("${slot-hold.max-per-address:10}") long maxHoldsPerAddress) {
+        this.slotHoldRepository = slotHoldRepository;
+        this.ttlMinutes = ttlMinutes;
+        this.refreshMillis = refreshSeconds * 1000;
+        this.maxHoldsPerAddress = maxHoldsPerAddress;
+    }
+
+    @PostConstruct
+    public void loadHolds() {
+        refresh();
+    }
+
+    // creates a hold of the given time range for the given holder, the caller must hold the database locks
+    // of its days so no other booking or hold can claim the range at the same time, and must have released
+    // the previous holds of the holder. throws SlotHoldLimitException if the client address already holds
+    // as many slots as it may
+    @Override
+    public SlotHold createHold(LocalDateTime startTime, LocalDateTime endTime, UUID holderId, String holderAddress) {
+        LocalDateTime now = LocalDateTime.now();
+        slotHoldRepository.deleteExpired(now); // expired rows are removed here instead of by a timer
+        if (slotHoldRepository.countActiveByHolderAddress(holderAddress, now) >= maxHoldsPerAddress) {
+            throw new SlotHoldLimitException();
+        }
+        SlotHold hold = slotHoldRepository.save(new SlotHold(startTime, endTime, now.plusMinutes(ttlMinutes),
+                holderId, holderAddress));
+        afterCommit(() -> slotHoldRegistry.put(hold));
+        return hold;
+    }
+
+    // releases all the holds of the given holder, so the slot it holds next replaces them
+    @Override
+    public void releaseHoldsOf(UUID holderId) {
+        List<UUID> holdIds = slotHoldRepository.findIdsByHolderId(holderId);
+        if (holdIds.isEmpty()) {
+            return;
+        }
+        slotHoldRepository.deleteByHolderId(holderId);
+        removeFromRegistry(holdIds);
+    }
+
+    @Override
+    public SlotHold findActiveById(UUID holdId) {
+        return slotHoldRepository.findById(holdId)
+                .filter(hold -> hold.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElse(null);
+    }
+
+    // checks in the database if an unexpired hold other than the given one overlaps the given time range
+    @Override
+    public boolean isHeld(LocalDateTime startTime, LocalDateTime endTime, UUID excludedHoldId) {
+        return slotHoldRepository.isOverlapping(startTime, endTime, LocalDateTime.now(), excludedHoldId);
+    }
+
+    // removes the slots that overlap an unexpired hold other than the given one,
+    // holds placed on other instances are seen once the registry is refreshed
+    @Override
+    public List<LocalTime> withoutHeldSlots(LocalDate date, int duration, List<LocalTime> slots, UUID excludedHoldId) {
+        if (System.currentTimeMillis() - lastRefreshMillis >= refreshMillis) {
+            refresh();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (slotHoldRegistry.size(now) == 0) {
+            return slots;
+        }
+        Set<UUID> excludedHoldIds = new HashSet<>(releasedHolds());
+        if (excludedHoldId != null) {
+            excludedHoldIds.add(excludedHoldId);
+        }
+        List<LocalTime> notHeldSlots = new ArrayList<>(slots.size());
+        for (LocalTime slot : slots) {
+            LocalDateTime start = LocalDateTime.of(date, slot);
+            if (!slotHoldRegistry.isHeld(start, start.plusMinutes(duration), now, excludedHoldIds)) {
+                notHeldSlots.add(slot);
+            }
+        }
+        return notHeldSlots;
+    }
+
+    @Override
+    public void release(UUID holdId) {
+        if (holdId == null) {
+            return;
+        }
+        slotHoldRepository.deleteById(holdId);
+        removeFromRegistry(List.of(holdId));
+    }
+
+    // releases a hold only if it belongs to the given holder, so a client cannot release the holds of others
+    @Override
+    public void release(UUID holdId, UUID holderId) {
+        if (holdId == null || holderId == null) {
+            return;
+        }
+        if (slotHoldRepository.deleteByIdAndHolderId(holdId, holderId) > 0) {
+            removeFromRegistry(List.of(holdId));
+        }
+    }
+
+    // reloads the unexpired holds of all the instances into the registry, merged so the holds put or released
+    // on this instance while they were being read are not undone
+    private void refresh() {
+        lastRefreshMillis = System.currentTimeMillis();
+        long mark = slotHoldRegistry.mark();
+        slotHoldRegistry.merge(slotHoldRepository.findByExpiresAtAfter(LocalDateTime.now()), mark);
+    }
+
+    // removes the given released holds from the registry once the current transaction commits, or right away
+    // without a transaction. until then they are hidden from the current transaction only
+    @SuppressWarnings("unchecked")
+    private void removeFromRegistry(List<UUID> holdIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            holdIds.forEach(slotHoldRegistry::remove);
+            return;
+        }
+        Set<UUID> releasedHolds = (Set<UUID>) TransactionSynchronizationManager.getResource(releasedHoldsKey);
+        if (releasedHolds == null) {
+            Set<UUID> transactionHolds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(releasedHoldsKey, transactionHolds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    transactionHolds.forEach(slotHoldRegistry::remove);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(releasedHoldsKey);
+                }
+            });
+            releasedHolds = transactionHolds;
+        }
+        releasedHolds.addAll(holdIds);
+    }
+
+    // returns the holds released by the current transaction that are still in the registry
+    @SuppressWarnings("unchecked")
+    private Set<UUID> releasedHolds() {
+        Set<UUID> releasedHolds = (Set<UUID>) TransactionSynchronizationManager.getResource(releasedHoldsKey);
+        return releasedHolds == null ? Set.of() : releasedHolds;
+    }
+
+    // runs the given action once the current transaction commits, or right away without a transaction
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.javaworkshop.business_scheduler.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// This class caches the computed available slots of a date per service duration.
+// The entry count is bounded (least recently used entries are dropped first)
+// and entries are invalidated only for the dates affected by a change.
+@Component
+public class AvailabilityCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, List<LocalTime>> entries;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0; // also used as a stamp to reject results computed before an invalidation
+
+    public AvailabilityCache(@Value("${availability.cache.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<LocalTime>> eldest) {
+                return size() > AvailabilityCache.this.maxEntries;
+            }
+        };
+    }
+
+    // returns the cached slots for the given duration and date or null if they are not cached
+    public synchronized List<LocalTime> get(int duration, LocalDate date) {
+        List<LocalTime> slots = entries.get(new Key(duration, date));
+        if (slots == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return slots;
+    }
+
+    // returns the current stamp, which must be taken before loading the slots that will be put
+    public synchronized long currentStamp() {
+        return invalidations;
+    }
+
+    // caches the given slots unless an invalidation happened since the given stamp was taken
+    public synchronized void put(int duration, LocalDate date, List<LocalTime> slots, long stamp) {
+        if (stamp == invalidations) {
+            entries.put(new Key(duration, date), List.copyOf(slots));
+        }
+    }
+
+    // invalidates every cached date that has a slot which may overlap the given time range
+    public synchronized void invalidate(LocalDateTime start, LocalDateTime end) {
+        invalidations++;
+        // a slot of a given duration overlaps the range only if it starts after (start - duration) and before end
+        entries.keySet().removeIf(key ->
+                !key.date.isBefore(start.minusMinutes(key.duration).toLocalDate()) &&
+                !key.date.isAfter(end.toLocalDate()));
+    }
+
+    // invalidates every cached date that falls on the given day of the week (0-6 range for Sunday-Saturday)
+    public synchronized void invalidateDayOfWeek(byte dayOfWeek) {
+        invalidations++;
+        entries.keySet().removeIf(key -> key.date.getDayOfWeek().getValue() % 7 == dayOfWeek);
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    // returns the cache statistics
+    public synchronized Map<String, Object> getStats() {
+        long requests = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    private static final class Key {
+
+        private final int duration;
+        private final LocalDate date;
+
+        private Key(int duration, LocalDate date) {
+            this.duration = duration;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            Key other = (Key) o;
+            return duration == other.duration && Objects.equals(date, other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(duration, date);
+        }
+    }
+}
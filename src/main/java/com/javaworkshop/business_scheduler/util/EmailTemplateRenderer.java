@@ -0,0 +1,59 @@
+package com.javaworkshop.business_scheduler.util;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// This class renders the bodies of the emails from the Thymeleaf templates under templates/email.
+// It has its own template engine, apart from the one of the pages, that always caches the parsed templates
+// and compiles their expressions, so each template is parsed once and rendering an email only fills it in.
+// The .txt templates are rendered as plain text and the .html ones as HTML.
+@Component
+public class EmailTemplateRenderer {
+
+    private final String CONFIRMATION_TEMPLATE = "appointment-confirmation.txt";
+    private final String REMINDER_TEMPLATE = "appointment-reminder.txt";
+    private final SpringTemplateEngine templateEngine;
+
+    public EmailTemplateRenderer() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/email/");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setTemplateMode(TemplateMode.TEXT);
+        templateResolver.setHtmlTemplateModePatterns(Set.of("*.html"));
+        templateResolver.setCacheable(true); // kept until the application stops, even when the pages are not cached
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setEnableSpringELCompiler(true);
+        templateEngine.setTemplateResolver(templateResolver);
+    }
+
+    // renders the body of the email that confirms a booked or rescheduled appointment
+    public String renderConfirmation(String firstName, LocalDateTime startTime, String serviceName) {
+        return render(CONFIRMATION_TEMPLATE, Map.of(
+                "firstName", firstName,
+                "date", startTime.toLocalDate(),
+                "time", startTime.toLocalTime(),
+                "serviceName", serviceName));
+    }
+
+    // renders the body of the reminder of an appointment
+    public String renderReminder(String firstName, LocalDateTime startTime, String serviceName) {
+        return render(REMINDER_TEMPLATE, Map.of(
+                "firstName", firstName,
+                "date", startTime.toLocalDate(),
+                "time", startTime.toLocalTime(),
+                "serviceName", serviceName));
+    }
+
+    private String render(String template, Map<String, Object> variables) {
+        return templateEngine.process(template, new Context(Locale.ROOT, variables));
+    }
+}
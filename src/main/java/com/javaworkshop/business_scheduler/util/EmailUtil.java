@@ -1,39 +1,130 @@
 package com.javaworkshop.business_scheduler.util;
 
+import com.javaworkshop.business_scheduler.dto.EmailMessage;
+import com.javaworkshop.business_scheduler.event.BusinessInfoChangedEvent;
 import com.javaworkshop.business_scheduler.service.BusinessInfoService;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 // This class is a utility for sending emails using JavaMailSender.
 @Component
 public class EmailUtil {
 
-    @Value("${spring.mail.username}")
-    private String EMAIL_FROM;
-
+    private final String EMAIL_FROM;
     private final BusinessInfoService businessInfoService;
     private final JavaMailSender javaMailSender;
+    private final int batchSize; // emails sent over a single connection to the mail server
+    private volatile InternetAddress sender; // built from the business name on first use
 
     @Autowired
-    public EmailUtil(JavaMailSender javaMailSender, BusinessInfoService businessInfoService) {
+    public EmailUtil(JavaMailSender javaMailSender,
+                     BusinessInfoService businessInfoService,
+                     @Value("${spring.mail.username}") String emailFrom,
+                     @Value("${mail.batch-size:50}") int batchSize) {
         this.javaMailSender = javaMailSender;
         this.businessInfoService = businessInfoService;
+        this.EMAIL_FROM = emailFrom;
+        this.batchSize = batchSize;
     }
 
     public void sendMail(String toEmail, String subject, String body) throws Exception {
+        javaMailSender.send(createMessage(new EmailMessage(toEmail, subject, body), getSender()));
+    }
+
+    // sends the emails a batch at a time, each batch over a single connection to the mail server so the
+    // connection and login are paid once per batch instead of once per email.
+    // returns the emails that could not be sent with the reason of each, an email that failed does not stop
+    // the rest of its batch from being sent
+    public Map<EmailMessage, Exception> sendMails(List<EmailMessage> emails) {
+        Map<EmailMessage, Exception> failures = new IdentityHashMap<>(); // equal emails are still told apart
+        if (emails.isEmpty()) {
+            return failures;
+        }
+        InternetAddress sender;
+        try {
+            sender = getSender();
+        } catch (Exception e) {
+            emails.forEach(email -> failures.put(email, e));
+            return failures;
+        }
+
+        for (int from = 0; from < emails.size(); from += batchSize) {
+            sendBatch(emails.subList(from, Math.min(from + batchSize, emails.size())), sender, failures);
+        }
+        return failures;
+    }
+
+    // sends a batch of emails over a single connection and adds the emails that were not sent to the failures
+    private void sendBatch(List<EmailMessage> batch, InternetAddress sender, Map<EmailMessage, Exception> failures) {
+        Map<MimeMessage, EmailMessage> emailsByMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (EmailMessage email : batch) {
+            try {
+                MimeMessage message = createMessage(email, sender);
+                emailsByMessage.put(message, email);
+                messages.add(message);
+            } catch (Exception e) {
+                failures.put(email, e); // such as an invalid address
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        try {
+            javaMailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                emailsByMessage.values().forEach(email -> failures.put(email, e));
+            }
+            e.getFailedMessages().forEach((message, failure) -> failures.put(emailsByMessage.get(message), failure));
+        } catch (MailException e) {
+            emailsByMessage.values().forEach(email -> failures.put(email, e)); // such as a failed login
+        }
+    }
+
+    private MimeMessage createMessage(EmailMessage email, InternetAddress sender) throws Exception {
         MimeMessage message = javaMailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
 
-        helper.setTo(toEmail);
-        helper.setSubject(subject);
-        helper.setText(body, false);
-        helper.setFrom(new InternetAddress(EMAIL_FROM, businessInfoService.getBusinessInfo().getName()));
-        javaMailSender.send(message);
+        helper.setTo(email.getToEmail());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), false);
+        helper.setFrom(sender);
+        return message;
+    }
+
+    // forgets the sender once the business name may have changed, the next email builds it again
+    @EventListener
+    public synchronized void onBusinessInfoChanged(BusinessInfoChangedEvent event) {
+        sender = null;
+    }
+
+    // returns the sender, which is only loaded again after the business information changed
+    private InternetAddress getSender() throws Exception {
+        InternetAddress cachedSender = sender;
+        if (cachedSender != null) {
+            return cachedSender;
+        }
+        synchronized (this) { // a change while loading waits for the load, so it is never overwritten by it
+            if (sender == null) {
+                sender = new InternetAddress(EMAIL_FROM, businessInfoService.getBusinessInfo().getName());
+            }
+            return sender;
+        }
     }
 
 }
@@ -0,0 +1,105 @@
+package com.javaworkshop.business_scheduler.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+// This class is a hashed timing wheel: a ring of buckets of one tick each, where an item is put in the bucket
+// of the tick it is due on. Advancing the wheel only visits the buckets of the ticks that passed, so scheduling,
+// cancelling and expiring an item take constant time however many items are scheduled and however far ahead.
+// An item due more than a full turn ahead shares its bucket with nearer ones and is left there until its tick.
+// It is not thread safe, the caller synchronizes its use.
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> buckets;
+    private long nextTick; // the first tick that was not expired yet
+    private int size;
+
+    // creates a wheel of the given number of buckets that starts turning at the given time
+    public HashedTimingWheel(Duration tick, int wheelSize, long nowMillis) {
+        if (tick.toMillis() <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("The tick and the wheel size must be positive");
+        }
+        this.tickMillis = tick.toMillis();
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.nextTick = tickOf(nowMillis);
+    }
+
+    // schedules an item for the given time, an item that is due already expires on the next tick
+    public Timeout<T> schedule(T item, long dueMillis) {
+        Timeout<T> timeout = new Timeout<>(item, dueMillis, Math.max(tickOf(dueMillis), nextTick));
+        bucketOf(timeout.tick).add(timeout);
+        size++;
+        return timeout;
+    }
+
+    // cancels a scheduled item, returns false if it already expired or was cancelled
+    public boolean cancel(Timeout<T> timeout) {
+        if (!bucketOf(timeout.tick).remove(timeout)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    // advances the wheel to the given time and returns the items that came due
+    public List<T> advance(long nowMillis) {
+        long lastTick = tickOf(nowMillis);
+        List<T> expired = new ArrayList<>();
+        // after a pause of more than a turn every bucket is visited once instead of once per tick that passed
+        for (long tick = Math.max(nextTick, lastTick - buckets.size() + 1); tick <= lastTick; tick++) {
+            Iterator<Timeout<T>> iterator = bucketOf(tick).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.tick <= lastTick) { // the others are due on a later turn
+                    iterator.remove();
+                    size--;
+                    expired.add(timeout.item);
+                }
+            }
+        }
+        nextTick = Math.max(nextTick, lastTick + 1);
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private long tickOf(long millis) {
+        return Math.floorDiv(millis, tickMillis);
+    }
+
+    private Set<Timeout<T>> bucketOf(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    // This class is the handle of a scheduled item, it is used to cancel it.
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long dueMillis;
+        private final long tick; // the tick the item expires on
+
+        private Timeout(T item, long dueMillis, long tick) {
+            this.item = item;
+            this.dueMillis = dueMillis;
+            this.tick = tick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDueMillis() {
+            return dueMillis;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.javaworkshop.business_scheduler.util;
+
+import com.javaworkshop.business_scheduler.dto.ExecutorStats;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// This class is a fixed size thread pool with named threads and a bounded queue that keeps count of what it did:
+// how many tasks it ran and rejected, and how long they waited in the queue and ran. Once the queue is full,
+// a task either runs on the thread that submitted it, which slows the submitter down, or is rejected.
+// On shutdown it lets the queued tasks finish for a while before interrupting the rest.
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    public enum RejectionPolicy {
+        CALLER_RUNS, ABORT
+    }
+
+    private final String name;
+    private final int queueCapacity;
+    private final Duration shutdownTimeout; // how long the queued tasks are let finish on shutdown
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public InstrumentedThreadPoolExecutor(String name, int threads, int queueCapacity,
+                                          RejectionPolicy rejectionPolicy, Duration shutdownTimeout) {
+        super(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory(name + "-"), handlerOf(rejectionPolicy));
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.shutdownTimeout = shutdownTimeout;
+        setRejectedExecutionHandler(new CountingHandler(getRejectedExecutionHandler()));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        super.execute(new TimedTask(task, System.nanoTime()));
+    }
+
+    // stops taking tasks, waits for the queued ones up to the shutdown timeout and interrupts the ones left,
+    // returns whether every task finished
+    public boolean shutdownGracefully() {
+        shutdown();
+        try {
+            if (awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Runnable> dropped = shutdownNow();
+        System.err.println("The " + name + " pool did not finish in " + shutdownTimeout.toSeconds() +
+                " seconds, dropped " + dropped.size() + " queued tasks");
+        return false;
+    }
+
+    // returns a snapshot of the pool's counters
+    public ExecutorStats getStats() {
+        long timed = timedCount.sum();
+        return new ExecutorStats(name, getActiveCount(), getPoolSize(), getQueue().size(), queueCapacity,
+                getCompletedTaskCount(), rejectedCount.sum(),
+                timed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / timed),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                timed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunNanos.sum() / timed));
+    }
+
+    private static RejectedExecutionHandler handlerOf(RejectionPolicy rejectionPolicy) {
+        return switch (rejectionPolicy) {
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+        };
+    }
+
+    private void record(long waitNanos, long runNanos) {
+        timedCount.increment();
+        totalWaitNanos.add(waitNanos);
+        totalRunNanos.add(runNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    // This class times a task from when it was submitted until it finished.
+    private final class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final long submittedAt;
+
+        private TimedTask(Runnable task, long submittedAt) {
+            this.task = task;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                record(startedAt - submittedAt, System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    // This class counts the rejected tasks, including the ones that then ran on the submitting thread.
+    // A task submitted after shutdown is always rejected with an exception rather than silently dropped,
+    // so no one waits for it forever.
+    private final class CountingHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler handler;
+
+        private CountingHandler(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejectedCount.increment();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The " + name + " pool is shut down");
+            }
+            handler.rejectedExecution(task, executor);
+        }
+    }
+}
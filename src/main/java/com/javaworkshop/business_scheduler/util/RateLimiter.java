@@ -0,0 +1,45 @@
+package com.javaworkshop.business_scheduler.util;
+
+import java.util.concurrent.TimeUnit;
+
+// This class spaces out the callers of acquire so that no more than the given number of permits
+// are handed out per second. Each caller reserves the next free time slot and then waits for it
+// outside the lock, so waiting callers do not hold each other up.
+public class RateLimiter {
+
+    private final long intervalNanos; // the time between two permits, 0 if the rate is unlimited
+    private long nextFreeNanos = System.nanoTime();
+
+    // creates a limiter of the given number of permits per second, a rate of 0 or less is unlimited
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    // waits until the caller may go ahead
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    // waits until the caller may go ahead with the given number of permits at once, which is when the last of
+    // them is due, so a batch handed out in one go never gets ahead of the rate
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // reserves the given number of the next free time slots and returns how long to wait for the last of them
+    private synchronized long reserve(int permits) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (nextFreeNanos - now < 0) {
+            nextFreeNanos = now; // an idle limiter does not save up permits for a burst
+        }
+        long waitNanos = nextFreeNanos + (permits - 1) * intervalNanos - now;
+        nextFreeNanos += permits * intervalNanos;
+        return waitNanos;
+    }
+}
@@ -0,0 +1,104 @@
+package com.javaworkshop.business_scheduler.util;
+
+import com.javaworkshop.business_scheduler.model.SlotHold;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+// This class keeps the unexpired slot holds in memory.
+// Expired holds are dropped lazily from the head of a queue ordered by expiry time,
+// so expiring a hold costs no more than polling it and no timer is needed per hold.
+// Every put and remove is numbered, so a snapshot of the holds read from the database can be merged
+// without undoing the changes made here while it was being read.
+public class SlotHoldRegistry {
+
+    private final Map<UUID, SlotHold> holdsById = new HashMap<>();
+    private final PriorityQueue<SlotHold> holdsByExpiry =
+            new PriorityQueue<>(Comparator.comparing(SlotHold::getExpiresAt));
+    private final Map<UUID, Long> changesById = new HashMap<>(); // the number of the last change of each hold
+    private long lastChange = 0;
+
+    public synchronized void put(SlotHold hold) {
+        SlotHold previous = holdsById.put(hold.getId(), hold);
+        if (previous != null) {
+            holdsByExpiry.remove(previous);
+        }
+        holdsByExpiry.add(hold);
+        changesById.put(hold.getId(), ++lastChange);
+    }
+
+    public synchronized void remove(UUID holdId) {
+        SlotHold hold = holdsById.remove(holdId);
+        if (hold != null) {
+            holdsByExpiry.remove(hold);
+        }
+        changesById.put(holdId, ++lastChange); // kept so a snapshot read before does not bring the hold back
+    }
+
+    // returns the number of the last change, to be taken before reading a snapshot to merge
+    public synchronized long mark() {
+        return lastChange;
+    }
+
+    // merges a snapshot of all the holds that was read after the given mark: the holds that were put or removed
+    // here since the mark are left as they are, the others are added or dropped to match the snapshot
+    public synchronized void merge(Collection<SlotHold> holds, long mark) {
+        Set<UUID> snapshotIds = new HashSet<>();
+        for (SlotHold hold : holds) {
+            snapshotIds.add(hold.getId());
+            if (!holdsById.containsKey(hold.getId()) && !isChangedSince(hold.getId(), mark)) {
+                holdsById.put(hold.getId(), hold);
+                holdsByExpiry.add(hold);
+            }
+        }
+        Set<UUID> droppedIds = new HashSet<>();
+        for (UUID holdId : holdsById.keySet()) {
+            if (!snapshotIds.contains(holdId) && !isChangedSince(holdId, mark)) {
+                droppedIds.add(holdId);
+            }
+        }
+        if (!droppedIds.isEmpty()) {
+            holdsById.keySet().removeAll(droppedIds);
+            holdsByExpiry.removeIf(hold -> droppedIds.contains(hold.getId()));
+        }
+        changesById.values().removeIf(change -> change <= mark); // the snapshot already reflects them
+    }
+
+    // checks if an unexpired hold other than the given ones overlaps the given time range
+    public synchronized boolean isHeld(LocalDateTime start, LocalDateTime end,
+                                       LocalDateTime now, Set<UUID> excludedHoldIds) {
+        removeExpired(now);
+        for (SlotHold hold : holdsById.values()) {
+            if (!excludedHoldIds.contains(hold.getId()) &&
+                hold.getStartTime().isBefore(end) &&
+                hold.getEndTime().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size(LocalDateTime now) {
+        removeExpired(now);
+        return holdsById.size();
+    }
+
+    private boolean isChangedSince(UUID holdId, long mark) {
+        Long change = changesById.get(holdId);
+        return change != null && change > mark;
+    }
+
+    // drops the holds that expired until the given time, which are always at the head of the queue
+    private void removeExpired(LocalDateTime now) {
+        while (!holdsByExpiry.isEmpty() && !holdsByExpiry.peek().getExpiresAt().isAfter(now)) {
+            holdsById.remove(holdsByExpiry.poll().getId());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.javaworkshop.business_scheduler.util;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+// This class holds the occupied time intervals of a time window as a sorted interval array,
+// so slot availability can be checked in memory instead of querying the database per slot.
+public class SlotOccupancy {
+
+    private final LocalDateTime[] startTimes; // interval start times sorted ascending
+    private final LocalDateTime[] maxEndTimes; // maxEndTimes[i] is the latest end time among intervals 0..i
+
+    public SlotOccupancy(List<AppointmentInterval> intervals) {
+        this(intervals, AppointmentInterval::getStartTime, AppointmentInterval::getEndTime);
+    }
+
+    // builds the occupancy of any kind of interval, given how to read its start and end times
+    public <T> SlotOccupancy(List<T> intervals, Function<T, LocalDateTime> startOf, Function<T, LocalDateTime> endOf) {
+        List<T> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparing(startOf));
+
+        startTimes = new LocalDateTime[sorted.size()];
+        maxEndTimes = new LocalDateTime[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            startTimes[i] = startOf.apply(sorted.get(i));
+            LocalDateTime endTime = endOf.apply(sorted.get(i));
+            maxEndTimes[i] = i > 0 && maxEndTimes[i - 1].isAfter(endTime) ? maxEndTimes[i - 1] : endTime;
+        }
+    }
+
+    // checks if the given time range does not overlap any occupied interval,
+    // using the same semantics as AppointmentRepository.isOverlapping
+    public boolean isFree(LocalDateTime start, LocalDateTime end) {
+        int last = lastStartingBefore(end);
+        return last < 0 || !maxEndTimes[last].isAfter(start);
+    }
+
+    public int size() {
+        return startTimes.length;
+    }
+
+    // returns the index of the last interval that starts before the given time, or -1 if there is none
+    private int lastStartingBefore(LocalDateTime time) {
+        int low = 0, high = startTimes.length - 1, result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (startTimes[mid].isBefore(time)) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -1,6 +1,8 @@
-const dateInput = document.getElementById("date-input");
+const dateSelect = document.getElementById("date-select");
 const timeSelect = document.getElementById("time-select");
 
+const SLOTS_TTL_MILLIS = 60 * 1000; // the loaded times are fetched again when they are older than this
+
 const today = new Date();
 const oneMonthLater = new Date();
 oneMonthLater.setMonth(oneMonthLater.getMonth() + 1);
@@ -10,41 +12,146 @@ if (oneMonthLater.getDate() !== today.getDate()) {
     oneMonthLater.setDate(0);
 }
 
-const formatDate = (date) => date.toISOString().split('T')[0];
+// formats the local date as yyyy-MM-dd, the format the server expects
+const formatDate = (date) =>
+    `${date.getFullYear()}-${String(date.getMonth() + 1).padStart(2, '0')}-${String(date.getDate()).padStart(2, '0')}`;
 
-dateInput.min = formatDate(today); // sets minimum date to today
-dateInput.max = formatDate(oneMonthLater); // sets maximum date to one month later
 const submitBtn = document.getElementById('submit-btn');
 
-// event listener for date input change
-dateInput.addEventListener('change', fetchTimes);
-timeSelect.addEventListener('change', () => submitBtn.classList.remove('disabled'));
+const serviceId = document.getElementById('sid-input').value;
 
-function fetchTimes() {
-    const serviceId = document.getElementById('sid-input').value;
-    const date = dateInput.value;
-    timeSelect.disabled = true;
-    timeSelect.innerHTML = '<option disabled selected>Loading…</option>';
+// available times of every date in the booking window, loaded again once they are older than the TTL
+let slotsByDate = null;
+let slotsLoadedAt = 0;
+
+const holdInput = document.getElementById('hid-input');
+const csrfInput = document.querySelector('input[name="_csrf"]');
+const csrfHeaders = csrfInput ? { 'X-CSRF-TOKEN': csrfInput.value } : {};
+
+// event listener for date select change
+dateSelect.addEventListener('change', () => {
+    releaseHold();
+    fetchTimes();
+});
+timeSelect.addEventListener('change', holdSelectedTime);
+
+renderDates({}); // every date of the booking window can be picked until the times are loaded
+loadSlotsByDate();
+
+// returns the available times of the booking window, fetching them if they were not loaded yet or are outdated
+function loadSlotsByDate() {
+    if (slotsByDate === null || Date.now() - slotsLoadedAt > SLOTS_TTL_MILLIS) {
+        slotsLoadedAt = Date.now();
+        slotsByDate = fetch(`/api/general/available-slots-by-date?sid=${encodeURIComponent(serviceId)}`)
+            .then(response => response.ok ? response.json() : {})
+            .catch(() => ({}));
+        slotsByDate.then(renderDates);
+    }
+    return slotsByDate;
+}
+
+// fills the date select with the dates of the booking window, the dates without available times are disabled
+function renderDates(slots) {
+    const selectedDate = dateSelect.value;
+    const dates = Object.keys(slots);
+    if (dates.length === 0) { // the times are not loaded, so the dates are those of the booking window
+        for (const date = new Date(today); date <= oneMonthLater; date.setDate(date.getDate() + 1)) {
+            dates.push(formatDate(date));
+        }
+    }
+
+    dateSelect.innerHTML = '<option value="" disabled>Select a date</option>';
+    dates.forEach(date => {
+        const option = document.createElement('option');
+        option.value = date;
+        option.textContent = new Date(`${date}T00:00`)
+            .toLocaleDateString(undefined, { weekday: 'short', day: 'numeric', month: 'short' });
+        if (Array.isArray(slots[date]) && slots[date].length === 0) { // the date is fully booked or closed
+            option.disabled = true;
+            option.textContent += ' – no available times';
+        }
+        dateSelect.appendChild(option);
+    });
+    if (selectedDate && !dates.includes(selectedDate)) { // e.g. the date of a rescheduled appointment
+        const option = document.createElement('option');
+        option.value = selectedDate;
+        option.textContent = selectedDate;
+        dateSelect.appendChild(option);
+    }
+    dateSelect.value = selectedDate;
+}
+
+// holds the selected time while the form is being completed, so nobody else can book it meanwhile
+function holdSelectedTime() {
+    releaseHold();
+    submitBtn.classList.add('disabled');
+    const date = dateSelect.value;
+    const start = `${date}T${timeSelect.value}`;
+
+    fetch(`/api/general/slot-holds?sid=${encodeURIComponent(serviceId)}&start=${encodeURIComponent(start)}`,
+        { method: 'POST', headers: csrfHeaders })
+        .then(response => {
+            if (response.status === 409) { // someone else took the time in the meantime
+                timeSelect.value = '';
+                return refreshDate(date);
+            }
+            if (response.ok) {
+                return response.json().then(hold => { holdInput.value = hold.holdId; });
+            }
+        })
+        .catch(() => {}) // the booking itself still checks the time
+        .finally(() => {
+            if (timeSelect.value) {
+                submitBtn.classList.remove('disabled');
+            }
+        });
+}
+
+// fetches the available times of the given date again, updating the loaded ones and the shown dates and times
+function refreshDate(date) {
+    return Promise.all([loadSlotsByDate(), fetchTimesOf(date)])
+        .then(([slots, times]) => {
+            slots[date] = times;
+            renderDates(slots);
+            if (dateSelect.value === date) {
+                renderTimes(times);
+            }
+        });
+}
 
-    fetch(`/api/general/available-slots?sid=${encodeURIComponent(serviceId)}&d=${encodeURIComponent(date)}`)
+// releases the current hold, if any, so its time is available again right away
+function releaseHold() {
+    if (!holdInput.value) {
+        return;
+    }
+    fetch(`/api/general/slot-holds?hid=${encodeURIComponent(holdInput.value)}`,
+        { method: 'DELETE', headers: csrfHeaders, keepalive: true })
+        .catch(() => {}); // the hold expires anyway
+    holdInput.value = '';
+}
+
+// fetches the available times of a single date
+function fetchTimesOf(date) {
+    return fetch(`/api/general/available-slots?sid=${encodeURIComponent(serviceId)}&d=${encodeURIComponent(date)}`)
         .then(response => {
             if (!response.ok) throw new Error();
             return response.json();
-        })
-        .then(times => {
-            submitBtn.classList.add('disabled');
-            if (!Array.isArray(times) || times.length === 0) { // check if there are available times
-                timeSelect.innerHTML = '<option value="" disabled selected>No available times</option>';
-                return;
+        });
+}
+
+function fetchTimes() {
+    const date = dateSelect.value;
+    timeSelect.disabled = true;
+    timeSelect.innerHTML = '<option disabled selected>Loading…</option>';
+
+    loadSlotsByDate()
+        .then(slots => {
+            if (Array.isArray(slots[date])) { // the date is in the loaded booking window
+                return slots[date];
             }
-            timeSelect.innerHTML = '<option value="" disabled selected>Select time</option>';
-            times.forEach(time => {
-                const option = document.createElement('option');
-                option.value = time;
-                option.textContent = time.substring(0, 5); // format time to HH:mm
-                timeSelect.appendChild(option);
-            });
+            return fetchTimesOf(date);
         })
+        .then(renderTimes)
         .catch(() => {
             timeSelect.innerHTML = '<option disabled selected>Failed to load times</option>';
         })
@@ -54,4 +161,17 @@ function fetchTimes() {
 
 }
 
-
+function renderTimes(times) {
+    submitBtn.classList.add('disabled');
+    if (!Array.isArray(times) || times.length === 0) { // check if there are available times
+        timeSelect.innerHTML = '<option value="" disabled selected>No available times</option>';
+        return;
+    }
+    timeSelect.innerHTML = '<option value="" disabled selected>Select time</option>';
+    times.forEach(time => {
+        const option = document.createElement('option');
+        option.value = time;
+        option.textContent = time.substring(0, 5); // format time to HH:mm
+        timeSelect.appendChild(option);
+    });
+}
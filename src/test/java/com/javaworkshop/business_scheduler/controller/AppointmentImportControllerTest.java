@@ -0,0 +1,147 @@
+package com.javaworkshop.business_scheduler.controller;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentImportResult;
+import com.javaworkshop.business_scheduler.imports.AppointmentImportReader;
+import com.javaworkshop.business_scheduler.imports.CsvAppointmentImportReader;
+import com.javaworkshop.business_scheduler.service.AppointmentImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+class AppointmentImportControllerTest {
+
+    private final String IMPORT_URL = "/owner-dashboard/appointments/import";
+    private final String CSV = "customer,service,start,end\r\nDana Levi,Haircut,2025-01-01T09:00,2025-01-01T09:30\r\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AppointmentImportService appointmentImportService;
+
+    private AppointmentImportReader csvReader;
+
+    private AppointmentImportResult result;
+
+    @BeforeEach
+    void setUp() {
+        csvReader = new CsvAppointmentImportReader();
+        result = new AppointmentImportResult(2, 1, 1, 1, 0, 1,
+            List.of(new AppointmentImportResult.RowError(2, "Unknown service: Massage")));
+        when(appointmentImportService.findImportReader("csv")).thenReturn(csvReader);
+    }
+
+    @DisplayName("Import Appointments - Success")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void importAppointments_Success() throws Exception {
+        when(appointmentImportService.importAppointments(any(InputStream.class), eq(csvReader)))
+            .thenAnswer(invocation -> {
+                String body = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+                return body.equals(CSV) ? result : null;
+            });
+
+        mockMvc.perform(MockMvcRequestBuilders.post(IMPORT_URL)
+                .param("format", "csv")
+                .content(CSV)
+                .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(2))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.createdCustomers").value(1))
+            .andExpect(jsonPath("$.chunks").value(1))
+            .andExpect(jsonPath("$.failedChunks").value(0))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.errors[0].row").value(2))
+            .andExpect(jsonPath("$.errors[0].message").value("Unknown service: Massage"));
+    }
+
+    @DisplayName("Import Appointments - Gzipped")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void importAppointments_Gzipped() throws Exception {
+        when(appointmentImportService.importAppointments(any(InputStream.class), eq(csvReader)))
+            .thenAnswer(invocation -> {
+                String body = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+                return body.equals(CSV) ? result : null;
+            });
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(gzipped)) {
+            outputStream.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.post(IMPORT_URL)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .content(gzipped.toByteArray())
+                .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @DisplayName("Import Appointments - Unsupported Format")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void importAppointments_UnsupportedFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(IMPORT_URL)
+                .param("format", "pdf")
+                .content(CSV)
+                .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unsupported import format: pdf"));
+
+        verify(appointmentImportService, never()).importAppointments(any(), any());
+    }
+
+    @DisplayName("Import Appointments - Unreadable File")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void importAppointments_UnreadableFile() throws Exception {
+        when(appointmentImportService.importAppointments(any(InputStream.class), eq(csvReader)))
+            .thenThrow(new IOException("The CSV header must name the columns customer, service, start, end"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(IMPORT_URL)
+                .content("name,date\r\n")
+                .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(
+                "The file could not be read: The CSV header must name the columns customer, service, start, end"));
+    }
+
+    @DisplayName("Import Appointments - Owner Only")
+    @Test
+    @WithMockUser(username = "customerUser", roles = {"CUSTOMER"})
+    void importAppointments_OwnerOnly() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(IMPORT_URL)
+                .content(CSV)
+                .with(csrf()))
+            .andExpect(status().isForbidden());
+
+        verify(appointmentImportService, never()).importAppointments(any(), any());
+    }
+}
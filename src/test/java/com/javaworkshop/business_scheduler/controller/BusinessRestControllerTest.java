@@ -2,28 +2,45 @@ package com.javaworkshop.business_scheduler.controller;
 
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.SlotHold;
 import com.javaworkshop.business_scheduler.service.AppointmentService;
+import com.javaworkshop.business_scheduler.service.BookingService;
 import com.javaworkshop.business_scheduler.service.BusinessHourService;
 import com.javaworkshop.business_scheduler.service.ServiceService;
+import com.javaworkshop.business_scheduler.service.SlotHoldLimitException;
+import com.javaworkshop.business_scheduler.service.SlotHoldService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -42,6 +59,12 @@ class BusinessRestControllerTest {
     @MockitoBean
     private BusinessHourService businessHourService;
 
+    @MockitoBean
+    private BookingService bookingService;
+
+    @MockitoBean
+    private SlotHoldService slotHoldService;
+
     private Service service;
 
     private LocalDate date;
@@ -163,4 +186,209 @@ class BusinessRestControllerTest {
         );
 
     }
-}
\ No newline at end of file
+
+    @DisplayName("Get Available Slots In Booking Window - Non-Existent Service Case")
+    @Test
+    void getAvailableSlotsInBookingWindowNonExistentServiceCase() throws Exception {
+
+        UUID nonExistentServiceId = UUID.randomUUID();
+        when(serviceService.findById(nonExistentServiceId))
+            .thenReturn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/general/available-slots-by-date")
+                .param("sid", nonExistentServiceId.toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().json("{}"));
+
+        verify(serviceService).findById(nonExistentServiceId);
+        verify(appointmentService, never()).getAvailableSlotsInBookingWindow(any(), any());
+
+    }
+
+    @DisplayName("Get Available Slots In Booking Window - Valid Input Case")
+    @Test
+    void getAvailableSlotsInBookingWindowValidInputCase() throws Exception {
+
+        when(serviceService.findById(service.getId()))
+            .thenReturn(service);
+
+        List<BusinessHour> expectedBusinessHours = List.of(firstBusinessHour, secondBusinessHour);
+
+        when(businessHourService.findAll())
+            .thenReturn(expectedBusinessHours);
+
+        Map<LocalDate, List<LocalTime>> expectedSlotsByDate = new LinkedHashMap<>();
+        expectedSlotsByDate.put(date, List.of(LocalTime.of(10, 30), LocalTime.of(13, 30)));
+        expectedSlotsByDate.put(date.plusDays(1), List.of());
+
+        when(appointmentService.getAvailableSlotsInBookingWindow(service, expectedBusinessHours))
+            .thenReturn(expectedSlotsByDate);
+
+        String expectedJson = "{\"2025-08-01\": [\"10:30:00\", \"13:30:00\"], \"2025-08-02\": []}";
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/general/available-slots-by-date")
+                .param("sid", service.getId().toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().json(expectedJson));
+
+        verify(serviceService).findById(service.getId());
+        verify(businessHourService).findAll();
+        verify(appointmentService).getAvailableSlotsInBookingWindow(service, expectedBusinessHours);
+
+    }
+
+    @DisplayName("Get Availability Cache Stats As Owner")
+    @Test
+    @WithMockUser(roles = {"OWNER"})
+    void getAvailabilityCacheStatsAsOwner() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/owner/availability-cache/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.hits").isNumber())
+            .andExpect(jsonPath("$.misses").isNumber())
+            .andExpect(jsonPath("$.maxEntries").isNumber());
+
+    }
+
+    @DisplayName("Get Availability Cache Stats As Customer Is Forbidden")
+    @Test
+    @WithMockUser(roles = {"CUSTOMER"})
+    void getAvailabilityCacheStatsAsCustomerIsForbidden() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/owner/availability-cache/stats"))
+            .andExpect(status().isForbidden());
+
+    }
+
+    @DisplayName("Get Mail Executor Stats As Owner")
+    @Test
+    @WithMockUser(roles = {"OWNER"})
+    void getMailExecutorStatsAsOwner() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/owner/mail-executor/stats"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("mail-sender"))
+            .andExpect(jsonPath("$.queueDepth").isNumber())
+            .andExpect(jsonPath("$.queueCapacity").isNumber())
+            .andExpect(jsonPath("$.rejectedCount").isNumber());
+
+    }
+
+    @DisplayName("Get Mail Executor Stats As Customer Is Forbidden")
+    @Test
+    @WithMockUser(roles = {"CUSTOMER"})
+    void getMailExecutorStatsAsCustomerIsForbidden() throws Exception {
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/owner/mail-executor/stats"))
+            .andExpect(status().isForbidden());
+
+    }
+
+    @DisplayName("Hold Slot - Valid Case")
+    @Test
+    void holdSlotValidCase() throws Exception {
+
+        LocalDateTime startTime = LocalDateTime.of(date, LocalTime.of(10, 30));
+        SlotHold hold = new SlotHold(startTime, startTime.plusMinutes(service.getDuration()),
+            LocalDateTime.now().plusMinutes(5));
+        hold.setId(UUID.randomUUID());
+        when(serviceService.findById(service.getId()))
+            .thenReturn(service);
+        when(bookingService.holdSlot(eq(service), eq(startTime), any(UUID.class), eq("127.0.0.1")))
+            .thenReturn(hold);
+        MockHttpSession session = new MockHttpSession();
+
+        // the session holds its slots under the same holder, which replaces its previous hold
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/general/slot-holds")
+                    .param("sid", service.getId().toString())
+                    .param("start", startTime.toString())
+                    .session(session)
+                    .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdId").value(hold.getId().toString()))
+                .andExpect(jsonPath("$.expiresAt").exists());
+        }
+
+        UUID holderId = (UUID) session.getAttribute("slotHolderId");
+        assertNotNull(holderId, "The session should be given a holder id");
+        verify(bookingService, times(2)).holdSlot(service, startTime, holderId, "127.0.0.1");
+
+    }
+
+    @DisplayName("Hold Slot - Taken Slot Case")
+    @Test
+    void holdSlotTakenSlotCase() throws Exception {
+
+        LocalDateTime startTime = LocalDateTime.of(date, LocalTime.of(10, 30));
+        when(serviceService.findById(service.getId()))
+            .thenReturn(service);
+        when(bookingService.holdSlot(eq(service), eq(startTime), any(UUID.class), anyString()))
+            .thenThrow(new RuntimeException("error.appointmentTime.invalid.or.taken"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/general/slot-holds")
+                .param("sid", service.getId().toString())
+                .param("start", startTime.toString())
+                .with(csrf()))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.error").value("error.appointmentTime.invalid.or.taken"));
+
+    }
+
+    @DisplayName("Hold Slot - Too Many Holds Case")
+    @Test
+    void holdSlotTooManyHoldsCase() throws Exception {
+
+        LocalDateTime startTime = LocalDateTime.of(date, LocalTime.of(10, 30));
+        when(serviceService.findById(service.getId()))
+            .thenReturn(service);
+        when(bookingService.holdSlot(eq(service), eq(startTime), any(UUID.class), anyString()))
+            .thenThrow(new SlotHoldLimitException());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/general/slot-holds")
+                .param("sid", service.getId().toString())
+                .param("start", startTime.toString())
+                .with(csrf()))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(jsonPath("$.error").value("error.slot-hold.limit"));
+
+    }
+
+    @DisplayName("Release Slot Hold - Only The Session's Own Hold")
+    @Test
+    void releaseSlotHoldOnlyTheSessionsOwnHold() throws Exception {
+
+        UUID holdId = UUID.randomUUID();
+        UUID holderId = UUID.randomUUID();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("slotHolderId", holderId);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/general/slot-holds")
+                .param("hid", holdId.toString())
+                .session(session)
+                .with(csrf()))
+            .andExpect(status().isNoContent());
+
+        verify(slotHoldService).release(holdId, holderId);
+        verify(slotHoldService, never()).release(holdId);
+
+    }
+
+    @DisplayName("Hold Slot - Non-Existent Service Case")
+    @Test
+    void holdSlotNonExistentServiceCase() throws Exception {
+
+        UUID nonExistentServiceId = UUID.randomUUID();
+        when(serviceService.findById(nonExistentServiceId))
+            .thenReturn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/general/slot-holds")
+                .param("sid", nonExistentServiceId.toString())
+                .param("start", LocalDateTime.of(date, LocalTime.of(10, 30)).toString())
+                .with(csrf()))
+            .andExpect(status().isNotFound());
+
+        verify(bookingService, never()).holdSlot(any(Service.class), any(LocalDateTime.class), any(), any());
+
+    }
+}
@@ -91,11 +91,9 @@ class CustomerControllerTest {
     @Test
     void showAllCustomerAppointments() throws Exception{
 
-        when(customerService.findIdByUsername(customerUser.getUsername()))
-                .thenReturn(customer.getId());
-
-        List<Appointment> expected = List.of(secondAppointment, thirdAppointment);
-        when(appointmentService.findActiveAppointmentsByCustomerId(customer.getId()))
+        List<DashboardAppointment> expected =
+                DashboardAppointment.fromAppointmentList(List.of(secondAppointment, thirdAppointment));
+        when(appointmentService.findActiveDashboardAppointmentsByUsername(customerUser.getUsername()))
                 .thenReturn(expected);
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/customer-dashboard/appointments"))
@@ -105,12 +103,11 @@ class CustomerControllerTest {
 
         assertNotNull(mav, "ModelAndView should not be null");
         assertModelAttributeValue(
-                mav, "appointments", DashboardAppointment.fromAppointmentList(expected)
+                mav, "appointments", expected
         );
         assertViewName(mav, "customer/appointments");
 
-        verify(customerService).findIdByUsername(customerUser.getUsername());
-        verify(appointmentService).findActiveAppointmentsByCustomerId(customer.getId());
+        verify(appointmentService).findActiveDashboardAppointmentsByUsername(customerUser.getUsername());
 
     }
 
@@ -119,12 +116,9 @@ class CustomerControllerTest {
     @Test
     void cancelAppointmentAppointmentNotFound() throws Exception {
 
-        when(customerService.findIdByUsername(customerUser.getUsername()))
-            .thenReturn(customer.getId());
-
         UUID nonExistentUUID = UUID.randomUUID();
-        when(appointmentService.findById(nonExistentUUID))
-            .thenReturn(null);
+        when(appointmentService.cancelCustomerAppointment(nonExistentUUID, customerUser.getUsername()))
+            .thenReturn(false);
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
                 .get("/customer-dashboard/appointments/cancel")
@@ -137,38 +131,8 @@ class CustomerControllerTest {
         assertNotNull(mav, "ModelAndView should not be null");
         assertViewName(mav, "error/404");
 
-        verify(customerService).findIdByUsername(customerUser.getUsername());
-        verify(appointmentService, never()).deleteById(nonExistentUUID);
-
-    }
-
-    @DisplayName("Cancel Appointment - Not Matching Appointment")
-    @WithMockUser(username = "customerUser", roles = {"CUSTOMER"})
-    @Test
-    void cancelAppointmentNotMatchingAppointment() throws Exception {
-        LocalDateTime start = LocalDateTime.of(2025, 8, 7, 10, 0, 0);
-        LocalDateTime end = start.plusMinutes(service.getDuration());
-        Customer otherCustomer = new Customer(UUID.randomUUID(), null, "otherFirstName",
-                "otherLastName", "other@server.com", "0542222222");
-        Appointment notMatchingAppointment = new Appointment(
-                UUID.randomUUID(), otherCustomer, service, start, end, false
-        );
-
-        when(customerService.findIdByUsername(customerUser.getUsername()))
-                .thenReturn(customer.getId());
-
-        when(appointmentService.findById(notMatchingAppointment.getId()))
-            .thenReturn(notMatchingAppointment);
-
-        mockMvc.perform(MockMvcRequestBuilders
-                .get("/customer-dashboard/appointments/cancel")
-                .param("aid", notMatchingAppointment.getId().toString())
-                .with(csrf()))
-            .andExpect(status().is3xxRedirection())
-            .andExpect(redirectedUrl("/customer-dashboard/appointments"));
-
-        verify(customerService).findIdByUsername(customerUser.getUsername());
-        verify(appointmentService, never()).deleteById(notMatchingAppointment.getId());
+        verify(appointmentService).cancelCustomerAppointment(nonExistentUUID, customerUser.getUsername());
+        verify(appointmentService, never()).deleteById(any());
 
     }
 
@@ -177,11 +141,8 @@ class CustomerControllerTest {
     @Test
     void successfullyCancelAppointment() throws Exception {
 
-        when(customerService.findIdByUsername(customerUser.getUsername()))
-            .thenReturn(customer.getId());
-
-        when(appointmentService.findById(secondAppointment.getId()))
-            .thenReturn(secondAppointment);
+        when(appointmentService.cancelCustomerAppointment(secondAppointment.getId(), customerUser.getUsername()))
+            .thenReturn(true);
 
         mockMvc.perform(MockMvcRequestBuilders
                 .get("/customer-dashboard/appointments/cancel")
@@ -190,8 +151,7 @@ class CustomerControllerTest {
             .andExpect(status().is3xxRedirection())
             .andExpect(redirectedUrl("/customer-dashboard/appointments"));
 
-        verify(customerService).findIdByUsername(customerUser.getUsername());
-        verify(appointmentService).deleteById(secondAppointment.getId());
+        verify(appointmentService).cancelCustomerAppointment(secondAppointment.getId(), customerUser.getUsername());
 
     }
 
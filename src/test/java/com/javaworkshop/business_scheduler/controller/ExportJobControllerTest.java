@@ -0,0 +1,201 @@
+package com.javaworkshop.business_scheduler.controller;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.CsvAppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.ExportJob;
+import com.javaworkshop.business_scheduler.service.AppointmentService;
+import com.javaworkshop.business_scheduler.service.ExportJobService;
+import com.javaworkshop.business_scheduler.service.ExportJobsBusyException;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+class ExportJobControllerTest {
+
+    private final String EXPORTS_URL = "/owner-dashboard/appointments/exports";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AppointmentService appointmentService;
+
+    @MockitoBean
+    private ExportJobService exportJobService;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private AppointmentExportWriter csvWriter;
+
+    private ExportJob job;
+
+    @BeforeEach
+    void setUp() {
+        csvWriter = new CsvAppointmentExportWriter();
+        job = new ExportJob(UUID.randomUUID(), "appointments.csv", csvWriter.getContentType(),
+            spoolDirectory.resolve("export.csv"));
+        when(appointmentService.findExportWriter("csv")).thenReturn(csvWriter);
+    }
+
+    @DisplayName("Submit Export - Accepted")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void submitExport_Accepted() throws Exception {
+        when(exportJobService.submit(eq(csvWriter), any(AppointmentExportFilter.class), eq(true)))
+            .thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.post(EXPORTS_URL)
+                .param("format", "csv")
+                .param("gzip", "true")
+                .with(csrf()))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(HttpHeaders.LOCATION, EXPORTS_URL + "/" + job.getId()))
+            .andExpect(jsonPath("$.id").value(job.getId().toString()))
+            .andExpect(jsonPath("$.status").value("QUEUED"))
+            .andExpect(jsonPath("$.rowsWritten").value(0))
+            .andExpect(jsonPath("$.downloadUrl").doesNotExist());
+    }
+
+    @DisplayName("Submit Export - Too Many Exports")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void submitExport_TooManyExports() throws Exception {
+        when(exportJobService.submit(eq(csvWriter), any(AppointmentExportFilter.class), eq(false)))
+            .thenThrow(new ExportJobsBusyException(new RejectedExecutionException()));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(EXPORTS_URL)
+                .param("format", "csv")
+                .with(csrf()))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.error")
+                .value("Too many exports are already running. Please try again in a few minutes."));
+    }
+
+    @DisplayName("Submit Export - Failure Is Not Reported As Busy")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void submitExport_FailureIsNotReportedAsBusy() {
+        when(exportJobService.submit(eq(csvWriter), any(AppointmentExportFilter.class), eq(false)))
+            .thenThrow(new IllegalStateException("The spool directory is not writable"));
+
+        ServletException exception = assertThrows(ServletException.class, () ->
+            mockMvc.perform(MockMvcRequestBuilders.post(EXPORTS_URL)
+                .param("format", "csv")
+                .with(csrf())));
+
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @DisplayName("Submit Export - Invalid Parameters")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void submitExport_InvalidParameters() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post(EXPORTS_URL)
+                .param("format", "pdf")
+                .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unsupported export format: pdf"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post(EXPORTS_URL)
+                .param("format", "csv")
+                .param("incremental", "true")
+                .param("cursor", "not-a-cursor")
+                .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").exists());
+
+        verify(exportJobService, never()).submit(any(), any(), any(Boolean.class));
+    }
+
+    @DisplayName("Get Export - Running And Unknown")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void getExport_RunningAndUnknown() throws Exception {
+        job.markRunning();
+        job.getRowsWritten().set(42);
+        when(exportJobService.findById(job.getId())).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + job.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("RUNNING"))
+            .andExpect(jsonPath("$.rowsWritten").value(42));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + UUID.randomUUID()))
+            .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Download Export - Not Ready")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void downloadExport_NotReady() throws Exception {
+        job.markRunning();
+        when(exportJobService.findById(job.getId())).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + job.getId() + "/file"))
+            .andExpect(status().isConflict());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + UUID.randomUUID() + "/file"))
+            .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Download Export - Completed")
+    @Test
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    void downloadExport_Completed() throws Exception {
+        String csv = "id,customer,service,start,end\r\n";
+        Files.writeString(job.getFile(), csv);
+        job.markCompleted(Files.size(job.getFile()));
+        when(exportJobService.findById(job.getId())).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + job.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.downloadUrl").value(EXPORTS_URL + "/" + job.getId() + "/file"))
+            .andExpect(jsonPath("$.fileSize").value(csv.length()));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + job.getId() + "/file"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=appointments.csv"))
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+            .andExpect(content().string(csv));
+    }
+
+    @DisplayName("Exports - Owner Only")
+    @Test
+    @WithMockUser(username = "customerUser", roles = {"CUSTOMER"})
+    void exports_OwnerOnly() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(EXPORTS_URL + "/" + job.getId()))
+            .andExpect(status().isForbidden());
+    }
+}
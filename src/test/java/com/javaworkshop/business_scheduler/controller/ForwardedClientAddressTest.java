@@ -0,0 +1,77 @@
+package com.javaworkshop.business_scheduler.controller;
+
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.SlotHold;
+import com.javaworkshop.business_scheduler.service.BookingService;
+import com.javaworkshop.business_scheduler.service.ServiceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// This class tests over a real connection that a request forwarded by a proxy is told apart by the client address
+// in its X-Forwarded-For header, so the clients behind the proxy do not share a single slot hold cap.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("disable-scheduling")
+class ForwardedClientAddressTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockitoBean
+    private ServiceService serviceService;
+
+    @MockitoBean
+    private BookingService bookingService;
+
+    @DisplayName("Slot Hold Is Capped By The Forwarded Client Address")
+    @Test
+    void slotHoldIsCappedByTheForwardedClientAddress() {
+
+        Service service = new Service(UUID.randomUUID(), "service", BigDecimal.valueOf(100), 30, null, true);
+        LocalDateTime startTime = LocalDateTime.of(LocalDate.now().plusDays(1), LocalTime.of(10, 0));
+        SlotHold hold = new SlotHold(startTime, startTime.plusMinutes(30), LocalDateTime.now().plusMinutes(5));
+        hold.setId(UUID.randomUUID());
+        when(serviceService.findById(service.getId())).thenReturn(service);
+        when(bookingService.holdSlot(eq(service), eq(startTime), any(UUID.class), eq("203.0.113.7")))
+            .thenReturn(hold);
+
+        ResponseEntity<String> loginPage = restTemplate.getForEntity("/login", String.class);
+        Matcher csrfToken = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"").matcher(loginPage.getBody());
+        assertTrue(csrfToken.find(), "The login page should carry a CSRF token");
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, loginPage.getHeaders().getFirst(HttpHeaders.SET_COOKIE).split(";")[0]);
+        headers.add("X-CSRF-TOKEN", csrfToken.group(1));
+        headers.add("X-Forwarded-For", "203.0.113.7"); // the proxy runs on the loopback address, so it is trusted
+
+        ResponseEntity<String> response = restTemplate.exchange(
+            "/api/general/slot-holds?sid=" + service.getId() + "&start=" + startTime,
+            HttpMethod.POST, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(bookingService).holdSlot(eq(service), eq(startTime), any(UUID.class), eq("203.0.113.7"));
+
+    }
+}
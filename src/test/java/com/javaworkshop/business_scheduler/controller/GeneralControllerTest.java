@@ -217,12 +217,16 @@ class GeneralControllerTest {
 
         ModelAndView mav = mvcResult.getModelAndView();
         assertNotNull(mav, "ModelAndView should not be null");
-        assertModelAttributeValue(mav, "form", new BookAppointmentForm(
+        BookAppointmentForm expectedForm = new BookAppointmentForm(
             new CustomerDetailsForm(), new AppointmentTimeForm(
                 selectedAppointmentToUpdate.getStartTime().toLocalDate(),
                 selectedAppointmentToUpdate.getStartTime().toLocalTime()
             )
-        ));
+        );
+        expectedForm.setAppointmentVersion(selectedAppointmentToUpdate.getVersion());
+        assertModelAttributeValue(mav, "form", expectedForm);
+        assertTrue(mvcResult.getResponse().getContentAsString().contains("name=\"appointmentVersion\""),
+            "The version of the appointment should be sent back with the form");
         assertModelAttributeValue(mav, "selectedService", selectedService);
         assertViewName(mav, "general/book");
 
@@ -324,7 +328,7 @@ class GeneralControllerTest {
         verify(bookingService, never()).bookAppointment(
             anyString(), anyString(), anyString(), anyString(),
             anyString(), any(Service.class), any(UUID.class),
-            any(LocalDateTime.class), any(LocalDateTime.class)
+            any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class)
         );
 
     }
@@ -358,7 +362,7 @@ class GeneralControllerTest {
         verify(bookingService, never()).bookAppointment(
             anyString(), anyString(), anyString(), anyString(),
             anyString(), any(Service.class), any(UUID.class),
-            any(LocalDateTime.class), any(LocalDateTime.class)
+            any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class)
         );
 
     }
@@ -382,7 +386,7 @@ class GeneralControllerTest {
             doThrow(new RuntimeException(possibleErrorCode)).when(bookingService)
                 .bookAppointment(anyString(), anyString(), anyString(), anyString(),
                     nullable(String.class), any(Service.class), nullable(UUID.class),
-                    any(LocalDateTime.class), any(LocalDateTime.class));
+                    any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class));
 
             MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
                     .post("/book/processBooking")
@@ -416,7 +420,7 @@ class GeneralControllerTest {
         verify(bookingService, times(possibleErrorCodes.size())).bookAppointment(
             anyString(), anyString(), anyString(), anyString(),
             nullable(String.class), any(Service.class), nullable(UUID.class),
-            any(LocalDateTime.class), any(LocalDateTime.class)
+            any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class)
         );
 
     }
@@ -440,7 +444,7 @@ class GeneralControllerTest {
         doThrow(new RuntimeException(possibleErrorCode)).when(bookingService)
             .bookAppointment(nullable(String.class), nullable(String.class), nullable(String.class),
                 nullable(String.class), nullable(String.class), any(Service.class), nullable(UUID.class),
-                any(LocalDateTime.class), any(LocalDateTime.class));
+                any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class));
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
                 .post("/book/processBooking")
@@ -469,7 +473,7 @@ class GeneralControllerTest {
         verify(bookingService).bookAppointment(
             nullable(String.class), nullable(String.class), nullable(String.class),
             nullable(String.class), nullable(String.class), any(Service.class), nullable(UUID.class),
-            any(LocalDateTime.class), any(LocalDateTime.class)
+            any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class)
         );
 
     }
@@ -488,7 +492,7 @@ class GeneralControllerTest {
             customerToBookFor.getFirstName(), customerToBookFor.getLastName(),
             customerToBookFor.getEmail(), customerToBookFor.getPhone(),
             null, chosenService, null,
-            expectedAppointment.getStartTime(), expectedAppointment.getEndTime()))
+            expectedAppointment.getStartTime(), expectedAppointment.getEndTime(), null, null))
             .thenReturn(expectedAppointment);
 
 
@@ -520,9 +524,79 @@ class GeneralControllerTest {
             customerToBookFor.getFirstName(), customerToBookFor.getLastName(),
             customerToBookFor.getEmail(), customerToBookFor.getPhone(),
             null, chosenService, null,
-            expectedAppointment.getStartTime(), expectedAppointment.getEndTime()
+            expectedAppointment.getStartTime(), expectedAppointment.getEndTime(), null, null
+        );
+
+    }
+
+    @DisplayName("Error On Process Booking - Rescheduling Without The Appointment Version")
+    @WithMockUser(username = "user", roles = {"CUSTOMER"})
+    @Test
+    void errorOnProcessBookingReschedulingWithoutTheAppointmentVersion() throws Exception {
+
+        Service chosenService = firstService;
+        when(serviceService.findById(chosenService.getId()))
+            .thenReturn(chosenService);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                .post("/book/processBooking")
+                .param("sid", chosenService.getId().toString())
+                .param("aid", firstAppointment.getId().toString())
+                .param("appointmentTimeForm.appointmentDate", "2025-08-01")
+                .param("appointmentTimeForm.appointmentTime", "08:00")
+                .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(model().hasErrors()).andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+        assertNotNull(mav, "ModelAndView should not be null");
+        assertViewName(mav, "general/book");
+        BindingResult bindingResult =
+            (BindingResult) mav.getModel().get(BindingResult.MODEL_KEY_PREFIX + "form");
+        assertTrue(bindingResult.getAllErrors().stream().anyMatch(
+                error -> "error.appointment.changed".equals(error.getCode())),
+            "error.appointment.changed should be present in the errors");
+
+        verify(bookingService, never()).bookAppointment(
+            nullable(String.class), nullable(String.class), nullable(String.class),
+            nullable(String.class), nullable(String.class), any(Service.class), nullable(UUID.class),
+            any(LocalDateTime.class), any(LocalDateTime.class), nullable(UUID.class), nullable(Long.class)
         );
 
     }
 
+    @DisplayName("Success On Process Booking - Rescheduling Sends The Appointment Version")
+    @WithMockUser(username = "user", roles = {"CUSTOMER"})
+    @Test
+    void successOnProcessBookingReschedulingSendsTheAppointmentVersion() throws Exception {
+
+        Service chosenService = firstService;
+        Appointment expectedAppointment = firstAppointment;
+        when(serviceService.findById(chosenService.getId()))
+            .thenReturn(chosenService);
+        when(bookingService.bookAppointment(
+            null, null, null, null, "user", chosenService, expectedAppointment.getId(),
+            expectedAppointment.getStartTime(), expectedAppointment.getEndTime(), null, 3L))
+            .thenReturn(expectedAppointment);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders
+                .post("/book/processBooking")
+                .param("sid", chosenService.getId().toString())
+                .param("aid", expectedAppointment.getId().toString())
+                .param("appointmentVersion", "3")
+                .param("appointmentTimeForm.appointmentDate",
+                    expectedAppointment.getStartTime().toLocalDate().toString())
+                .param("appointmentTimeForm.appointmentTime",
+                    expectedAppointment.getStartTime().toLocalTime().toString())
+                .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+        assertNotNull(mav, "ModelAndView should not be null");
+        assertModelAttributeValue(mav, "isRescheduling", true);
+        assertViewName(mav, "general/success-booking");
+
+    }
+
 }
\ No newline at end of file
@@ -3,6 +3,10 @@ package com.javaworkshop.business_scheduler.controller;
 import com.javaworkshop.business_scheduler.config.DefaultInitializer;
 import com.javaworkshop.business_scheduler.config.GlobalModelAttributes;
 import com.javaworkshop.business_scheduler.dto.*;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.CsvAppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.NdjsonAppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.XmlAppointmentExportWriter;
 import com.javaworkshop.business_scheduler.model.*;
 import com.javaworkshop.business_scheduler.service.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,16 +26,23 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.util.UriUtils;
 
-import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -125,10 +136,12 @@ class OwnerControllerTest {
             appointment, secondAppointment, thirdAppointment
         );
 
-        when(appointmentService.findAll()).thenReturn(expectedAppointments);
-
         List<DashboardAppointment> expectedDashboardAppointments =
             DashboardAppointment.fromAppointmentList(expectedAppointments);
+        AppointmentCursor nextCursor = new AppointmentCursor(thirdStartTime, thirdAppointment.getId());
+
+        when(appointmentService.findAppointmentPage(AppointmentSearchFilter.activeOnly(), null, null))
+            .thenReturn(new AppointmentPage(expectedDashboardAppointments, null, nextCursor));
 
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments"))
             .andExpect(status().isOk())
@@ -138,10 +151,107 @@ class OwnerControllerTest {
 
         assertNotNull(mav, "ModelAndView should not be null");
         assertModelAttributeValue(mav, "appointments", expectedDashboardAppointments);
+        assertNull(mav.getModel().get("previousCursor"), "There should be no previous page");
+        assertModelAttributeValue(mav, "nextCursor", nextCursor);
+        assertModelAttributeValue(mav, "filter", AppointmentSearchFilter.activeOnly());
         assertViewName(mav, "owner/appointments");
+        assertTrue(mvcResult.getResponse().getContentAsString()
+                .contains("after=" + UriUtils.encode(nextCursor.toString(), StandardCharsets.UTF_8)),
+            "The next page link should carry the cursor of the last appointment");
+
+        verify(appointmentService).findAppointmentPage(AppointmentSearchFilter.activeOnly(), null, null);
+
+    }
+
+    @DisplayName("Show Appointments Page Before A Cursor")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void showAppointmentsPageBeforeACursor() throws Exception {
+        AppointmentCursor before = new AppointmentCursor(appointment.getStartTime(), appointment.getId());
+        AppointmentCursor previousCursor = new AppointmentCursor(appointment.getStartTime().minusDays(1),
+            UUID.randomUUID());
+        List<DashboardAppointment> expectedDashboardAppointments =
+            DashboardAppointment.fromAppointmentList(List.of(appointment));
+
+        AppointmentSearchFilter filter = AppointmentSearchFilter.of("all", null, null, null, null);
+        when(appointmentService.findAppointmentPage(filter, null, before))
+            .thenReturn(new AppointmentPage(expectedDashboardAppointments, previousCursor, before));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments")
+                .param("status", "all")
+                .param("before", before.toString()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+
+        assertNotNull(mav, "ModelAndView should not be null");
+        assertModelAttributeValue(mav, "appointments", expectedDashboardAppointments);
+        assertModelAttributeValue(mav, "previousCursor", previousCursor);
+        assertModelAttributeValue(mav, "filter", filter);
+
+        verify(appointmentService).findAppointmentPage(filter, null, before);
+    }
+
+    @DisplayName("Show Appointments With A Malformed Cursor")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void showAppointmentsWithAMalformedCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments")
+                .param("after", "not-a-cursor"))
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/owner-dashboard/appointments?status=active"));
 
-        verify(appointmentService).findAll();
+        verify(appointmentService, never()).findAppointmentPage(any(), any(), any());
+    }
 
+    @DisplayName("Show Appointments Filtered By Status, Dates, Service And Customer")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void showAppointmentsFilteredByStatusDatesServiceAndCustomer() throws Exception {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(7);
+        UUID serviceId = UUID.randomUUID();
+        AppointmentSearchFilter filter = AppointmentSearchFilter.of("completed", from, to, serviceId, "+972");
+        AppointmentCursor nextCursor = new AppointmentCursor(appointment.getStartTime(), appointment.getId());
+        List<DashboardAppointment> expectedDashboardAppointments =
+            DashboardAppointment.fromAppointmentList(List.of(appointment));
+
+        when(appointmentService.findAppointmentPage(filter, null, null))
+            .thenReturn(new AppointmentPage(expectedDashboardAppointments, null, nextCursor));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments")
+                .param("status", "completed")
+                .param("from", from.toString())
+                .param("to", to.toString())
+                .param("service", serviceId.toString())
+                .param("customer", " +972 "))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+
+        assertNotNull(mav, "ModelAndView should not be null");
+        assertModelAttributeValue(mav, "appointments", expectedDashboardAppointments);
+        assertModelAttributeValue(mav, "filter", filter);
+        assertModelAttributeValue(mav, "nextPageUrl", "/owner-dashboard/appointments?status=completed" +
+            "&from=" + from + "&to=" + to + "&service=" + serviceId + "&customer=%2B972" +
+            "&after=" + UriUtils.encode(nextCursor.toString(), StandardCharsets.UTF_8));
+
+        verify(appointmentService).findAppointmentPage(filter, null, null);
+    }
+
+    @DisplayName("Show Appointments With An Empty Date Range")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void showAppointmentsWithAnEmptyDateRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments")
+                .param("from", "2025-01-10")
+                .param("to", "2025-01-01"))
+            .andExpect(status().is3xxRedirection())
+            .andExpect(redirectedUrl("/owner-dashboard/appointments"));
+
+        verify(appointmentService, never()).findAppointmentPage(any(), any(), any());
     }
 
     @DisplayName("Cancel Appointment")
@@ -163,14 +273,22 @@ class OwnerControllerTest {
     @Test
     void errorOnExportAppointmentsToXml() throws Exception {
 
-        doThrow(XMLStreamException.class).when(appointmentService)
-            .exportAppointmentsToXML(any(OutputStream.class), anyBoolean());
+        when(appointmentService.findExportWriter("xml")).thenReturn(new XmlAppointmentExportWriter());
+        doThrow(IOException.class).when(appointmentService)
+            .exportAppointments(any(OutputStream.class), any(AppointmentExportWriter.class),
+                any(AppointmentExportFilter.class));
 
-        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export-to-xml")
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export-to-xml")
             .param("active", "true"))
-            .andExpect(status().isInternalServerError());
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // the failure is left to the container, which answers with an error as nothing was written yet
+        assertThrows(IOException.class, () ->
+            mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult)));
 
-        verify(appointmentService).exportAppointmentsToXML(any(OutputStream.class), anyBoolean());
+        verify(appointmentService).exportAppointments(any(OutputStream.class), any(AppointmentExportWriter.class),
+            any(AppointmentExportFilter.class));
 
     }
 
@@ -180,25 +298,293 @@ class OwnerControllerTest {
     void successOnExportAppointmentsToXml() throws Exception {
 
         byte[] data = "<appointments>some data</appointments>".getBytes(StandardCharsets.UTF_8);
+        stubExport("xml", new XmlAppointmentExportWriter(), data);
 
-        doAnswer(inv -> {
-            OutputStream os = inv.getArgument(0, OutputStream.class);
-            os.write(data);
-            os.flush();
-            return null;
-        }).when(appointmentService).exportAppointmentsToXML(any(OutputStream.class), anyBoolean());
-
-        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export-to-xml")
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export-to-xml")
                 .param("active", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // a long export is not cut off by the container's default async timeout
+        assertEquals(Duration.ofMinutes(60).toMillis(), mvcResult.getRequest().getAsyncContext().getTimeout(),
+            "The export should run under the configured async timeout");
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=appointments.xml"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
             .andExpect(content().contentType(MediaType.APPLICATION_XML))
             .andExpect(content().bytes(data));
 
-        verify(appointmentService).exportAppointmentsToXML(any(OutputStream.class), anyBoolean());
+        verify(appointmentService).exportAppointments(any(OutputStream.class), any(XmlAppointmentExportWriter.class),
+            argThat(filter -> filter.isActiveOnly() && !filter.isIncremental()));
 
     }
 
+    @DisplayName("Export Appointments On The Bounded Web Async Pool")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void exportAppointmentsOnTheBoundedWebAsyncPool() throws Exception {
+
+        AppointmentExportWriter exportWriter = new CsvAppointmentExportWriter();
+        List<String> exportThreads = new CopyOnWriteArrayList<>();
+        when(appointmentService.findExportWriter("csv")).thenReturn(exportWriter);
+        doAnswer(inv -> {
+            exportThreads.add(Thread.currentThread().getName());
+            return null;
+        }).when(appointmentService).exportAppointments(any(OutputStream.class), eq(exportWriter),
+            any(AppointmentExportFilter.class));
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("format", "csv"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk());
+
+        // the mail executor must not keep Spring Boot from creating the pool, or every export gets a new thread
+        assertEquals(1, exportThreads.size());
+        assertTrue(exportThreads.get(0).startsWith("web-async-"),
+            "The export should run on the web async pool, it ran on " + exportThreads.get(0));
+
+    }
+
+    @DisplayName("Export Appointments To CSV Gzipped When The Client Accepts It")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void exportAppointmentsToCsvGzippedWhenTheClientAcceptsIt() throws Exception {
+
+        byte[] data = "id,customer,service,start,end\r\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("csv", new CsvAppointmentExportWriter(), data);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("active", "false")
+                .param("format", "csv")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=appointments.csv"))
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andReturn();
+
+        assertArrayEquals(data, gunzip(result.getResponse().getContentAsByteArray()),
+            "The response should be the gzipped export");
+        verify(appointmentService).exportAppointments(any(OutputStream.class), any(CsvAppointmentExportWriter.class),
+            argThat(filter -> !filter.isActiveOnly()));
+    }
+
+    @DisplayName("Export Appointments To NDJSON As A Gzip File When Requested")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void exportAppointmentsToNdjsonAsAGzipFileWhenRequested() throws Exception {
+
+        byte[] data = "{\"id\":\"1\"}\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("ndjson", new NdjsonAppointmentExportWriter(), data);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("active", "true")
+                .param("format", "ndjson")
+                .param("gzip", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=appointments.ndjson.gz"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(content().contentType("application/gzip"))
+            .andReturn();
+
+        assertArrayEquals(data, gunzip(result.getResponse().getContentAsByteArray()),
+            "The downloaded file should be the gzipped export");
+    }
+
+    @DisplayName("No Gzip When The Client Refuses It")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void noGzipWhenTheClientRefusesIt() throws Exception {
+
+        byte[] data = "id,customer,service,start,end\r\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("csv", new CsvAppointmentExportWriter(), data);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("format", "csv")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(content().bytes(data));
+    }
+
+    @DisplayName("Gzip Only When The Accept-Encoding Header Accepts It")
+    @Test
+    void gzipOnlyWhenTheAcceptEncodingHeaderAcceptsIt() {
+        Map<String, Boolean> gzipByAcceptEncoding = new LinkedHashMap<>();
+        gzipByAcceptEncoding.put("deflate, gzip;q=0.5", true);
+        gzipByAcceptEncoding.put("GZIP", true);
+        gzipByAcceptEncoding.put("x-gzip", true);
+        gzipByAcceptEncoding.put("*;q=0.1", true);
+        gzipByAcceptEncoding.put("gzip;q=0, deflate", false);
+        gzipByAcceptEncoding.put("gzip; q=0.000", false);
+        gzipByAcceptEncoding.put("*, gzip;q=0", false);
+        gzipByAcceptEncoding.put("gzip;q=abc", false);
+        gzipByAcceptEncoding.put("x-gzip-foo, br", false);
+        gzipByAcceptEncoding.put("identity", false);
+        gzipByAcceptEncoding.put(null, false);
+
+        gzipByAcceptEncoding.forEach((acceptEncoding, gzip) ->
+            assertEquals(gzip, OwnerController.acceptsGzip(acceptEncoding), "Accept-Encoding: " + acceptEncoding));
+    }
+
+    @DisplayName("No Gzip When Disabled Even If The Client Accepts It")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void noGzipWhenDisabledEvenIfTheClientAcceptsIt() throws Exception {
+
+        byte[] data = "{\"id\":\"1\"}\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("ndjson", new NdjsonAppointmentExportWriter(), data);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("active", "true")
+                .param("format", "ndjson")
+                .param("gzip", "false")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andExpect(content().bytes(data));
+    }
+
+    @DisplayName("Bad Request On Export To An Unsupported Format")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void badRequestOnExportToAnUnsupportedFormat() throws Exception {
+
+        when(appointmentService.findExportWriter("pdf")).thenReturn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("active", "true")
+                .param("format", "pdf"))
+            .andExpect(status().isBadRequest());
+
+        verify(appointmentService, never()).exportAppointments(any(), any(), any());
+    }
+
+    @DisplayName("Export Appointments In A Date Range")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void exportAppointmentsInADateRange() throws Exception {
+
+        byte[] data = "id,customer,service,start,end\r\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("csv", new CsvAppointmentExportWriter(), data);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("format", "csv")
+                .param("from", "2025-01-01")
+                .param("to", "2025-12-31"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Export-Cursor"))
+            .andExpect(content().bytes(data));
+
+        verify(appointmentService).exportAppointments(any(OutputStream.class), any(CsvAppointmentExportWriter.class),
+            argThat(filter -> !filter.isIncremental()
+                && LocalDateTime.of(2025, 1, 1, 0, 0).equals(filter.getStartFrom())
+                && LocalDateTime.of(2026, 1, 1, 0, 0).equals(filter.getStartBefore())));
+        verify(appointmentService, never()).findLastExportCursor(any());
+    }
+
+    @DisplayName("Incremental Export Continues After The Cursor And Returns The Next One")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void incrementalExportContinuesAfterTheCursorAndReturnsTheNextOne() throws Exception {
+
+        ExportCursor cursor = new ExportCursor(LocalDateTime.of(2025, 8, 7, 9, 0, 0, 123000), UUID.randomUUID());
+        ExportCursor nextCursor = new ExportCursor(LocalDateTime.of(2025, 8, 8, 10, 30), UUID.randomUUID());
+        byte[] data = "{\"id\":\"1\"}\n".getBytes(StandardCharsets.UTF_8);
+        stubExport("ndjson", new NdjsonAppointmentExportWriter(), data);
+        when(appointmentService.findLastExportCursor(any(AppointmentExportFilter.class))).thenReturn(nextCursor);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("format", "ndjson")
+                .param("cursor", cursor.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Export-Cursor", nextCursor.toString()))
+            .andExpect(content().bytes(data));
+
+        verify(appointmentService).exportAppointments(any(OutputStream.class), any(NdjsonAppointmentExportWriter.class),
+            argThat(filter -> filter.isIncremental() && cursor.equals(filter.getAfter())));
+    }
+
+    @DisplayName("Deleted Appointments Feed Returns The Ids After The Cursor And The Next Cursor")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void deletedAppointmentsFeedReturnsTheIdsAfterTheCursorAndTheNextCursor() throws Exception {
+
+        ExportCursor cursor = new ExportCursor(LocalDateTime.of(2025, 8, 7, 9, 0), UUID.randomUUID());
+        ExportCursor first = new ExportCursor(LocalDateTime.of(2025, 8, 7, 9, 5), UUID.randomUUID());
+        ExportCursor last = new ExportCursor(LocalDateTime.of(2025, 8, 7, 9, 10), UUID.randomUUID());
+        when(appointmentService.findDeletedAppointments(any(AppointmentExportFilter.class)))
+            .thenReturn(List.of(first, last))
+            .thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export/deleted")
+                .param("cursor", cursor.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ids[0]").value(first.getId().toString()))
+            .andExpect(jsonPath("$.ids[1]").value(last.getId().toString()))
+            .andExpect(jsonPath("$.cursor").value(last.toString()));
+
+        // nothing was deleted since, so the client keeps its cursor
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export/deleted")
+                .param("cursor", last.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ids").isEmpty())
+            .andExpect(jsonPath("$.cursor").value(last.toString()));
+
+        verify(appointmentService).findDeletedAppointments(
+            argThat(filter -> filter.isIncremental() && cursor.equals(filter.getAfter())));
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export/deleted")
+                .param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Bad Request On Export With A Malformed Cursor Or An Empty Range")
+    @WithMockUser(username = "ownerUser", roles = {"OWNER"})
+    @Test
+    void badRequestOnExportWithAMalformedCursorOrAnEmptyRange() throws Exception {
+
+        when(appointmentService.findExportWriter("xml")).thenReturn(new XmlAppointmentExportWriter());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/owner-dashboard/appointments/export")
+                .param("from", "2025-12-31")
+                .param("to", "2025-01-01"))
+            .andExpect(status().isBadRequest());
+
+        verify(appointmentService, never()).exportAppointments(any(), any(), any());
+    }
+
     @DisplayName("Show Service Manager")
     @WithMockUser(username = "ownerUser", roles = {"OWNER"})
     @Test
@@ -1081,4 +1467,22 @@ class OwnerControllerTest {
         );
 
     }
-}
\ No newline at end of file
+
+    // makes the export of the given format write the given data
+    private void stubExport(String format, AppointmentExportWriter exportWriter, byte[] data) throws IOException {
+        when(appointmentService.findExportWriter(format)).thenReturn(exportWriter);
+        doAnswer(inv -> {
+            OutputStream os = inv.getArgument(0, OutputStream.class);
+            os.write(data);
+            os.flush();
+            return null;
+        }).when(appointmentService).exportAppointments(any(OutputStream.class), eq(exportWriter),
+            any(AppointmentExportFilter.class));
+    }
+
+    private byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package com.javaworkshop.business_scheduler.repository;
 
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import com.javaworkshop.business_scheduler.dto.AppointmentInterval;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
+import com.javaworkshop.business_scheduler.dto.ExportCursor;
 import com.javaworkshop.business_scheduler.model.Appointment;
 import com.javaworkshop.business_scheduler.model.Customer;
 import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.User;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +42,13 @@ class AppointmentRepositoryTest {
     @Autowired
     private ServiceRepository serviceRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeletedAppointmentRepository deletedAppointmentRepository;
+
+    private User user;
     private Customer customer;
     private Service service;
     private Appointment firstAppointment, secondAppointment, thirdAppointment;
@@ -38,7 +57,8 @@ class AppointmentRepositoryTest {
     @BeforeEach
     void setUp() {
         // initializes the database with two appointments
-        customer = new Customer(null, "David", "Cohen",
+        user = userRepository.save(new User("davidUser", "password", "ROLE_CUSTOMER", true));
+        customer = new Customer(user, "David", "Cohen",
             "david@someserver.com", "0541111111");
         service = new Service("Service", BigDecimal.valueOf(50),
             30, null, true);
@@ -59,23 +79,13 @@ class AppointmentRepositoryTest {
     @AfterEach
     void tearDown() {
         // clears the database after each test
+        deletedAppointmentRepository.deleteAll();
         appointmentRepository.deleteAll();
         customerRepository.deleteAll();
         serviceRepository.deleteAll();
+        userRepository.deleteAll();
     }
 
-    @DisplayName("Find All Appointments Ordered by Start Time")
-    @Test
-    void findAllAppointmentsOrderedByStartTime() {
-
-        List<Appointment> expected = new ArrayList<>(List.of(thirdAppointment, firstAppointment, secondAppointment));
-
-        List<Appointment> actual = appointmentRepository.findByOrderByStartTime();
-
-        assertIterableEquals(expected, actual, "Expected appointments to be ordered by start time");
-    }
-
-
     @DisplayName("Find All Uncompleted Appointments Ordered by Start Time")
     @Test
     void FindAllUncompletedAppointmentsOrderedByStartTime() {
@@ -97,48 +107,329 @@ class AppointmentRepositoryTest {
 
     }
 
-    @DisplayName("Find All Uncompleted Appointments by Customer id Ordered by Start Time")
+    @DisplayName("Find Pages Of Appointments After And Before a Cursor")
     @Test
-    void findAllUncompletedAppointmentsByCustomerIdOrderedByStartTime() {
+    void findPagesOfAppointmentsAfterAndBeforeACursor() {
+        Appointment sameStartAppointment = appointmentRepository.save(new Appointment(customer, service, now,
+            now.plusMinutes(service.getDuration()), true));
+
+        List<DashboardAppointment> firstPage = appointmentRepository.findPageAfter(null, null, null, null, null, null, null,
+            Limit.of(2));
+        DashboardAppointment lastOfFirstPage = firstPage.get(firstPage.size() - 1);
+        List<DashboardAppointment> secondPage = appointmentRepository.findPageAfter(null, null, null, null, null,
+            lastOfFirstPage.getStartTime(), lastOfFirstPage.getAppointmentId(), Limit.of(2));
+        List<DashboardAppointment> backToFirstPage = appointmentRepository.findPageBefore(null, null, null, null, null,
+            secondPage.get(0).getStartTime(), secondPage.get(0).getAppointmentId(), Limit.of(2));
+        List<UUID> fromNow = appointmentRepository.findPageAfter(null, null, null, null, null, now, null,
+                Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> activeFromNow = appointmentRepository.findPageAfter(false, null, null, null, null, now, null,
+                Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+
+        List<DashboardAppointment> bothPages = new ArrayList<>(firstPage);
+        bothPages.addAll(secondPage);
+        List<DashboardAppointment> firstPageBackwards = new ArrayList<>(firstPage);
+        Collections.reverse(firstPageBackwards);
+        assertAll(
+            () -> assertEquals(List.of(thirdAppointment.getId(), firstAppointment.getId(),
+                    sameStartAppointment.getId(), secondAppointment.getId()).stream().sorted().toList(),
+                bothPages.stream().map(DashboardAppointment::getAppointmentId).sorted().toList(),
+                "Expected every appointment on exactly one of the pages, also the ones that start together"),
+            () -> assertIterableEquals(bothPages.stream().map(DashboardAppointment::getStartTime).sorted().toList(),
+                bothPages.stream().map(DashboardAppointment::getStartTime).toList(),
+                "Expected the pages to be ordered by start time"),
+            () -> assertIterableEquals(firstPageBackwards, backToFirstPage,
+                "Expected the page before the second page to be the first page backwards"),
+            () -> assertEquals(3, fromNow.size(), "Expected the appointments from the start time on"),
+            () -> assertFalse(fromNow.contains(thirdAppointment.getId())),
+            () -> assertEquals(List.of(firstAppointment.getId(), secondAppointment.getId()), activeFromNow,
+                "Expected only the uncompleted appointments from the start time on")
+        );
+    }
+
+    @DisplayName("Find A Page Of Appointments Filtered By Service, Dates And Customer Prefix")
+    @Test
+    void findAPageOfAppointmentsFilteredByServiceDatesAndCustomerPrefix() {
+        Customer otherCustomer = customerRepository.save(new Customer(null, "Dana", "Levi",
+            "dana_l@someserver.com", "0542222222"));
+        Service otherService = serviceRepository.save(new Service("Other Service", BigDecimal.valueOf(80),
+            45, null, true));
+        Appointment otherAppointment = appointmentRepository.save(new Appointment(otherCustomer, otherService,
+            now.plusDays(2), now.plusDays(2).plusMinutes(otherService.getDuration()), false));
+
+        List<UUID> byService = appointmentRepository.findPageAfter(null, null, null, otherService.getId(), null,
+                null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> byDates = appointmentRepository.findPageAfter(null, now.plusDays(1).toLocalDate().atStartOfDay(),
+                now.plusDays(3).toLocalDate().atStartOfDay(), null, null, null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> byFirstName = appointmentRepository.findPageAfter(null, null, null, null, "Dan%",
+                null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> byPhone = appointmentRepository.findPageBefore(null, null, null, null, "054111%",
+                null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> byEscapedEmail = appointmentRepository.findPageAfter(null, null, null, null, "dana!_%",
+                null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
+        List<UUID> byUnescapedWildcard = appointmentRepository.findPageAfter(null, null, null, null, "david!_%",
+                null, null, Limit.of(10)).stream()
+            .map(DashboardAppointment::getAppointmentId).toList();
 
+        assertAll(
+            () -> assertEquals(List.of(otherAppointment.getId()), byService,
+                "Expected only the appointments of the service"),
+            () -> assertEquals(List.of(otherAppointment.getId()), byDates,
+                "Expected only the appointments that start within the dates"),
+            () -> assertEquals(List.of(otherAppointment.getId()), byFirstName,
+                "Expected only the appointments of the customer whose first name starts with the prefix"),
+            () -> assertEquals(List.of(secondAppointment.getId(), firstAppointment.getId(),
+                    thirdAppointment.getId()), byPhone,
+                "Expected the appointments of the customer whose phone starts with the prefix, backwards"),
+            () -> assertEquals(List.of(otherAppointment.getId()), byEscapedEmail,
+                "Expected the escaped underscore to match an underscore of the email"),
+            () -> assertTrue(byUnescapedWildcard.isEmpty(),
+                "Expected the escaped underscore to match no other character")
+        );
+    }
+
+    @DisplayName("Stream Export Rows Of All And Uncompleted Appointments Ordered by Start Time")
+    @Test
+    void streamExportRowsOfAllAndUncompletedAppointmentsOrderedByStartTime() {
         thirdAppointment.setIsCompleted(true);
         appointmentRepository.save(thirdAppointment);
 
-        List<Appointment> expected = new ArrayList<>(List.of(firstAppointment, secondAppointment));
+        List<AppointmentExportRow> all;
+        try (Stream<AppointmentExportRow> stream = appointmentRepository.streamExportRows(false, null, null)) {
+            all = stream.toList();
+        }
+        List<AppointmentExportRow> active;
+        try (Stream<AppointmentExportRow> stream = appointmentRepository.streamExportRows(true, null, null)) {
+            active = stream.toList();
+        }
+
+        assertAll(
+            () -> assertIterableEquals(
+                List.of(thirdAppointment.getId(), firstAppointment.getId(), secondAppointment.getId()),
+                all.stream().map(AppointmentExportRow::getId).toList(),
+                "Expected all appointments to be streamed ordered by start time"),
+            () -> assertIterableEquals(List.of(firstAppointment.getId(), secondAppointment.getId()),
+                active.stream().map(AppointmentExportRow::getId).toList(),
+                "Expected only uncompleted appointments to be streamed ordered by start time"),
+            () -> assertEquals("David Cohen", all.get(0).getCustomerName(),
+                "Expected the customer name to be joined in"),
+            () -> assertEquals(service.getServiceName(), all.get(0).getServiceName(),
+                "Expected the service name to be joined in"),
+            () -> assertEquals(thirdAppointment.getStartTime(), all.get(0).getStartTime()),
+            () -> assertEquals(thirdAppointment.getEndTime(), all.get(0).getEndTime())
+        );
+    }
+
+    @DisplayName("Stream Export Rows Of Appointments That Start In a Range")
+    @Test
+    void streamExportRowsOfAppointmentsThatStartInARange() {
+
+        List<UUID> actual;
+        try (Stream<AppointmentExportRow> stream = appointmentRepository.streamExportRows(false,
+                firstAppointment.getStartTime(), secondAppointment.getStartTime())) {
+            actual = stream.map(AppointmentExportRow::getId).toList();
+        }
+
+        assertIterableEquals(List.of(firstAppointment.getId()), actual,
+            "Expected only the appointments that start in the range, excluding its end");
+    }
 
-        List<Appointment> actual = appointmentRepository
-            .findAppointmentsByCustomerIdAndIsCompletedFalseOrderByStartTime(customer.getId())
-            .orElse(new ArrayList<>());
+    @DisplayName("Stream Export Rows Of Appointments Changed After a Cursor")
+    @Test
+    void streamExportRowsOfAppointmentsChangedAfterACursor() {
+        LocalDateTime changedBefore = LocalDateTime.now().plusMinutes(1);
+
+        List<Appointment> changeOrder = appointmentRepository.findAll().stream()
+            .sorted(Comparator.comparing(Appointment::getLastModifiedAt).thenComparing(Appointment::getId))
+            .toList();
+        Appointment firstChanged = changeOrder.get(0);
+
+        List<ExportCursor> lastCursor = appointmentRepository.findLastChangedCursor(false, null, null,
+            firstChanged.getLastModifiedAt(), firstChanged.getId(), changedBefore, Limit.of(1));
+        List<UUID> changedAfterFirst;
+        try (Stream<AppointmentExportRow> stream = appointmentRepository.streamChangedExportRows(false, null, null,
+                firstChanged.getLastModifiedAt(), firstChanged.getId(), changedBefore)) {
+            changedAfterFirst = stream.map(AppointmentExportRow::getId).toList();
+        }
+
+        // a change moves the appointment to the end of the changes
+        firstChanged.setIsCompleted(true);
+        appointmentRepository.saveAndFlush(firstChanged);
+        Appointment last = changeOrder.get(changeOrder.size() - 1);
+        List<UUID> changedAfterLast;
+        try (Stream<AppointmentExportRow> stream = appointmentRepository.streamChangedExportRows(false, null, null,
+                last.getLastModifiedAt(), last.getId(), changedBefore)) {
+            changedAfterLast = stream.map(AppointmentExportRow::getId).toList();
+        }
 
         assertAll(
-            () -> assertEquals(expected.size(), actual.size(),
-                "Expected the same number of uncompleted appointments as in the expected list"),
-            () -> assertIterableEquals(expected, actual,
-                "Expected uncompleted appointments to be ordered by start time"),
-            () -> assertFalse(actual.contains(thirdAppointment),
-                "Expected completed thirdAppointment to not be included in the result")
+            () -> assertIterableEquals(List.of(changeOrder.get(1).getId(), changeOrder.get(2).getId()),
+                changedAfterFirst, "Expected only the appointments changed after the cursor"),
+            () -> assertEquals(List.of(new ExportCursor(last.getLastModifiedAt(), last.getId())), lastCursor,
+                "Expected the cursor of the last changed appointment"),
+            () -> assertIterableEquals(List.of(firstChanged.getId()), changedAfterLast,
+                "Expected the appointment changed after the last cursor"),
+            () -> assertTrue(appointmentRepository.findLastChangedCursor(false, null, null,
+                    null, null, LocalDateTime.now().minusDays(1), Limit.of(1)).isEmpty(),
+                "Expected no cursor when nothing changed before the given time")
+        );
+    }
+
+    @DisplayName("Find Dashboard Appointments by Username")
+    @Test
+    void findDashboardAppointmentsByUsername() {
+        thirdAppointment.setIsCompleted(true);
+        appointmentRepository.save(thirdAppointment);
+
+        List<DashboardAppointment> actual = appointmentRepository.findDashboardAppointmentsByUsername(
+            user.getUsername());
+
+        assertAll(
+            () -> assertIterableEquals(DashboardAppointment.fromAppointmentList(
+                    List.of(firstAppointment, secondAppointment)), actual,
+                "Expected the uncompleted appointments of the customer ordered by start time"),
+            () -> assertTrue(appointmentRepository.findDashboardAppointmentsByUsername("otherUser").isEmpty(),
+                "Expected no appointments of another user")
         );
+    }
 
+    @DisplayName("Delete An Appointment Only If It Belongs To The Username")
+    @Test
+    void deleteAnAppointmentOnlyIfItBelongsToTheUsername() {
+        User otherUser = userRepository.save(new User("otherUser", "password", "ROLE_CUSTOMER", true));
+        customerRepository.save(new Customer(otherUser, "Dana", "Levi",
+            "dana@someserver.com", "0542222222"));
+
+        boolean otherUserSeesInterval =
+            appointmentRepository.findIntervalByIdAndUsername(firstAppointment.getId(), "otherUser").isPresent();
+        AppointmentInterval interval = appointmentRepository.findIntervalByIdAndUsername(firstAppointment.getId(),
+            user.getUsername()).orElseThrow();
+        int deletedByOtherUser = appointmentRepository.deleteByIdAndUsername(firstAppointment.getId(), "otherUser");
+        int deletedByOwner = appointmentRepository.deleteByIdAndUsername(firstAppointment.getId(),
+            user.getUsername());
+
+        assertAll(
+            () -> assertFalse(otherUserSeesInterval, "Expected no time range for another user"),
+            () -> assertEquals(firstAppointment.getStartTime(), interval.getStartTime()),
+            () -> assertEquals(firstAppointment.getEndTime(), interval.getEndTime()),
+            () -> assertEquals(0, deletedByOtherUser, "Expected another user not to delete the appointment"),
+            () -> assertEquals(1, deletedByOwner, "Expected the owner of the appointment to delete it"),
+            () -> assertFalse(appointmentRepository.existsById(firstAppointment.getId())),
+            () -> assertEquals(2, appointmentRepository.count(), "Expected the other appointments to be kept")
+        );
     }
 
-    @DisplayName("Find Uncompleted Appointments That End Before a Specific Time")
+    @DisplayName("Claim A Reminder Once Without Changing The Version")
     @Test
-    void findUncompletedAppointmentsThatEndBeforeASpecificTime() {
-        // creates a time that is after the third appointment end time
-        LocalDateTime time = now;
+    void claimAReminderOnceWithoutChangingTheVersion() {
+        int claimed = appointmentRepository.claimReminder(firstAppointment.getId(),
+            firstAppointment.getStartTime(), 120);
+        int claimedAgain = appointmentRepository.claimReminder(firstAppointment.getId(),
+            firstAppointment.getStartTime(), 120);
+        int claimedAtAnotherTime = appointmentRepository.claimReminder(secondAppointment.getId(),
+            secondAppointment.getStartTime().plusHours(1), 120);
+
+        Appointment reminded = appointmentRepository.findById(firstAppointment.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals(1, claimed, "Expected the reminder to be claimed"),
+            () -> assertEquals(0, claimedAgain, "Expected the reminder not to be claimed twice"),
+            () -> assertEquals(0, claimedAtAnotherTime, "Expected a rescheduled appointment not to be claimed"),
+            () -> assertEquals(120, reminded.getRemindedMinutesBefore()),
+            () -> assertEquals(0, reminded.getVersion(),
+                "Expected the version to be kept, so an open edit of the appointment is not rejected")
+        );
 
-        List<Appointment> expected = new ArrayList<>(List.of(thirdAppointment));
+    }
 
-        List<Appointment> actual = appointmentRepository.findByEndTimeBeforeAndIsCompletedFalse(time);
+    @DisplayName("Mark Uncompleted Appointments That End Before a Specific Time As Completed In Chunks")
+    @Test
+    void markUncompletedAppointmentsThatEndBeforeASpecificTimeAsCompletedInChunks() {
+        // all the appointments end before this time
+        LocalDateTime time = now.plusDays(1);
+
+        // each chunk is stamped with the time it ran
+        LocalDateTime firstChunkTime = now.plusSeconds(1);
+        LocalDateTime secondChunkTime = now.plusSeconds(2);
+
+        List<UUID> firstChunk = appointmentRepository.findExpiredIdsAfter(time, null, Limit.of(2));
+        int firstChunkCount = appointmentRepository.markCompletedByEndTimeBefore(
+            time, null, firstChunk.get(firstChunk.size() - 1), firstChunkTime);
+        List<UUID> secondChunk = appointmentRepository.findExpiredIdsAfter(
+            time, firstChunk.get(firstChunk.size() - 1), Limit.of(2));
+        int secondChunkCount = appointmentRepository.markCompletedByEndTimeBefore(
+            time, firstChunk.get(firstChunk.size() - 1), secondChunk.get(secondChunk.size() - 1), secondChunkTime);
 
         assertAll(
-            () -> assertEquals(expected.size(), actual.size(),
-                "Expected the same number of appointments as in the expected list"),
-            () -> assertIterableEquals(expected, actual,
-                "Expected appointments to be the same as in the expected list"),
-            () -> assertFalse(actual.contains(firstAppointment) || actual.contains(secondAppointment),
-                "Expected firstAppointment and secondAppointment to not be included in the result")
+            () -> assertEquals(2, firstChunk.size(), "Expected the first chunk to be full"),
+            () -> assertEquals(1, secondChunk.size(), "Expected the second chunk to hold the rest"),
+            () -> assertEquals(2, firstChunkCount, "Expected the first chunk to be marked as completed"),
+            () -> assertEquals(1, secondChunkCount, "Expected the second chunk to be marked as completed"),
+            () -> assertTrue(appointmentRepository.findExpiredIdsAfter(time, null, Limit.of(10)).isEmpty(),
+                "Expected no uncompleted appointments to be left"),
+            () -> assertTrue(appointmentRepository.findAll().stream().allMatch(a -> a.getVersion() == 0),
+                "Expected the version to be kept, so an open edit of a marked appointment is not rejected"),
+            () -> assertTrue(firstChunk.stream().allMatch(id -> firstChunkTime.equals(
+                    appointmentRepository.findById(id).orElseThrow().getLastModifiedAt())),
+                "Expected the first chunk to be stamped with its own time"),
+            () -> assertEquals(secondChunkTime,
+                appointmentRepository.findById(secondChunk.get(0)).orElseThrow().getLastModifiedAt(),
+                "Expected the second chunk to be stamped with its own time")
         );
+
+    }
+
+    @DisplayName("Record The Tombstones Of A Service's Appointments And Find Them After A Cursor")
+    @Test
+    void recordTheTombstonesOfAServicesAppointmentsAndFindThemAfterACursor() {
+        LocalDateTime deletedAt = now.plusMinutes(1);
+
+        int recordedCount = deletedAppointmentRepository.recordDeletionByServiceId(service.getId(), deletedAt);
+        List<ExportCursor> all = deletedAppointmentRepository.findDeletedAfter(null, null, null, null,
+            deletedAt.plusSeconds(1), Limit.of(10));
+        List<ExportCursor> afterFirst = deletedAppointmentRepository.findDeletedAfter(null, null,
+            all.get(0).getLastModifiedAt(), all.get(0).getId(), deletedAt.plusSeconds(1), Limit.of(10));
+        List<ExportCursor> upcoming = deletedAppointmentRepository.findDeletedAfter(now, null, null, null,
+            deletedAt.plusSeconds(1), Limit.of(10));
+        List<ExportCursor> unsettled = deletedAppointmentRepository.findDeletedAfter(null, null, null, null,
+            deletedAt, Limit.of(10));
+
+        assertAll(
+            () -> assertEquals(3, recordedCount, "Expected a tombstone for every appointment of the service"),
+            () -> assertEquals(Set.of(firstAppointment.getId(), secondAppointment.getId(), thirdAppointment.getId()),
+                all.stream().map(ExportCursor::getId).collect(Collectors.toSet()),
+                "Expected the tombstones of all the appointments"),
+            () -> assertTrue(all.stream().allMatch(cursor -> deletedAt.equals(cursor.getLastModifiedAt())),
+                "Expected the tombstones to be stamped with their deletion time"),
+            () -> assertEquals(all.subList(1, 3), afterFirst, "Expected only the tombstones after the cursor"),
+            () -> assertEquals(2, upcoming.size(), "Expected only the tombstones of the appointments in the range"),
+            () -> assertTrue(unsettled.isEmpty(), "Expected no tombstone recorded from the given time on")
+        );
+    }
+
+    @DisplayName("Mark Completed Skips Appointments That End After a Specific Time")
+    @Test
+    void markCompletedSkipsAppointmentsThatEndAfterASpecificTime() {
+        LocalDateTime time = now;
+
+        List<UUID> chunk = appointmentRepository.findExpiredIdsAfter(time, null, Limit.of(10));
+        int count = appointmentRepository.markCompletedByEndTimeBefore(time, null, chunk.get(chunk.size() - 1), time);
+
+        assertAll(
+            () -> assertEquals(List.of(thirdAppointment.getId()), chunk,
+                "Expected only the third appointment to be expired"),
+            () -> assertEquals(1, count, "Expected only the third appointment to be marked as completed"),
+            () -> assertTrue(appointmentRepository.findById(thirdAppointment.getId()).orElseThrow().getIsCompleted(),
+                "Expected the third appointment to be completed"),
+            () -> assertFalse(appointmentRepository.findById(firstAppointment.getId()).orElseThrow().getIsCompleted(),
+                "Expected the first appointment to stay uncompleted")
+        );
+
     }
 
     @DisplayName("Find Appointments That Start Between Two Ranges of Time and Are Not Completed")
@@ -223,4 +514,23 @@ class AppointmentRepositoryTest {
             assertFalse(isOverlapping, "Expected no overlapping appointment to be found");
         }
     }
-}
\ No newline at end of file
+
+    @DisplayName("Find Overlapping Intervals Ordered by Start Time")
+    @Test
+    void findOverlappingIntervalsOrderedByStartTime() {
+        // creates a time range that touches the third appointment end and overlaps the first and second appointments
+        LocalDateTime start = thirdAppointment.getEndTime();
+        LocalDateTime end = secondAppointment.getStartTime().plusMinutes(1);
+
+        List<AppointmentInterval> actual = appointmentRepository.findOverlappingIntervals(start, end);
+
+        assertAll(
+            () -> assertEquals(List.of(firstAppointment.getStartTime(), secondAppointment.getStartTime()),
+                actual.stream().map(AppointmentInterval::getStartTime).toList(),
+                "Expected the overlapping intervals to be ordered by start time, without the third appointment " +
+                    "that ends at the range start"),
+            () -> assertEquals(List.of(firstAppointment.getEndTime(), secondAppointment.getEndTime()),
+                actual.stream().map(AppointmentInterval::getEndTime).toList())
+        );
+    }
+}
@@ -0,0 +1,133 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// This class tests that the expiry timer is armed for the earliest end time and fires when it passes.
+@SpringBootTest
+class AppointmentExpirySchedulerTest {
+
+    private final int TIMEOUT = 5000; // the max time to wait for the timer in milliseconds
+
+    @Autowired
+    private AppointmentExpiryScheduler appointmentExpiryScheduler;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @MockitoBean
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        clearInvocations(appointmentService); // the startup scan also completes the expired appointments
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+        appointmentExpiryScheduler.rescan(); // forgets the appointments tracked by the test
+    }
+
+    @DisplayName("Expired Appointments Are Completed When The Earliest One Ends")
+    @Test
+    void expiredAppointmentsAreCompletedWhenTheEarliestOneEnds() {
+        LocalDateTime endTime = LocalDateTime.now().plusSeconds(1);
+
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(UUID.randomUUID(), endTime.minusMinutes(30), endTime));
+
+        assertEquals(endTime, appointmentExpiryScheduler.getArmedFor(),
+            "The timer should be armed for the end time of the appointment");
+        verify(appointmentService, never()).markExpiredAppointmentsAsCompleted();
+
+        verify(appointmentService, timeout(TIMEOUT)).markExpiredAppointmentsAsCompleted();
+        assertNull(appointmentExpiryScheduler.getArmedFor(),
+            "The timer should not be armed once nothing is left to expire");
+    }
+
+    @DisplayName("Timer Is Re-Armed On Booking, Rescheduling And Cancelling")
+    @Test
+    void timerIsReArmedOnBookingReschedulingAndCancelling() {
+        UUID firstAppointmentId = UUID.randomUUID();
+        UUID secondAppointmentId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        // booking
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(firstAppointmentId, now.plusHours(2).minusMinutes(30), now.plusHours(2)));
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(secondAppointmentId, now.plusHours(3).minusMinutes(30), now.plusHours(3)));
+        LocalDateTime armedAfterBooking = appointmentExpiryScheduler.getArmedFor();
+
+        // rescheduling
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(secondAppointmentId, now.plusHours(1).minusMinutes(30), now.plusHours(1)));
+        LocalDateTime armedAfterRescheduling = appointmentExpiryScheduler.getArmedFor();
+
+        // cancelling
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(secondAppointmentId, null, null));
+        LocalDateTime armedAfterFirstCancel = appointmentExpiryScheduler.getArmedFor();
+        appointmentExpiryScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(firstAppointmentId, null, null));
+        LocalDateTime armedAfterSecondCancel = appointmentExpiryScheduler.getArmedFor();
+
+        assertAll(
+            () -> assertEquals(now.plusHours(2), armedAfterBooking,
+                "The timer should be armed for the earliest booked appointment"),
+            () -> assertEquals(now.plusHours(1), armedAfterRescheduling,
+                "The timer should be moved to an earlier rescheduled end time"),
+            () -> assertEquals(now.plusHours(2), armedAfterFirstCancel,
+                "The timer should be moved to the next appointment once the earliest one is cancelled"),
+            () -> assertNull(armedAfterSecondCancel,
+                "The timer should not be armed once every appointment is cancelled")
+        );
+        verify(appointmentService, never()).markExpiredAppointmentsAsCompleted();
+    }
+
+    @DisplayName("Scan Completes Expired Appointments And Tracks The Pending Ones")
+    @Test
+    void scanCompletesExpiredAppointmentsAndTracksThePendingOnes() {
+        Customer customer = customerRepository.save(new Customer(null, "Pending", "Customer",
+            "pending@someserver.com", "0548888888"));
+        Service service = serviceRepository.save(new Service("Pending Service", BigDecimal.valueOf(50),
+            30, null, true));
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withNano(0);
+        appointmentRepository.save(new Appointment(customer, service, startTime,
+            startTime.plusMinutes(service.getDuration()), false));
+
+        appointmentExpiryScheduler.rescan();
+
+        verify(appointmentService).markExpiredAppointmentsAsCompleted();
+        assertEquals(startTime.plusMinutes(service.getDuration()), appointmentExpiryScheduler.getArmedFor(),
+            "The timer should be armed for the pending appointment loaded from the database");
+    }
+}
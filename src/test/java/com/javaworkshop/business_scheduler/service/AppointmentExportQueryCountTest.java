@@ -0,0 +1,117 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class checks that the XML export runs the same number of statements
+// no matter how many appointments, customers and services it covers.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("disable-scheduling")
+class AppointmentExportQueryCountTest {
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Export Runs A Constant Number Of Statements")
+    @Test
+    void exportRunsAConstantNumberOfStatements() throws Exception {
+
+        saveAppointments(5);
+        long fewRowsStatements = countExportStatements(false);
+
+        saveAppointments(50);
+        long manyRowsStatements = countExportStatements(false);
+        long activeRowsStatements = countExportStatements(true);
+
+        assertAll(
+            () -> assertEquals(1, fewRowsStatements,
+                "Exporting a few appointments should run a single statement"),
+            () -> assertEquals(fewRowsStatements, manyRowsStatements,
+                "The statement count should not grow with the number of appointments"),
+            () -> assertEquals(1, activeRowsStatements,
+                "Exporting the active appointments should run a single statement")
+        );
+    }
+
+    // saves the given number of appointments, each with its own customer and service
+    private void saveAppointments(int count) {
+        long existing = appointmentRepository.count();
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long number = existing + i;
+            Customer customer = customerRepository.save(new Customer(null, "Customer", "No" + number,
+                "customer" + number + "@someserver.com", String.format("05%08d", number)));
+            Service service = serviceRepository.save(new Service("Service " + number, BigDecimal.valueOf(50),
+                30, null, true));
+            LocalDateTime start = LocalDateTime.now().plusDays(1).plusHours(number);
+            appointments.add(new Appointment(customer, service, start,
+                start.plusMinutes(service.getDuration()), number % 2 == 0));
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+
+    // exports the appointments and returns the number of statements the export prepared
+    private long countExportStatements(boolean activeAppointmentsOnly) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        statistics.clear();
+        appointmentService.exportAppointments(outputStream, appointmentService.findExportWriter("xml"),
+            AppointmentExportFilter.full(activeAppointmentsOnly, null, null));
+        long statements = statistics.getPrepareStatementCount();
+
+        long expectedRows = activeAppointmentsOnly
+            ? appointmentRepository.findAppointmentsByIsCompletedFalseOrderByStartTime().size()
+            : appointmentRepository.count();
+        assertEquals(expectedRows, outputStream.toString().split("<appointment>", -1).length - 1,
+            "Every appointment should be exported");
+        return statements;
+    }
+}
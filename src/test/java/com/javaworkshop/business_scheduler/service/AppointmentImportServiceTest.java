@@ -0,0 +1,288 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.dto.AppointmentImportResult;
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.event.AppointmentsImportedEvent;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+// This class tests the bulk import of appointments: the customer lookup, the overlap sweep,
+// the per-row errors, that the rows are inserted in batches and that the chunks commit on their own.
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "appointments.import.chunk-size=100"
+})
+@ActiveProfiles("disable-scheduling")
+@RecordApplicationEvents
+class AppointmentImportServiceTest {
+
+    private final String CSV_HEADER = "id,customer,service,start,end,email,phone\r\n";
+
+    @Autowired
+    private AppointmentImportService appointmentImportService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @MockitoSpyBean
+    private BookingService bookingService;
+
+    private Customer existingCustomer;
+
+    private LocalDateTime day; // a past day the imported appointments are on
+
+    @BeforeEach
+    void setUp() {
+        serviceRepository.save(new Service("Haircut", BigDecimal.valueOf(50), 30, null, true));
+        serviceRepository.save(new Service("Coloring, long", BigDecimal.valueOf(120), 90, null, true));
+        existingCustomer = customerRepository.save(new Customer(null, "Dana", "Levi",
+            "dana@someserver.com", "0541111111"));
+        day = LocalDateTime.now().minusMonths(6).withHour(9).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Import Creates And Matches Customers")
+    @Test
+    void importCreatesAndMatchesCustomers() throws IOException {
+        String csv = CSV_HEADER +
+            row("Dana Levi", "Haircut", day, 30, "", "") + // matched by name
+            row("Dana Levi", "Haircut", day.plusHours(1), 30, "dana@someserver.com", "") + // matched by email
+            row("Noa Cohen", "\"Coloring, long\"", day.plusHours(2), 90, "noa@someserver.com", "0542222222") +
+            row("Noa Cohen", "Haircut", day.plusHours(4), 30, "noa@someserver.com", "0542222222") + // same new customer
+            row("Tom Bar", "Haircut", day.plusDays(1), 30, "tom@someserver.com", "0543333333");
+
+        AppointmentImportResult result = importCsv(csv);
+
+        Map<String, Long> appointmentsByEmail = appointmentRepository.findAll().stream()
+            .collect(Collectors.groupingBy(appointment ->
+                customerRepository.findById(appointment.getCustomer().getId()).orElseThrow().getEmail(),
+                Collectors.counting()));
+        assertAll(
+            () -> assertEquals(5, result.getRowCount()),
+            () -> assertEquals(5, result.getImportedCount()),
+            () -> assertEquals(2, result.getCreatedCustomerCount(), "Each new customer should be created once"),
+            () -> assertEquals(0, result.getErrorCount(), "No row should be rejected: " + result.getErrors()),
+            () -> assertEquals(Map.of("dana@someserver.com", 2L, "noa@someserver.com", 2L, "tom@someserver.com", 1L),
+                appointmentsByEmail),
+            () -> assertEquals(3, customerRepository.count()),
+            () -> assertTrue(appointmentRepository.findAll().stream().allMatch(Appointment::getIsCompleted),
+                "Past appointments should be imported as completed")
+        );
+    }
+
+    @DisplayName("Import Reports The Rejected Rows")
+    @Test
+    void importReportsTheRejectedRows() throws IOException {
+        Service haircut = serviceRepository.findAll().stream()
+            .filter(service -> service.getServiceName().equals("Haircut")).findFirst().orElseThrow();
+        appointmentRepository.save(new Appointment(existingCustomer, haircut, day.plusDays(2),
+            day.plusDays(2).plusMinutes(30), true));
+        customerRepository.save(new Customer(null, "Avi", "Katz", "avi1@someserver.com", "0544444444"));
+        customerRepository.save(new Customer(null, "Avi", "Katz", "avi2@someserver.com", "0545555555"));
+
+        String csv = CSV_HEADER +
+            row("Dana Levi", "Haircut", day, 60, "", "") + // row 1, accepted
+            row("Dana Levi", "Haircut", day.plusMinutes(30), 30, "", "") + // row 2, overlaps row 1
+            row("Dana Levi", "Haircut", day.plusDays(2).plusMinutes(15), 30, "", "") + // row 3, overlaps an existing one
+            row("Dana Levi", "Massage", day.plusDays(3), 30, "", "") + // row 4, unknown service
+            "x,Dana Levi,Haircut,yesterday,today,,\r\n" + // row 5, invalid times
+            row("Dana Levi", "Haircut", day.plusDays(4), 0, "", "") + // row 6, empty range
+            row("Noa Cohen", "Haircut", day.plusDays(5), 30, "", "") + // row 7, unknown customer without email
+            row("Noa Cohen", "Haircut", day.plusDays(5), 30, "noa@someserver.com", "") + // row 8, no phone to create
+            row("Noa Cohen", "Haircut", day.plusDays(5), 30, "noa@someserver.com", "0541111111") + // row 9, taken phone
+            row("Avi Katz", "Haircut", day.plusDays(6), 30, "", "") + // row 10, ambiguous name
+            row("Dana Levi", "Haircut", day.plusDays(7), 30, "dana@someserver.com", "0549999999") + // row 11, other phone
+            row("Noa Cohen", "Haircut", day.minusMinutes(30), 30, "noa@someserver.com", "0542222222"); // row 12, accepted
+
+        AppointmentImportResult result = importCsv(csv);
+
+        Map<Integer, String> errors = result.getErrors().stream()
+            .collect(Collectors.toMap(AppointmentImportResult.RowError::getRow, AppointmentImportResult.RowError::getMessage));
+        assertAll(
+            () -> assertEquals(12, result.getRowCount()),
+            () -> assertEquals(2, result.getImportedCount()),
+            () -> assertEquals(1, result.getCreatedCustomerCount()),
+            () -> assertEquals(10, result.getErrorCount()),
+            () -> assertEquals(List.of(2, 3, 4, 5, 6, 7, 8, 9, 10, 11),
+                result.getErrors().stream().map(AppointmentImportResult.RowError::getRow).toList(),
+                "The errors should be ordered by row"),
+            () -> assertEquals("Overlaps the appointment on row 1", errors.get(2)),
+            () -> assertEquals("Overlaps an existing appointment", errors.get(3)),
+            () -> assertEquals("Unknown service: Massage", errors.get(4)),
+            () -> assertEquals("The start and end must be ISO date-times", errors.get(5)),
+            () -> assertEquals("The end must be after the start", errors.get(6)),
+            () -> assertTrue(errors.get(7).contains("does not exist")),
+            () -> assertTrue(errors.get(8).startsWith("A phone is required")),
+            () -> assertTrue(errors.get(9).contains("belongs to another customer")),
+            () -> assertTrue(errors.get(10).startsWith("More than one customer")),
+            () -> assertTrue(errors.get(11).contains("belongs to a customer with another phone")),
+            () -> assertEquals(3, appointmentRepository.count())
+        );
+    }
+
+    @DisplayName("Exported Appointments Can Be Imported Again")
+    @Test
+    void exportedAppointmentsCanBeImportedAgain() throws IOException {
+        importCsv(CSV_HEADER +
+            row("Dana Levi", "Haircut", day, 30, "", "") +
+            row("Dana Levi", "\"Coloring, long\"", day.plusHours(1), 90, "", "") +
+            row("Dana Levi", "Haircut", day.plusDays(1), 30, "", ""));
+
+        for (String format : List.of("xml", "csv", "ndjson")) {
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            appointmentService.exportAppointments(exported, appointmentService.findExportWriter(format),
+                AppointmentExportFilter.full(false, null, null));
+            appointmentRepository.deleteAll();
+
+            AppointmentImportResult result = appointmentImportService.importAppointments(
+                new ByteArrayInputStream(exported.toByteArray()), appointmentImportService.findImportReader(format));
+
+            assertEquals(3, result.getImportedCount(), "Every exported " + format + " row should be imported");
+            assertEquals(0, result.getErrorCount(), format + " errors: " + result.getErrors());
+        }
+    }
+
+    @DisplayName("Import Inserts The Rows In Batches")
+    @Test
+    void importInsertsTheRowsInBatches() throws IOException {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < 200; i++) {
+            int customer = i % 20;
+            csv.append(row("Customer No" + customer, "Haircut", day.plusHours(i), 30,
+                "customer" + customer + "@someserver.com", String.format("05%08d", customer)));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        AppointmentImportResult result = importCsv(csv.toString());
+
+        long statements = statistics.getPrepareStatementCount();
+        assertAll(
+            () -> assertEquals(200, result.getImportedCount()),
+            () -> assertEquals(2, result.getChunkCount()),
+            () -> assertEquals(20, result.getCreatedCustomerCount()),
+            () -> assertEquals(220, statistics.getEntityInsertCount()),
+            () -> assertTrue(statements < 20,
+                "The lookups and inserts should be batched, but " + statements + " statements were prepared")
+        );
+    }
+
+    @DisplayName("Import Announces The Upcoming Appointments Once")
+    @Test
+    void importAnnouncesTheUpcomingAppointmentsOnce() throws IOException {
+        LocalDateTime tomorrow = day.plusMonths(6).plusDays(1);
+        String csv = CSV_HEADER +
+            row("Dana Levi", "Haircut", day, 30, "", "") + // a past one, not announced
+            row("Dana Levi", "Haircut", tomorrow, 30, "", "") +
+            row("Dana Levi", "Haircut", tomorrow.plusHours(1), 30, "", "") +
+            row("Dana Levi", "\"Coloring, long\"", tomorrow.plusDays(1), 90, "", "");
+
+        AppointmentImportResult result = importCsv(csv);
+
+        List<AppointmentsImportedEvent> imported = applicationEvents.stream(AppointmentsImportedEvent.class).toList();
+        assertAll(
+            () -> assertEquals(4, result.getImportedCount(), "No row should be rejected: " + result.getErrors()),
+            () -> assertEquals(1, imported.size(), "The import should be announced once"),
+            () -> assertEquals(3, imported.get(0).getAppointmentCount()),
+            () -> assertEquals(tomorrow, imported.get(0).getStartTime()),
+            () -> assertEquals(tomorrow.plusDays(1).plusMinutes(90), imported.get(0).getEndTime()),
+            () -> assertEquals(0, applicationEvents.stream(AppointmentTimeChangedEvent.class).count(),
+                "No event should be published per imported appointment")
+        );
+    }
+
+    @DisplayName("A Failed Chunk Does Not Undo The Others")
+    @Test
+    void aFailedChunkDoesNotUndoTheOthers() throws IOException {
+        LocalDateTime tomorrow = day.plusMonths(6).plusDays(1);
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < 150; i++) {
+            csv.append(row("Noa Cohen", "Haircut", tomorrow.plusHours(i), 30,
+                "noa@someserver.com", "0542222222")); // created by the first chunk, which fails
+        }
+        doThrow(new RuntimeException("error.appointment.concurrent.update"))
+            .doCallRealMethod()
+            .when(bookingService).executeOnLockedDays(any(), any());
+
+        AppointmentImportResult result = importCsv(csv.toString());
+
+        List<Appointment> imported = appointmentRepository.findAll();
+        assertAll(
+            () -> assertEquals(2, result.getChunkCount()),
+            () -> assertEquals(1, result.getFailedChunkCount()),
+            () -> assertEquals(50, result.getImportedCount(), "The rows of the second chunk should be kept"),
+            () -> assertEquals(100, result.getErrorCount(), "Every row of the failed chunk should be reported"),
+            () -> assertTrue(result.getErrors().get(0).getMessage().endsWith("error.appointment.concurrent.update")),
+            () -> assertEquals(1, result.getCreatedCustomerCount(),
+                "The customer rolled back with the first chunk should be created by the second one"),
+            () -> assertEquals(50, imported.size()),
+            () -> assertTrue(imported.stream().allMatch(appointment ->
+                !appointment.getStartTime().isBefore(tomorrow.plusHours(100)))),
+            () -> assertEquals(2, customerRepository.count())
+        );
+    }
+
+    private AppointmentImportResult importCsv(String csv) throws IOException {
+        return appointmentImportService.importAppointments(
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+            appointmentImportService.findImportReader("csv"));
+    }
+
+    private String row(String customer, String service, LocalDateTime start, int minutes, String email, String phone) {
+        return "," + customer + "," + service + "," + start + "," + start.plusMinutes(minutes) + "," +
+            email + "," + phone + "\r\n";
+    }
+}
@@ -1,21 +1,32 @@
 package com.javaworkshop.business_scheduler.service;
 
+import com.javaworkshop.business_scheduler.dto.AppointmentCursor;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import com.javaworkshop.business_scheduler.dto.AppointmentInterval;
+import com.javaworkshop.business_scheduler.dto.AppointmentPage;
+import com.javaworkshop.business_scheduler.dto.AppointmentSearchFilter;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
 import com.javaworkshop.business_scheduler.model.Appointment;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.DeletedAppointment;
 import com.javaworkshop.business_scheduler.model.Service;
 import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
-import com.javaworkshop.business_scheduler.util.EmailUtil;
+import com.javaworkshop.business_scheduler.repository.DeletedAppointmentRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -32,21 +43,26 @@ import static org.mockito.Mockito.*;
 @ActiveProfiles("disable-scheduling")
 class AppointmentServiceTest {
 
-    private final int TIMEOUT = 3000;
-
     @MockitoBean
     private AppointmentRepository appointmentRepository;
 
     @MockitoBean
-    private EmailUtil emailUtil;
+    private DeletedAppointmentRepository deletedAppointmentRepository;
+
+    @MockitoBean
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
     private AppointmentService appointmentService;
 
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
     private Appointment firstAppointment, secondAppointment, thirdAppointment;
 
     @BeforeEach
     void setUp() {
+        availabilityCache.clear();
         Service service = new Service(UUID.randomUUID(), "Service",
             BigDecimal.valueOf(50), 45,
             null, true
@@ -75,18 +91,48 @@ class AppointmentServiceTest {
         );
     }
 
-    @DisplayName("Find All Appointments")
+    @DisplayName("Find Appointment Page Starts Today")
     @Test
-    void findAllAppointments() {
-        List<Appointment> expected =
-            List.of(firstAppointment, secondAppointment, thirdAppointment);
+    void findAppointmentPageStartsToday() {
+        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+        when(appointmentRepository.findPageAfter(eq(false), isNull(), isNull(), isNull(), isNull(), eq(startOfToday), isNull(),
+            any(Limit.class)))
+            .thenReturn(DashboardAppointment.fromAppointmentList(List.of(secondAppointment, thirdAppointment)));
+        when(appointmentRepository.findPageBefore(eq(false), isNull(), isNull(), isNull(), isNull(), eq(startOfToday), isNull(),
+            any(Limit.class)))
+            .thenReturn(DashboardAppointment.fromAppointmentList(List.of(firstAppointment)));
 
-        when(appointmentRepository.findByOrderByStartTime()).thenReturn(expected);
+        AppointmentPage page = appointmentService.findAppointmentPage(AppointmentSearchFilter.activeOnly(), null, null);
 
-        assertIterableEquals(expected, appointmentService.findAll(),
-            "The list of appointments should match the expected appointments");
+        assertAll(
+            () -> assertEquals(DashboardAppointment.fromAppointmentList(List.of(secondAppointment, thirdAppointment)),
+                page.getAppointments()),
+            () -> assertEquals(new AppointmentCursor(secondAppointment.getStartTime(), secondAppointment.getId()),
+                page.getPreviousCursor(), "The earlier appointments should be on the previous page"),
+            () -> assertNull(page.getNextCursor(), "There should be no next page")
+        );
+    }
+
+    @DisplayName("Find Appointment Page Shows The Last Page When Nothing Is Upcoming")
+    @Test
+    void findAppointmentPageShowsTheLastPageWhenNothingIsUpcoming() {
+        when(appointmentRepository.findPageAfter(any(), any(), any(), any(), any(), any(), any(), any(Limit.class)))
+            .thenReturn(List.of());
+        when(appointmentRepository.findPageBefore(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+            any(Limit.class)))
+            .thenReturn(DashboardAppointment.fromAppointmentList(
+                List.of(thirdAppointment, secondAppointment, firstAppointment)));
 
-        verify(appointmentRepository).findByOrderByStartTime();
+        AppointmentPage page = appointmentService.findAppointmentPage(
+            AppointmentSearchFilter.of("all", null, null, null, null), null, null);
+
+        assertAll(
+            () -> assertEquals(DashboardAppointment.fromAppointmentList(
+                List.of(firstAppointment, secondAppointment, thirdAppointment)), page.getAppointments(),
+                "The last page should be in start time order"),
+            () -> assertNull(page.getPreviousCursor()),
+            () -> assertNull(page.getNextCursor())
+        );
     }
 
     @DisplayName("Find Appointment By ID")
@@ -126,27 +172,76 @@ class AppointmentServiceTest {
         appointmentService.deleteById(appointmentIdToDelete);
 
         verify(appointmentRepository).deleteById(appointmentIdToDelete);
+        verify(deletedAppointmentRepository, never()).save(any(DeletedAppointment.class));
     }
 
-    @DisplayName("Find Active Appointments By Customer ID")
+    @DisplayName("Delete Appointment By ID - Leaves A Tombstone For The Incremental Export")
     @Test
-    void findActiveAppointmentsByCustomerId() {
-        List<Appointment> expected =
-            List.of(secondAppointment, thirdAppointment);
+    void deleteAppointmentByIdLeavesATombstoneForTheIncrementalExport() {
+        when(appointmentRepository.findById(firstAppointment.getId())).thenReturn(Optional.of(firstAppointment));
 
-        when(appointmentRepository
-            .findAppointmentsByCustomerIdAndIsCompletedFalseOrderByStartTime(
-                secondAppointment.getCustomer().getId())
-        ).thenReturn(Optional.of(expected));
+        appointmentService.deleteById(firstAppointment.getId());
 
-        assertEquals(expected, appointmentService.findActiveAppointmentsByCustomerId(
-            secondAppointment.getCustomer().getId()
-        ), "The list of active appointments should match the expected appointments");
+        verify(appointmentRepository).deleteById(firstAppointment.getId());
+        verify(deletedAppointmentRepository).save(argThat(tombstone ->
+            tombstone.getId().equals(firstAppointment.getId()) &&
+            tombstone.getStartTime().equals(firstAppointment.getStartTime()) &&
+            tombstone.getDeletedAt() != null));
+    }
 
-        verify(appointmentRepository)
-            .findAppointmentsByCustomerIdAndIsCompletedFalseOrderByStartTime(
-                secondAppointment.getCustomer().getId()
-            );
+    @DisplayName("Get Available Slots - Cached Until An Affected Date Is Invalidated")
+    @Test
+    void getAvailableSlotsCachedUntilAnAffectedDateIsInvalidated() {
+        Service selectedService = firstAppointment.getService();
+        LocalDate selectedDate = LocalDate.now().plusDays(1);
+        LocalDate otherDate = LocalDate.now().plusDays(3);
+        List<BusinessHour> selectedBusinessHours = List.of(new BusinessHour(UUID.randomUUID(),
+            (byte) (selectedDate.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(10, 30), true
+        ));
+        List<BusinessHour> otherBusinessHours = List.of(new BusinessHour(UUID.randomUUID(),
+            (byte) (otherDate.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(10, 30), true
+        ));
+
+        when(appointmentRepository.findOverlappingIntervals(
+            any(LocalDateTime.class), any(LocalDateTime.class))
+        ).thenReturn(List.of());
+
+        List<LocalTime> expectedAvailableSlots = List.of(LocalTime.of(9, 0), LocalTime.of(9, 45));
+        Map<String, Object> initialStats = availabilityCache.getStats();
+
+        // the second call for each date is served by the cache
+        for (int i = 0; i < 2; i++) {
+            assertIterableEquals(expectedAvailableSlots, appointmentService.getAvailableSlots(
+                selectedService, selectedDate, selectedBusinessHours
+            ), "The available slots should match the expected slots");
+            appointmentService.getAvailableSlots(selectedService, otherDate, otherBusinessHours);
+        }
+        verify(appointmentRepository, times(2)).findOverlappingIntervals(
+            any(LocalDateTime.class), any(LocalDateTime.class));
+
+        // deleting an appointment of the selected date invalidates only that date
+        secondAppointment.setStartTime(LocalDateTime.of(selectedDate, LocalTime.of(9, 0)));
+        secondAppointment.setEndTime(LocalDateTime.of(selectedDate, LocalTime.of(9, 45)));
+        when(appointmentRepository.findById(secondAppointment.getId()))
+            .thenReturn(Optional.of(secondAppointment));
+        appointmentService.deleteById(secondAppointment.getId());
+
+        appointmentService.getAvailableSlots(selectedService, selectedDate, selectedBusinessHours);
+        appointmentService.getAvailableSlots(selectedService, otherDate, otherBusinessHours);
+
+        verify(appointmentRepository, times(3)).findOverlappingIntervals(
+            any(LocalDateTime.class), any(LocalDateTime.class));
+
+        Map<String, Object> stats = availabilityCache.getStats();
+        assertAll(
+            () -> assertEquals(3L, (long) stats.get("hits") - (long) initialStats.get("hits"),
+                "The cache should count its hits"),
+            () -> assertEquals(3L, (long) stats.get("misses") - (long) initialStats.get("misses"),
+                "The cache should count its misses"),
+            () -> assertEquals(2, stats.get("size"), "Both dates should be cached")
+        );
     }
 
     @DisplayName("Is Slot Available")
@@ -222,22 +317,18 @@ class AppointmentServiceTest {
             LocalTime.of(13, 30), LocalTime.of(14, 15)
         );
 
-        expectedAvailableSlots.forEach(time -> {
-            LocalDateTime start = LocalDateTime.of(selectedDate, time);
-            LocalDateTime end = start.plusMinutes(selectedService.getDuration());
-            when(appointmentRepository.isOverlapping(start, end))
-                .thenReturn(false);
-        });
+        LocalDateTime rangeStart = LocalDateTime.of(selectedDate, LocalTime.of(9, 0));
+        LocalDateTime rangeEnd = LocalDateTime.of(selectedDate, LocalTime.of(15, 0));
+
+        when(appointmentRepository.findOverlappingIntervals(rangeStart, rangeEnd))
+            .thenReturn(List.of());
 
         assertIterableEquals(expectedAvailableSlots, appointmentService.getAvailableSlots(
             selectedService, selectedDate, selectedBusinessHours
         ), "The available slots should match the expected slots");
 
-        expectedAvailableSlots.forEach(time -> {
-            LocalDateTime start = LocalDateTime.of(selectedDate, time);
-            LocalDateTime end = start.plusMinutes(selectedService.getDuration());
-            verify(appointmentRepository).isOverlapping(start, end);
-        });
+        verify(appointmentRepository).findOverlappingIntervals(rangeStart, rangeEnd);
+        verify(appointmentRepository, never()).isOverlapping(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @DisplayName("Get Available Slots - Valid Case When Some Slots Are Unavailable")
@@ -258,21 +349,17 @@ class AppointmentServiceTest {
             businessHour.setDayOfWeek((byte) selectedDate.getDayOfWeek().getValue())
         );
 
-        Map<LocalTime, Boolean> slotsAvailability = Map.of(
-            LocalTime.of(9, 0), false,
-            LocalTime.of(9, 45), false,
-            LocalTime.of(10, 30), true,
-            LocalTime.of(11, 15), true,
-            LocalTime.of(13, 30), true,
-            LocalTime.of(14, 15), true
+        // an appointment from 9:00 to 10:30 takes the 9:00 and 9:45 slots
+        AppointmentInterval existingAppointment = intervalOf(
+            LocalDateTime.of(selectedDate, LocalTime.of(9, 0)),
+            LocalDateTime.of(selectedDate, LocalTime.of(10, 30))
         );
 
-        slotsAvailability.forEach((time, isAvailable) -> {
-            LocalDateTime start = LocalDateTime.of(selectedDate, time);
-            LocalDateTime end = start.plusMinutes(selectedService.getDuration());
-            when(appointmentRepository.isOverlapping(start, end))
-                .thenReturn(!isAvailable);
-        });
+        LocalDateTime rangeStart = LocalDateTime.of(selectedDate, LocalTime.of(9, 0));
+        LocalDateTime rangeEnd = LocalDateTime.of(selectedDate, LocalTime.of(15, 0));
+
+        when(appointmentRepository.findOverlappingIntervals(rangeStart, rangeEnd))
+            .thenReturn(List.of(existingAppointment));
 
         List<LocalTime> expectedAvailableSlots = List.of(
             LocalTime.of(10, 30), LocalTime.of(11, 15),
@@ -283,30 +370,59 @@ class AppointmentServiceTest {
             selectedService, selectedDate, selectedBusinessHours
         ), "The available slots should match the expected slots");
 
-        slotsAvailability.forEach((time, ignored) -> {
-            LocalDateTime start = LocalDateTime.of(selectedDate, time);
-            LocalDateTime end = start.plusMinutes(selectedService.getDuration());
-            verify(appointmentRepository).isOverlapping(start, end);
-        });
+        verify(appointmentRepository).findOverlappingIntervals(rangeStart, rangeEnd);
+        verify(appointmentRepository, never()).isOverlapping(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
-    @DisplayName("Find All Not Marked As Completed Expired Appointments")
+    @DisplayName("Get Available Slots In Booking Window")
     @Test
-    void findAllNotMarkedAsCompletedExpiredAppointments() {
+    void getAvailableSlotsInBookingWindow() {
+        LocalDate today = LocalDate.now();
+        LocalDate lastDate = today.plusMonths(1);
+        LocalDate tomorrow = today.plusDays(1);
+        Service selectedService = firstAppointment.getService();
 
-        List<Appointment> expected = List.of(firstAppointment);
+        // opens only tomorrow's and the last date's days of the week (late hours so today is never a candidate)
+        BusinessHour tomorrowBusinessHour = new BusinessHour(UUID.randomUUID(),
+            (byte) (tomorrow.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(10, 30), true
+        );
+        BusinessHour closedBusinessHour = new BusinessHour(UUID.randomUUID(),
+            (byte) (lastDate.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(10, 30), false
+        );
 
-        when(appointmentRepository.findByEndTimeBeforeAndIsCompletedFalse(
-            any(LocalDateTime.class))
-        ).thenReturn(expected);
+        // an appointment tomorrow from 9:00 to 9:45 takes the first slot
+        AppointmentInterval existingAppointment = intervalOf(
+            LocalDateTime.of(tomorrow, LocalTime.of(9, 0)),
+            LocalDateTime.of(tomorrow, LocalTime.of(9, 45))
+        );
+
+        when(appointmentRepository.findOverlappingIntervals(
+            any(LocalDateTime.class), any(LocalDateTime.class))
+        ).thenReturn(List.of(existingAppointment));
 
-        assertIterableEquals(expected,
-            appointmentService.findAllNotMarkedAsCompletedExpiredAppointments(),
-            "The list of expired appointments should match the expected appointments"
+        Map<LocalDate, List<LocalTime>> actual = appointmentService.getAvailableSlotsInBookingWindow(
+            selectedService, List.of(tomorrowBusinessHour, closedBusinessHour)
         );
 
-        verify(appointmentRepository)
-            .findByEndTimeBeforeAndIsCompletedFalse(any(LocalDateTime.class));
+        assertAll(
+            () -> assertEquals(today, actual.keySet().iterator().next(),
+                "The booking window should start today"),
+            () -> assertTrue(actual.containsKey(lastDate),
+                "The booking window should end a month from today"),
+            () -> assertFalse(actual.containsKey(lastDate.plusDays(1)),
+                "The booking window should not exceed a month from today"),
+            () -> assertEquals(List.of(LocalTime.of(9, 45)), actual.get(tomorrow),
+                "Only the free slot of tomorrow should be available"),
+            () -> assertEquals(List.of(), actual.get(tomorrow.plusDays(1)),
+                "A day without business hours should have no available slots")
+        );
+
+        // a single range query covers the whole booking window
+        verify(appointmentRepository).findOverlappingIntervals(
+            any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(appointmentRepository, never()).isOverlapping(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @DisplayName("Export Appointments To XML - Active Only")
@@ -315,12 +431,13 @@ class AppointmentServiceTest {
         List<Appointment> activeAppointments =
             List.of(secondAppointment, thirdAppointment);
 
-        when(appointmentRepository.findAppointmentsByIsCompletedFalseOrderByStartTime())
-            .thenReturn(activeAppointments);
+        when(appointmentRepository.streamExportRows(true, null, null))
+            .thenReturn(activeAppointments.stream().map(this::toExportRow));
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         try {
-            appointmentService.exportAppointmentsToXML(outputStream, true);
+            appointmentService.exportAppointments(outputStream, appointmentService.findExportWriter("xml"),
+                AppointmentExportFilter.full(true, null, null));
         } catch (Exception e) {
             fail("Exporting appointments to XML should not throw an exception: " + e.getMessage());
         }
@@ -361,12 +478,13 @@ class AppointmentServiceTest {
         List<Appointment> allAppointments =
             List.of(firstAppointment, secondAppointment, thirdAppointment);
 
-        when(appointmentRepository.findByOrderByStartTime())
-            .thenReturn(allAppointments);
+        when(appointmentRepository.streamExportRows(false, null, null))
+            .thenReturn(allAppointments.stream().map(this::toExportRow));
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         try {
-            appointmentService.exportAppointmentsToXML(outputStream, false);
+            appointmentService.exportAppointments(outputStream, appointmentService.findExportWriter("xml"),
+                AppointmentExportFilter.full(false, null, null));
         } catch (Exception e) {
             fail("Exporting appointments to XML should not throw an exception: " + e.getMessage());
         }
@@ -398,9 +516,71 @@ class AppointmentServiceTest {
         });
     }
 
-    @DisplayName("Send Appointment Confirmation Email")
+    @DisplayName("Export Appointments To CSV")
     @Test
-    void sendAppointmentConfirmationEmail() {
+    void exportAppointmentsToCSV() throws Exception {
+        secondAppointment.getCustomer().setLastName("Cohen, \"Jr\"");
+        List<Appointment> activeAppointments =
+            List.of(secondAppointment, thirdAppointment);
+
+        when(appointmentRepository.streamExportRows(true, null, null))
+            .thenReturn(activeAppointments.stream().map(this::toExportRow));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        appointmentService.exportAppointments(outputStream, appointmentService.findExportWriter("csv"),
+                AppointmentExportFilter.full(true, null, null));
+
+        List<String> lines = List.of(outputStream.toString(StandardCharsets.UTF_8).split("\r\n"));
+        String quotedCustomerName = "\"Customer Cohen, \"\"Jr\"\"\""; // both appointments share the customer
+
+        assertEquals(List.of(
+            "id,customer,service,start,end",
+            secondAppointment.getId() + "," + quotedCustomerName + ",Service,"
+                + secondAppointment.getStartTime() + "," + secondAppointment.getEndTime(),
+            thirdAppointment.getId() + "," + quotedCustomerName + ",Service,"
+                + thirdAppointment.getStartTime() + "," + thirdAppointment.getEndTime()
+        ), lines, "CSV output should have a header and one line per appointment with quoted fields");
+    }
+
+    @DisplayName("Export Appointments To NDJSON")
+    @Test
+    void exportAppointmentsToNDJSON() throws Exception {
+        List<Appointment> allAppointments =
+            List.of(firstAppointment, secondAppointment, thirdAppointment);
+
+        when(appointmentRepository.streamExportRows(false, null, null))
+            .thenReturn(allAppointments.stream().map(this::toExportRow));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        appointmentService.exportAppointments(outputStream, appointmentService.findExportWriter("NDJSON"),
+                AppointmentExportFilter.full(false, null, null));
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(allAppointments.size(), lines.length, "NDJSON output should have one line per appointment");
+        for (int i = 0; i < lines.length; i++) {
+            Appointment appointment = allAppointments.get(i);
+            assertEquals("{\"id\":\"" + appointment.getId() + "\",\"customer\":\"Customer Customer\","
+                    + "\"service\":\"Service\",\"start\":\"" + appointment.getStartTime()
+                    + "\",\"end\":\"" + appointment.getEndTime() + "\"}",
+                lines[i], "Each line should hold one appointment as a JSON object");
+        }
+    }
+
+    @DisplayName("No Export Writer For An Unsupported Format")
+    @Test
+    void noExportWriterForAnUnsupportedFormat() {
+        assertAll(
+            () -> assertNull(appointmentService.findExportWriter("pdf"),
+                "An unsupported format should have no export writer"),
+            () -> assertNull(appointmentService.findExportWriter(null),
+                "A missing format should have no export writer")
+        );
+    }
+
+    @DisplayName("Queue Appointment Confirmation Email")
+    @Test
+    void queueAppointmentConfirmationEmail() {
         firstAppointment.setIsCompleted(false);
         List<Appointment> appointments =
             List.of(firstAppointment, secondAppointment, thirdAppointment);
@@ -415,67 +595,56 @@ class AppointmentServiceTest {
                 "Time: " + appointment.getStartTime().toLocalTime() + "\n" +
                 "Service: " + appointment.getService().getServiceName() + "\n\n" +
                 "Thank you for choosing our business!";
-            appointmentService.sendAppointmentConfirmationEmail(appointment, false);
-            try {
-                verify(emailUtil, timeout(TIMEOUT)).sendMail(toEmail, subject, body);
-            } catch (Exception ignored) {
-            } // ignored because EmailUtil is mocked
+            appointmentService.queueAppointmentConfirmationEmail(appointment, false);
+            verify(emailOutboxService).queue(toEmail, subject, body);
         });
     }
 
     @DisplayName("Mark Expired Appointments As Completed")
     @Test
     void markExpiredAppointmentsAsCompleted() {
-        List<Appointment> expected = List.of(secondAppointment, thirdAppointment);
+        List<UUID> expiredIds = List.of(secondAppointment.getId(), thirdAppointment.getId());
 
-        when(appointmentRepository.findByEndTimeBeforeAndIsCompletedFalse(
-            any(LocalDateTime.class))
-        ).thenReturn(expected);
+        when(appointmentRepository.findExpiredIdsAfter(
+            any(LocalDateTime.class), isNull(), any(Limit.class))
+        ).thenReturn(expiredIds);
+        when(appointmentRepository.markCompletedByEndTimeBefore(
+            any(LocalDateTime.class), isNull(), eq(thirdAppointment.getId()), any(LocalDateTime.class))
+        ).thenReturn(expiredIds.size());
 
-        when(appointmentRepository.saveAll(expected)).thenReturn(expected);
+        int completedCount = appointmentService.markExpiredAppointmentsAsCompleted();
 
-        appointmentService.markExpiredAppointmentsAsCompleted();
-
-        assertAll(
-            () -> assertTrue(secondAppointment.getIsCompleted(),
-                "Second appointment should be marked as completed"),
-            () -> assertTrue(thirdAppointment.getIsCompleted(),
-                "Third appointment should be marked as completed")
-        );
+        assertEquals(expiredIds.size(), completedCount,
+            "The number of appointments marked as completed should be returned");
 
+        // the ids fit in a single chunk, so a single update is enough
+        verify(appointmentRepository)
+            .findExpiredIdsAfter(any(LocalDateTime.class), isNull(), any(Limit.class));
         verify(appointmentRepository)
-            .findByEndTimeBeforeAndIsCompletedFalse(any(LocalDateTime.class));
-        verify(appointmentRepository).saveAll(expected);
+            .markCompletedByEndTimeBefore(any(LocalDateTime.class), isNull(), eq(thirdAppointment.getId()),
+                any(LocalDateTime.class));
+        verify(appointmentRepository, never()).saveAll(anyList());
     }
 
-    @DisplayName("Send Daily Reminders")
-    @Test
-    void sendDailyReminders() {
-        firstAppointment.setIsCompleted(false);
-        firstAppointment.setStartTime(LocalDateTime.now().plusHours(1));
-        firstAppointment.setEndTime(firstAppointment.getStartTime().plusMinutes(
-            firstAppointment.getService().getDuration()
-        ));
-
-        Appointment appointmentToRemind = firstAppointment;
-
-        List<Appointment> expected = List.of(appointmentToRemind);
+    // builds the export row the joined export query returns for an appointment
+    private AppointmentExportRow toExportRow(Appointment appointment) {
+        return new AppointmentExportRow(appointment.getId(),
+            appointment.getCustomer().getFirstName(), appointment.getCustomer().getLastName(),
+            appointment.getService().getServiceName(), appointment.getStartTime(), appointment.getEndTime());
+    }
 
-        when(appointmentRepository.findAppointmentsByStartTimeBetweenAndIsCompletedFalse(
-            any(LocalDateTime.class), any(LocalDateTime.class))
-        ).thenReturn(expected);
-
-        String toEmail = appointmentToRemind.getCustomer().getEmail();
-        String subject = "Reminder – Your Appointment is Today";
-        String body = "Hello " + appointmentToRemind.getCustomer().getFirstName() + ",\n\n" +
-            "This is a friendly reminder that you have an appointment today:\n" +
-            "Time: " + appointmentToRemind.getStartTime().toLocalTime() + "\n" +
-            "Service: " + appointmentToRemind.getService().getServiceName() + "\n\n" +
-            "We look forward to seeing you!";
-        appointmentService.sendDailyReminders();
-        try {
-            verify(emailUtil).sendMail(toEmail, subject, body);
-        } catch (Exception ignored) {
-        } // ignored because EmailUtil is mocked
+    // builds the time range the interval query returns for an appointment
+    private AppointmentInterval intervalOf(LocalDateTime startTime, LocalDateTime endTime) {
+        return new AppointmentInterval() {
+            @Override
+            public LocalDateTime getStartTime() {
+                return startTime;
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return endTime;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.BusinessHour;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class compares the per-slot availability loop with the single-query slot engine on a busy day.
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "slot-hold.refresh-seconds=3600" // the holds are not reloaded in the middle of a query count
+})
+@ActiveProfiles("disable-scheduling")
+class AvailableSlotsBenchmarkTest {
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Service service;
+
+    private LocalDate selectedDate;
+
+    private List<BusinessHour> businessHours;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        availabilityCache.clear(); // the appointments below are saved directly through the repository
+
+        Customer customer = customerRepository.save(new Customer(null, "Busy", "Customer",
+            "busy@someserver.com", "0549999999"));
+        service = serviceRepository.save(new Service("Busy Service", BigDecimal.valueOf(50),
+            15, null, true));
+        selectedDate = LocalDate.now().plusDays(1);
+        businessHours = List.of(new BusinessHour(
+            (byte) (selectedDate.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(17, 0), true
+        ));
+
+        // books every other slot of a 9-17 day
+        List<Appointment> appointments = new ArrayList<>();
+        for (LocalTime time = LocalTime.of(9, 0); time.isBefore(LocalTime.of(17, 0)); time = time.plusMinutes(30)) {
+            LocalDateTime start = LocalDateTime.of(selectedDate, time);
+            appointments.add(new Appointment(customer, service, start,
+                start.plusMinutes(service.getDuration()), false));
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Slot Engine Matches Per-Slot Loop With A Single Query")
+    @Test
+    void slotEngineMatchesPerSlotLoopWithASingleQuery() {
+
+        statistics.clear();
+        List<LocalTime> expected = getAvailableSlotsPerSlot();
+        long perSlotQueries = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<LocalTime> actual = appointmentService.getAvailableSlots(service, selectedDate, businessHours);
+        long engineQueries = statistics.getPrepareStatementCount();
+
+        assertAll(
+            () -> assertIterableEquals(expected, actual,
+                "The slot engine should return the same slots as the per-slot loop"),
+            () -> assertEquals(16, actual.size(),
+                "Every other slot of a 9-17 day should be available"),
+            () -> assertEquals(32, perSlotQueries,
+                "The per-slot loop should run one query per candidate slot"),
+            () -> assertEquals(1, engineQueries,
+                "The slot engine should run a single query per call")
+        );
+    }
+
+    @DisplayName("Booking Window Availability Runs A Single Query")
+    @Test
+    void bookingWindowAvailabilityRunsASingleQuery() {
+
+        statistics.clear();
+        Map<LocalDate, List<LocalTime>> slotsByDate =
+            appointmentService.getAvailableSlotsInBookingWindow(service, businessHours);
+        long windowQueries = statistics.getPrepareStatementCount();
+
+        assertAll(
+            () -> assertIterableEquals(getAvailableSlotsPerSlot(), slotsByDate.get(selectedDate),
+                "The booking window should return the same slots as the per-slot loop"),
+            () -> assertEquals(1, windowQueries,
+                "The booking window availability should run a single query")
+        );
+    }
+
+    // reproduces the availability check that runs one overlap query per candidate slot
+    private List<LocalTime> getAvailableSlotsPerSlot() {
+        List<LocalTime> availableSlots = new ArrayList<>();
+        for (BusinessHour businessHour : businessHours) {
+            for (LocalTime time = businessHour.getStartTime();
+                 time.plusMinutes(service.getDuration() - 1).isBefore(businessHour.getEndTime());
+                 time = time.plusMinutes(service.getDuration())) {
+                LocalDateTime start = LocalDateTime.of(selectedDate, time);
+                if (appointmentService.isSlotAvailable(start, start.plusMinutes(service.getDuration()))) {
+                    availableSlots.add(time);
+                }
+            }
+        }
+        return availableSlots;
+    }
+}
@@ -0,0 +1,355 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.BusinessHour;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.BookingDayRepository;
+import com.javaworkshop.business_scheduler.repository.BusinessHourRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.repository.SlotHoldRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
+import com.javaworkshop.business_scheduler.util.EmailUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class books concurrently at different thread counts and checks that
+// concurrent bookings of the same slots never result in a double booking, even across instances.
+@SpringBootTest
+@ActiveProfiles("disable-scheduling")
+class BookingConcurrencyTest {
+
+    private final int BOOKINGS = 256;
+    private final int DAYS = 28;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private BusinessHourService businessHourService;
+
+    @Autowired
+    private BookingDayRepository bookingDayRepository;
+
+    @Autowired
+    private SlotHoldRepository slotHoldRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BusinessHourRepository businessHourRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @MockitoBean
+    private EmailUtil emailUtil;
+
+    private Service service;
+
+    @BeforeEach
+    void setUp() {
+        businessHourRepository.deleteAll();
+        for (byte day = 0; day <= 6; day++) {
+            businessHourRepository.save(new BusinessHour(day, LocalTime.of(8, 0), LocalTime.of(20, 0), true));
+        }
+        service = serviceRepository.save(new Service("Service", BigDecimal.valueOf(50),
+            15, null, true));
+        availabilityCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+        businessHourRepository.deleteAll();
+        availabilityCache.clear();
+    }
+
+    @DisplayName("Bookings Succeed At 1, 8 And 64 Threads")
+    @Test
+    void bookingsSucceedAt1And8And64Threads() throws Exception {
+        for (int threads : new int[] {1, 8, 64}) {
+            // spreads the bookings over the days of the booking window so none of them collide
+            List<LocalDateTime> startTimes = new ArrayList<>();
+            for (int i = 0; i < BOOKINGS; i++) {
+                startTimes.add(LocalDateTime.of(LocalDate.now().plusDays(1 + i % DAYS),
+                    LocalTime.of(8, 0).plusMinutes((long) service.getDuration() * (i / DAYS))));
+            }
+
+            AtomicInteger booked = new AtomicInteger();
+            runConcurrently(threads, startTimes, booked);
+
+            assertEquals(BOOKINGS, booked.get(),
+                "Every non-conflicting booking should succeed with " + threads + " threads");
+            assertEquals(BOOKINGS, appointmentRepository.count(),
+                "Every booking should be saved with " + threads + " threads");
+
+            appointmentRepository.deleteAll();
+            customerRepository.deleteAll();
+            availabilityCache.clear();
+        }
+    }
+
+    @DisplayName("No Double Booking When Threads Compete For The Same Slots")
+    @Test
+    void noDoubleBookingWhenThreadsCompeteForTheSameSlots() throws Exception {
+        int slots = 16;
+        int attemptsPerSlot = 4;
+
+        // every slot of the same day is requested by several threads
+        List<LocalDateTime> startTimes = new ArrayList<>();
+        for (int attempt = 0; attempt < attemptsPerSlot; attempt++) {
+            for (int slot = 0; slot < slots; slot++) {
+                startTimes.add(LocalDateTime.of(LocalDate.now().plusDays(1),
+                    LocalTime.of(8, 0).plusMinutes((long) service.getDuration() * slot)));
+            }
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(64, startTimes, booked);
+
+        assertAll(
+            () -> assertEquals(slots, booked.get(),
+                "Exactly one booking per slot should succeed"),
+            () -> assertEquals(slots, appointmentRepository.count(),
+                "Exactly one appointment per slot should be saved")
+        );
+    }
+
+    @DisplayName("No Double Booking When The Lock Rows Are Removed After Being Cached")
+    @Test
+    void noDoubleBookingWhenTheLockRowsAreRemovedAfterBeingCached() throws Exception {
+        int slots = 8;
+        LocalDate day = LocalDate.now().plusDays(4);
+
+        LocalDateTime firstStartTime = LocalDateTime.of(day, LocalTime.of(8, 0));
+        bookingService.bookAppointment("Guest", "First", "first@server.com", "0511111111", null, service, null,
+            firstStartTime, firstStartTime.plusMinutes(service.getDuration()));
+        bookingDayRepository.deleteAll(); // e.g. the schema was recreated while the instance kept running
+
+        List<LocalDateTime> startTimes = new ArrayList<>();
+        for (int attempt = 0; attempt < 4; attempt++) {
+            for (int slot = 1; slot <= slots; slot++) {
+                startTimes.add(LocalDateTime.of(day, LocalTime.of(8, 0).plusMinutes((long) service.getDuration() * slot)));
+            }
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        runConcurrently(32, startTimes, booked);
+
+        assertAll(
+            () -> assertEquals(slots, booked.get(),
+                "Exactly one booking per slot should succeed"),
+            () -> assertTrue(bookingDayRepository.existsById(day),
+                "The lock row of the day should be created again")
+        );
+    }
+
+    @DisplayName("No Double Booking When Two Instances Compete For The Same Slots")
+    @Test
+    void noDoubleBookingWhenTwoInstancesCompeteForTheSameSlots() throws Exception {
+        int slots = 16;
+
+        // a second instance shares nothing with the first one but the database
+        BookingService otherInstance = new BookingService(customerService, appointmentService,
+            businessHourService, new SlotHoldServiceImpl(slotHoldRepository, 5, 5, 10),
+            bookingDayRepository, transactionManager, eventPublisher);
+
+        List<LocalDateTime> startTimes = new ArrayList<>();
+        for (int slot = 0; slot < slots; slot++) {
+            startTimes.add(LocalDateTime.of(LocalDate.now().plusDays(2),
+                LocalTime.of(8, 0).plusMinutes((long) service.getDuration() * slot)));
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2 * slots);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < startTimes.size(); i++) {
+                for (BookingService instance : List.of(bookingService, otherInstance)) {
+                    futures.add(executor.submit(bookingTask(instance, futures.size(), startTimes.get(i), booked)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertAll(
+            () -> assertEquals(slots, booked.get(),
+                "Exactly one instance should book each slot"),
+            () -> assertEquals(slots, appointmentRepository.count(),
+                "Exactly one appointment per slot should be saved")
+        );
+    }
+
+    @DisplayName("One Customer When Two Instances Book The Same Guest On Different Days")
+    @Test
+    void oneCustomerWhenTwoInstancesBookTheSameGuestOnDifferentDays() throws Exception {
+        int bookings = 16;
+
+        // a second instance shares nothing with the first one but the database
+        BookingService otherInstance = new BookingService(customerService, appointmentService,
+            businessHourService, new SlotHoldServiceImpl(slotHoldRepository, 5, 5, 10),
+            bookingDayRepository, transactionManager, eventPublisher);
+
+        AtomicInteger booked = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(bookings);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < bookings; i++) {
+                BookingService instance = i % 2 == 0 ? bookingService : otherInstance;
+                LocalDateTime startTime = LocalDateTime.of(LocalDate.now().plusDays(1 + i), LocalTime.of(9, 0));
+                futures.add(executor.submit(() -> {
+                    instance.bookAppointment("Same", "Guest", "same@server.com", "0522222222",
+                        null, service, null, startTime, startTime.plusMinutes(service.getDuration()));
+                    booked.incrementAndGet();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertAll(
+            () -> assertEquals(bookings, booked.get(), "Every booking of the guest should succeed"),
+            () -> assertEquals(1, customerRepository.count(), "The guest should be created once")
+        );
+    }
+
+    @DisplayName("Stale Appointment Update Is Rejected")
+    @Test
+    void staleAppointmentUpdateIsRejected() {
+        LocalDateTime startTime = LocalDateTime.of(LocalDate.now().plusDays(3), LocalTime.of(8, 0));
+        Appointment booked = bookingService.bookAppointment("Guest", "Stale",
+            "stale@server.com", "0500000000", null, service, null,
+            startTime, startTime.plusMinutes(service.getDuration()));
+
+        // two editors load the same version of the appointment
+        Appointment firstCopy = appointmentRepository.findById(booked.getId()).orElseThrow();
+        Appointment secondCopy = appointmentRepository.findById(booked.getId()).orElseThrow();
+
+        firstCopy.setStartTime(startTime.plusHours(1));
+        firstCopy.setEndTime(startTime.plusHours(1).plusMinutes(service.getDuration()));
+        appointmentRepository.save(firstCopy);
+
+        secondCopy.setStartTime(startTime.plusHours(2));
+        secondCopy.setEndTime(startTime.plusHours(2).plusMinutes(service.getDuration()));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> appointmentRepository.save(secondCopy),
+            "Saving an appointment loaded before another update should fail");
+        assertEquals(startTime.plusHours(1),
+            appointmentRepository.findById(booked.getId()).orElseThrow().getStartTime(),
+            "The first update should be kept");
+    }
+
+    @DisplayName("An Edit Is Not Rejected By A Reminder Sent Meanwhile")
+    @Test
+    void anEditIsNotRejectedByAReminderSentMeanwhile() {
+        LocalDateTime startTime = LocalDateTime.of(LocalDate.now().plusDays(3), LocalTime.of(9, 0));
+        Appointment booked = bookingService.bookAppointment("Guest", "Edited",
+            "edited@server.com", "0500000001", null, service, null,
+            startTime, startTime.plusMinutes(service.getDuration()));
+
+        // the editor loads the appointment, then its reminder is sent
+        long editedVersion = appointmentRepository.findById(booked.getId()).orElseThrow().getVersion();
+        assertEquals(1, appointmentRepository.claimReminder(booked.getId(), startTime, 120));
+
+        LocalDateTime newStartTime = startTime.plusHours(1);
+        bookingService.bookAppointment("Guest", "Edited", "edited@server.com", "0500000001", null,
+            service, booked.getId(), newStartTime, newStartTime.plusMinutes(service.getDuration()),
+            null, editedVersion);
+
+        Appointment edited = appointmentRepository.findById(booked.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals(newStartTime, edited.getStartTime(), "The edit should be saved"),
+            () -> assertNull(edited.getRemindedMinutesBefore(),
+                "The reminders of the new time should still be sent")
+        );
+    }
+
+    // books each start time as a distinct guest on a pool of the given size and counts the successful bookings
+    private void runConcurrently(int threads, List<LocalDateTime> startTimes, AtomicInteger booked) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < startTimes.size(); i++) {
+                futures.add(executor.submit(bookingTask(bookingService, i, startTimes.get(i), booked)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    // books the given start time as the guest with the given number and counts it if it succeeds
+    private Runnable bookingTask(BookingService instance, int guestNumber,
+                                 LocalDateTime startTime, AtomicInteger booked) {
+        String guest = String.format("%08d", guestNumber);
+        return () -> {
+            try {
+                instance.bookAppointment("Guest", guest,
+                    "guest" + guest + "@server.com", "05" + guest,
+                    null, service, null,
+                    startTime, startTime.plusMinutes(service.getDuration()));
+                booked.incrementAndGet();
+            } catch (RuntimeException ignored) {
+            } // the slot was already taken by another thread
+        };
+    }
+}
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.math.BigDecimal;
@@ -47,6 +49,9 @@ class BookingServiceTest {
             "Customer", "email@someserver.com", "05411111111");
         service = new Service(UUID.randomUUID(), "Service",
             BigDecimal.valueOf(50), 100, null, true);
+        // no other booking holds the requested slots in the database
+        when(appointmentService.isSlotAvailable(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(true);
     }
 
     @DisplayName("Exception when booking an appointment with invalid start time")
@@ -97,7 +102,7 @@ class BookingServiceTest {
         );
 
         when(appointmentService.getAvailableSlots(
-            any(Service.class), eq(startTime.toLocalDate()), anyList()
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         )).thenReturn(availableSlots);
 
         Exception exception = assertThrows(RuntimeException.class, () ->
@@ -110,11 +115,43 @@ class BookingServiceTest {
 
         verify(appointmentService)
             .getAvailableSlots(
-                any(Service.class), eq(startTime.toLocalDate()), anyList()
+                any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
             );
 
     }
 
+    @DisplayName("Exception when booking a slot taken by another instance")
+    @Test
+    void exceptionWhenBookingASlotTakenByAnotherInstance() {
+        LocalDateTime startTime = LocalDateTime
+            .now()
+            .plusDays(1)
+            .withHour(9)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+
+        // the available slots still include the requested start time, but the database does not
+        when(appointmentService.getAvailableSlots(
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
+        )).thenReturn(List.of(LocalTime.of(9, 0)));
+        when(appointmentService.isSlotAvailable(startTime, endTime))
+            .thenReturn(false);
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.bookAppointment(customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhone(), null,
+                service, null, startTime, endTime)
+        );
+
+        assertEquals("error.appointmentTime.invalid.or.taken", exception.getMessage());
+
+        verify(appointmentService).isSlotAvailable(startTime, endTime);
+        verify(appointmentService, never()).save(any(Appointment.class));
+
+    }
+
     @DisplayName("Exception when booking a New Appointment As Owner")
     @Test
     void exceptionWhenBookingANewAppointmentAsOwner() {
@@ -137,7 +174,7 @@ class BookingServiceTest {
         );
 
         when(appointmentService.getAvailableSlots(
-            any(Service.class), eq(startTime.toLocalDate()), anyList()
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         )).thenReturn(availableSlots);
         when(customerService.findByUsername(anyString()))
             .thenReturn(null);
@@ -152,7 +189,7 @@ class BookingServiceTest {
 
         verify(appointmentService)
             .getAvailableSlots(
-                any(Service.class), eq(startTime.toLocalDate()), anyList()
+                any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
             );
 
     }
@@ -175,7 +212,7 @@ class BookingServiceTest {
         );
 
         when(appointmentService.getAvailableSlots(
-            any(Service.class), eq(startTime.toLocalDate()), anyList()
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         )).thenReturn(availableSlots);
         when(customerService.findByUsername(customer.getUser().getUsername()))
             .thenReturn(customer);
@@ -205,11 +242,14 @@ class BookingServiceTest {
         ));
 
         verify(appointmentService, times(2))
-            .getAvailableSlots(any(Service.class), eq(startTime.toLocalDate()), anyList());
+            .getAvailableSlots(any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull());
         verify(customerService, times(2))
             .findByUsername(customer.getUser().getUsername());
         verify(appointmentService, times(2)).save(any(Appointment.class));
         verify(appointmentService).findById(existingAppointment.getId());
+        // the new appointment invalidates its time, the rescheduled one its previous and new times
+        verify(appointmentService, times(3))
+            .invalidateAvailability(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @DisplayName("Successfully Booking An Appointment As Existing Customer By Email and Phone")
@@ -230,7 +270,7 @@ class BookingServiceTest {
         );
 
         when(appointmentService.getAvailableSlots(
-            any(Service.class), eq(startTime.toLocalDate()), anyList()
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         )).thenReturn(availableSlots);
         when(customerService.findByEmailAndPhone(customer.getEmail(), customer.getPhone()))
             .thenReturn(customer);
@@ -264,7 +304,7 @@ class BookingServiceTest {
 
         verify(appointmentService, times(2))
             .getAvailableSlots(
-                any(Service.class), eq(startTime.toLocalDate()), anyList()
+                any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
             );
         verify(customerService, times(2))
             .findByEmailAndPhone(customer.getEmail(), customer.getPhone());
@@ -294,7 +334,7 @@ class BookingServiceTest {
         );
 
         when(appointmentService.getAvailableSlots(
-            any(Service.class), eq(startTime.toLocalDate()), anyList()
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         )).thenReturn(availableSlots);
         when(customerService.findByEmailAndPhone(customer.getEmail(), customer.getPhone()))
             .thenReturn(null);
@@ -313,7 +353,7 @@ class BookingServiceTest {
         ));
 
         verify(appointmentService).getAvailableSlots(
-                any(Service.class), eq(startTime.toLocalDate()), anyList()
+                any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
         );
         verify(customerService).findByEmailAndPhone(customer.getEmail(), customer.getPhone());
         verify(customerService).getValidCustomer(
@@ -324,5 +364,167 @@ class BookingServiceTest {
         verify(appointmentService).save(any(Appointment.class));
     }
 
+    @DisplayName("Successfully Rescheduling An Appointment After A Concurrent Update")
+    @Test
+    void successfullyReschedulingAnAppointmentAfterAConcurrentUpdate() {
+        LocalDateTime startTime = LocalDateTime
+            .now()
+            .plusDays(1)
+            .withHour(9)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+        Appointment existingAppointment = new Appointment(
+            UUID.randomUUID(), customer, service, startTime.minusHours(1), endTime.minusHours(1), false
+        );
+
+        when(appointmentService.getAvailableSlots(
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
+        )).thenReturn(List.of(LocalTime.of(9, 0)));
+        when(customerService.findByUsername(customer.getUser().getUsername()))
+            .thenReturn(customer);
+        when(appointmentService.findById(existingAppointment.getId()))
+            .thenReturn(existingAppointment);
+        // the first attempt loses the race against another update of the same appointment
+        when(appointmentService.save(any(Appointment.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, existingAppointment.getId()))
+            .thenAnswer(inv -> inv.getArguments()[0]);
+
+        Appointment rescheduled = assertDoesNotThrow(() -> bookingService.bookAppointment(
+            customer.getFirstName(), customer.getLastName(),
+            customer.getEmail(), customer.getPhone(),
+            customer.getUser().getUsername(), service,
+            existingAppointment.getId(), startTime, endTime
+        ));
+
+        assertEquals(startTime, rescheduled.getStartTime());
+        verify(appointmentService, times(2)).findById(existingAppointment.getId());
+        verify(appointmentService, times(2)).save(any(Appointment.class));
+        verify(appointmentService).queueAppointmentConfirmationEmail(rescheduled, true);
+    }
+
+    @DisplayName("Exception When Rescheduling An Appointment Keeps Conflicting")
+    @Test
+    void exceptionWhenReschedulingAnAppointmentKeepsConflicting() {
+        LocalDateTime startTime = LocalDateTime
+            .now()
+            .plusDays(1)
+            .withHour(9)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+        Appointment existingAppointment = new Appointment(
+            UUID.randomUUID(), customer, service, startTime.minusHours(1), endTime.minusHours(1), false
+        );
+
+        when(appointmentService.getAvailableSlots(
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
+        )).thenReturn(List.of(LocalTime.of(9, 0)));
+        when(customerService.findByUsername(customer.getUser().getUsername()))
+            .thenReturn(customer);
+        when(appointmentService.findById(existingAppointment.getId()))
+            .thenReturn(existingAppointment);
+        when(appointmentService.save(any(Appointment.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, existingAppointment.getId()));
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.bookAppointment(
+                customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhone(),
+                customer.getUser().getUsername(), service,
+                existingAppointment.getId(), startTime, endTime
+            )
+        );
+
+        assertEquals("error.appointment.concurrent.update", exception.getMessage());
+        verify(appointmentService, times(3)).save(any(Appointment.class));
+        verify(appointmentService, never()).queueAppointmentConfirmationEmail(any(Appointment.class), anyBoolean());
+    }
+
+    @DisplayName("Exception When Rescheduling An Appointment That Changed Since It Was Loaded")
+    @Test
+    void exceptionWhenReschedulingAnAppointmentThatChangedSinceItWasLoaded() {
+        LocalDateTime startTime = LocalDateTime
+            .now()
+            .plusDays(1)
+            .withHour(9)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+        Appointment existingAppointment = new Appointment(
+            UUID.randomUUID(), customer, service, startTime.minusHours(1), endTime.minusHours(1), false
+        );
+
+        when(appointmentService.getAvailableSlots(
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
+        )).thenReturn(List.of(LocalTime.of(9, 0)));
+        when(customerService.findByUsername(customer.getUser().getUsername()))
+            .thenReturn(customer);
+        when(appointmentService.findById(existingAppointment.getId()))
+            .thenReturn(existingAppointment);
+
+        // the editor loaded a version the appointment no longer has
+        Exception exception = assertThrows(RuntimeException.class, () ->
+            bookingService.bookAppointment(
+                customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhone(),
+                customer.getUser().getUsername(), service,
+                existingAppointment.getId(), startTime, endTime, null, existingAppointment.getVersion() + 1
+            )
+        );
+
+        assertEquals("error.appointment.changed", exception.getMessage());
+        verify(appointmentService).findById(existingAppointment.getId()); // not retried
+        verify(appointmentService, never()).save(any(Appointment.class));
+        verify(appointmentService, never()).queueAppointmentConfirmationEmail(any(Appointment.class), anyBoolean());
+    }
+
+    @DisplayName("Successfully Booking As A Guest Created By A Concurrent Booking")
+    @Test
+    void successfullyBookingAsAGuestCreatedByAConcurrentBooking() {
+        LocalDateTime startTime = LocalDateTime
+            .now()
+            .plusDays(1)
+            .withHour(9)
+            .withMinute(0)
+            .withSecond(0)
+            .withNano(0);
+        LocalDateTime endTime = startTime.plusMinutes(service.getDuration());
+        Customer newCustomer = new Customer(null, customer.getFirstName(), customer.getLastName(),
+            customer.getEmail(), customer.getPhone());
+
+        when(appointmentService.getAvailableSlots(
+            any(Service.class), eq(startTime.toLocalDate()), anyList(), isNull()
+        )).thenReturn(List.of(LocalTime.of(9, 0)));
+        // the first attempt does not find the guest, but another booking creates it before this one commits
+        when(customerService.findByEmailAndPhone(customer.getEmail(), customer.getPhone()))
+            .thenReturn(null)
+            .thenReturn(customer);
+        when(customerService.getValidCustomer(null, customer.getEmail(), customer.getPhone(),
+            customer.getFirstName(), customer.getLastName(), null))
+            .thenReturn(newCustomer);
+        when(customerService.getValidCustomer(customer, customer.getEmail(), customer.getPhone(),
+            customer.getFirstName(), customer.getLastName(), null))
+            .thenReturn(customer);
+        when(customerService.save(newCustomer))
+            .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'uk_customers_email'"));
+        when(customerService.save(customer)).thenReturn(customer);
+        when(appointmentService.save(any(Appointment.class)))
+            .thenAnswer(inv -> inv.getArguments()[0]);
+
+        Appointment booked = assertDoesNotThrow(() -> bookingService.bookAppointment(
+            customer.getFirstName(), customer.getLastName(),
+            customer.getEmail(), customer.getPhone(),
+            null, service,
+            null, startTime, endTime
+        ));
+
+        assertEquals(customer, booked.getCustomer(), "The booking should use the customer created concurrently");
+        verify(customerService, times(2)).findByEmailAndPhone(customer.getEmail(), customer.getPhone());
+        verify(appointmentService).save(any(Appointment.class));
+    }
 
-}
\ No newline at end of file
+}
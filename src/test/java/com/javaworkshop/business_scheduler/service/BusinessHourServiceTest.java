@@ -3,6 +3,7 @@ package com.javaworkshop.business_scheduler.service;
 import com.javaworkshop.business_scheduler.config.DefaultInitializer;
 import com.javaworkshop.business_scheduler.model.BusinessHour;
 import com.javaworkshop.business_scheduler.repository.BusinessHourRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,6 +31,9 @@ class BusinessHourServiceTest {
     @MockitoBean
     private BusinessHourRepository businessHourRepository;
 
+    @MockitoBean
+    private AvailabilityCache availabilityCache;
+
     @Autowired
     private BusinessHourService businessHourService;
 
@@ -99,9 +104,13 @@ class BusinessHourServiceTest {
     void deleteBusinessHourById() {
         UUID idToDelete = firstBusinessHour.getId();
 
+        when(businessHourRepository.findDayOfWeekById(idToDelete))
+            .thenReturn(firstBusinessHour.getDayOfWeek());
+
         businessHourService.deleteById(idToDelete);
 
         verify(businessHourRepository).deleteById(idToDelete);
+        verify(availabilityCache).invalidateDayOfWeek(firstBusinessHour.getDayOfWeek());
     }
 
     @DisplayName("Find All Ranges By Day Of Week")
@@ -183,6 +192,7 @@ class BusinessHourServiceTest {
         verify(businessHourRepository).isOverlapping(null, newBusinessHour.getDayOfWeek(),
             newBusinessHour.getStartTime(), newBusinessHour.getEndTime());
         verify(businessHourRepository).save(any(BusinessHour.class));
+        verify(availabilityCache).invalidateDayOfWeek(newBusinessHour.getDayOfWeek());
     }
 
     @DisplayName("Successfully Update Existing Business Hour")
@@ -221,6 +231,7 @@ class BusinessHourServiceTest {
             );
             verify(businessHourRepository).findById(existingBusinessHour.getId());
             verify(businessHourRepository).save(existingBusinessHour);
+            verify(availabilityCache, atLeastOnce()).invalidateDayOfWeek(existingBusinessHour.getDayOfWeek());
         });
     }
 
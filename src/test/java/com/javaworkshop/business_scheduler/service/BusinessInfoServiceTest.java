@@ -1,6 +1,7 @@
 package com.javaworkshop.business_scheduler.service;
 
 import com.javaworkshop.business_scheduler.config.DefaultInitializer;
+import com.javaworkshop.business_scheduler.event.BusinessInfoChangedEvent;
 import com.javaworkshop.business_scheduler.model.BusinessInfo;
 import com.javaworkshop.business_scheduler.repository.BusinessInfoRepository;
 import com.javaworkshop.business_scheduler.util.ImageStorageUtils;
@@ -10,10 +11,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +25,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
+@RecordApplicationEvents
 class BusinessInfoServiceTest {
 
     @MockitoBean
@@ -35,6 +40,9 @@ class BusinessInfoServiceTest {
     @Autowired
     private BusinessInfoService businessInfoService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     private BusinessInfo businessInfo;
 
     @BeforeEach
@@ -85,6 +93,19 @@ class BusinessInfoServiceTest {
         verify(businessInfoRepository).save(businessInfo);
     }
 
+    @DisplayName("Update Business Info Publishes The Change")
+    @Test
+    void updateBusinessInfoPublishesTheChange() {
+        when(businessInfoRepository.findById(1)).thenReturn(Optional.of(businessInfo));
+        when(businessInfoRepository.save(businessInfo)).thenReturn(businessInfo);
+
+        businessInfoService.updateBusinessInfo("Renamed Business", "Business Description", null);
+
+        List<BusinessInfoChangedEvent> events = applicationEvents.stream(BusinessInfoChangedEvent.class).toList();
+        assertEquals(1, events.size(), "The change should be published so the cached sender is built again");
+        assertEquals("Renamed Business", events.get(0).getBusinessName());
+    }
+
     @DisplayName("Exception on Remove Background Image with Null Image Path")
     @Test
     void exceptionOnRemoveBackgroundImageWithNullImagePath() {
@@ -120,26 +120,6 @@ class CustomerServiceTest {
         verify(customerRepository).findByUserUsername(nonExistentUsername);
     }
 
-    @DisplayName("Find Customer ID By Username")
-    @Test
-    void findCustomerIdByUsername() {
-        when(customerRepository.findByUserUsername(thirdCustomer.getUser().getUsername()))
-            .thenReturn(Optional.of(thirdCustomer));
-        assertEquals(thirdCustomer.getId(), customerService.findIdByUsername(
-            thirdCustomer.getUser().getUsername())
-        );
-        verify(customerRepository).findByUserUsername(
-            thirdCustomer.getUser().getUsername()
-        );
-
-        String nonExistentUsername = "nonexistentUser";
-        when(customerRepository.findByUserUsername(nonExistentUsername))
-            .thenReturn(Optional.empty());
-        assertNull(customerService.findIdByUsername(nonExistentUsername),
-            "Expected null when username does not match any customer");
-        verify(customerRepository).findByUserUsername(nonExistentUsername);
-    }
-
     @DisplayName("Save Customer")
     @Test
     void saveCustomer() {
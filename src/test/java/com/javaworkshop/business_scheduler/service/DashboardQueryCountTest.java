@@ -0,0 +1,145 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentPage;
+import com.javaworkshop.business_scheduler.dto.AppointmentSearchFilter;
+import com.javaworkshop.business_scheduler.dto.DashboardAppointment;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.User;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class checks that the owner and customer dashboards read and cancel their appointments with a constant number
+// of statements and without loading any entity, however many appointments, customers and services they show.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("disable-scheduling")
+class DashboardQueryCountTest {
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User user = userRepository.save(new User("danaUser", "password", "ROLE_CUSTOMER", true));
+        customer = customerRepository.save(new Customer(user, "Dana", "Levi",
+            "dana@someserver.com", "0549999999"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("The Owner Dashboard Page Reads No Entity")
+    @Test
+    void theOwnerDashboardPageReadsNoEntity() {
+        saveAppointments(20);
+        statistics.clear();
+
+        AppointmentPage page = appointmentService.findAppointmentPage(
+            AppointmentSearchFilter.of("all", null, null, null, null), null, null);
+
+        assertAll(
+            () -> assertEquals(20, page.getAppointments().size()),
+            () -> assertEquals(2, statistics.getPrepareStatementCount(),
+                "The page and the check for a previous page should be a statement each"),
+            () -> assertEquals(0, statistics.getEntityLoadCount(), "No entity should be loaded")
+        );
+    }
+
+    @DisplayName("The Customer Dashboard Reads No Entity")
+    @Test
+    void theCustomerDashboardReadsNoEntity() {
+        saveAppointments(20);
+        statistics.clear();
+
+        List<DashboardAppointment> appointments =
+            appointmentService.findActiveDashboardAppointmentsByUsername("danaUser");
+
+        assertAll(
+            () -> assertEquals(10, appointments.size(), "Only the active appointments should be shown"),
+            () -> assertEquals("Dana", appointments.get(0).getCustomerFirstName()),
+            () -> assertEquals(1, statistics.getPrepareStatementCount(), "A single statement should be run"),
+            () -> assertEquals(0, statistics.getEntityLoadCount(), "No entity should be loaded")
+        );
+    }
+
+    @DisplayName("Cancelling A Customer Appointment Loads No Entity")
+    @Test
+    void cancellingACustomerAppointmentLoadsNoEntity() {
+        saveAppointments(2);
+        UUID appointmentId = appointmentRepository.findAll().get(0).getId();
+        statistics.clear();
+
+        boolean cancelledByOtherUser = appointmentService.cancelCustomerAppointment(appointmentId, "otherUser");
+        boolean cancelled = appointmentService.cancelCustomerAppointment(appointmentId, "danaUser");
+        long statementCount = statistics.getPrepareStatementCount();
+        long entityLoadCount = statistics.getEntityLoadCount();
+
+        assertAll(
+            () -> assertFalse(cancelledByOtherUser, "Another user should not cancel the appointment"),
+            () -> assertTrue(cancelled),
+            () -> assertFalse(appointmentRepository.existsById(appointmentId)),
+            () -> assertEquals(4, statementCount,
+                "The time range lookups, the conditional delete and the tombstone should be a statement each"),
+            () -> assertEquals(0, entityLoadCount, "No entity should be loaded")
+        );
+    }
+
+    // saves the given number of appointments of the customer, each with its own service, half of them completed
+    private void saveAppointments(int count) {
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Service service = serviceRepository.save(new Service("Service " + i, BigDecimal.valueOf(50),
+                30, null, true));
+            LocalDateTime start = LocalDateTime.now().plusDays(1).plusHours(i);
+            appointments.add(new Appointment(customer, service, start,
+                start.plusMinutes(service.getDuration()), i % 2 == 0));
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+}
@@ -0,0 +1,251 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.EmailMessage;
+import com.javaworkshop.business_scheduler.model.OutboxEmail;
+import com.javaworkshop.business_scheduler.repository.OutboxEmailRepository;
+import com.javaworkshop.business_scheduler.util.EmailUtil;
+import com.javaworkshop.business_scheduler.util.InstrumentedThreadPoolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+// This class tests that the outbox keeps the emails of committed transactions only, that the polls hand the sending
+// to the mail pool, and that each dispatch claims a batch, sends it once within the rate limit and retries the
+// failed emails.
+@SpringBootTest
+@ActiveProfiles("disable-scheduling")
+class EmailOutboxServiceTest {
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private EmailUtil emailUtil;
+
+    private EmailOutboxServiceImpl emailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxEmailRepository.deleteAll(); // the bookings of other tests queue emails too
+        emailOutboxService = new EmailOutboxServiceImpl(outboxEmailRepository, emailUtil, Runnable::run, 1, 2, 2, 30, 300, 0, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEmailRepository.deleteAll();
+    }
+
+    @DisplayName("Only Emails Of Committed Transactions Are Queued")
+    @Test
+    void onlyEmailsOfCommittedTransactionsAreQueued() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(status ->
+            emailOutboxService.queue("committed@someserver.com", "Subject", "Body"));
+        transactionTemplate.executeWithoutResult(status -> {
+            emailOutboxService.queue("rolled-back@someserver.com", "Subject", "Body");
+            status.setRollbackOnly(); // such as a booking that failed after queueing its confirmation
+        });
+
+        List<OutboxEmail> emails = outboxEmailRepository.findAll();
+        assertEquals(1, emails.size());
+        assertEquals("committed@someserver.com", emails.get(0).getToEmail());
+        assertEquals(OutboxEmail.Status.PENDING, emails.get(0).getStatus());
+    }
+
+    @DisplayName("Due Emails Are Sent A Batch Per Dispatch")
+    @Test
+    void dueEmailsAreSentABatchPerDispatch() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            emailOutboxService.queue("customer" + i + "@someserver.com", "Subject " + i, "Body " + i);
+        }
+
+        List<Integer> sentCounts = List.of(emailOutboxService.dispatch(), emailOutboxService.dispatch(),
+            emailOutboxService.dispatch());
+
+        assertEquals(List.of(2, 2, 1), sentCounts, "Each dispatch should send a single batch of up to 2");
+        assertEquals(5, outboxEmailRepository.countByStatus(OutboxEmail.Status.SENT));
+        assertEquals(0, emailOutboxService.dispatch(), "A sent email should not be sent again");
+        List<List<EmailMessage>> batches = captureBatches(3);
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList(),
+            "Each claimed batch should be sent in a single call");
+        List<EmailMessage> sentEmails = batches.stream().flatMap(List::stream).toList();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sentEmails.contains(
+                new EmailMessage("customer" + i + "@someserver.com", "Subject " + i, "Body " + i)));
+        }
+    }
+
+    @DisplayName("Emails Are Sent Within The Rate Limit")
+    @Test
+    void emailsAreSentWithinTheRateLimit() {
+        EmailOutboxServiceImpl limitedOutboxService =
+            new EmailOutboxServiceImpl(outboxEmailRepository, emailUtil, Runnable::run, 1, 2, 2, 30, 300, 0, 20);
+        for (int i = 0; i < 5; i++) {
+            limitedOutboxService.queue("customer" + i + "@someserver.com", "Subject", "Body");
+        }
+
+        long startedAt = System.nanoTime();
+        int sentCount = limitedOutboxService.dispatch() + limitedOutboxService.dispatch() +
+            limitedOutboxService.dispatch();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertEquals(5, sentCount);
+        assertTrue(elapsedMillis >= 180,
+            "5 emails at 20 per second should take at least 200ms even in batches, took " + elapsedMillis + "ms");
+    }
+
+    @DisplayName("A Poll Hands The Sending To The Mail Pool")
+    @Test
+    void aPollHandsTheSendingToTheMailPool() throws Exception {
+        InstrumentedThreadPoolExecutor mailExecutor = new InstrumentedThreadPoolExecutor("test-mail", 1, 10,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.ABORT, Duration.ofSeconds(5));
+        EmailOutboxServiceImpl pooledOutboxService =
+            new EmailOutboxServiceImpl(outboxEmailRepository, emailUtil, mailExecutor, 1, 2, 2, 30, 300, 0, 0);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch mailServerAnswers = new CountDownLatch(1);
+        List<String> sendingThreads = new CopyOnWriteArrayList<>();
+        when(emailUtil.sendMails(anyList())).thenAnswer(invocation -> {
+            sendingThreads.add(Thread.currentThread().getName());
+            sending.countDown();
+            mailServerAnswers.await(5, TimeUnit.SECONDS); // a slow mail server
+            return Map.of();
+        });
+        pooledOutboxService.queue("customer@someserver.com", "Subject", "Body");
+
+        try {
+            pooledOutboxService.poll();
+            assertTrue(sending.await(5, TimeUnit.SECONDS), "The email should be sent by the mail pool");
+            pooledOutboxService.poll(); // the only sender is still busy
+
+            assertEquals(0, mailExecutor.getStats().getQueueDepth(),
+                "A poll should not hand over more work than there are senders");
+            mailServerAnswers.countDown();
+        } finally {
+            mailExecutor.shutdownGracefully();
+        }
+
+        assertEquals(1, sendingThreads.size());
+        assertTrue(sendingThreads.get(0).startsWith("test-mail-"),
+            "The email should not be sent on the polling thread, it was sent on " + sendingThreads.get(0));
+        assertEquals(1, outboxEmailRepository.countByStatus(OutboxEmail.Status.SENT));
+    }
+
+    @DisplayName("Failed Emails Are Retried Later And Given Up On")
+    @Test
+    void failedEmailsAreRetriedLaterAndGivenUpOn() throws Exception {
+        failSendingTo("failing@someserver.com");
+        emailOutboxService.queue("failing@someserver.com", "Subject", "Body");
+        emailOutboxService.queue("working@someserver.com", "Subject", "Body");
+
+        LocalDateTime dispatchedAt = LocalDateTime.now();
+        int firstSentCount = emailOutboxService.dispatch();
+        OutboxEmail afterFirstAttempt = findByToEmail("failing@someserver.com");
+        LocalDateTime nextAttemptAt = afterFirstAttempt.getNextAttemptAt();
+        int secondSentCount = emailOutboxService.dispatch(); // the failed email is not due yet
+
+        makeDue(afterFirstAttempt);
+        emailOutboxService.dispatch();
+        OutboxEmail afterLastAttempt = findByToEmail("failing@someserver.com");
+
+        assertAll(
+            () -> assertEquals(1, firstSentCount),
+            () -> assertEquals(OutboxEmail.Status.PENDING, afterFirstAttempt.getStatus()),
+            () -> assertEquals(1, afterFirstAttempt.getAttempts()),
+            () -> assertEquals("Mailbox unavailable", afterFirstAttempt.getLastError()),
+            () -> assertFalse(nextAttemptAt.isBefore(dispatchedAt.plusSeconds(30)),
+                "The next attempt should wait for the backoff"),
+            () -> assertEquals(0, secondSentCount),
+            () -> assertEquals(OutboxEmail.Status.FAILED, afterLastAttempt.getStatus(),
+                "The email should be given up on after the last attempt"),
+            () -> assertEquals(2, afterLastAttempt.getAttempts())
+        );
+        assertEquals(2, captureBatches(2).stream().flatMap(List::stream)
+            .filter(email -> email.getToEmail().equals("failing@someserver.com")).count());
+    }
+
+    @DisplayName("Emails Claimed By Another Dispatcher Are Skipped Until The Lease Ends")
+    @Test
+    void emailsClaimedByAnotherDispatcherAreSkippedUntilTheLeaseEnds() throws Exception {
+        emailOutboxService.queue("claimed@someserver.com", "Subject", "Body");
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> dueIds = outboxEmailRepository.findDueIds(now, Limit.of(10));
+        outboxEmailRepository.claim(dueIds, UUID.randomUUID(), now, now.plusMinutes(5)); // another instance
+
+        int sentWhileClaimed = emailOutboxService.dispatch();
+        makeDue(findByToEmail("claimed@someserver.com")); // the other instance stopped and its lease ended
+        int sentAfterLease = emailOutboxService.dispatch();
+
+        assertEquals(0, sentWhileClaimed, "An email claimed by another dispatcher should not be sent");
+        assertEquals(1, sentAfterLease, "The email should be claimed again once the lease ends");
+        assertEquals(List.of(new EmailMessage("claimed@someserver.com", "Subject", "Body")), captureBatches(1).get(0));
+    }
+
+    @DisplayName("Sent Emails Are Deleted After The Retention")
+    @Test
+    void sentEmailsAreDeletedAfterTheRetention() throws Exception {
+        failSendingTo("failing@someserver.com");
+        emailOutboxService.queue("sent@someserver.com", "Subject", "Body");
+        emailOutboxService.queue("failing@someserver.com", "Subject", "Body");
+        emailOutboxService.dispatch();
+        Thread.sleep(10); // the email is sent before the cleanup time
+
+        int deletedCount = emailOutboxService.deleteSentEmails();
+
+        assertEquals(1, deletedCount, "Only the sent email should be deleted");
+        assertEquals("failing@someserver.com", outboxEmailRepository.findAll().get(0).getToEmail());
+    }
+
+    private OutboxEmail findByToEmail(String toEmail) {
+        return outboxEmailRepository.findAll().stream()
+            .filter(email -> email.getToEmail().equals(toEmail)).findFirst().orElseThrow();
+    }
+
+    // makes sending to the given address fail
+    private void failSendingTo(String toEmail) {
+        when(emailUtil.sendMails(anyList())).thenAnswer(invocation -> {
+            List<EmailMessage> emails = invocation.getArgument(0);
+            return emails.stream().filter(email -> email.getToEmail().equals(toEmail))
+                .collect(Collectors.toMap(email -> email, email -> new RuntimeException("Mailbox unavailable")));
+        });
+    }
+
+    // returns the batches the emails were sent in, checking their count
+    @SuppressWarnings("unchecked")
+    private List<List<EmailMessage>> captureBatches(int count) {
+        ArgumentCaptor<List<EmailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailUtil, times(count)).sendMails(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private void makeDue(OutboxEmail email) {
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxEmailRepository.save(email);
+    }
+}
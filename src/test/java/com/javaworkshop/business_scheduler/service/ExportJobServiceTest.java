@@ -0,0 +1,277 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.AppointmentExportFilter;
+import com.javaworkshop.business_scheduler.dto.AppointmentExportRow;
+import com.javaworkshop.business_scheduler.export.AppointmentExportWriter;
+import com.javaworkshop.business_scheduler.export.ExportJob;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class tests that export jobs run in the background, report their progress,
+// are bounded by the queue and are cleaned up with their files.
+@SpringBootTest
+@ActiveProfiles("disable-scheduling")
+class ExportJobServiceTest {
+
+    private final int TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private ExportJobServiceImpl exportJobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        exportJobService = new ExportJobServiceImpl(appointmentService, 1, 1, spoolDirectory, 60);
+        exportJobService.createSpoolDirectory();
+
+        Customer customer = customerRepository.save(new Customer(null, "Export", "Customer",
+            "export@someserver.com", "0547777777"));
+        Service service = serviceRepository.save(new Service("Export Service", BigDecimal.valueOf(50),
+            30, null, true));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = LocalDateTime.now().plusDays(1).plusHours(i);
+            appointments.add(new Appointment(customer, service, start,
+                start.plusMinutes(service.getDuration()), false));
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Export Job Writes The Same File As A Direct Export")
+    @Test
+    void exportJobWritesTheSameFileAsADirectExport() throws Exception {
+        AppointmentExportWriter csvWriter = appointmentService.findExportWriter("csv");
+        AppointmentExportFilter filter = AppointmentExportFilter.full(false, null, null);
+
+        ExportJob job = exportJobService.submit(csvWriter, filter, false);
+        awaitFinished(job);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        appointmentService.exportAppointments(expected, csvWriter, filter);
+
+        assertAll(
+            () -> assertEquals(ExportJob.Status.COMPLETED, job.getStatus(), "The job should complete"),
+            () -> assertEquals(20, job.getRowsWritten().get(), "Every appointment should be counted"),
+            () -> assertEquals("appointments.csv", job.getFileName()),
+            () -> assertArrayEquals(expected.toByteArray(), Files.readAllBytes(job.getFile()),
+                "The spool file should hold the export"),
+            () -> assertEquals(Files.size(job.getFile()), job.getFileSize()),
+            () -> assertSame(job, exportJobService.findById(job.getId()), "The job should be found by its id")
+        );
+    }
+
+    @DisplayName("Gzipped Export Job Writes A Compressed File")
+    @Test
+    void gzippedExportJobWritesACompressedFile() throws Exception {
+        AppointmentExportWriter ndjsonWriter = appointmentService.findExportWriter("ndjson");
+        AppointmentExportFilter filter = AppointmentExportFilter.changedAfter(false, null, null, null);
+
+        ExportJob job = exportJobService.submit(ndjsonWriter, filter, true);
+        awaitFinished(job);
+
+        String content;
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(job.getFile()))) {
+            content = new String(inputStream.readAllBytes());
+        }
+
+        assertAll(
+            () -> assertEquals(ExportJob.Status.COMPLETED, job.getStatus(), "The job should complete"),
+            () -> assertEquals("appointments.ndjson.gz", job.getFileName()),
+            () -> assertEquals("application/gzip", job.getContentType()),
+            () -> assertEquals(0, content.lines().count(),
+                "Nothing should be exported as the appointments changed too recently"),
+            () -> assertNull(job.getCursor(), "The cursor should stay empty when nothing was exported")
+        );
+    }
+
+    @DisplayName("Export Jobs Beyond The Queue Capacity Are Rejected")
+    @Test
+    void exportJobsBeyondTheQueueCapacityAreRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppointmentExportWriter blockingWriter = new BlockingExportWriter(started, release);
+        AppointmentExportFilter filter = AppointmentExportFilter.full(false, null, null);
+
+        ExportJob running = exportJobService.submit(blockingWriter, filter, false);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "The first job should start");
+        ExportJob queued = exportJobService.submit(blockingWriter, filter, false);
+
+        Exception exception = assertThrows(ExportJobsBusyException.class, () ->
+            exportJobService.submit(blockingWriter, filter, false));
+        ExportJob.Status queuedStatus = queued.getStatus();
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+
+        assertAll(
+            () -> assertEquals("error.export.jobs.busy", exception.getMessage()),
+            () -> assertEquals(ExportJob.Status.QUEUED, queuedStatus,
+                "The second job should wait in the queue"),
+            () -> assertEquals(ExportJob.Status.COMPLETED, running.getStatus()),
+            () -> assertEquals(ExportJob.Status.COMPLETED, queued.getStatus())
+        );
+    }
+
+    @DisplayName("Failed Export Job Leaves No File")
+    @Test
+    void failedExportJobLeavesNoFile() throws Exception {
+        AppointmentExportWriter failingWriter = new BlockingExportWriter(null, null) {
+            @Override
+            public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+                outputStream.write("partial".getBytes());
+                throw new IOException("Disk full");
+            }
+        };
+
+        ExportJob job = exportJobService.submit(failingWriter, AppointmentExportFilter.full(false, null, null), false);
+        awaitFinished(job);
+
+        try (var files = Files.list(spoolDirectory)) {
+            assertAll(
+                () -> assertEquals(ExportJob.Status.FAILED, job.getStatus(), "The job should fail"),
+                () -> assertEquals(0, files.count(), "The partial file should be deleted")
+            );
+        }
+    }
+
+    @DisplayName("Export Job Failing With An Error Leaves No File")
+    @Test
+    void exportJobFailingWithAnErrorLeavesNoFile() throws Exception {
+        AppointmentExportWriter failingWriter = new BlockingExportWriter(null, null) {
+            @Override
+            public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+                outputStream.write("partial".getBytes());
+                throw new OutOfMemoryError("Java heap space");
+            }
+        };
+
+        ExportJob job = exportJobService.submit(failingWriter, AppointmentExportFilter.full(false, null, null), false);
+        awaitFinished(job);
+
+        try (var files = Files.list(spoolDirectory)) {
+            assertAll(
+                () -> assertEquals(ExportJob.Status.FAILED, job.getStatus(), "The job should not stay running"),
+                () -> assertEquals(0, files.count(), "The partial file should be deleted")
+            );
+        }
+    }
+
+    @DisplayName("Expired Export Jobs And Stale Files Are Deleted")
+    @Test
+    void expiredExportJobsAndStaleFilesAreDeleted() throws Exception {
+        exportJobService.shutdown();
+        exportJobService = new ExportJobServiceImpl(appointmentService, 1, 1, spoolDirectory, 0);
+        ExportJob job = exportJobService.submit(appointmentService.findExportWriter("xml"),
+            AppointmentExportFilter.full(true, null, null), false);
+        awaitFinished(job);
+        Path staleFile = Files.writeString(spoolDirectory.resolve("left-by-a-previous-run.csv.part"), "partial");
+        Files.setLastModifiedTime(staleFile, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+        Thread.sleep(10); // the job finishes before the cleanup time
+
+        int deletedCount = exportJobService.deleteExpiredJobs();
+
+        assertAll(
+            () -> assertEquals(1, deletedCount, "The finished job should be deleted"),
+            () -> assertNull(exportJobService.findById(job.getId()), "The job should no longer be found"),
+            () -> assertFalse(Files.exists(job.getFile()), "The file of the job should be deleted"),
+            () -> assertFalse(Files.exists(staleFile), "The stale file should be deleted")
+        );
+    }
+
+    private void awaitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "The job should finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    // a writer that signals when it starts and waits to be released before writing the rows
+    private static class BlockingExportWriter implements AppointmentExportWriter {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        BlockingExportWriter(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String getFormat() {
+            return "txt";
+        }
+
+        @Override
+        public String getContentType() {
+            return "text/plain";
+        }
+
+        @Override
+        public void write(Iterator<AppointmentExportRow> rows, OutputStream outputStream) throws IOException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            while (rows.hasNext()) {
+                outputStream.write((rows.next().getId() + "\n").getBytes());
+            }
+        }
+    }
+}
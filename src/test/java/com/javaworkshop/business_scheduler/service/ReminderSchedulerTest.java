@@ -0,0 +1,193 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.ReminderRunResult;
+import com.javaworkshop.business_scheduler.dto.ScheduledReminder;
+import com.javaworkshop.business_scheduler.event.AppointmentTimeChangedEvent;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+// This class tests that the reminders of each appointment are scheduled its configured offsets before it starts,
+// follow its rescheduling and cancelling, are sent once due, and are rebuilt from the database.
+@SpringBootTest
+@ActiveProfiles("disable-scheduling")
+@ExtendWith(OutputCaptureExtension.class)
+class ReminderSchedulerTest {
+
+    private final int TIMEOUT = 5000; // the max time to wait for a reminder to be sent in milliseconds
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ReminderService reminderService;
+
+    private ReminderScheduler reminderScheduler;
+
+    @BeforeEach
+    void setUp() {
+        // every due reminder is queued
+        when(reminderService.queueReminders(anyList()))
+            .thenAnswer(invocation -> new ReminderRunResult(invocation.<List<?>>getArgument(0).size(), 0, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (reminderScheduler != null) {
+            reminderScheduler.shutdown();
+        }
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Reminders Follow Booking, Rescheduling And Cancelling")
+    @Test
+    void remindersFollowBookingReschedulingAndCancelling() {
+        reminderScheduler = new ReminderScheduler(reminderService, appointmentRepository, new int[]{1440, 120}, 30, 1, 64);
+        UUID appointmentId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        reminderScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(appointmentId, now.plusDays(3), now.plusDays(3).plusMinutes(30)));
+        int afterBooking = reminderScheduler.getScheduledCount();
+        reminderScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(appointmentId, now.plusHours(3), now.plusHours(3).plusMinutes(30)));
+        int afterRescheduling = reminderScheduler.getScheduledCount();
+        reminderScheduler.onAppointmentTimeChanged(new AppointmentTimeChangedEvent(appointmentId, null, null));
+        int afterCancelling = reminderScheduler.getScheduledCount();
+
+        assertAll(
+            () -> assertEquals(2, afterBooking, "Both reminders should be scheduled"),
+            () -> assertEquals(1, afterRescheduling,
+                "Only the reminder that is not due yet should be scheduled for the new time"),
+            () -> assertEquals(0, afterCancelling, "A cancelled appointment should not be reminded of")
+        );
+    }
+
+    @DisplayName("Due Reminders Are Sent On The Tick")
+    @Test
+    void dueRemindersAreSentOnTheTick(CapturedOutput output) throws InterruptedException {
+        reminderScheduler = new ReminderScheduler(reminderService, appointmentRepository, new int[]{1}, 30, 1, 64);
+        UUID appointmentId = UUID.randomUUID();
+        LocalDateTime startTime = LocalDateTime.now().plusMinutes(1).plusSeconds(1);
+
+        reminderScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(appointmentId, startTime, startTime.plusMinutes(30)));
+        reminderScheduler.tick();
+        verify(reminderService, after(200).never()).queueReminders(anyList());
+
+        tickUntilScheduled(0);
+
+        verify(reminderService, timeout(TIMEOUT)).queueReminders(onlyReminder(appointmentId, startTime, 1));
+        assertFalse(output.getErr().contains("Failed to queue"), "A run that queued every reminder should not be reported");
+    }
+
+    @DisplayName("A Run That Fails To Queue Reminders Is Reported")
+    @Test
+    void aRunThatFailsToQueueRemindersIsReported(CapturedOutput output) throws InterruptedException {
+        ReminderRunResult result = new ReminderRunResult(0, 1, 0);
+        when(reminderService.queueReminders(anyList())).thenReturn(result);
+        reminderScheduler = new ReminderScheduler(reminderService, appointmentRepository, new int[]{1}, 30, 1, 64);
+        UUID appointmentId = UUID.randomUUID();
+        LocalDateTime startTime = LocalDateTime.now().plusMinutes(1).plusSeconds(1);
+
+        reminderScheduler.onAppointmentTimeChanged(
+            new AppointmentTimeChangedEvent(appointmentId, startTime, startTime.plusMinutes(30)));
+        tickUntilScheduled(0);
+
+        verify(reminderService, timeout(TIMEOUT)).queueReminders(onlyReminder(appointmentId, startTime, 1));
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!output.getErr().contains(result.toString()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(output.getErr().contains("Failed to queue some of the due reminders: " + result),
+            "The failed run should be reported with its counts");
+    }
+
+    @DisplayName("Rescan Rebuilds The Reminders From The Database")
+    @Test
+    void rescanRebuildsTheRemindersFromTheDatabase() throws InterruptedException {
+        reminderScheduler = new ReminderScheduler(reminderService, appointmentRepository, new int[]{1440, 120}, 30, 1, 64);
+        LocalDateTime now = LocalDateTime.now();
+        Appointment upcoming = saveAppointment(0, now.plusDays(3));
+        Appointment missed = saveAppointment(1, now.plusMinutes(110)); // the 2 hours reminder was due 10 minutes ago
+        Appointment bookedLate = saveAppointment(2, now.plusMinutes(110));
+        Appointment reminded = saveAppointment(3, now.plusMinutes(110));
+        jdbcTemplate.update("UPDATE appointments SET last_modified_at = ? WHERE id IN (?, ?)",
+            now.minusDays(1), missed.getId(), reminded.getId()); // booked long before the missed reminder was due
+        jdbcTemplate.update("UPDATE appointments SET reminded_minutes_before = 120 WHERE id = ?", reminded.getId());
+
+        reminderScheduler.rescan();
+        int scheduledCount = reminderScheduler.getScheduledCount();
+        tickUntilScheduled(2);
+
+        assertEquals(3, scheduledCount,
+            "The upcoming appointment should have both reminders and the missed reminder should be caught up on");
+        verify(reminderService, timeout(TIMEOUT)).queueReminders(
+            onlyReminder(missed.getId(), missed.getStartTime(), 120));
+        assertEquals(2, reminderScheduler.getScheduledCount());
+        verify(reminderService, never()).queueReminders(
+            argThat(reminders -> reminders.stream().anyMatch(reminder ->
+                reminder.getAppointmentId().equals(bookedLate.getId()) ||
+                    reminder.getAppointmentId().equals(upcoming.getId()))));
+    }
+
+    // ticks like the scheduler would until only the given number of reminders is left to send
+    private void tickUntilScheduled(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (reminderScheduler.getScheduledCount() > count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            reminderScheduler.tick();
+        }
+    }
+
+    private Appointment saveAppointment(int number, LocalDateTime startTime) {
+        Customer customer = customerRepository.save(new Customer(null, "Customer" + number, "Reminded",
+            "customer" + number + "@someserver.com", "054100000" + number));
+        Service service = serviceRepository.save(new Service("Service " + number, BigDecimal.valueOf(50),
+            30, null, true));
+        return appointmentRepository.save(new Appointment(customer, service, startTime.withNano(0),
+            startTime.withNano(0).plusMinutes(30), false));
+    }
+
+    // matches the due reminders when they are only the given one
+    private List<ScheduledReminder> onlyReminder(UUID appointmentId, LocalDateTime startTime, int minutesBefore) {
+        return argThat(reminders -> reminders.size() == 1 &&
+            reminders.get(0).getAppointmentId().equals(appointmentId) &&
+            reminders.get(0).getStartTime().equals(startTime) && reminders.get(0).getMinutesBefore() == minutesBefore);
+    }
+}
@@ -0,0 +1,255 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.dto.ReminderRunResult;
+import com.javaworkshop.business_scheduler.dto.ScheduledReminder;
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.Customer;
+import com.javaworkshop.business_scheduler.model.OutboxEmail;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.OutboxEmailRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.util.EmailTemplateRenderer;
+import com.javaworkshop.business_scheduler.util.EmailUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// This class tests that every reminder is claimed and queued in the outbox by the same transaction so it is queued
+// once and never lost, that the claimed ones are read a page at a time with one query per page,
+// and that every outcome is counted.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("disable-scheduling")
+class ReminderServiceTest {
+
+    private final int MINUTES_BEFORE = 120;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailTemplateRenderer emailTemplateRenderer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private EmailUtil emailUtil;
+
+    private List<Appointment> appointments;
+
+    @BeforeEach
+    void setUp() {
+        outboxEmailRepository.deleteAll(); // the bookings of other tests queue emails too
+        LocalDateTime firstStart = LocalDateTime.now().plusDays(3).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        appointments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Customer customer = customerRepository.save(new Customer(null, "Customer" + i, "Reminded",
+                "customer" + i + "@someserver.com", "054000000" + i));
+            Service service = serviceRepository.save(new Service("Service " + i, BigDecimal.valueOf(50),
+                30, null, true));
+            LocalDateTime startTime = firstStart.plusHours(i);
+            appointments.add(new Appointment(customer, service, startTime, startTime.plusMinutes(30), false));
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEmailRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+    }
+
+    @DisplayName("Every Claimed Reminder Is Queued With One Query Per Page")
+    @Test
+    void everyClaimedReminderIsQueuedWithOneQueryPerPage() {
+        ReminderService reminderService = newReminderService(emailOutboxService, 2);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ReminderRunResult result = reminderService.queueReminders(remindersOf(appointments, MINUTES_BEFORE));
+
+        long statements = statistics.getPrepareStatementCount();
+        assertAll(
+            () -> assertEquals(5, result.getQueuedCount()),
+            () -> assertEquals(0, result.getFailedCount()),
+            () -> assertEquals(0, result.getSkippedCount()),
+            () -> assertEquals(5 + 3 + 3, statements,
+                "Each of the 5 reminders should be claimed, then read and queued in 3 pages of up to 2")
+        );
+        List<OutboxEmail> queuedEmails = outboxEmailRepository.findAll();
+        assertEquals(5, queuedEmails.size());
+        for (Appointment appointment : appointments) {
+            OutboxEmail email = queuedEmails.stream()
+                .filter(queued -> queued.getToEmail().equals(appointment.getCustomer().getEmail()))
+                .findFirst().orElseThrow();
+            assertAll(
+                () -> assertEquals("Reminder – Your Upcoming Appointment", email.getSubject()),
+                () -> assertEquals("Hello " + appointment.getCustomer().getFirstName() + ",\n\n" +
+                    "This is a friendly reminder of your upcoming appointment:\n" +
+                    "Date: " + appointment.getStartTime().toLocalDate() + "\n" +
+                    "Time: " + appointment.getStartTime().toLocalTime() + "\n" +
+                    "Service: " + appointment.getService().getServiceName() + "\n\n" +
+                    "We look forward to seeing you!", email.getBody()),
+                () -> assertEquals(OutboxEmail.Status.PENDING, email.getStatus()),
+                () -> assertEquals(MINUTES_BEFORE, appointmentRepository.findById(appointment.getId()).orElseThrow()
+                    .getRemindedMinutesBefore(), "The queued reminder should be recorded")
+            );
+        }
+    }
+
+    @DisplayName("A Reminder Is Queued Once And An Earlier One Is Not Queued After A Later One")
+    @Test
+    void aReminderIsQueuedOnceAndAnEarlierOneIsNotQueuedAfterALaterOne() {
+        ReminderService reminderService = newReminderService(emailOutboxService, 10);
+        List<Appointment> firstTwo = appointments.subList(0, 2);
+
+        ReminderRunResult first = reminderService.queueReminders(remindersOf(firstTwo, MINUTES_BEFORE));
+        ReminderRunResult again = reminderService.queueReminders(remindersOf(firstTwo, MINUTES_BEFORE));
+        ReminderRunResult earlier = reminderService.queueReminders(remindersOf(firstTwo, 1440));
+        ReminderRunResult later = reminderService.queueReminders(remindersOf(firstTwo, 30));
+
+        assertAll(
+            () -> assertEquals(2, first.getQueuedCount()),
+            () -> assertEquals(0, again.getQueuedCount(), "A reminder that was queued should not be queued again"),
+            () -> assertEquals(2, again.getSkippedCount()),
+            () -> assertEquals(0, earlier.getQueuedCount(), "An earlier reminder should not follow a later one"),
+            () -> assertEquals(2, later.getQueuedCount(), "A later reminder should still be queued"),
+            () -> assertEquals(4, outboxEmailRepository.count())
+        );
+    }
+
+    @DisplayName("Skipped Reminders Are Counted")
+    @Test
+    void skippedRemindersAreCounted() {
+        ReminderService reminderService = newReminderService(emailOutboxService, 10);
+        List<ScheduledReminder> reminders = remindersOf(appointments, MINUTES_BEFORE);
+        Customer withoutEmail = appointments.get(0).getCustomer();
+        withoutEmail.setEmail("");
+        customerRepository.save(withoutEmail);
+        Appointment completed = appointments.get(1);
+        completed.setIsCompleted(true);
+        appointmentRepository.save(completed);
+        Appointment rescheduled = appointmentRepository.findById(appointments.get(3).getId()).orElseThrow();
+        rescheduled.setStartTime(rescheduled.getStartTime().plusDays(1));
+        appointmentRepository.save(rescheduled);
+
+        ReminderRunResult result = reminderService.queueReminders(reminders);
+
+        assertAll(
+            () -> assertEquals(2, result.getQueuedCount()),
+            () -> assertEquals(0, result.getFailedCount()),
+            () -> assertEquals(3, result.getSkippedCount(),
+                "The customer without an email, the completed and the rescheduled appointment should be skipped"),
+            () -> assertEquals(2, outboxEmailRepository.count())
+        );
+    }
+
+    @DisplayName("A Page That Fails To Queue Leaves Its Reminders Unclaimed")
+    @Test
+    void aPageThatFailsToQueueLeavesItsRemindersUnclaimed() {
+        EmailOutboxService failingOutbox = mock(EmailOutboxService.class);
+        doAnswer(invocation -> {
+            String toEmail = invocation.getArgument(0);
+            if (toEmail.equals("customer2@someserver.com")) {
+                throw new IllegalStateException("Outbox unavailable");
+            }
+            emailOutboxService.queue(toEmail, invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(failingOutbox).queue(anyString(), anyString(), anyString());
+        ReminderService reminderService = newReminderService(failingOutbox, 2);
+
+        ReminderRunResult result = reminderService.queueReminders(remindersOf(appointments, MINUTES_BEFORE));
+
+        assertAll(
+            () -> assertEquals(3, result.getQueuedCount()),
+            () -> assertEquals(2, result.getFailedCount(), "The whole failed page should be counted"),
+            () -> assertEquals(0, result.getSkippedCount())
+        );
+        List<String> queuedEmails = outboxEmailRepository.findAll().stream().map(OutboxEmail::getToEmail).toList();
+        for (Appointment appointment : appointments) {
+            Integer remindedMinutesBefore = appointmentRepository.findById(appointment.getId()).orElseThrow()
+                .getRemindedMinutesBefore();
+            boolean queued = queuedEmails.contains(appointment.getCustomer().getEmail());
+            boolean inFailedPage = appointment == appointments.get(2) || appointment == appointments.get(3);
+            assertEquals(!inFailedPage, queued);
+            assertEquals(inFailedPage ? null : MINUTES_BEFORE, remindedMinutesBefore,
+                "A reminder should be claimed only if it was queued, so the next scan finds the failed ones");
+        }
+
+        ReminderRunResult retried = newReminderService(emailOutboxService, 2)
+            .queueReminders(remindersOf(appointments, MINUTES_BEFORE));
+
+        assertEquals(2, retried.getQueuedCount(), "The failed reminders should be queued by the next scan");
+        assertEquals(3, retried.getSkippedCount());
+    }
+
+    @DisplayName("A Queued Reminder Is Kept When The Mail Server Fails")
+    @Test
+    void aQueuedReminderIsKeptWhenTheMailServerFails() {
+        when(emailUtil.sendMails(anyList())).thenAnswer(invocation -> {
+            List<?> emails = invocation.getArgument(0);
+            return emails.stream().collect(Collectors.toMap(email -> email,
+                email -> new RuntimeException("Connection refused")));
+        });
+        newReminderService(emailOutboxService, 10).queueReminders(remindersOf(appointments, MINUTES_BEFORE));
+
+        int sent = emailOutboxService.dispatch();
+
+        assertEquals(0, sent);
+        List<OutboxEmail> emails = outboxEmailRepository.findAll();
+        assertEquals(5, emails.size(), "The failed reminders should stay in the outbox");
+        for (OutboxEmail email : emails) {
+            assertEquals(OutboxEmail.Status.PENDING, email.getStatus(), "The failed reminder should be retried");
+            assertEquals(1, email.getAttempts());
+        }
+    }
+
+    private ReminderService newReminderService(EmailOutboxService outbox, int pageSize) {
+        return new ReminderService(appointmentRepository, outbox, emailTemplateRenderer, transactionManager, pageSize);
+    }
+
+    private List<ScheduledReminder> remindersOf(List<Appointment> appointments, int minutesBefore) {
+        return appointments.stream()
+            .map(appointment -> new ScheduledReminder(appointment.getId(), appointment.getStartTime(), minutesBefore))
+            .toList();
+    }
+}
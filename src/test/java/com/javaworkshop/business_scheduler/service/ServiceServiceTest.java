@@ -2,6 +2,7 @@ package com.javaworkshop.business_scheduler.service;
 
 import com.javaworkshop.business_scheduler.model.Service;
 import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
 import com.javaworkshop.business_scheduler.util.ImageStorageUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,11 +13,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -37,6 +42,12 @@ class ServiceServiceTest {
     @Autowired
     private ServiceService serviceService;
 
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Service firstService, secondService, thirdService;
 
     @BeforeEach
@@ -118,6 +129,21 @@ class ServiceServiceTest {
         verify(serviceRepository).deleteById(id);
     }
 
+    @DisplayName("Delete Service by ID Clears The Available Slots Once It Completes")
+    @Test
+    void deleteByIdClearsTheAvailableSlotsOnceItCompletes() {
+        LocalDate date = LocalDate.now().plusDays(1);
+        availabilityCache.put(30, date, List.of(LocalTime.of(9, 0)), availabilityCache.currentStamp());
+
+        List<LocalTime> cachedBeforeCommit = new TransactionTemplate(transactionManager).execute(status -> {
+            serviceService.deleteById(UUID.randomUUID());
+            return availabilityCache.get(30, date);
+        });
+
+        assertNotNull(cachedBeforeCommit, "The cache should be cleared only once the deletion is visible");
+        assertNull(availabilityCache.get(30, date), "The cache should be cleared once the deletion completes");
+    }
+
     @DisplayName("Get Service Page")
     @Test
     void getServicePage() {
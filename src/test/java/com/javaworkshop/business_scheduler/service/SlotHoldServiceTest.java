@@ -0,0 +1,327 @@
+package com.javaworkshop.business_scheduler.service;
+
+import com.javaworkshop.business_scheduler.model.Appointment;
+import com.javaworkshop.business_scheduler.model.BusinessHour;
+import com.javaworkshop.business_scheduler.model.Service;
+import com.javaworkshop.business_scheduler.model.SlotHold;
+import com.javaworkshop.business_scheduler.repository.AppointmentRepository;
+import com.javaworkshop.business_scheduler.repository.BusinessHourRepository;
+import com.javaworkshop.business_scheduler.repository.CustomerRepository;
+import com.javaworkshop.business_scheduler.repository.ServiceRepository;
+import com.javaworkshop.business_scheduler.repository.SlotHoldRepository;
+import com.javaworkshop.business_scheduler.util.AvailabilityCache;
+import com.javaworkshop.business_scheduler.util.EmailUtil;
+import com.javaworkshop.business_scheduler.util.SlotHoldRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "slot-hold.max-per-address=2")
+@ActiveProfiles("disable-scheduling")
+class SlotHoldServiceTest {
+
+    private static final String ADDRESS = "192.0.2.1";
+
+    @Autowired
+    private SlotHoldService slotHoldService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private SlotHoldRepository slotHoldRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private BusinessHourRepository businessHourRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @MockitoBean
+    private EmailUtil emailUtil;
+
+    private Service service;
+
+    private LocalDate selectedDate;
+
+    private List<BusinessHour> businessHours;
+
+    private LocalDateTime startTime;
+
+    private UUID holderId;
+
+    @BeforeEach
+    void setUp() {
+        businessHourRepository.deleteAll();
+        selectedDate = LocalDate.now().plusDays(1);
+        businessHours = List.of(businessHourRepository.save(new BusinessHour(
+            (byte) (selectedDate.getDayOfWeek().getValue() % 7),
+            LocalTime.of(9, 0), LocalTime.of(12, 0), true
+        )));
+        service = serviceRepository.save(new Service("Service", BigDecimal.valueOf(50),
+            30, null, true));
+        startTime = LocalDateTime.of(selectedDate, LocalTime.of(10, 0));
+        holderId = UUID.randomUUID();
+        availabilityCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        slotHoldRepository.findAll().forEach(hold -> slotHoldService.release(hold.getId()));
+        appointmentRepository.deleteAll();
+        customerRepository.deleteAll();
+        serviceRepository.deleteAll();
+        businessHourRepository.deleteAll();
+        availabilityCache.clear();
+    }
+
+    @DisplayName("Held Slot Is Hidden From Everyone But Its Holder")
+    @Test
+    void heldSlotIsHiddenFromEveryoneButItsHolder() {
+
+        SlotHold hold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+
+        assertAll(
+            () -> assertFalse(appointmentService.getAvailableSlots(service, selectedDate, businessHours)
+                    .contains(startTime.toLocalTime()),
+                "The held slot should not be available to others"),
+            () -> assertTrue(appointmentService.getAvailableSlots(service, selectedDate, businessHours, hold.getId())
+                    .contains(startTime.toLocalTime()),
+                "The held slot should still be available to its holder"),
+            () -> assertFalse(appointmentService.getAvailableSlotsInBookingWindow(service, businessHours)
+                    .get(selectedDate).contains(startTime.toLocalTime()),
+                "The held slot should not be available in the booking window"),
+            () -> assertTrue(slotHoldService.isHeld(startTime, startTime.plusMinutes(service.getDuration()), null),
+                "The hold should be stored in the database")
+        );
+    }
+
+    @DisplayName("Exception When Holding Or Booking A Slot Held By Someone Else")
+    @Test
+    void exceptionWhenHoldingOrBookingASlotHeldBySomeoneElse() {
+
+        bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+
+        Exception holdException = assertThrows(RuntimeException.class, () ->
+            bookingService.holdSlot(service, startTime, UUID.randomUUID(), ADDRESS));
+        Exception bookException = assertThrows(RuntimeException.class, () ->
+            bookingService.bookAppointment("Other", "Guest", "other@server.com", "0500000001",
+                null, service, null, startTime, startTime.plusMinutes(service.getDuration())));
+
+        assertAll(
+            () -> assertEquals("error.appointmentTime.invalid.or.taken", holdException.getMessage()),
+            () -> assertEquals("error.appointmentTime.invalid.or.taken", bookException.getMessage()),
+            () -> assertEquals(0, appointmentRepository.count(), "No appointment should be saved")
+        );
+    }
+
+    @DisplayName("Booking A Held Slot Converts The Hold Into An Appointment")
+    @Test
+    void bookingAHeldSlotConvertsTheHoldIntoAnAppointment() {
+
+        SlotHold hold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+
+        Appointment appointment = bookingService.bookAppointment("Holding", "Guest", "holder@server.com",
+            "0500000002", null, service, null, startTime, startTime.plusMinutes(service.getDuration()),
+            hold.getId());
+
+        assertAll(
+            () -> assertTrue(appointmentRepository.existsById(appointment.getId()),
+                "The appointment should be saved"),
+            () -> assertNull(slotHoldService.findActiveById(hold.getId()),
+                "The hold should be released once the slot is booked"),
+            () -> assertFalse(appointmentService.getAvailableSlots(service, selectedDate, businessHours, hold.getId())
+                    .contains(startTime.toLocalTime()),
+                "The booked slot should no longer be available")
+        );
+    }
+
+    @DisplayName("Released Slot Is Available Again")
+    @Test
+    void releasedSlotIsAvailableAgain() {
+
+        SlotHold hold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+        slotHoldService.release(hold.getId());
+
+        assertAll(
+            () -> assertTrue(appointmentService.getAvailableSlots(service, selectedDate, businessHours)
+                    .contains(startTime.toLocalTime()),
+                "The released slot should be available again"),
+            () -> assertNull(slotHoldService.findActiveById(hold.getId()),
+                "The released hold should be deleted")
+        );
+    }
+
+    @DisplayName("Holding Another Slot Replaces The Previous Hold Of The Holder")
+    @Test
+    void holdingAnotherSlotReplacesThePreviousHoldOfTheHolder() {
+
+        SlotHold firstHold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+        SlotHold secondHold = bookingService.holdSlot(service, startTime.plusMinutes(30), holderId, ADDRESS);
+
+        assertAll(
+            () -> assertNull(slotHoldService.findActiveById(firstHold.getId()),
+                "The previous hold should be released"),
+            () -> assertNotNull(slotHoldService.findActiveById(secondHold.getId()),
+                "The new hold should be active"),
+            () -> assertTrue(appointmentService.getAvailableSlots(service, selectedDate, businessHours)
+                    .contains(startTime.toLocalTime()),
+                "The slot of the previous hold should be available again"),
+            () -> assertFalse(appointmentService.getAvailableSlots(service, selectedDate, businessHours)
+                    .contains(startTime.plusMinutes(30).toLocalTime()),
+                "The slot of the new hold should be hidden")
+        );
+    }
+
+    @DisplayName("Holding The Same Or An Overlapping Slot Again Replaces The Previous Hold Of The Holder")
+    @Test
+    void holdingTheSameOrAnOverlappingSlotAgainReplacesThePreviousHoldOfTheHolder() {
+
+        Service longerService = serviceRepository.save(new Service("Longer Service", BigDecimal.valueOf(80),
+            60, null, true));
+
+        SlotHold firstHold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+        SlotHold sameSlotHold = bookingService.holdSlot(service, startTime, holderId, ADDRESS); // after a refresh
+        SlotHold overlappingHold = bookingService.holdSlot(longerService, startTime, holderId, ADDRESS);
+
+        assertAll(
+            () -> assertNull(slotHoldService.findActiveById(firstHold.getId()),
+                "The previous hold should be released"),
+            () -> assertNull(slotHoldService.findActiveById(sameSlotHold.getId()),
+                "The previous hold should be released"),
+            () -> assertNotNull(slotHoldService.findActiveById(overlappingHold.getId()),
+                "The holder should not be refused for its own hold"),
+            () -> assertFalse(appointmentService.getAvailableSlots(service, selectedDate, businessHours)
+                    .contains(startTime.plusMinutes(30).toLocalTime()),
+                "The slot of the new hold should be hidden")
+        );
+        assertThrows(RuntimeException.class, () ->
+            bookingService.holdSlot(service, startTime, UUID.randomUUID(), "192.0.2.2"),
+            "The slot should still be held from others");
+    }
+
+    @DisplayName("Exception When An Address Holds As Many Slots As It May")
+    @Test
+    void exceptionWhenAnAddressHoldsAsManySlotsAsItMay() {
+
+        bookingService.holdSlot(service, startTime, UUID.randomUUID(), ADDRESS);
+        bookingService.holdSlot(service, startTime.plusMinutes(30), UUID.randomUUID(), ADDRESS);
+
+        Exception exception = assertThrows(SlotHoldLimitException.class, () ->
+            bookingService.holdSlot(service, startTime.plusMinutes(60), UUID.randomUUID(), ADDRESS));
+        SlotHold otherAddressHold = bookingService.holdSlot(service, startTime.plusMinutes(60),
+            UUID.randomUUID(), "192.0.2.2");
+
+        assertAll(
+            () -> assertEquals("error.slot-hold.limit", exception.getMessage()),
+            () -> assertNotNull(slotHoldService.findActiveById(otherAddressHold.getId()),
+                "Another address should still hold slots")
+        );
+    }
+
+    @DisplayName("Hold Is Released Only By Its Holder")
+    @Test
+    void holdIsReleasedOnlyByItsHolder() {
+
+        SlotHold hold = bookingService.holdSlot(service, startTime, holderId, ADDRESS);
+
+        slotHoldService.release(hold.getId(), UUID.randomUUID());
+        SlotHold keptHold = slotHoldService.findActiveById(hold.getId());
+        slotHoldService.release(hold.getId(), holderId);
+
+        assertAll(
+            () -> assertNotNull(keptHold, "Another holder should not release the hold"),
+            () -> assertNull(slotHoldService.findActiveById(hold.getId()), "The holder should release the hold")
+        );
+    }
+
+    @DisplayName("Merging A Snapshot Keeps The Changes Made While It Was Read")
+    @Test
+    void mergingASnapshotKeepsTheChangesMadeWhileItWasRead() {
+
+        SlotHoldRegistry registry = new SlotHoldRegistry();
+        LocalDateTime now = LocalDateTime.now();
+        SlotHold staleHold = new SlotHold(startTime, startTime.plusMinutes(30), now.plusMinutes(5));
+        staleHold.setId(UUID.randomUUID());
+        SlotHold releasedHold = new SlotHold(startTime.plusHours(1), startTime.plusHours(1).plusMinutes(30),
+            now.plusMinutes(5));
+        releasedHold.setId(UUID.randomUUID());
+        SlotHold newHold = new SlotHold(startTime.plusHours(2), startTime.plusHours(2).plusMinutes(30),
+            now.plusMinutes(5));
+        newHold.setId(UUID.randomUUID());
+        registry.put(staleHold);
+        registry.put(releasedHold);
+
+        // the snapshot is read, then a hold is put and another released before it is merged
+        long mark = registry.mark();
+        List<SlotHold> snapshot = List.of(releasedHold);
+        registry.put(newHold);
+        registry.remove(releasedHold.getId());
+        registry.merge(snapshot, mark);
+
+        assertAll(
+            () -> assertFalse(registry.isHeld(staleHold.getStartTime(), staleHold.getEndTime(), now, Set.of()),
+                "A hold missing from the snapshot should be dropped"),
+            () -> assertTrue(registry.isHeld(newHold.getStartTime(), newHold.getEndTime(), now, Set.of()),
+                "A hold put while the snapshot was read should be kept"),
+            () -> assertFalse(registry.isHeld(releasedHold.getStartTime(), releasedHold.getEndTime(), now, Set.of()),
+                "A hold released while the snapshot was read should not come back"),
+            () -> assertEquals(1, registry.size(now))
+        );
+    }
+
+    @DisplayName("Expired Holds Are Dropped Without A Timer")
+    @Test
+    void expiredHoldsAreDroppedWithoutATimer() {
+
+        SlotHoldRegistry registry = new SlotHoldRegistry();
+        LocalDateTime now = LocalDateTime.now();
+        SlotHold shortHold = new SlotHold(startTime, startTime.plusMinutes(30), now.plusMinutes(1));
+        shortHold.setId(UUID.randomUUID());
+        SlotHold longHold = new SlotHold(startTime.plusHours(1), startTime.plusHours(1).plusMinutes(30),
+            now.plusMinutes(5));
+        longHold.setId(UUID.randomUUID());
+        registry.put(longHold);
+        registry.put(shortHold);
+
+        assertAll(
+            () -> assertTrue(registry.isHeld(startTime, startTime.plusMinutes(30), now, Set.of()),
+                "The hold should be active before it expires"),
+            () -> assertFalse(registry.isHeld(startTime, startTime.plusMinutes(30), now, Set.of(shortHold.getId())),
+                "The hold should not block its holder"),
+            () -> assertFalse(registry.isHeld(startTime, startTime.plusMinutes(30), now.plusMinutes(2), Set.of()),
+                "The hold should be dropped once it expires"),
+            () -> assertEquals(1, registry.size(now.plusMinutes(2)),
+                "Only the unexpired hold should be kept"),
+            () -> assertEquals(0, registry.size(now.plusMinutes(5)),
+                "No hold should be kept once all of them expire")
+        );
+    }
+}
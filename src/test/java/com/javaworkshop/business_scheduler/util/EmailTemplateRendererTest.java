@@ -0,0 +1,49 @@
+package com.javaworkshop.business_scheduler.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class tests that the email templates render the same bodies the emails always had.
+class EmailTemplateRendererTest {
+
+    private final EmailTemplateRenderer emailTemplateRenderer = new EmailTemplateRenderer();
+
+    private final LocalDateTime startTime = LocalDateTime.of(2030, 5, 14, 9, 30);
+
+    @DisplayName("Render Confirmation")
+    @Test
+    void renderConfirmation() {
+        assertEquals("Hello Dana,\n\n" +
+                "Your appointment has been scheduled for:\n" +
+                "Date: 2030-05-14\n" +
+                "Time: 09:30\n" +
+                "Service: Haircut\n\n" +
+                "Thank you for choosing our business!",
+            emailTemplateRenderer.renderConfirmation("Dana", startTime, "Haircut"));
+    }
+
+    @DisplayName("Render Reminder")
+    @Test
+    void renderReminder() {
+        assertEquals("Hello Dana,\n\n" +
+                "This is a friendly reminder of your upcoming appointment:\n" +
+                "Date: 2030-05-14\n" +
+                "Time: 09:30\n" +
+                "Service: Haircut\n\n" +
+                "We look forward to seeing you!",
+            emailTemplateRenderer.renderReminder("Dana", startTime, "Haircut"));
+    }
+
+    @DisplayName("Variables Are Not Evaluated As Templates")
+    @Test
+    void variablesAreNotEvaluatedAsTemplates() {
+        String body = emailTemplateRenderer.renderReminder("[(${serviceName})]", startTime, "<b>Haircut</b>");
+
+        assertTrue(body.startsWith("Hello [(${serviceName})],"), "A name should be written as it is");
+        assertTrue(body.contains("Service: <b>Haircut</b>\n"), "A plain text email should not be escaped");
+    }
+}
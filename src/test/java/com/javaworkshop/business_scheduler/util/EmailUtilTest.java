@@ -0,0 +1,237 @@
+package com.javaworkshop.business_scheduler.util;
+
+import com.javaworkshop.business_scheduler.dto.EmailMessage;
+import com.javaworkshop.business_scheduler.event.BusinessInfoChangedEvent;
+import com.javaworkshop.business_scheduler.model.BusinessInfo;
+import com.javaworkshop.business_scheduler.service.BusinessInfoService;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// This class tests the batch send against a local stand-in of an SMTP server that makes every new connection
+// as slow as a real handshake, and compares the messages per second of sending one by one and in batches.
+// It also checks that the sender is not loaded again for every batch.
+class EmailUtilTest {
+
+    private final int EMAIL_COUNT = 50;
+    private final int BATCH_SIZE = 25;
+    private final int HANDSHAKE_MILLIS = 30; // the cost of opening a connection, such as STARTTLS and login
+
+    private SmtpStandIn smtpServer;
+
+    private EmailUtil emailUtil;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new SmtpStandIn(HANDSHAKE_MILLIS);
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        javaMailSender.setPort(smtpServer.getPort());
+        BusinessInfoService businessInfoService = mock(BusinessInfoService.class);
+        when(businessInfoService.getBusinessInfo()).thenReturn(new BusinessInfo("Test Business", "", null));
+        emailUtil = new EmailUtil(javaMailSender, businessInfoService, "business@someserver.com", BATCH_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @DisplayName("Batches Are Sent Over One Connection Each And Faster Than Single Emails")
+    @Test
+    void batchesAreSentOverOneConnectionEachAndFasterThanSingleEmails() throws Exception {
+        List<EmailMessage> emails = createEmails(EMAIL_COUNT);
+
+        long startedAt = System.nanoTime();
+        for (EmailMessage email : emails) {
+            emailUtil.sendMail(email.getToEmail(), email.getSubject(), email.getBody());
+        }
+        double singleRate = ratePerSecond(EMAIL_COUNT, startedAt);
+        int singleConnections = smtpServer.getConnectionCount();
+        int singleMessages = smtpServer.getMessageCount();
+
+        smtpServer.reset();
+        startedAt = System.nanoTime();
+        Map<EmailMessage, Exception> failures = emailUtil.sendMails(emails);
+        double batchRate = ratePerSecond(EMAIL_COUNT, startedAt);
+
+        assertAll(
+            () -> assertEquals(EMAIL_COUNT, singleConnections, "Every single email should open its own connection"),
+            () -> assertEquals(EMAIL_COUNT, singleMessages),
+            () -> assertTrue(failures.isEmpty(), "No email should fail: " + failures),
+            () -> assertEquals(EMAIL_COUNT / BATCH_SIZE, smtpServer.getConnectionCount(),
+                "Every batch should be sent over a single connection"),
+            () -> assertEquals(EMAIL_COUNT, smtpServer.getMessageCount()),
+            () -> assertTrue(batchRate > singleRate * 2,
+                "Batches should send much faster than single emails, " + batchRate + "/s vs " + singleRate + "/s")
+        );
+    }
+
+    @DisplayName("A Rejected Email Does Not Stop The Rest Of Its Batch")
+    @Test
+    void aRejectedEmailDoesNotStopTheRestOfItsBatch() {
+        List<EmailMessage> emails = createEmails(5);
+        EmailMessage rejected = new EmailMessage("rejected@someserver.com", "Subject", "Body");
+        emails.add(2, rejected);
+
+        Map<EmailMessage, Exception> failures = emailUtil.sendMails(emails);
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.containsKey(rejected), "Only the rejected email should fail");
+        assertEquals(5, smtpServer.getMessageCount(), "The other emails should be delivered");
+        assertEquals(1, smtpServer.getConnectionCount());
+    }
+
+    @DisplayName("The Sender Is Loaded Once Until The Business Info Changes")
+    @Test
+    void theSenderIsLoadedOnceUntilTheBusinessInfoChanges() throws Exception {
+        JavaMailSender javaMailSender = mock(JavaMailSender.class);
+        when(javaMailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        BusinessInfoService businessInfoService = mock(BusinessInfoService.class);
+        when(businessInfoService.getBusinessInfo()).thenReturn(new BusinessInfo("Test Business", "", null));
+        EmailUtil cachingEmailUtil = new EmailUtil(javaMailSender, businessInfoService, "business@someserver.com", 1000);
+        ArgumentCaptor<MimeMessage[]> sentMessages = ArgumentCaptor.forClass(MimeMessage[].class);
+
+        cachingEmailUtil.sendMails(createEmails(1000));
+        cachingEmailUtil.sendMails(createEmails(1000));
+        verify(businessInfoService, times(1)).getBusinessInfo();
+
+        when(businessInfoService.getBusinessInfo()).thenReturn(new BusinessInfo("Renamed Business", "", null));
+        cachingEmailUtil.onBusinessInfoChanged(new BusinessInfoChangedEvent("Renamed Business"));
+        cachingEmailUtil.sendMails(createEmails(1));
+
+        verify(businessInfoService, times(2)).getBusinessInfo();
+        verify(javaMailSender, times(3)).send(sentMessages.capture());
+        InternetAddress sender = (InternetAddress) sentMessages.getValue()[0].getFrom()[0];
+        assertEquals("Renamed Business", sender.getPersonal(), "The sender should be built again after the change");
+    }
+
+    @DisplayName("Every Email Fails When The Server Cannot Be Reached")
+    @Test
+    void everyEmailFailsWhenTheServerCannotBeReached() throws IOException {
+        smtpServer.close();
+        List<EmailMessage> emails = createEmails(BATCH_SIZE + 1);
+
+        Map<EmailMessage, Exception> failures = emailUtil.sendMails(emails);
+
+        assertEquals(BATCH_SIZE + 1, failures.size(), "Every email of every batch should be reported as failed");
+    }
+
+    private List<EmailMessage> createEmails(int count) {
+        List<EmailMessage> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            emails.add(new EmailMessage("customer" + i + "@someserver.com", "Subject " + i, "Body " + i));
+        }
+        return emails;
+    }
+
+    private double ratePerSecond(int count, long startedAt) {
+        return count * (double) TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - startedAt);
+    }
+
+    // This class is a minimal SMTP server that accepts every message, except to addresses starting with
+    // "rejected", and counts the connections and messages it receives.
+    private static class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final int handshakeMillis;
+        private final AtomicInteger connectionCount = new AtomicInteger();
+        private final AtomicInteger messageCount = new AtomicInteger();
+
+        SmtpStandIn(int handshakeMillis) throws IOException {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.handshakeMillis = handshakeMillis;
+            Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConnectionCount() {
+            return connectionCount.get();
+        }
+
+        int getMessageCount() {
+            return messageCount.get();
+        }
+
+        void reset() {
+            connectionCount.set(0);
+            messageCount.set(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    connectionCount.incrementAndGet();
+                    serve(socket);
+                } catch (IOException | InterruptedException e) {
+                    // the server was closed or the client went away
+                }
+            }
+        }
+
+        private void serve(Socket socket) throws IOException, InterruptedException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+            Thread.sleep(handshakeMillis);
+            reply(out, "220 localhost ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("RCPT") && command.contains("<REJECTED")) {
+                    reply(out, "550 No such user");
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // the message itself is not kept
+                    }
+                    messageCount.incrementAndGet();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK"); // EHLO, MAIL, RCPT, RSET and NOOP
+                }
+            }
+        }
+
+        private void reply(PrintWriter out, String response) {
+            out.print(response + "\r\n");
+            out.flush();
+        }
+    }
+}
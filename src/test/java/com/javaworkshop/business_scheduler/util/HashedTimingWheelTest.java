@@ -0,0 +1,71 @@
+package com.javaworkshop.business_scheduler.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class tests that the items of the timing wheel expire on their tick, also when they are due
+// more than a turn ahead or the wheel was not advanced for a while, and that cancelled items never expire.
+class HashedTimingWheelTest {
+
+    private final long START = 1_000_000; // the time the wheel starts turning at, in milliseconds
+
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(Duration.ofSeconds(1), 8, START);
+
+    @DisplayName("Items Expire On Their Tick")
+    @Test
+    void itemsExpireOnTheirTick() {
+        wheel.schedule("near", START + 2_500);
+        wheel.schedule("after a turn", START + 20_000); // the wheel turns every 8 seconds
+
+        assertAll(
+            () -> assertEquals(List.of(), wheel.advance(START + 1_999)),
+            () -> assertEquals(List.of("near"), wheel.advance(START + 2_000)),
+            () -> assertEquals(List.of(), wheel.advance(START + 12_999),
+                "An item due on a later turn should stay in its bucket"),
+            () -> assertEquals(List.of("after a turn"), wheel.advance(START + 20_000)),
+            () -> assertEquals(0, wheel.size())
+        );
+    }
+
+    @DisplayName("Items Due Already Expire On The Next Tick")
+    @Test
+    void itemsDueAlreadyExpireOnTheNextTick() {
+        wheel.advance(START + 5_000);
+
+        wheel.schedule("late", START + 1_000);
+
+        assertEquals(List.of(), wheel.advance(START + 5_999), "The tick that passed should not be expired again");
+        assertEquals(List.of("late"), wheel.advance(START + 6_000));
+    }
+
+    @DisplayName("Cancelled Items Do Not Expire")
+    @Test
+    void cancelledItemsDoNotExpire() {
+        HashedTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 3_000);
+        wheel.schedule("kept", START + 3_000);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled), "An item should only be cancelled once");
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("kept"), wheel.advance(START + 3_000));
+    }
+
+    @DisplayName("Every Due Item Expires After A Long Pause")
+    @Test
+    void everyDueItemExpiresAfterALongPause() {
+        for (int i = 1; i <= 30; i++) {
+            wheel.schedule("item " + i, START + i * 1_000L);
+        }
+
+        List<String> expired = wheel.advance(START + 25_000); // more than 3 turns at once
+
+        assertEquals(25, expired.size(), "Every item due by then should expire");
+        assertEquals(5, wheel.size());
+        assertEquals(5, wheel.advance(START + 30_000).size());
+    }
+}
@@ -0,0 +1,157 @@
+package com.javaworkshop.business_scheduler.util;
+
+import com.javaworkshop.business_scheduler.dto.ExecutorStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// This class tests that the pool runs its tasks on named threads, bounds its queue with the configured
+// rejection policy, counts what it did, and lets the queued tasks finish on shutdown within the timeout.
+class InstrumentedThreadPoolExecutorTest {
+
+    private final int TIMEOUT_SECONDS = 5;
+
+    private final CountDownLatch release = new CountDownLatch(1); // holds up the blocking tasks
+
+    private InstrumentedThreadPoolExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("A Full Queue Rejects Tasks With The Abort Policy")
+    @Test
+    void aFullQueueRejectsTasksWithTheAbortPolicy() throws InterruptedException {
+        executor = new InstrumentedThreadPoolExecutor("test-pool", 1, 1,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.ABORT, Duration.ofSeconds(1));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<String> threadName = new AtomicReference<>();
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            started.countDown();
+            awaitRelease();
+        });
+        executor.execute(this::awaitRelease);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(this::awaitRelease));
+
+        ExecutorStats stats = executor.getStats();
+        assertAll(
+            () -> assertTrue(threadName.get().startsWith("test-pool-"), "The threads should be named after the pool"),
+            () -> assertEquals(1, stats.getActiveThreads()),
+            () -> assertEquals(1, stats.getQueueDepth()),
+            () -> assertEquals(1, stats.getQueueCapacity()),
+            () -> assertEquals(1, stats.getRejectedCount())
+        );
+    }
+
+    @DisplayName("A Full Queue Runs Tasks On The Caller With The Caller Runs Policy")
+    @Test
+    void aFullQueueRunsTasksOnTheCallerWithTheCallerRunsPolicy() throws InterruptedException {
+        executor = new InstrumentedThreadPoolExecutor("test-pool", 1, 1,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.CALLER_RUNS, Duration.ofSeconds(1));
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        });
+        executor.execute(this::awaitRelease);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get(), "The rejected task should run on the submitting thread");
+        assertEquals(1, executor.getStats().getRejectedCount());
+    }
+
+    @DisplayName("The Waiting And Running Times Are Measured")
+    @Test
+    void theWaitingAndRunningTimesAreMeasured() throws InterruptedException {
+        executor = new InstrumentedThreadPoolExecutor("test-pool", 1, 10,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.ABORT, Duration.ofSeconds(1));
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(() -> {
+            sleep(100);
+            done.countDown();
+        });
+        executor.execute(done::countDown); // waits for the first task to finish
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        ExecutorStats stats = executor.getStats();
+        assertAll(
+            () -> assertEquals(2, stats.getCompletedCount()),
+            () -> assertTrue(stats.getMaxWaitMillis() >= 90, "The second task should have waited for the first"),
+            () -> assertTrue(stats.getAverageRunMillis() >= 45, "The tasks should have run 50ms on average")
+        );
+    }
+
+    @DisplayName("Queued Tasks Finish On A Graceful Shutdown")
+    @Test
+    void queuedTasksFinishOnAGracefulShutdown() {
+        executor = new InstrumentedThreadPoolExecutor("test-pool", 2, 10,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.CALLER_RUNS, Duration.ofSeconds(TIMEOUT_SECONDS));
+        AtomicInteger finished = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                sleep(20);
+                finished.incrementAndGet();
+            });
+        }
+
+        assertTrue(executor.shutdownGracefully());
+
+        assertEquals(10, finished.get(), "Every queued task should have finished");
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(finished::incrementAndGet),
+            "A task submitted after the shutdown should be rejected rather than run or dropped");
+    }
+
+    @DisplayName("Tasks Left After The Shutdown Timeout Are Interrupted")
+    @Test
+    void tasksLeftAfterTheShutdownTimeoutAreInterrupted() throws InterruptedException {
+        executor = new InstrumentedThreadPoolExecutor("test-pool", 1, 10,
+            InstrumentedThreadPoolExecutor.RejectionPolicy.CALLER_RUNS, Duration.ofMillis(100));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(this::awaitRelease);
+        }
+
+        assertFalse(executor.shutdownGracefully());
+
+        assertEquals(0, executor.getStats().getQueueDepth(), "The queued tasks should have been dropped");
+        assertTrue(executor.awaitTermination(TIMEOUT_SECONDS / 2, TimeUnit.SECONDS),
+            "The running task should have been interrupted");
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}